@@ -0,0 +1,73 @@
+package qub;
+
+/**
+ * A JarCreator that copies jar files from a JarFileCache when a jar file with the same contents
+ * has already been created, and that adds the jar files that it creates to the cache.
+ */
+public class CachingJarCreator implements JarCreator
+{
+    private final JarCreator innerJarCreator;
+    private final JarEngine jarEngine;
+    private final String jarEngineVersion;
+    private final JarFileCache cache;
+
+    private CachingJarCreator(JarCreator innerJarCreator, JarEngine jarEngine, String jarEngineVersion, JarFileCache cache)
+    {
+        PreCondition.assertNotNull(innerJarCreator, "innerJarCreator");
+        PreCondition.assertNotNull(jarEngine, "jarEngine");
+        PreCondition.assertNotNullAndNotEmpty(jarEngineVersion, "jarEngineVersion");
+        PreCondition.assertNotNull(cache, "cache");
+
+        this.innerJarCreator = innerJarCreator;
+        this.jarEngine = jarEngine;
+        this.jarEngineVersion = jarEngineVersion;
+        this.cache = cache;
+    }
+
+    /**
+     * Create a new CachingJarCreator.
+     * @param innerJarCreator The JarCreator that will create jar files that aren't in the cache.
+     * @param jarEngine The engine of the inner JarCreator. Jar files that were created by
+     *                  different engines don't share cache entries.
+     * @param jarEngineVersion The version of the inner JarCreator's engine. Jar files that were
+     *                         created by different versions don't share cache entries.
+     * @param cache The cache that jar files will be copied from and added to.
+     * @return The new CachingJarCreator.
+     */
+    public static CachingJarCreator create(JarCreator innerJarCreator, JarEngine jarEngine, String jarEngineVersion, JarFileCache cache)
+    {
+        return new CachingJarCreator(innerJarCreator, jarEngine, jarEngineVersion, cache);
+    }
+
+    @Override
+    public Result<Integer> createJarFile(CreateJarFileParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        // Create the jar file lazily like the inner JarCreators do, so that the jar files of a
+        // parallel pack are still started by the pack's scheduler instead of here.
+        return LazyResult.create(() ->
+        {
+            final File jarFile = parameters.getJarFile();
+            final VerboseCharacterToByteWriteStream verbose = parameters.getVerbose();
+            final String key = JarFileCache.getKey(parameters, this.jarEngine, this.jarEngineVersion);
+
+            int result;
+            if (this.cache.copyTo(key, jarFile))
+            {
+                verbose.writeLine("Copied " + jarFile + " from the jar file cache.").await();
+                result = 0;
+            }
+            else
+            {
+                result = this.innerJarCreator.createJarFile(parameters).await();
+                if (result == 0)
+                {
+                    this.cache.add(key, jarFile);
+                    verbose.writeLine("Added " + jarFile + " to the jar file cache.").await();
+                }
+            }
+            return result;
+        });
+    }
+}
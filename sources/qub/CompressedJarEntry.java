@@ -0,0 +1,418 @@
+package qub;
+
+/**
+ * A single entry of a jar file whose data has already been compressed (or stored) and is ready
+ * to be written to a jar file.
+ */
+public class CompressedJarEntry
+{
+    /**
+     * The compression method used for entries whose data is stored without compression.
+     */
+    public static final int storedMethod = 0;
+
+    /**
+     * The compression method used for entries whose data is compressed with deflate.
+     */
+    public static final int deflatedMethod = 8;
+
+    private static final byte[] emptyBytes = new byte[0];
+
+    private final String name;
+    private final long dosTime;
+    private final int method;
+    private final long crc32;
+    private final long uncompressedSize;
+    private final byte[] data;
+    private final int dataOffset;
+    private final java.nio.file.Path dataFilePath;
+    private final long dataFileOffset;
+    private final long compressedSize;
+    private byte[] extra;
+
+    private CompressedJarEntry(String name, long dosTime, int method, long crc32, long uncompressedSize, byte[] data)
+    {
+        this(name, dosTime, method, crc32, uncompressedSize, data, 0, data == null ? 0 : data.length);
+    }
+
+    private CompressedJarEntry(String name, long dosTime, int method, long crc32, long uncompressedSize, byte[] data, int dataOffset, int dataLength)
+    {
+        PreCondition.assertNotNullAndNotEmpty(name, "name");
+        PreCondition.assertTrue(method == CompressedJarEntry.storedMethod || method == CompressedJarEntry.deflatedMethod, "method == CompressedJarEntry.storedMethod || method == CompressedJarEntry.deflatedMethod");
+        PreCondition.assertGreaterThanOrEqualTo(uncompressedSize, 0, "uncompressedSize");
+        PreCondition.assertNotNull(data, "data");
+        PreCondition.assertBetween(0, dataOffset, data.length, "dataOffset");
+        PreCondition.assertBetween(0, dataLength, data.length - dataOffset, "dataLength");
+
+        this.name = name;
+        this.dosTime = dosTime;
+        this.method = method;
+        this.crc32 = crc32;
+        this.uncompressedSize = uncompressedSize;
+        this.data = data;
+        this.dataOffset = dataOffset;
+        this.dataFilePath = null;
+        this.dataFileOffset = 0;
+        this.compressedSize = dataLength;
+        this.extra = CompressedJarEntry.emptyBytes;
+    }
+
+    private CompressedJarEntry(String name, long dosTime, int method, long crc32, long uncompressedSize, java.nio.file.Path dataFilePath, long dataFileOffset, long compressedSize)
+    {
+        PreCondition.assertNotNullAndNotEmpty(name, "name");
+        PreCondition.assertTrue(method == CompressedJarEntry.storedMethod || method == CompressedJarEntry.deflatedMethod, "method == CompressedJarEntry.storedMethod || method == CompressedJarEntry.deflatedMethod");
+        PreCondition.assertGreaterThanOrEqualTo(uncompressedSize, 0, "uncompressedSize");
+        PreCondition.assertNotNull(dataFilePath, "dataFilePath");
+        PreCondition.assertGreaterThanOrEqualTo(dataFileOffset, 0, "dataFileOffset");
+        PreCondition.assertGreaterThanOrEqualTo(compressedSize, 0, "compressedSize");
+
+        this.name = name;
+        this.dosTime = dosTime;
+        this.method = method;
+        this.crc32 = crc32;
+        this.uncompressedSize = uncompressedSize;
+        this.data = null;
+        this.dataOffset = 0;
+        this.dataFilePath = dataFilePath;
+        this.dataFileOffset = dataFileOffset;
+        this.compressedSize = compressedSize;
+        this.extra = CompressedJarEntry.emptyBytes;
+    }
+
+    /**
+     * Create a new entry from data that has already been compressed with the provided method.
+     * @param name The name of the entry.
+     * @param dosTime The last modified time of the entry in MS-DOS date/time format.
+     * @param method The compression method of the provided data.
+     * @param crc32 The CRC-32 checksum of the entry's uncompressed data.
+     * @param uncompressedSize The number of bytes in the entry's uncompressed data.
+     * @param data The entry's compressed data.
+     * @return The new entry.
+     */
+    public static CompressedJarEntry create(String name, long dosTime, int method, long crc32, long uncompressedSize, byte[] data)
+    {
+        return new CompressedJarEntry(name, dosTime, method, crc32, uncompressedSize, data);
+    }
+
+    /**
+     * Create a new entry whose compressed data is a range of the provided bytes. The bytes aren't
+     * copied, so an entry that is read from an existing jar file can refer to that jar file's
+     * contents and be written to a new jar file without its data being copied first.
+     * @param name The name of the entry.
+     * @param dosTime The last modified time of the entry in MS-DOS date/time format.
+     * @param method The compression method of the entry's data.
+     * @param crc32 The CRC-32 checksum of the entry's uncompressed data.
+     * @param uncompressedSize The number of bytes in the entry's uncompressed data.
+     * @param bytes The bytes that contain the entry's compressed data.
+     * @param dataOffset The index in the provided bytes where the entry's compressed data starts.
+     * @param dataLength The number of bytes in the entry's compressed data.
+     * @return The new entry.
+     */
+    public static CompressedJarEntry create(String name, long dosTime, int method, long crc32, long uncompressedSize, byte[] bytes, int dataOffset, int dataLength)
+    {
+        return new CompressedJarEntry(name, dosTime, method, crc32, uncompressedSize, bytes, dataOffset, dataLength);
+    }
+
+    /**
+     * Create a new entry whose compressed data is a range of the provided file. The data isn't
+     * read until the entry is written, and then it is copied straight from the file to the new
+     * jar file, so an entry that is read from an existing jar file never has to be held in
+     * memory.
+     * @param name The name of the entry.
+     * @param dosTime The last modified time of the entry in MS-DOS date/time format.
+     * @param method The compression method of the entry's data.
+     * @param crc32 The CRC-32 checksum of the entry's uncompressed data.
+     * @param uncompressedSize The number of bytes in the entry's uncompressed data.
+     * @param dataFilePath The path of the file that contains the entry's compressed data.
+     * @param dataFileOffset The offset in the file where the entry's compressed data starts.
+     * @param compressedSize The number of bytes in the entry's compressed data.
+     * @return The new entry.
+     */
+    public static CompressedJarEntry create(String name, long dosTime, int method, long crc32, long uncompressedSize, java.nio.file.Path dataFilePath, long dataFileOffset, long compressedSize)
+    {
+        return new CompressedJarEntry(name, dosTime, method, crc32, uncompressedSize, dataFilePath, dataFileOffset, compressedSize);
+    }
+
+    /**
+     * Create a new folder entry.
+     * @param name The name of the folder entry. This must end with a '/'.
+     * @param timeMilliseconds The last modified time of the folder in milliseconds since the
+     *                         epoch.
+     * @return The new folder entry.
+     */
+    public static CompressedJarEntry folder(String name, long timeMilliseconds)
+    {
+        PreCondition.assertNotNullAndNotEmpty(name, "name");
+        PreCondition.assertTrue(name.endsWith("/"), "name.endsWith(\"/\")");
+
+        return new CompressedJarEntry(name, CompressedJarEntry.toDosTime(timeMilliseconds), CompressedJarEntry.storedMethod, 0, 0, CompressedJarEntry.emptyBytes);
+    }
+
+    /**
+     * Create a new entry by compressing the provided uncompressed data. A compression level of 0
+     * creates a stored entry whose data isn't compressed at all.
+     * @param name The name of the entry.
+     * @param timeMilliseconds The last modified time of the entry in milliseconds since the
+     *                         epoch.
+     * @param uncompressedData The uncompressed data of the entry.
+     * @param compressionLevel The deflate compression level to use, from 0 to 9, or -1 for the
+     *                         default compression level.
+     * @return The new compressed entry.
+     */
+    public static CompressedJarEntry compress(String name, long timeMilliseconds, byte[] uncompressedData, int compressionLevel)
+    {
+        PreCondition.assertNotNullAndNotEmpty(name, "name");
+        PreCondition.assertNotNull(uncompressedData, "uncompressedData");
+        PreCondition.assertBetween(-1, compressionLevel, 9, "compressionLevel");
+
+        final java.util.zip.CRC32 crc32 = new java.util.zip.CRC32();
+        crc32.update(uncompressedData);
+
+        if (compressionLevel == 0)
+        {
+            return new CompressedJarEntry(name, CompressedJarEntry.toDosTime(timeMilliseconds), CompressedJarEntry.storedMethod, crc32.getValue(), uncompressedData.length, uncompressedData);
+        }
+
+        final java.util.zip.Deflater deflater = new java.util.zip.Deflater(compressionLevel, true);
+        try
+        {
+            deflater.setInput(uncompressedData);
+            deflater.finish();
+
+            final java.io.ByteArrayOutputStream compressedData = new java.io.ByteArrayOutputStream(Math.max(64, uncompressedData.length / 2));
+            final byte[] buffer = new byte[8192];
+            while (!deflater.finished())
+            {
+                final int bytesCompressed = deflater.deflate(buffer);
+                compressedData.write(buffer, 0, bytesCompressed);
+            }
+
+            return new CompressedJarEntry(name, CompressedJarEntry.toDosTime(timeMilliseconds), CompressedJarEntry.deflatedMethod, crc32.getValue(), uncompressedData.length, compressedData.toByteArray());
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Create a new entry by compressing the provided uncompressed data. If compressing the data
+     * doesn't save at least the provided ratio of its size, then the entry is stored instead so
+     * that it doesn't need to be inflated when it is read.
+     * @param name The name of the entry.
+     * @param timeMilliseconds The last modified time of the entry in milliseconds since the
+     *                         epoch.
+     * @param uncompressedData The uncompressed data of the entry.
+     * @param compressionLevel The deflate compression level to use, from 0 to 9, or -1 for the
+     *                         default compression level.
+     * @param minimumSavings The ratio of the uncompressed size (from 0 to 1) that compressing
+     *                       the data must save for the entry to be compressed.
+     * @return The new compressed or stored entry.
+     */
+    public static CompressedJarEntry compress(String name, long timeMilliseconds, byte[] uncompressedData, int compressionLevel, double minimumSavings)
+    {
+        PreCondition.assertTrue(0 <= minimumSavings && minimumSavings <= 1, "0 <= minimumSavings && minimumSavings <= 1");
+
+        CompressedJarEntry result = CompressedJarEntry.compress(name, timeMilliseconds, uncompressedData, compressionLevel);
+        if (result.method == CompressedJarEntry.deflatedMethod &&
+            result.getCompressedSize() > uncompressedData.length * (1.0 - minimumSavings))
+        {
+            result = new CompressedJarEntry(name, result.dosTime, CompressedJarEntry.storedMethod, result.crc32, uncompressedData.length, uncompressedData);
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Get the name of this entry.
+     * @return The name of this entry.
+     */
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * Get the last modified time of this entry in MS-DOS date/time format.
+     * @return The last modified time of this entry in MS-DOS date/time format.
+     */
+    public long getDosTime()
+    {
+        return this.dosTime;
+    }
+
+    /**
+     * Get the compression method of this entry.
+     * @return The compression method of this entry.
+     */
+    public int getMethod()
+    {
+        return this.method;
+    }
+
+    /**
+     * Get the CRC-32 checksum of this entry's uncompressed data.
+     * @return The CRC-32 checksum of this entry's uncompressed data.
+     */
+    public long getCrc32()
+    {
+        return this.crc32;
+    }
+
+    /**
+     * Get the number of bytes in this entry's uncompressed data.
+     * @return The number of bytes in this entry's uncompressed data.
+     */
+    public long getUncompressedSize()
+    {
+        return this.uncompressedSize;
+    }
+
+    /**
+     * Get the number of bytes in this entry's compressed data.
+     * @return The number of bytes in this entry's compressed data.
+     */
+    public long getCompressedSize()
+    {
+        return this.compressedSize;
+    }
+
+    /**
+     * Get this entry's compressed data. If this entry refers to a range of a larger array or of a
+     * file, then the range will be copied.
+     * @return This entry's compressed data.
+     */
+    public byte[] getData()
+    {
+        byte[] result;
+        if (this.dataFilePath == null)
+        {
+            result = this.dataOffset == 0 && this.compressedSize == this.data.length
+                ? this.data
+                : java.util.Arrays.copyOfRange(this.data, this.dataOffset, this.dataOffset + (int)this.compressedSize);
+        }
+        else
+        {
+            PreCondition.assertTrue(this.compressedSize <= Integer.MAX_VALUE, "this.getCompressedSize() <= Integer.MAX_VALUE");
+
+            final java.io.ByteArrayOutputStream dataStream = new java.io.ByteArrayOutputStream((int)this.compressedSize);
+            try
+            {
+                this.writeData(dataStream);
+            }
+            catch (java.io.IOException e)
+            {
+                throw Exceptions.asRuntime(e);
+            }
+            result = dataStream.toByteArray();
+        }
+        return result;
+    }
+
+    /**
+     * Get the path of the file that contains this entry's compressed data.
+     * @return The path of the file that contains this entry's compressed data, or null if the
+     * data is in memory.
+     */
+    public java.nio.file.Path getDataFilePath()
+    {
+        return this.dataFilePath;
+    }
+
+    /**
+     * Get the offset in this entry's data file where its compressed data starts.
+     * @return The offset in this entry's data file where its compressed data starts, or 0 if the
+     * data is in memory.
+     */
+    public long getDataFileOffset()
+    {
+        return this.dataFileOffset;
+    }
+
+    /**
+     * Write this entry's compressed data to the provided stream without copying it first. If the
+     * data is a range of a file, then the range is transferred from the file's channel. A
+     * JarFileWriter copies such entries itself so that it only opens the file once.
+     * @param outputStream The stream to write this entry's compressed data to.
+     */
+    public void writeData(java.io.OutputStream outputStream) throws java.io.IOException
+    {
+        PreCondition.assertNotNull(outputStream, "outputStream");
+
+        if (this.dataFilePath == null)
+        {
+            outputStream.write(this.data, this.dataOffset, (int)this.compressedSize);
+        }
+        else
+        {
+            try (final java.nio.channels.FileChannel dataFileChannel = java.nio.channels.FileChannel.open(this.dataFilePath, java.nio.file.StandardOpenOption.READ))
+            {
+                final java.nio.channels.WritableByteChannel outputChannel = java.nio.channels.Channels.newChannel(outputStream);
+                long position = this.dataFileOffset;
+                final long endPosition = this.dataFileOffset + this.compressedSize;
+                while (position < endPosition)
+                {
+                    final long bytesTransferred = dataFileChannel.transferTo(position, endPosition - position, outputChannel);
+                    if (bytesTransferred <= 0)
+                    {
+                        throw new java.io.EOFException("The data of the entry " + Strings.escapeAndQuote(this.name) + " extends past the end of " + this.dataFilePath + ".");
+                    }
+                    position += bytesTransferred;
+                }
+            }
+        }
+    }
+
+    /**
+     * Set the extra field bytes of this entry.
+     * @param extra The extra field bytes of this entry.
+     * @return This object for method chaining.
+     */
+    public CompressedJarEntry setExtra(byte[] extra)
+    {
+        PreCondition.assertNotNull(extra, "extra");
+
+        this.extra = extra;
+        return this;
+    }
+
+    /**
+     * Get the extra field bytes of this entry.
+     * @return The extra field bytes of this entry.
+     */
+    public byte[] getExtra()
+    {
+        return this.extra;
+    }
+
+    /**
+     * Convert the provided number of milliseconds since the epoch to the MS-DOS date/time format
+     * that is used by zip files. Like java.util.zip, the local time zone is used.
+     * @param timeMilliseconds The number of milliseconds since the epoch.
+     * @return The MS-DOS date/time.
+     */
+    static long toDosTime(long timeMilliseconds)
+    {
+        final java.time.LocalDateTime dateTime = java.time.LocalDateTime.ofInstant(java.time.Instant.ofEpochMilli(timeMilliseconds), java.time.ZoneId.systemDefault());
+        final int year = dateTime.getYear();
+
+        long result;
+        if (year < 1980)
+        {
+            // 1980-01-01T00:00 is the earliest time that can be represented.
+            result = (1 << 21) | (1 << 16);
+        }
+        else
+        {
+            result = ((year - 1980L) << 25) |
+                ((long)dateTime.getMonthValue() << 21) |
+                ((long)dateTime.getDayOfMonth() << 16) |
+                ((long)dateTime.getHour() << 11) |
+                ((long)dateTime.getMinute() << 5) |
+                ((long)dateTime.getSecond() >> 1);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,334 @@
+package qub;
+
+/**
+ * The parameters that describe a jar file that should be created by a JarCreator.
+ */
+public class CreateJarFileParameters
+{
+    private final Folder baseFolder;
+    private final File jarFile;
+    private final Iterable<File> files;
+    private File manifestFile;
+    private File previousJarFile;
+    private Iterable<Path> unchangedFilePaths;
+    private java.util.Map<String,FileSnapshot> fileSnapshots;
+    private PackMetrics metrics;
+    private int compressionLevel;
+    private Double minimumCompressionSavings;
+    private DateTime reproducibleTimestamp;
+    private VerboseCharacterToByteWriteStream verbose;
+    private ByteWriteStream outputWriteStream;
+    private ByteWriteStream errorWriteStream;
+
+    private CreateJarFileParameters(Folder baseFolder, File jarFile, Iterable<File> files)
+    {
+        PreCondition.assertNotNull(baseFolder, "baseFolder");
+        PreCondition.assertNotNull(jarFile, "jarFile");
+        PreCondition.assertNotNullAndNotEmpty(files, "files");
+
+        this.baseFolder = baseFolder;
+        this.jarFile = jarFile;
+        this.files = files;
+        this.compressionLevel = java.util.zip.Deflater.DEFAULT_COMPRESSION;
+    }
+
+    /**
+     * Create a new CreateJarFileParameters object.
+     * @param baseFolder The folder that the jar file's entries will be relative to.
+     * @param jarFile The jar file to create.
+     * @param files The files that will be added to the jar file.
+     * @return The new CreateJarFileParameters object.
+     */
+    public static CreateJarFileParameters create(Folder baseFolder, File jarFile, Iterable<File> files)
+    {
+        return new CreateJarFileParameters(baseFolder, jarFile, files);
+    }
+
+    /**
+     * Get the folder that the jar file's entries will be relative to.
+     * @return The folder that the jar file's entries will be relative to.
+     */
+    public Folder getBaseFolder()
+    {
+        return this.baseFolder;
+    }
+
+    /**
+     * Get the jar file to create.
+     * @return The jar file to create.
+     */
+    public File getJarFile()
+    {
+        return this.jarFile;
+    }
+
+    /**
+     * Get the files that will be added to the jar file.
+     * @return The files that will be added to the jar file.
+     */
+    public Iterable<File> getFiles()
+    {
+        return this.files;
+    }
+
+    /**
+     * Get the files that will be added to the jar file in the order that their entries will be
+     * written. If a reproducible timestamp has been set, then the files are sorted by their entry
+     * names. Otherwise they are in the order that they were provided.
+     * @return The files that will be added to the jar file in the order that their entries will
+     * be written.
+     */
+    public Iterable<File> getFilesInEntryOrder()
+    {
+        Iterable<File> result = this.files;
+        if (this.reproducibleTimestamp != null)
+        {
+            final java.util.List<File> sortedFiles = new java.util.ArrayList<>();
+            for (final File file : this.files)
+            {
+                sortedFiles.add(file);
+            }
+            sortedFiles.sort(java.util.Comparator.comparing((File file) -> file.relativeTo(this.baseFolder).toString()));
+
+            final List<File> sortedFileList = List.create();
+            for (final File file : sortedFiles)
+            {
+                sortedFileList.add(file);
+            }
+            result = sortedFileList;
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Set the manifest file that will be added to the jar file.
+     * @param manifestFile The manifest file that will be added to the jar file, or null if the
+     *                     default manifest should be used.
+     * @return This object for method chaining.
+     */
+    public CreateJarFileParameters setManifestFile(File manifestFile)
+    {
+        this.manifestFile = manifestFile;
+        return this;
+    }
+
+    /**
+     * Get the manifest file that will be added to the jar file.
+     * @return The manifest file that will be added to the jar file, or null if the default
+     * manifest should be used.
+     */
+    public File getManifestFile()
+    {
+        return this.manifestFile;
+    }
+
+    /**
+     * Set the jar file that was created the last time this jar file was created, along with the
+     * relative paths of the files that haven't changed since then. Entries for the unchanged files
+     * can be copied from the previous jar file instead of being compressed again.
+     * @param previousJarFile The jar file that was created the last time this jar file was
+     *                        created. This file doesn't need to exist.
+     * @param unchangedFilePaths The paths (relative to the base folder) of the files that haven't
+     *                           changed since the previous jar file was created.
+     * @return This object for method chaining.
+     */
+    public CreateJarFileParameters setPreviousJarFile(File previousJarFile, Iterable<Path> unchangedFilePaths)
+    {
+        PreCondition.assertNotNull(previousJarFile, "previousJarFile");
+        PreCondition.assertNotNull(unchangedFilePaths, "unchangedFilePaths");
+
+        this.previousJarFile = previousJarFile;
+        this.unchangedFilePaths = unchangedFilePaths;
+        return this;
+    }
+
+    /**
+     * Get the jar file that was created the last time this jar file was created.
+     * @return The jar file that was created the last time this jar file was created, or null if
+     * it isn't known.
+     */
+    public File getPreviousJarFile()
+    {
+        return this.previousJarFile;
+    }
+
+    /**
+     * Get the paths (relative to the base folder) of the files that haven't changed since the
+     * previous jar file was created.
+     * @return The paths of the files that haven't changed since the previous jar file was created.
+     */
+    public Iterable<Path> getUnchangedFilePaths()
+    {
+        return this.unchangedFilePaths == null ? Iterable.create() : this.unchangedFilePaths;
+    }
+
+    /**
+     * Set the snapshots that were taken of the files that will be added to the jar file. The
+     * attributes in the snapshots will be used instead of asking the file system for them again.
+     * @param fileSnapshots The snapshots of the files that will be added to the jar file.
+     * @return This object for method chaining.
+     */
+    public CreateJarFileParameters setFileSnapshots(Iterable<FileSnapshot> fileSnapshots)
+    {
+        PreCondition.assertNotNull(fileSnapshots, "fileSnapshots");
+
+        this.fileSnapshots = new java.util.HashMap<>();
+        for (final FileSnapshot fileSnapshot : fileSnapshots)
+        {
+            this.fileSnapshots.put(fileSnapshot.getFile().toString(), fileSnapshot);
+        }
+        return this;
+    }
+
+    /**
+     * Get the snapshot that was taken of the provided file.
+     * @param file The file to get the snapshot of.
+     * @return The snapshot that was taken of the provided file, or null if no snapshot was taken.
+     */
+    public FileSnapshot getFileSnapshot(File file)
+    {
+        PreCondition.assertNotNull(file, "file");
+
+        return this.fileSnapshots == null ? null : this.fileSnapshots.get(file.toString());
+    }
+
+    /**
+     * Set the deflate compression level of the jar file's entries. A compression level of 0
+     * stores the entries without compressing them.
+     * @param compressionLevel The compression level, from 0 to 9, or -1 for the default
+     *                         compression level.
+     * @return This object for method chaining.
+     */
+    public CreateJarFileParameters setCompressionLevel(int compressionLevel)
+    {
+        PreCondition.assertBetween(-1, compressionLevel, 9, "compressionLevel");
+
+        this.compressionLevel = compressionLevel;
+        return this;
+    }
+
+    /**
+     * Get the deflate compression level of the jar file's entries.
+     * @return The compression level, from 0 to 9, or -1 for the default compression level.
+     */
+    public int getCompressionLevel()
+    {
+        return this.compressionLevel;
+    }
+
+    /**
+     * Set the ratio of an entry's size that compressing it must save for the entry to be
+     * compressed. Entries that don't shrink by at least this ratio are stored instead.
+     * @param minimumCompressionSavings The ratio (from 0 to 1) that compressing an entry must
+     *                                  save, or null if every entry should be compressed.
+     * @return This object for method chaining.
+     */
+    public CreateJarFileParameters setMinimumCompressionSavings(Double minimumCompressionSavings)
+    {
+        PreCondition.assertTrue(minimumCompressionSavings == null || (0 <= minimumCompressionSavings && minimumCompressionSavings <= 1), "minimumCompressionSavings == null || (0 <= minimumCompressionSavings && minimumCompressionSavings <= 1)");
+
+        this.minimumCompressionSavings = minimumCompressionSavings;
+        return this;
+    }
+
+    /**
+     * Get the ratio of an entry's size that compressing it must save for the entry to be
+     * compressed.
+     * @return The ratio that compressing an entry must save, or null if every entry should be
+     * compressed.
+     */
+    public Double getMinimumCompressionSavings()
+    {
+        return this.minimumCompressionSavings;
+    }
+
+    /**
+     * Set the timestamp that every entry of the jar file will have. When a timestamp is set, the
+     * entries are also written in order of their names so that identical files always produce an
+     * identical jar file.
+     * @param reproducibleTimestamp The timestamp of every entry, or null if entries should have
+     *                              the last modified time of their files.
+     * @return This object for method chaining.
+     */
+    public CreateJarFileParameters setReproducibleTimestamp(DateTime reproducibleTimestamp)
+    {
+        this.reproducibleTimestamp = reproducibleTimestamp;
+        return this;
+    }
+
+    /**
+     * Get the timestamp that every entry of the jar file will have.
+     * @return The timestamp that every entry of the jar file will have, or null if entries will
+     * have the last modified time of their files.
+     */
+    public DateTime getReproducibleTimestamp()
+    {
+        return this.reproducibleTimestamp;
+    }
+
+    /**
+     * Set the metrics of the pack that this jar file is being created for. A JarCreator that runs
+     * a child process records how long the child process ran in these metrics.
+     * @param metrics The metrics of the pack that this jar file is being created for.
+     * @return This object for method chaining.
+     */
+    public CreateJarFileParameters setMetrics(PackMetrics metrics)
+    {
+        PreCondition.assertNotNull(metrics, "metrics");
+
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * Get the metrics of the pack that this jar file is being created for.
+     * @return The metrics of the pack that this jar file is being created for, or null if they
+     * aren't being recorded.
+     */
+    public PackMetrics getMetrics()
+    {
+        return this.metrics;
+    }
+
+    public CreateJarFileParameters setVerbose(VerboseCharacterToByteWriteStream verbose)
+    {
+        PreCondition.assertNotNull(verbose, "verbose");
+
+        this.verbose = verbose;
+        return this;
+    }
+
+    public VerboseCharacterToByteWriteStream getVerbose()
+    {
+        return this.verbose;
+    }
+
+    public CreateJarFileParameters setOutputWriteStream(ByteWriteStream outputWriteStream)
+    {
+        PreCondition.assertNotNull(outputWriteStream, "outputWriteStream");
+
+        this.outputWriteStream = outputWriteStream;
+        return this;
+    }
+
+    public ByteWriteStream getOutputWriteStream()
+    {
+        return this.outputWriteStream;
+    }
+
+    public CreateJarFileParameters setErrorWriteStream(ByteWriteStream errorWriteStream)
+    {
+        PreCondition.assertNotNull(errorWriteStream, "errorWriteStream");
+
+        this.errorWriteStream = errorWriteStream;
+        return this;
+    }
+
+    public ByteWriteStream getErrorWriteStream()
+    {
+        return this.errorWriteStream;
+    }
+}
@@ -6,12 +6,14 @@ public class FakeJarProcessRun extends FakeProcessRunDecorator<FakeJarProcessRun
     private Path manifestFilePath;
     private Path jarFilePath;
     private final List<Path> contentFilePaths;
+    private final List<Path> argumentFilePaths;
 
     public FakeJarProcessRun()
     {
         super(new BasicFakeProcessRun(JarProcessBuilder.executablePath));
 
         this.contentFilePaths = List.create();
+        this.argumentFilePaths = List.create();
     }
 
     @Override
@@ -67,6 +69,25 @@ public class FakeJarProcessRun extends FakeProcessRunDecorator<FakeJarProcessRun
         return this;
     }
 
+    @Override
+    public FakeJarProcessRun addArgumentFile(Path argumentFilePath)
+    {
+        PreCondition.assertNotNull(argumentFilePath, "argumentFilePath");
+
+        this.argumentFilePaths.add(argumentFilePath);
+        JarArguments.super.addArgumentFile(this.relativeToWorkingFolderPath(argumentFilePath));
+
+        return this;
+    }
+
+    @Override
+    public FakeJarProcessRun addArgumentFile(File argumentFile)
+    {
+        JarArguments.super.addArgumentFile(argumentFile);
+        this.fileSystem = argumentFile.getFileSystem();
+        return this;
+    }
+
     public FakeJarProcessRun setFunctionAutomatically()
     {
         PreCondition.assertNotNull(this.getWorkingFolderPath(), "this.getWorkingFolderPath()");
@@ -76,7 +97,9 @@ public class FakeJarProcessRun extends FakeProcessRunDecorator<FakeJarProcessRun
         return this.setFunction(() ->
         {
             final Folder workingFolder = this.fileSystem.getFolder(this.getWorkingFolderPath()).await();
-            final File jarFile = workingFolder.getFile(this.jarFilePath).await();
+            final File jarFile = this.jarFilePath.isRooted()
+                ? this.fileSystem.getFile(this.jarFilePath).await()
+                : workingFolder.getFile(this.jarFilePath).await();
             try (final CharacterWriteStream jarFileStream = jarFile.getContentsCharacterWriteStream().await())
             {
                 if (this.manifestFilePath != null)
@@ -91,6 +114,16 @@ public class FakeJarProcessRun extends FakeProcessRunDecorator<FakeJarProcessRun
                 {
                     jarFileStream.writeLine(contentFilePath.toString()).await();
                 }
+                for (final Path argumentFilePath : this.argumentFilePaths)
+                {
+                    final File argumentFile = argumentFilePath.isRooted()
+                        ? this.fileSystem.getFile(argumentFilePath).await()
+                        : workingFolder.getFile(argumentFilePath).await();
+                    for (final String contentFilePath : JarArgumentFile.parseContents(argumentFile.getContentsAsString().await()))
+                    {
+                        jarFileStream.writeLine(contentFilePath).await();
+                    }
+                }
             }
         });
     }
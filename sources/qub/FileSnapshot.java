@@ -0,0 +1,81 @@
+package qub;
+
+/**
+ * The attributes of a file that were collected when the folder that contains it was scanned.
+ */
+public class FileSnapshot
+{
+    private final File file;
+    private final Path relativePath;
+    private final Long size;
+    private final DateTime lastModified;
+
+    private FileSnapshot(File file, Path relativePath, Long size, DateTime lastModified)
+    {
+        PreCondition.assertNotNull(file, "file");
+        PreCondition.assertNotNull(relativePath, "relativePath");
+        PreCondition.assertFalse(relativePath.isRooted(), "relativePath.isRooted()");
+        PreCondition.assertTrue(size == null || size >= 0, "size == null || size >= 0");
+        PreCondition.assertNotNull(lastModified, "lastModified");
+
+        this.file = file;
+        this.relativePath = relativePath;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Create a new FileSnapshot.
+     * @param file The file that was scanned.
+     * @param relativePath The path of the file relative to the folder that was scanned.
+     * @param size The number of bytes in the file, or null if the size wasn't collected.
+     * @param lastModified The last time the file was modified.
+     * @return The new FileSnapshot.
+     */
+    public static FileSnapshot create(File file, Path relativePath, Long size, DateTime lastModified)
+    {
+        return new FileSnapshot(file, relativePath, size, lastModified);
+    }
+
+    /**
+     * Get the file that was scanned.
+     * @return The file that was scanned.
+     */
+    public File getFile()
+    {
+        return this.file;
+    }
+
+    /**
+     * Get the path of the file relative to the folder that was scanned.
+     * @return The path of the file relative to the folder that was scanned.
+     */
+    public Path getRelativePath()
+    {
+        return this.relativePath;
+    }
+
+    /**
+     * Get the number of bytes in the file.
+     * @return The number of bytes in the file, or null if the size wasn't collected.
+     */
+    public Long getSize()
+    {
+        return this.size;
+    }
+
+    /**
+     * Get the last time the file was modified.
+     * @return The last time the file was modified.
+     */
+    public DateTime getLastModified()
+    {
+        return this.lastModified;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.relativePath.toString();
+    }
+}
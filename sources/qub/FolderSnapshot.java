@@ -0,0 +1,388 @@
+package qub;
+
+/**
+ * The files with a particular file extension that were found when a folder was scanned, along
+ * with the attributes that are needed to decide whether or not those files have changed. A
+ * folder is scanned once so that the same snapshot can be used both to detect changes and to
+ * write the jar file without asking the file system about each file a second time.
+ */
+public class FolderSnapshot
+{
+    private final Folder folder;
+    private final boolean exists;
+    private final Iterable<FileSnapshot> files;
+
+    private FolderSnapshot(Folder folder, boolean exists, Iterable<FileSnapshot> files)
+    {
+        PreCondition.assertNotNull(folder, "folder");
+        PreCondition.assertNotNull(files, "files");
+
+        this.folder = folder;
+        this.exists = exists;
+        this.files = files;
+    }
+
+    /**
+     * Scan the provided folder for the files that have the provided file extension.
+     * @param folder The folder to scan.
+     * @param fileExtension The file extension of the files to collect.
+     * @param packageFoldersOnly Whether or not subfolders whose names can't be part of a Java
+     *                           package name (such as META-INF) will be skipped without being
+     *                           scanned.
+     * @return The snapshot of the scanned folder.
+     */
+    public static FolderSnapshot create(Folder folder, String fileExtension, boolean packageFoldersOnly)
+    {
+        return FolderSnapshot.create(folder, fileExtension, packageFoldersOnly, 1);
+    }
+
+    /**
+     * Scan the provided folder for the files that have the provided file extension.
+     * @param folder The folder to scan.
+     * @param fileExtension The file extension of the files to collect.
+     * @param packageFoldersOnly Whether or not subfolders whose names can't be part of a Java
+     *                           package name (such as META-INF) will be skipped without being
+     *                           scanned.
+     * @param fileAttributeThreadCount The number of threads that will get the attributes of the
+     *                                 scanned files. When this is greater than 1, the folder's
+     *                                 files are found first and then their attributes are
+     *                                 requested concurrently, which hides the latency of each
+     *                                 request on network file systems.
+     * @return The snapshot of the scanned folder.
+     */
+    public static FolderSnapshot create(Folder folder, String fileExtension, boolean packageFoldersOnly, int fileAttributeThreadCount)
+    {
+        PreCondition.assertNotNull(folder, "folder");
+        PreCondition.assertNotNullAndNotEmpty(fileExtension, "fileExtension");
+        PreCondition.assertGreaterThanOrEqualTo(fileAttributeThreadCount, 1, "fileAttributeThreadCount");
+
+        final boolean exists = folder.exists().await();
+        final List<FileSnapshot> files = List.create();
+        if (exists)
+        {
+            if (folder.getFileSystem() instanceof JavaFileSystem)
+            {
+                if (fileAttributeThreadCount == 1)
+                {
+                    FolderSnapshot.scanJavaFileSystemFolder(folder, fileExtension, packageFoldersOnly, files);
+                }
+                else
+                {
+                    final java.nio.file.Path rootPath = java.nio.file.Paths.get(folder.toString());
+                    final List<java.nio.file.Path> filePaths = List.create();
+                    FolderSnapshot.findJavaFileSystemFiles(rootPath, rootPath, fileExtension, packageFoldersOnly, filePaths);
+                    files.addAll(FolderSnapshot.getFileSnapshots(filePaths, (java.nio.file.Path filePath) ->
+                    {
+                        try
+                        {
+                            final java.nio.file.attribute.BasicFileAttributes attributes = java.nio.file.Files.readAttributes(filePath, java.nio.file.attribute.BasicFileAttributes.class);
+                            return !attributes.isRegularFile()
+                                ? null
+                                : FolderSnapshot.createFileSnapshot(folder, rootPath, filePath, attributes);
+                        }
+                        catch (java.io.IOException e)
+                        {
+                            throw Exceptions.asRuntime(e);
+                        }
+                    }, fileAttributeThreadCount));
+                }
+            }
+            else if (fileAttributeThreadCount > 1)
+            {
+                final List<File> candidateFiles = List.create();
+                for (final File file : folder.iterateFilesRecursively())
+                {
+                    if (Comparer.equal(file.getFileExtension(), fileExtension))
+                    {
+                        final Path relativePath = file.relativeTo(folder);
+                        if (!packageFoldersOnly || FolderSnapshot.isInPackageFolder(relativePath))
+                        {
+                            candidateFiles.add(file);
+                        }
+                    }
+                }
+                files.addAll(FolderSnapshot.getFileSnapshots(candidateFiles, (File file) ->
+                {
+                    return FileSnapshot.create(file, file.relativeTo(folder), null, file.getLastModified().await());
+                }, fileAttributeThreadCount));
+            }
+            else
+            {
+                for (final File file : folder.iterateFilesRecursively())
+                {
+                    if (Comparer.equal(file.getFileExtension(), fileExtension))
+                    {
+                        final Path relativePath = file.relativeTo(folder);
+                        if (!packageFoldersOnly || FolderSnapshot.isInPackageFolder(relativePath))
+                        {
+                            files.add(FileSnapshot.create(file, relativePath, null, file.getLastModified().await()));
+                        }
+                    }
+                }
+            }
+        }
+
+        final FolderSnapshot result = new FolderSnapshot(folder, exists, files);
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Scan a folder on the Java file system in a single walk that collects the size and last
+     * modified time of each file from the same directory read that found the file.
+     * @param folder The folder to scan.
+     * @param fileExtension The file extension of the files to collect.
+     * @param packageFoldersOnly Whether or not subfolders whose names can't be part of a Java
+     *                           package name will be skipped.
+     * @param files The list that the scanned files will be added to.
+     */
+    private static void scanJavaFileSystemFolder(Folder folder, String fileExtension, boolean packageFoldersOnly, List<FileSnapshot> files)
+    {
+        PreCondition.assertNotNull(folder, "folder");
+        PreCondition.assertNotNullAndNotEmpty(fileExtension, "fileExtension");
+        PreCondition.assertNotNull(files, "files");
+
+        final java.nio.file.Path rootPath = java.nio.file.Paths.get(folder.toString());
+        try
+        {
+            java.nio.file.Files.walkFileTree(rootPath, new java.nio.file.SimpleFileVisitor<java.nio.file.Path>()
+            {
+                @Override
+                public java.nio.file.FileVisitResult preVisitDirectory(java.nio.file.Path directoryPath, java.nio.file.attribute.BasicFileAttributes attributes)
+                {
+                    return !packageFoldersOnly || directoryPath.equals(rootPath) || FolderSnapshot.isPackageFolderName(directoryPath.getFileName().toString())
+                        ? java.nio.file.FileVisitResult.CONTINUE
+                        : java.nio.file.FileVisitResult.SKIP_SUBTREE;
+                }
+
+                @Override
+                public java.nio.file.FileVisitResult visitFile(java.nio.file.Path filePath, java.nio.file.attribute.BasicFileAttributes attributes)
+                {
+                    if (attributes.isRegularFile() && filePath.getFileName().toString().endsWith(fileExtension))
+                    {
+                        files.add(FolderSnapshot.createFileSnapshot(folder, rootPath, filePath, attributes));
+                    }
+                    return java.nio.file.FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        catch (java.io.IOException e)
+        {
+            throw Exceptions.asRuntime(e);
+        }
+    }
+
+    /**
+     * Find the paths of the files in a folder on the Java file system that have the provided file
+     * extension without reading their attributes. Only the entries that don't have the provided
+     * file extension are checked to see if they are folders, so the number of requests that are
+     * made while finding the files is proportional to the number of folders instead of the number
+     * of files.
+     * @param rootPath The path of the folder that is being scanned.
+     * @param folderPath The path of the folder to search.
+     * @param fileExtension The file extension of the files to find.
+     * @param packageFoldersOnly Whether or not subfolders whose names can't be part of a Java
+     *                           package name will be skipped.
+     * @param filePaths The list that the found file paths will be added to.
+     */
+    private static void findJavaFileSystemFiles(java.nio.file.Path rootPath, java.nio.file.Path folderPath, String fileExtension, boolean packageFoldersOnly, List<java.nio.file.Path> filePaths)
+    {
+        PreCondition.assertNotNull(rootPath, "rootPath");
+        PreCondition.assertNotNull(folderPath, "folderPath");
+        PreCondition.assertNotNullAndNotEmpty(fileExtension, "fileExtension");
+        PreCondition.assertNotNull(filePaths, "filePaths");
+
+        final List<java.nio.file.Path> subfolderPaths = List.create();
+        try (final java.nio.file.DirectoryStream<java.nio.file.Path> entryPaths = java.nio.file.Files.newDirectoryStream(folderPath))
+        {
+            for (final java.nio.file.Path entryPath : entryPaths)
+            {
+                final String entryName = entryPath.getFileName().toString();
+                if (entryName.endsWith(fileExtension))
+                {
+                    filePaths.add(entryPath);
+                }
+                else if ((!packageFoldersOnly || FolderSnapshot.isPackageFolderName(entryName)) &&
+                    java.nio.file.Files.isDirectory(entryPath, java.nio.file.LinkOption.NOFOLLOW_LINKS))
+                {
+                    subfolderPaths.add(entryPath);
+                }
+            }
+        }
+        catch (java.io.IOException e)
+        {
+            throw Exceptions.asRuntime(e);
+        }
+
+        for (final java.nio.file.Path subfolderPath : subfolderPaths)
+        {
+            FolderSnapshot.findJavaFileSystemFiles(rootPath, subfolderPath, fileExtension, packageFoldersOnly, filePaths);
+        }
+    }
+
+    /**
+     * Get the snapshots of the provided files by requesting their attributes concurrently. The
+     * snapshots are returned in the same order as the provided files.
+     * @param files The files to get the snapshots of.
+     * @param getFileSnapshot The function that gets the snapshot of a single file. If this
+     *                        function returns null, then the file will be skipped.
+     * @param threadCount The maximum number of attribute requests that will be made at the same
+     *                    time on the threads of the PackExecutor.
+     * @param <T> The type of the files.
+     * @return The snapshots of the provided files.
+     */
+    private static <T> Iterable<FileSnapshot> getFileSnapshots(Iterable<T> files, Function1<T,FileSnapshot> getFileSnapshot, int threadCount)
+    {
+        PreCondition.assertNotNull(files, "files");
+        PreCondition.assertNotNull(getFileSnapshot, "getFileSnapshot");
+        PreCondition.assertGreaterThanOrEqualTo(threadCount, 1, "threadCount");
+
+        final List<FileSnapshot> result = List.create();
+        final int fileCount = files.getCount();
+        if (fileCount > 0)
+        {
+            final java.util.concurrent.Semaphore attributePermits = new java.util.concurrent.Semaphore(Math.min(threadCount, fileCount));
+            final List<java.util.concurrent.Future<FileSnapshot>> pendingFileSnapshots = List.create();
+            try
+            {
+                for (final T file : files)
+                {
+                    pendingFileSnapshots.add(PackExecutor.submit(attributePermits, () -> getFileSnapshot.run(file)));
+                }
+                for (final java.util.concurrent.Future<FileSnapshot> pendingFileSnapshot : pendingFileSnapshots)
+                {
+                    final FileSnapshot fileSnapshot = FolderSnapshot.awaitFileSnapshot(pendingFileSnapshot);
+                    if (fileSnapshot != null)
+                    {
+                        result.add(fileSnapshot);
+                    }
+                }
+            }
+            finally
+            {
+                // The attribute requests run on shared threads, so the requests that are still
+                // waiting after an error are cancelled instead of being left to run.
+                for (final java.util.concurrent.Future<FileSnapshot> pendingFileSnapshot : pendingFileSnapshots)
+                {
+                    pendingFileSnapshot.cancel(false);
+                }
+            }
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    private static FileSnapshot awaitFileSnapshot(java.util.concurrent.Future<FileSnapshot> pendingFileSnapshot)
+    {
+        PreCondition.assertNotNull(pendingFileSnapshot, "pendingFileSnapshot");
+
+        try
+        {
+            return pendingFileSnapshot.get();
+        }
+        catch (java.util.concurrent.ExecutionException e)
+        {
+            throw Exceptions.asRuntime(e.getCause());
+        }
+        catch (InterruptedException e)
+        {
+            throw Exceptions.asRuntime(e);
+        }
+    }
+
+    /**
+     * Create the snapshot of a file on the Java file system from the attributes that were read
+     * for it.
+     * @param folder The folder that is being scanned.
+     * @param rootPath The path of the folder that is being scanned.
+     * @param filePath The path of the file.
+     * @param attributes The attributes of the file.
+     * @return The snapshot of the file.
+     */
+    private static FileSnapshot createFileSnapshot(Folder folder, java.nio.file.Path rootPath, java.nio.file.Path filePath, java.nio.file.attribute.BasicFileAttributes attributes)
+    {
+        PreCondition.assertNotNull(folder, "folder");
+        PreCondition.assertNotNull(rootPath, "rootPath");
+        PreCondition.assertNotNull(filePath, "filePath");
+        PreCondition.assertNotNull(attributes, "attributes");
+
+        final StringBuilder relativePathString = new StringBuilder();
+        for (final java.nio.file.Path segment : rootPath.relativize(filePath))
+        {
+            if (relativePathString.length() > 0)
+            {
+                relativePathString.append('/');
+            }
+            relativePathString.append(segment.toString());
+        }
+        final Path relativePath = Path.parse(relativePathString.toString());
+        final File file = folder.getFile(relativePathString.toString()).await();
+        final DateTime lastModified = DateTime.create(java.time.OffsetDateTime.ofInstant(attributes.lastModifiedTime().toInstant(), java.time.ZoneOffset.UTC));
+        return FileSnapshot.create(file, relativePath, attributes.size(), lastModified);
+    }
+
+    /**
+     * Get whether or not every folder in the provided relative file path can be part of a Java
+     * package name.
+     * @param relativeFilePath The relative path to a file.
+     * @return Whether or not every folder in the provided path can be part of a Java package name.
+     */
+    static boolean isInPackageFolder(Path relativeFilePath)
+    {
+        PreCondition.assertNotNull(relativeFilePath, "relativeFilePath");
+
+        return !relativeFilePath.getSegments()
+            .skipLast()
+            .contains((String folderName) -> !FolderSnapshot.isPackageFolderName(folderName));
+    }
+
+    /**
+     * Get whether or not the provided folder name can be part of a Java package name. Compiled
+     * class files are always written to folders that match their package names, so folders such
+     * as META-INF can't contain class files that were compiled from the project's sources.
+     * @param folderName The folder name to check.
+     * @return Whether or not the provided folder name can be part of a Java package name.
+     */
+    static boolean isPackageFolderName(String folderName)
+    {
+        PreCondition.assertNotNull(folderName, "folderName");
+
+        boolean result = !folderName.isEmpty() && Character.isJavaIdentifierStart(folderName.charAt(0));
+        for (int i = 1; result && i < folderName.length(); ++i)
+        {
+            result = Character.isJavaIdentifierPart(folderName.charAt(i));
+        }
+        return result;
+    }
+
+    /**
+     * Get the folder that was scanned.
+     * @return The folder that was scanned.
+     */
+    public Folder getFolder()
+    {
+        return this.folder;
+    }
+
+    /**
+     * Get whether or not the scanned folder existed when it was scanned.
+     * @return Whether or not the scanned folder existed when it was scanned.
+     */
+    public boolean exists()
+    {
+        return this.exists;
+    }
+
+    /**
+     * Get the files that were found when the folder was scanned.
+     * @return The files that were found when the folder was scanned.
+     */
+    public Iterable<FileSnapshot> getFiles()
+    {
+        return this.files;
+    }
+}
@@ -0,0 +1,482 @@
+package qub;
+
+/**
+ * A JarCreator that writes jar files directly from within the current process instead of
+ * running the external jar executable. The created jar files have the same layout as the jar
+ * files that are created by "jar --create --file=<jar-file> [--manifest=<manifest-file>]". Each
+ * jar file is streamed to a temporary file next to it and then renamed over it, so the jar file
+ * is never held in memory and readers never see a partially written jar file.
+ */
+public class InternalJarCreator implements JarCreator
+{
+    private static final String metaInfFolderEntryName = "META-INF/";
+    private static final String manifestFileEntryName = "META-INF/MANIFEST.MF";
+
+    /**
+     * The extra field that the jar executable adds to the first entry of a jar file to mark the
+     * file as an executable jar file.
+     */
+    private static final byte[] jarMagicExtra = new byte[] { (byte)0xFE, (byte)0xCA, 0x00, 0x00 };
+
+    /**
+     * The number of compressed entries that may be waiting to be written for each compression
+     * thread. This bounds the amount of memory that compressed entries can use while earlier
+     * entries are still being compressed.
+     */
+    private static final int pendingEntriesPerThread = 4;
+
+    private int compressionThreadCount;
+
+    private InternalJarCreator()
+    {
+        this.compressionThreadCount = 1;
+    }
+
+    /**
+     * Create a new InternalJarCreator.
+     * @return The new InternalJarCreator.
+     */
+    public static InternalJarCreator create()
+    {
+        return new InternalJarCreator();
+    }
+
+    /**
+     * Set the number of threads that will compress the entries of a jar file. The entries are
+     * compressed on the threads of the PackExecutor, and this is the number of them that a single
+     * jar file can use at the same time. The compressed entries are always written to the jar
+     * file in the same order that they were provided, no matter how many threads compress them.
+     * @param compressionThreadCount The number of threads that will compress the entries of a jar
+     *                               file.
+     * @return This object for method chaining.
+     */
+    public InternalJarCreator setCompressionThreadCount(int compressionThreadCount)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(compressionThreadCount, 1, "compressionThreadCount");
+
+        this.compressionThreadCount = compressionThreadCount;
+        return this;
+    }
+
+    /**
+     * Get the number of threads that will compress the entries of a jar file.
+     * @return The number of threads that will compress the entries of a jar file.
+     */
+    public int getCompressionThreadCount()
+    {
+        return this.compressionThreadCount;
+    }
+
+    @Override
+    public Result<Integer> createJarFile(CreateJarFileParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        // Create the jar file lazily like ProcessJarCreator does, so that a parallel pack's
+        // scheduler decides when the jar file is created instead of the caller's thread.
+        return LazyResult.create(() ->
+        {
+            final Folder baseFolder = parameters.getBaseFolder();
+            final File jarFile = parameters.getJarFile();
+            final Iterable<File> files = parameters.getFilesInEntryOrder();
+            final VerboseCharacterToByteWriteStream verbose = parameters.getVerbose();
+            final int compressionLevel = parameters.getCompressionLevel();
+            final Double minimumCompressionSavings = parameters.getMinimumCompressionSavings();
+            final CompressionSummary compressionSummary = new CompressionSummary();
+
+            final java.util.Map<String,CompressedJarEntry> previousEntries = InternalJarCreator.getPreviousEntries(parameters);
+
+            final int fileCount = files.getCount();
+            final int threadCount = Math.min(this.compressionThreadCount, fileCount - previousEntries.size());
+            verbose.writeLine("Writing " + fileCount + " " + (fileCount == 1 ? "entry" : "entries") + " to " + jarFile + (threadCount > 1 ? " with " + threadCount + " compression threads" : "") + "...").await();
+            if (!previousEntries.isEmpty())
+            {
+                verbose.writeLine("Copying " + previousEntries.size() + " unchanged " + (previousEntries.size() == 1 ? "entry" : "entries") + " from the previous " + parameters.getPreviousJarFile() + "...").await();
+            }
+
+            final DateTime reproducibleTimestamp = parameters.getReproducibleTimestamp();
+            final Long reproducibleTimeMilliseconds = reproducibleTimestamp == null
+                ? null
+                : InternalJarCreator.getReproducibleTimeMilliseconds(reproducibleTimestamp);
+            final long currentTimeMilliseconds = reproducibleTimeMilliseconds != null
+                ? reproducibleTimeMilliseconds
+                : System.currentTimeMillis();
+            final File temporaryJarFile = QubPack.getTemporaryFile(jarFile);
+            final java.util.concurrent.Semaphore compressionPermits = threadCount <= 1
+                ? null
+                : new java.util.concurrent.Semaphore(threadCount);
+            final java.util.ArrayDeque<java.util.concurrent.Future<CompressedJarEntry>> pendingEntries = new java.util.ArrayDeque<>();
+            try
+            {
+                try (final java.nio.channels.WritableByteChannel jarChannel = InternalJarCreator.createOutputChannel(temporaryJarFile);
+                     final JarFileWriter jarFileWriter = JarFileWriter.create(jarChannel))
+                {
+                    jarFileWriter.writeEntry(CompressedJarEntry.folder(InternalJarCreator.metaInfFolderEntryName, currentTimeMilliseconds)
+                        .setExtra(InternalJarCreator.jarMagicExtra));
+                    jarFileWriter.writeEntry(CompressedJarEntry.compress(InternalJarCreator.manifestFileEntryName, currentTimeMilliseconds, InternalJarCreator.getManifestBytes(parameters.getManifestFile(), reproducibleTimestamp != null), compressionLevel));
+
+                    // Entries are compressed in parallel, but they are written in the order that they
+                    // were submitted so that the layout of the jar file doesn't depend on which entry
+                    // finishes compressing first.
+                    final int maximumPendingEntries = threadCount * InternalJarCreator.pendingEntriesPerThread;
+
+                    final Set<String> folderEntryNames = Set.create();
+                    for (final File file : files)
+                    {
+                        final String entryName = file.relativeTo(baseFolder).toString();
+                        for (final String folderEntryName : InternalJarCreator.getNewFolderEntryNames(entryName, folderEntryNames))
+                        {
+                            pendingEntries.add(java.util.concurrent.CompletableFuture.completedFuture(CompressedJarEntry.folder(folderEntryName, currentTimeMilliseconds)));
+                        }
+
+                        final CompressedJarEntry previousEntry = previousEntries.get(entryName);
+                        if (previousEntry != null)
+                        {
+                            pendingEntries.add(java.util.concurrent.CompletableFuture.completedFuture(previousEntry));
+                        }
+                        else if (compressionPermits == null)
+                        {
+                            pendingEntries.add(java.util.concurrent.CompletableFuture.completedFuture(InternalJarCreator.compressEntry(file, parameters.getFileSnapshot(file), entryName, reproducibleTimeMilliseconds, compressionLevel, minimumCompressionSavings).get()));
+                        }
+                        else
+                        {
+                            pendingEntries.add(PackExecutor.submit(compressionPermits, InternalJarCreator.compressEntry(file, parameters.getFileSnapshot(file), entryName, reproducibleTimeMilliseconds, compressionLevel, minimumCompressionSavings)::get));
+                        }
+
+                        while (pendingEntries.size() > maximumPendingEntries || (compressionPermits == null && !pendingEntries.isEmpty()))
+                        {
+                            jarFileWriter.writeEntry(compressionSummary.add(InternalJarCreator.awaitEntry(pendingEntries.removeFirst())));
+                        }
+                    }
+
+                    while (!pendingEntries.isEmpty())
+                    {
+                        jarFileWriter.writeEntry(compressionSummary.add(InternalJarCreator.awaitEntry(pendingEntries.removeFirst())));
+                    }
+                }
+
+                // The previous jar file may be this jar file, so it isn't replaced until every
+                // entry has been copied from it.
+                QubPack.moveFile(temporaryJarFile, jarFile);
+            }
+            catch (java.io.IOException e)
+            {
+                throw Exceptions.asRuntime(e);
+            }
+            finally
+            {
+                // The compression threads are shared, so the entries that weren't written because
+                // of an error are cancelled instead of being left to compress.
+                for (final java.util.concurrent.Future<CompressedJarEntry> pendingEntry : pendingEntries)
+                {
+                    pendingEntry.cancel(false);
+                }
+                temporaryJarFile.delete()
+                    .catchError(FileNotFoundException.class)
+                    .await();
+            }
+
+            if (minimumCompressionSavings != null)
+            {
+                verbose.writeLine(compressionSummary.toString(jarFile)).await();
+            }
+
+            return 0;
+        });
+    }
+
+    /**
+     * Create a channel that writes to the provided file. On the Java file system this is the
+     * file's FileChannel, so that unchanged entries can be transferred straight from the previous
+     * jar file. Other file systems get the contents when the returned channel is closed.
+     * @param file The file to write to.
+     * @return The channel that writes to the provided file.
+     */
+    static java.nio.channels.WritableByteChannel createOutputChannel(File file) throws java.io.IOException
+    {
+        PreCondition.assertNotNull(file, "file");
+
+        java.nio.channels.WritableByteChannel result;
+        if (file.getFileSystem() instanceof JavaFileSystem)
+        {
+            final java.nio.file.Path filePath = java.nio.file.Paths.get(file.toString());
+            java.nio.file.Files.createDirectories(filePath.getParent());
+            result = java.nio.channels.FileChannel.open(filePath, java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.TRUNCATE_EXISTING, java.nio.file.StandardOpenOption.WRITE);
+        }
+        else
+        {
+            result = java.nio.channels.Channels.newChannel(new java.io.ByteArrayOutputStream()
+            {
+                private boolean closed;
+
+                @Override
+                public void close()
+                {
+                    if (!this.closed)
+                    {
+                        this.closed = true;
+                        file.setContents(this.toByteArray()).await();
+                    }
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Read the provided file and get a task that will compress its contents into a new entry.
+     * The file is read on the current thread so that only the compression happens on the
+     * compression threads.
+     * @param file The file to compress.
+     * @param fileSnapshot The snapshot that was taken of the file, or null if no snapshot was
+     *                     taken.
+     * @param entryName The name of the entry to create.
+     * @param entryTimeMilliseconds The time of the entry in milliseconds since the epoch, or null
+     *                              if the entry should have the file's last modified time.
+     * @param compressionLevel The deflate compression level to use.
+     * @param minimumCompressionSavings The ratio that compressing the file's contents must save
+     *                                  for the entry to be compressed, or null if the entry should
+     *                                  always be compressed.
+     * @return The task that will compress the file's contents.
+     */
+    private static java.util.function.Supplier<CompressedJarEntry> compressEntry(File file, FileSnapshot fileSnapshot, String entryName, Long entryTimeMilliseconds, int compressionLevel, Double minimumCompressionSavings)
+    {
+        PreCondition.assertNotNull(file, "file");
+        PreCondition.assertNotNullAndNotEmpty(entryName, "entryName");
+
+        final long timeMilliseconds;
+        if (entryTimeMilliseconds != null)
+        {
+            timeMilliseconds = entryTimeMilliseconds;
+        }
+        else
+        {
+            final DateTime lastModified = fileSnapshot != null
+                ? fileSnapshot.getLastModified()
+                : file.getLastModified().await();
+            timeMilliseconds = InternalJarCreator.getMillisecondsSinceEpoch(lastModified);
+        }
+        final byte[] entryBytes = file.getContentsAsByteArray().await();
+        return minimumCompressionSavings == null
+            ? () -> CompressedJarEntry.compress(entryName, timeMilliseconds, entryBytes, compressionLevel)
+            : () -> CompressedJarEntry.compress(entryName, timeMilliseconds, entryBytes, compressionLevel, minimumCompressionSavings);
+    }
+
+    /**
+     * Get the entries from the previous jar file that can be copied into the new jar file without
+     * being compressed again. If the previous jar file doesn't exist or can't be read, then no
+     * entries will be returned and every entry will be compressed. Entries that were stored when
+     * the new jar file's entries will be compressed (or the reverse) are compressed again so that
+     * changing the compression level to or from 0 takes effect. When adaptive compression is
+     * used, both stored and compressed entries can be copied. When a reproducible timestamp is
+     * set, only entries that already have that timestamp are copied.
+     * @param parameters The parameters of the jar file that is being created.
+     * @return The entries that can be copied, mapped by their entry names.
+     */
+    static java.util.Map<String,CompressedJarEntry> getPreviousEntries(CreateJarFileParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        final java.util.Map<String,CompressedJarEntry> result = new java.util.HashMap<>();
+        final File previousJarFile = parameters.getPreviousJarFile();
+        final Iterable<Path> unchangedFilePaths = parameters.getUnchangedFilePaths();
+        if (previousJarFile != null && unchangedFilePaths.any())
+        {
+            final boolean adaptiveCompression = parameters.getMinimumCompressionSavings() != null;
+            final int expectedMethod = parameters.getCompressionLevel() == 0
+                ? CompressedJarEntry.storedMethod
+                : CompressedJarEntry.deflatedMethod;
+            final DateTime reproducibleTimestamp = parameters.getReproducibleTimestamp();
+            final Long expectedDosTime = reproducibleTimestamp == null
+                ? null
+                : CompressedJarEntry.toDosTime(InternalJarCreator.getReproducibleTimeMilliseconds(reproducibleTimestamp));
+            final java.util.Set<String> unchangedEntryNames = new java.util.HashSet<>();
+            for (final Path unchangedFilePath : unchangedFilePaths)
+            {
+                unchangedEntryNames.add(unchangedFilePath.toString());
+            }
+            final java.util.Map<String,CompressedJarEntry> previousEntries = JarFileReader.readEntries(previousJarFile, unchangedEntryNames)
+                .catchError()
+                .await();
+            if (previousEntries != null)
+            {
+                for (final String entryName : unchangedEntryNames)
+                {
+                    final CompressedJarEntry previousEntry = previousEntries.get(entryName);
+                    if (previousEntry != null &&
+                        (previousEntry.getMethod() == expectedMethod || (adaptiveCompression && parameters.getCompressionLevel() != 0)) &&
+                        (expectedDosTime == null || previousEntry.getDosTime() == expectedDosTime))
+                    {
+                        result.put(entryName, previousEntry);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static CompressedJarEntry awaitEntry(java.util.concurrent.Future<CompressedJarEntry> pendingEntry)
+    {
+        PreCondition.assertNotNull(pendingEntry, "pendingEntry");
+
+        try
+        {
+            return pendingEntry.get();
+        }
+        catch (java.util.concurrent.ExecutionException e)
+        {
+            throw Exceptions.asRuntime(e.getCause());
+        }
+        catch (InterruptedException e)
+        {
+            throw Exceptions.asRuntime(e);
+        }
+    }
+
+    /**
+     * Get the version of the Java runtime that the internal jar engine runs on. The runtime's
+     * Deflater decides the bytes of the compressed entries.
+     * @return The version of the Java runtime that the internal jar engine runs on.
+     */
+    static String getVersion()
+    {
+        return System.getProperty("java.version") + " (" + System.getProperty("java.vendor") + ")";
+    }
+
+    /**
+     * Get the bytes of the manifest file that will be written to the jar file. The jar
+     * executable always writes a manifest file, so a default manifest will be returned if no
+     * manifest file is provided. The jar executable also adds a Created-By attribute with the
+     * running Java version, but reproducible jar files leave it out so that they have the same
+     * bytes no matter which Java version created them.
+     * @param manifestFile The manifest file to read, or null if a default manifest should be used.
+     * @param reproducible Whether or not the manifest is for a reproducible jar file.
+     * @return The bytes of the manifest file.
+     */
+    static byte[] getManifestBytes(File manifestFile, boolean reproducible) throws java.io.IOException
+    {
+        final java.util.jar.Manifest manifest = new java.util.jar.Manifest();
+        if (manifestFile != null)
+        {
+            manifest.read(new java.io.ByteArrayInputStream(manifestFile.getContentsAsByteArray().await()));
+        }
+        final java.util.jar.Attributes mainAttributes = manifest.getMainAttributes();
+        mainAttributes.putIfAbsent(java.util.jar.Attributes.Name.MANIFEST_VERSION, "1.0");
+        if (!reproducible)
+        {
+            mainAttributes.putIfAbsent(new java.util.jar.Attributes.Name("Created-By"), InternalJarCreator.getVersion());
+        }
+
+        final java.io.ByteArrayOutputStream result = new java.io.ByteArrayOutputStream();
+        manifest.write(result);
+        return result.toByteArray();
+    }
+
+    /**
+     * Get the names of the folders that contain the provided entry and that haven't been written
+     * yet. The returned folder entry names will be added to the provided folderEntryNames.
+     * @param entryName The name of the entry whose folders should be returned.
+     * @param folderEntryNames The names of the folder entries that have already been written.
+     * @return The names of the folder entries that need to be written before the provided entry.
+     */
+    static Iterable<String> getNewFolderEntryNames(String entryName, Set<String> folderEntryNames)
+    {
+        PreCondition.assertNotNullAndNotEmpty(entryName, "entryName");
+        PreCondition.assertNotNull(folderEntryNames, "folderEntryNames");
+
+        final List<String> result = List.create();
+        int separatorIndex = entryName.indexOf('/');
+        while (separatorIndex > 0)
+        {
+            final String folderEntryName = entryName.substring(0, separatorIndex + 1);
+            if (!folderEntryNames.contains(folderEntryName))
+            {
+                folderEntryNames.add(folderEntryName);
+                result.add(folderEntryName);
+            }
+            separatorIndex = entryName.indexOf('/', separatorIndex + 1);
+        }
+        return result;
+    }
+
+    /**
+     * Get the time that entries will be given for the provided reproducible timestamp. Entry
+     * times are stored in the MS-DOS date/time format, which doesn't have a time zone and is
+     * written in the local time zone. The returned time has the provided timestamp's UTC date and
+     * time in the local time zone (like jar --date), so the entries have the same bytes on every
+     * machine.
+     * @param reproducibleTimestamp The reproducible timestamp.
+     * @return The time in milliseconds since the epoch that entries will be given.
+     */
+    static long getReproducibleTimeMilliseconds(DateTime reproducibleTimestamp)
+    {
+        PreCondition.assertNotNull(reproducibleTimestamp, "reproducibleTimestamp");
+
+        final java.time.Instant instant = java.time.Instant.ofEpochMilli(InternalJarCreator.getMillisecondsSinceEpoch(reproducibleTimestamp));
+        return java.time.LocalDateTime.ofInstant(instant, java.time.ZoneOffset.UTC)
+            .atZone(java.time.ZoneId.systemDefault())
+            .toInstant()
+            .toEpochMilli();
+    }
+
+    /**
+     * Get the number of milliseconds between the epoch and the provided DateTime.
+     * @param dateTime The DateTime to convert.
+     * @return The number of milliseconds between the epoch and the provided DateTime.
+     */
+    static long getMillisecondsSinceEpoch(DateTime dateTime)
+    {
+        PreCondition.assertNotNull(dateTime, "dateTime");
+
+        return (long)dateTime.getDurationSinceEpoch().toMilliseconds().getValue();
+    }
+
+    /**
+     * A running count of the stored and compressed file entries that have been written to a jar
+     * file.
+     */
+    private static class CompressionSummary
+    {
+        private int storedEntryCount;
+        private int deflatedEntryCount;
+        private long savedBytes;
+
+        /**
+         * Add the provided entry to this summary.
+         * @param entry The entry that is being written.
+         * @return The provided entry.
+         */
+        public CompressedJarEntry add(CompressedJarEntry entry)
+        {
+            PreCondition.assertNotNull(entry, "entry");
+
+            if (!entry.getName().endsWith("/"))
+            {
+                if (entry.getMethod() == CompressedJarEntry.storedMethod)
+                {
+                    this.storedEntryCount++;
+                }
+                else
+                {
+                    this.deflatedEntryCount++;
+                    this.savedBytes += entry.getUncompressedSize() - entry.getCompressedSize();
+                }
+            }
+            return entry;
+        }
+
+        /**
+         * Get the verbose message that describes this summary for the provided jar file.
+         * @param jarFile The jar file that the entries were written to.
+         * @return The verbose message that describes this summary.
+         */
+        public String toString(File jarFile)
+        {
+            PreCondition.assertNotNull(jarFile, "jarFile");
+
+            return "Stored " + this.storedEntryCount + " " + (this.storedEntryCount == 1 ? "entry" : "entries") +
+                " and deflated " + this.deflatedEntryCount + " " + (this.deflatedEntryCount == 1 ? "entry" : "entries") +
+                " in " + jarFile + ", saving " + this.savedBytes + " " + (this.savedBytes == 1 ? "byte" : "bytes") + ".";
+        }
+    }
+}
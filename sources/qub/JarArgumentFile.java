@@ -0,0 +1,108 @@
+package qub;
+
+/**
+ * Functions for reading and writing the contents of a jar argument file. An argument file is
+ * passed to the jar executable as "@path" and contains one argument per line. This is used to
+ * pass large numbers of content files to the jar executable without exceeding the operating
+ * system's command line length limit.
+ */
+public interface JarArgumentFile
+{
+    /**
+     * Get the contents of an argument file that passes the provided arguments.
+     * @param arguments The arguments to write to the argument file.
+     * @return The contents of the argument file.
+     */
+    static String getContents(Iterable<String> arguments)
+    {
+        PreCondition.assertNotNull(arguments, "arguments");
+
+        final StringBuilder result = new StringBuilder();
+        for (final String argument : arguments)
+        {
+            result.append(JarArgumentFile.quote(argument)).append('\n');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Quote the provided argument if the jar executable wouldn't read it as a single argument.
+     * The jar executable splits argument files on whitespace, treats '#' as the start of a
+     * comment, and treats backslashes inside of quotes as escape characters.
+     * @param argument The argument to quote.
+     * @return The argument as it should be written to an argument file.
+     */
+    static String quote(String argument)
+    {
+        PreCondition.assertNotNullAndNotEmpty(argument, "argument");
+
+        boolean needsQuotes = false;
+        for (int i = 0; i < argument.length() && !needsQuotes; ++i)
+        {
+            final char character = argument.charAt(i);
+            needsQuotes = character <= ' ' || character == '#' || character == '"' || character == '\'';
+        }
+
+        String result = argument;
+        if (needsQuotes)
+        {
+            final StringBuilder builder = new StringBuilder("\"");
+            for (int i = 0; i < argument.length(); ++i)
+            {
+                final char character = argument.charAt(i);
+                if (character == '\\' || character == '"')
+                {
+                    builder.append('\\');
+                }
+                builder.append(character);
+            }
+            result = builder.append('"').toString();
+        }
+
+        PostCondition.assertNotNullAndNotEmpty(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Parse the arguments from the provided argument file contents. This is the inverse of
+     * getContents(Iterable<String>).
+     * @param contents The contents of an argument file.
+     * @return The arguments in the argument file.
+     */
+    static Iterable<String> parseContents(String contents)
+    {
+        PreCondition.assertNotNull(contents, "contents");
+
+        final List<String> result = List.create();
+        for (final String line : Strings.getLines(contents))
+        {
+            if (!Strings.isNullOrEmpty(line))
+            {
+                if (!line.startsWith("\""))
+                {
+                    result.add(line);
+                }
+                else
+                {
+                    final StringBuilder argument = new StringBuilder();
+                    for (int i = 1; i < line.length() - 1; ++i)
+                    {
+                        char character = line.charAt(i);
+                        if (character == '\\' && i + 1 < line.length() - 1)
+                        {
+                            ++i;
+                            character = line.charAt(i);
+                        }
+                        argument.append(character);
+                    }
+                    result.add(argument.toString());
+                }
+            }
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+}
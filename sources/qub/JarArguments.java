@@ -98,6 +98,25 @@ public interface JarArguments<T>
         return this.addManifestFile(manifestFile.getPath());
     }
 
+    /**
+     * Add the --no-compress argument. This stores the jar file's entries without compressing
+     * them.
+     * @return This object for method chaining.
+     */
+    default T addNoCompress()
+    {
+        return this.addArguments("--no-compress");
+    }
+
+    /**
+     * Add the --version argument. This prints the version of the jar executable.
+     * @return This object for method chaining.
+     */
+    default T addVersion()
+    {
+        return this.addArguments("--version");
+    }
+
     default T addContentFilePathStrings(Iterable<String> contentFilePathStrings)
     {
         PreCondition.assertNotNullAndNotEmpty(contentFilePathStrings, "contentFilePathStrings");
@@ -142,6 +161,46 @@ public interface JarArguments<T>
         return this.addArguments(contentFilePath.toString());
     }
 
+    /**
+     * Add an argument file argument. The jar executable reads the arguments in the argument file
+     * as if they had been passed on the command line.
+     * @param argumentFilePath The path to the argument file.
+     * @return This object for method chaining.
+     */
+    default T addArgumentFile(String argumentFilePath)
+    {
+        PreCondition.assertNotNullAndNotEmpty(argumentFilePath, "argumentFilePath");
+
+        return this.addArgumentFile(Path.parse(argumentFilePath));
+    }
+
+    /**
+     * Add an argument file argument. The jar executable reads the arguments in the argument file
+     * as if they had been passed on the command line.
+     * @param argumentFilePath The path to the argument file.
+     * @return This object for method chaining.
+     */
+    default T addArgumentFile(Path argumentFilePath)
+    {
+        PreCondition.assertNotNull(argumentFilePath, "argumentFilePath");
+
+        argumentFilePath = this.relativeToWorkingFolderPath(argumentFilePath);
+        return this.addArguments("@" + argumentFilePath);
+    }
+
+    /**
+     * Add an argument file argument. The jar executable reads the arguments in the argument file
+     * as if they had been passed on the command line.
+     * @param argumentFile The argument file.
+     * @return This object for method chaining.
+     */
+    default T addArgumentFile(File argumentFile)
+    {
+        PreCondition.assertNotNull(argumentFile, "argumentFile");
+
+        return this.addArgumentFile(argumentFile.getPath());
+    }
+
     default Path relativeToWorkingFolderPath(Path path)
     {
         PreCondition.assertNotNull(path, "path");
@@ -0,0 +1,62 @@
+package qub;
+
+/**
+ * An object that can create jar files.
+ */
+public interface JarCreator
+{
+    /**
+     * Create a JarCreator that uses the JarEngine of the provided QubPackParameters, or the
+     * internal JarEngine if the jar files will be reproducible. If the
+     * parameters have task permits, then the JarCreator will take a permit before it creates each
+     * jar file. If the jar file cache is enabled, then the JarCreator will copy jar files from the
+     * cache when it can without taking a permit.
+     * @param parameters The parameters that describe how jar files should be created.
+     * @return The new JarCreator.
+     */
+    static JarCreator create(QubPackParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        JarCreator result;
+        final JarEngine jarEngine = QubPack.getJarEngine(parameters);
+        switch (jarEngine)
+        {
+            case Internal:
+                result = InternalJarCreator.create()
+                    .setCompressionThreadCount(parameters.getParallelPack() ? java.lang.Runtime.getRuntime().availableProcessors() : 1);
+                break;
+
+            default:
+                result = ProcessJarCreator.create(parameters.getProcessFactory())
+                    .setArgumentFileThreshold(parameters.getJarArgumentFileThreshold());
+                break;
+        }
+
+        final java.util.concurrent.Semaphore taskPermits = parameters.getTaskPermits();
+        if (taskPermits != null)
+        {
+            result = LimitedJarCreator.create(result, taskPermits);
+        }
+
+        if (parameters.getJarCache())
+        {
+            final String jarEngineVersion = jarEngine == JarEngine.Internal
+                ? InternalJarCreator.getVersion()
+                : ProcessJarCreator.getVersion(parameters.getProcessFactory());
+            result = CachingJarCreator.create(result, jarEngine, jarEngineVersion, JarFileCache.create(parameters.getJarCacheFolder(), parameters.getJarCacheMaximumBytes()));
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Create the jar file described by the provided parameters.
+     * @param parameters The parameters that describe the jar file to create.
+     * @return The exit code of the jar file creation. 0 means that the jar file was created
+     * successfully.
+     */
+    Result<Integer> createJarFile(CreateJarFileParameters parameters);
+}
@@ -0,0 +1,17 @@
+package qub;
+
+/**
+ * The different ways that qub-pack can create jar files.
+ */
+public enum JarEngine
+{
+    /**
+     * Create jar files by running the external jar executable.
+     */
+    Process,
+
+    /**
+     * Create jar files from within the qub-pack process.
+     */
+    Internal,
+}
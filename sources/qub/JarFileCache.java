@@ -0,0 +1,361 @@
+package qub;
+
+/**
+ * A local cache of jar files that is shared by every project and workspace on a machine. Each
+ * jar file is stored under a key that is derived from the contents that it was created from, so
+ * two packs of identical files can share one jar file. When the cache grows past its maximum
+ * size, the least recently used jar files are removed. Many qub-pack processes can use the same
+ * cache folder at once, so every read-modify-write of the index file happens while holding a
+ * lock on the cache folder's lock file.
+ */
+public class JarFileCache
+{
+    private static final String indexFileName = "index.json";
+    private static final String lockFileName = "index.lock";
+    private static final String entriesPropertyName = "entries";
+    private static final String keyPropertyName = "key";
+    private static final String bytesPropertyName = "bytes";
+
+    /**
+     * A JVM can't hold two locks on the same file at once, so the packs in this process wait for
+     * each other before they take the lock file's lock.
+     */
+    private static final Object processLock = new Object();
+
+    private final Folder folder;
+    private final long maximumBytes;
+
+    private JarFileCache(Folder folder, long maximumBytes)
+    {
+        PreCondition.assertNotNull(folder, "folder");
+        PreCondition.assertGreaterThanOrEqualTo(maximumBytes, 0, "maximumBytes");
+
+        this.folder = folder;
+        this.maximumBytes = maximumBytes;
+    }
+
+    /**
+     * Create a new JarFileCache.
+     * @param folder The folder that the cached jar files will be stored in.
+     * @param maximumBytes The total number of bytes that the cached jar files can use before the
+     *                     least recently used jar files are removed.
+     * @return The new JarFileCache.
+     */
+    public static JarFileCache create(Folder folder, long maximumBytes)
+    {
+        return new JarFileCache(folder, maximumBytes);
+    }
+
+    /**
+     * Get the folder that the cached jar files are stored in.
+     * @return The folder that the cached jar files are stored in.
+     */
+    public Folder getFolder()
+    {
+        return this.folder;
+    }
+
+    /**
+     * Get the total number of bytes that the cached jar files can use.
+     * @return The total number of bytes that the cached jar files can use.
+     */
+    public long getMaximumBytes()
+    {
+        return this.maximumBytes;
+    }
+
+    /**
+     * Get the key of the jar file that would be created from the provided parameters. The key is
+     * a SHA-256 digest of the relative path and contents of every file, the contents of the
+     * manifest file, the engine and engine version that will create the jar file, and every
+     * setting that changes the bytes of the jar file.
+     * @param parameters The parameters of the jar file.
+     * @param jarEngine The engine that will create the jar file.
+     * @param jarEngineVersion The version of the engine that will create the jar file. Different
+     *                         JDKs can compress the same files into different bytes.
+     * @return The key of the jar file.
+     */
+    public static String getKey(CreateJarFileParameters parameters, JarEngine jarEngine, String jarEngineVersion)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+        PreCondition.assertNotNull(jarEngine, "jarEngine");
+        PreCondition.assertNotNullAndNotEmpty(jarEngineVersion, "jarEngineVersion");
+
+        final java.security.MessageDigest digest;
+        try
+        {
+            digest = java.security.MessageDigest.getInstance("SHA-256");
+        }
+        catch (java.security.NoSuchAlgorithmException e)
+        {
+            throw Exceptions.asRuntime(e);
+        }
+
+        final DateTime reproducibleTimestamp = parameters.getReproducibleTimestamp();
+        final String settings =
+            "engine=" + jarEngine + "\n" +
+            "engineVersion=" + jarEngineVersion + "\n" +
+            "compressionLevel=" + parameters.getCompressionLevel() + "\n" +
+            "minimumCompressionSavings=" + parameters.getMinimumCompressionSavings() + "\n" +
+            "reproducibleTimestamp=" + (reproducibleTimestamp == null ? null : InternalJarCreator.getMillisecondsSinceEpoch(reproducibleTimestamp)) + "\n";
+        digest.update(settings.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+
+        final File manifestFile = parameters.getManifestFile();
+        final byte[] manifestFileContents = manifestFile == null
+            ? new byte[0]
+            : manifestFile.getContentsAsByteArray().await();
+        digest.update(("manifest=" + manifestFileContents.length + "\n").getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        digest.update(manifestFileContents);
+
+        // Sort the files so that the key doesn't depend on the order that the file system
+        // returned them in.
+        final Folder baseFolder = parameters.getBaseFolder();
+        final java.util.TreeMap<String,File> sortedFiles = new java.util.TreeMap<>();
+        for (final File file : parameters.getFiles())
+        {
+            sortedFiles.put(file.relativeTo(baseFolder).toString(), file);
+        }
+        for (final java.util.Map.Entry<String,File> entry : sortedFiles.entrySet())
+        {
+            final File file = entry.getValue();
+            if (file.getFileSystem() instanceof JavaFileSystem)
+            {
+                final java.nio.file.Path filePath = java.nio.file.Paths.get(file.toString());
+                try (final java.io.InputStream fileStream = java.nio.file.Files.newInputStream(filePath))
+                {
+                    digest.update(("file=" + entry.getKey() + "\n" + java.nio.file.Files.size(filePath) + "\n").getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                    final byte[] buffer = new byte[64 * 1024];
+                    int bytesRead;
+                    while ((bytesRead = fileStream.read(buffer)) != -1)
+                    {
+                        digest.update(buffer, 0, bytesRead);
+                    }
+                }
+                catch (java.io.IOException e)
+                {
+                    throw Exceptions.asRuntime(e);
+                }
+            }
+            else
+            {
+                final byte[] contents = file.getContentsAsByteArray().await();
+                digest.update(("file=" + entry.getKey() + "\n" + contents.length + "\n").getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                digest.update(contents);
+            }
+        }
+
+        final StringBuilder result = new StringBuilder();
+        for (final byte digestByte : digest.digest())
+        {
+            result.append(String.format("%02x", digestByte & 0xFF));
+        }
+
+        PostCondition.assertNotNullAndNotEmpty(result.toString(), "result");
+
+        return result.toString();
+    }
+
+    /**
+     * Get the file that the jar file with the provided key is stored in.
+     * @param key The key of the jar file.
+     * @return The file that the jar file with the provided key is stored in.
+     */
+    public File getCachedJarFile(String key)
+    {
+        PreCondition.assertNotNullAndNotEmpty(key, "key");
+
+        return this.folder.getFile(key + ".jar").await();
+    }
+
+    /**
+     * Copy the jar file with the provided key from this cache to the provided destination. If
+     * the jar file is found, then it becomes the most recently used jar file.
+     * @param key The key of the jar file.
+     * @param destination The file to copy the cached jar file to.
+     * @return Whether or not the jar file was found in this cache.
+     */
+    public boolean copyTo(String key, File destination)
+    {
+        PreCondition.assertNotNullAndNotEmpty(key, "key");
+        PreCondition.assertNotNull(destination, "destination");
+
+        // The cached jar file is copied while the index is locked so that another pack can't
+        // evict it in the middle of the copy.
+        return this.withIndexLock(() ->
+        {
+            final java.util.LinkedHashMap<String,Long> index = this.readIndex();
+            final File cachedJarFile = this.getCachedJarFile(key);
+            final boolean result = index.containsKey(key) && cachedJarFile.exists().await();
+            if (result)
+            {
+                cachedJarFile.copyTo(destination).await();
+
+                final Long bytes = index.remove(key);
+                index.put(key, bytes);
+                this.writeIndex(index);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Add a copy of the provided jar file to this cache with the provided key. If this cache is
+     * larger than its maximum size afterwards, then the least recently used jar files will be
+     * removed until it isn't.
+     * @param key The key of the jar file.
+     * @param jarFile The jar file to add.
+     */
+    public void add(String key, File jarFile)
+    {
+        PreCondition.assertNotNullAndNotEmpty(key, "key");
+        PreCondition.assertNotNull(jarFile, "jarFile");
+
+        // Copy the jar file next to its cached location first so that other packs never see a
+        // partially written cached jar file. The copy doesn't need the index lock because no
+        // other pack uses the same temporary file name.
+        final File cachedJarFile = this.getCachedJarFile(key);
+        final File temporaryJarFile = QubPack.getTemporaryFile(cachedJarFile);
+        try
+        {
+            jarFile.copyTo(temporaryJarFile).await();
+
+            this.withIndexLock(() ->
+            {
+                QubPack.moveFile(temporaryJarFile, cachedJarFile);
+
+                final java.util.LinkedHashMap<String,Long> index = this.readIndex();
+                final Long cachedJarFileBytes = QubPack.getByteCount(cachedJarFile);
+                index.remove(key);
+                index.put(key, cachedJarFileBytes == null ? 0 : cachedJarFileBytes);
+
+                long totalBytes = 0;
+                for (final Long bytes : index.values())
+                {
+                    totalBytes += bytes;
+                }
+                final java.util.Iterator<java.util.Map.Entry<String,Long>> indexIterator = index.entrySet().iterator();
+                while (totalBytes > this.maximumBytes && indexIterator.hasNext())
+                {
+                    final java.util.Map.Entry<String,Long> leastRecentlyUsed = indexIterator.next();
+                    this.getCachedJarFile(leastRecentlyUsed.getKey()).delete()
+                        .catchError(FileNotFoundException.class)
+                        .await();
+                    totalBytes -= leastRecentlyUsed.getValue();
+                    indexIterator.remove();
+                }
+
+                this.writeIndex(index);
+                return null;
+            });
+        }
+        finally
+        {
+            temporaryJarFile.delete()
+                .catchError(FileNotFoundException.class)
+                .await();
+        }
+    }
+
+    /**
+     * Run the provided action while holding this cache's index lock. Packs in this process are
+     * serialized with a monitor. Packs in other processes are serialized with an exclusive lock
+     * on the cache folder's lock file, which the operating system releases if a process dies
+     * while holding it.
+     * @param action The action to run.
+     * @param <T> The type of value that the action returns.
+     * @return The value that the action returned.
+     */
+    private <T> T withIndexLock(Function0<T> action)
+    {
+        PreCondition.assertNotNull(action, "action");
+
+        synchronized (JarFileCache.processLock)
+        {
+            final T result;
+            if (this.folder.getFileSystem() instanceof JavaFileSystem)
+            {
+                final java.nio.file.Path lockFilePath = java.nio.file.Paths.get(this.folder.getFile(JarFileCache.lockFileName).await().toString());
+                try
+                {
+                    java.nio.file.Files.createDirectories(lockFilePath.getParent());
+                    try (final java.nio.channels.FileChannel lockFileChannel = java.nio.channels.FileChannel.open(lockFilePath,
+                            java.nio.file.StandardOpenOption.CREATE,
+                            java.nio.file.StandardOpenOption.WRITE);
+                         final java.nio.channels.FileLock lockFileLock = lockFileChannel.lock())
+                    {
+                        result = action.run();
+                    }
+                }
+                catch (java.io.IOException e)
+                {
+                    throw Exceptions.asRuntime(e);
+                }
+            }
+            else
+            {
+                result = action.run();
+            }
+            return result;
+        }
+    }
+
+
+    /**
+     * Read the keys and sizes of the cached jar files, ordered from the least recently used to
+     * the most recently used. If the index file doesn't exist or can't be parsed, then the cache
+     * is treated as empty.
+     * @return The keys and sizes of the cached jar files.
+     */
+    private java.util.LinkedHashMap<String,Long> readIndex()
+    {
+        final java.util.LinkedHashMap<String,Long> result = new java.util.LinkedHashMap<>();
+        final String indexFileContents = this.folder.getFile(JarFileCache.indexFileName).await()
+            .getContentsAsString()
+            .catchError()
+            .await();
+        if (!Strings.isNullOrEmpty(indexFileContents))
+        {
+            final JSONArray entries = JSON.parseObject(indexFileContents)
+                .then((JSONObject json) -> json.getArray(JarFileCache.entriesPropertyName).await())
+                .catchError()
+                .await();
+            if (entries != null)
+            {
+                for (final JSONSegment entry : entries)
+                {
+                    if (entry instanceof JSONObject)
+                    {
+                        final JSONObject entryJson = (JSONObject)entry;
+                        final String key = entryJson.getString(JarFileCache.keyPropertyName).catchError().await();
+                        final Double bytes = entryJson.getNumber(JarFileCache.bytesPropertyName).catchError().await();
+                        if (!Strings.isNullOrEmpty(key) && bytes != null)
+                        {
+                            result.put(key, bytes.longValue());
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private void writeIndex(java.util.LinkedHashMap<String,Long> index)
+    {
+        PreCondition.assertNotNull(index, "index");
+
+        final List<JSONObject> entries = List.create();
+        for (final java.util.Map.Entry<String,Long> entry : index.entrySet())
+        {
+            entries.add(JSONObject.create()
+                .setString(JarFileCache.keyPropertyName, entry.getKey())
+                .setNumber(JarFileCache.bytesPropertyName, entry.getValue()));
+        }
+        final File indexFile = this.folder.getFile(JarFileCache.indexFileName).await();
+        final File temporaryIndexFile = QubPack.getTemporaryFile(indexFile);
+        temporaryIndexFile.setContentsAsString(JSONObject.create()
+            .setArray(JarFileCache.entriesPropertyName, JSONArray.create(entries))
+            .toString(JSONFormat.pretty))
+            .await();
+        QubPack.moveFile(temporaryIndexFile, indexFile);
+    }
+}
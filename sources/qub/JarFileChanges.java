@@ -0,0 +1,162 @@
+package qub;
+
+/**
+ * The changes between the files that were packed into a jar file the last time it was created
+ * and the files that would be packed into it now.
+ */
+public class JarFileChanges
+{
+    private final boolean previousStateKnown;
+    private boolean projectChanged;
+    private final List<PackJSONFile> currentFiles;
+    private final List<PackJSONFile> newFiles;
+    private final List<PackJSONFile> modifiedFiles;
+    private final List<PackJSONFile> unchangedFiles;
+    private final List<PackJSONFile> deletedFiles;
+
+    private JarFileChanges(boolean previousStateKnown)
+    {
+        this.previousStateKnown = previousStateKnown;
+        this.currentFiles = List.create();
+        this.newFiles = List.create();
+        this.modifiedFiles = List.create();
+        this.unchangedFiles = List.create();
+        this.deletedFiles = List.create();
+    }
+
+    /**
+     * Create a new JarFileChanges object for a jar file whose previous contents are known.
+     * @return The new JarFileChanges object.
+     */
+    public static JarFileChanges create()
+    {
+        return new JarFileChanges(true);
+    }
+
+    /**
+     * Create a new JarFileChanges object for a jar file whose previous contents are not known.
+     * The jar file must always be created in this case.
+     * @return The new JarFileChanges object.
+     */
+    public static JarFileChanges unknown()
+    {
+        return new JarFileChanges(false);
+    }
+
+    /**
+     * Get whether or not the contents of the previous jar file are known.
+     * @return Whether or not the contents of the previous jar file are known.
+     */
+    public boolean isPreviousStateKnown()
+    {
+        return this.previousStateKnown;
+    }
+
+    public JarFileChanges setProjectChanged(boolean projectChanged)
+    {
+        this.projectChanged = projectChanged;
+        return this;
+    }
+
+    /**
+     * Get whether or not the project that the jar file belongs to has changed.
+     * @return Whether or not the project that the jar file belongs to has changed.
+     */
+    public boolean getProjectChanged()
+    {
+        return this.projectChanged;
+    }
+
+    public JarFileChanges addNewFile(PackJSONFile newFile)
+    {
+        PreCondition.assertNotNull(newFile, "newFile");
+
+        this.newFiles.add(newFile);
+        this.currentFiles.add(newFile);
+        return this;
+    }
+
+    /**
+     * Get the files that weren't packed into the previous jar file.
+     * @return The files that weren't packed into the previous jar file.
+     */
+    public Iterable<PackJSONFile> getNewFiles()
+    {
+        return this.newFiles;
+    }
+
+    public JarFileChanges addModifiedFile(PackJSONFile modifiedFile)
+    {
+        PreCondition.assertNotNull(modifiedFile, "modifiedFile");
+
+        this.modifiedFiles.add(modifiedFile);
+        this.currentFiles.add(modifiedFile);
+        return this;
+    }
+
+    /**
+     * Get the files that have been modified since they were packed into the previous jar file.
+     * @return The files that have been modified since they were packed into the previous jar file.
+     */
+    public Iterable<PackJSONFile> getModifiedFiles()
+    {
+        return this.modifiedFiles;
+    }
+
+    public JarFileChanges addUnchangedFile(PackJSONFile unchangedFile)
+    {
+        PreCondition.assertNotNull(unchangedFile, "unchangedFile");
+
+        this.unchangedFiles.add(unchangedFile);
+        this.currentFiles.add(unchangedFile);
+        return this;
+    }
+
+    /**
+     * Get the files that haven't changed since they were packed into the previous jar file.
+     * @return The files that haven't changed since they were packed into the previous jar file.
+     */
+    public Iterable<PackJSONFile> getUnchangedFiles()
+    {
+        return this.unchangedFiles;
+    }
+
+    public JarFileChanges addDeletedFile(PackJSONFile deletedFile)
+    {
+        PreCondition.assertNotNull(deletedFile, "deletedFile");
+
+        this.deletedFiles.add(deletedFile);
+        return this;
+    }
+
+    /**
+     * Get the files that were packed into the previous jar file, but that no longer exist.
+     * @return The files that were packed into the previous jar file, but that no longer exist.
+     */
+    public Iterable<PackJSONFile> getDeletedFiles()
+    {
+        return this.deletedFiles;
+    }
+
+    /**
+     * Get the files that will be packed into the new jar file, in the order that they were found.
+     * @return The files that will be packed into the new jar file.
+     */
+    public Iterable<PackJSONFile> getCurrentFiles()
+    {
+        return this.currentFiles;
+    }
+
+    /**
+     * Get whether or not the jar file needs to be created.
+     * @return Whether or not the jar file needs to be created.
+     */
+    public boolean hasChanges()
+    {
+        return !this.previousStateKnown ||
+            this.projectChanged ||
+            this.newFiles.any() ||
+            this.modifiedFiles.any() ||
+            this.deletedFiles.any();
+    }
+}
@@ -0,0 +1,346 @@
+package qub;
+
+/**
+ * A reader that reads the entries of an existing jar file without decompressing them. The
+ * returned entries can be written to a new jar file with a JarFileWriter, which allows an
+ * unchanged entry to be copied from a previous jar file without being inflated and deflated
+ * again. The returned entries refer to the jar file's contents instead of copying their data, so
+ * an unchanged entry's compressed bytes are copied only once, straight into the new jar file.
+ * When a jar file on disk is read, only its end of central directory record, its central
+ * directory, and the local headers of the requested entries are read.
+ */
+public class JarFileReader
+{
+    private static final int centralFileHeaderSignature = 0x02014b50;
+    private static final int endOfCentralDirectorySignature = 0x06054b50;
+    private static final int zip64EndOfCentralDirectoryLocatorSignature = 0x07064b50;
+    private static final int localFileHeaderLength = 30;
+    private static final int centralFileHeaderLength = 46;
+    private static final int endOfCentralDirectoryLength = 22;
+    private static final int zip64EndOfCentralDirectoryLength = 56;
+    private static final int zip64EndOfCentralDirectoryLocatorLength = 20;
+    private static final long maximumUInt16 = 0xFFFFL;
+    private static final long maximumUInt32 = 0xFFFFFFFFL;
+
+    private JarFileReader()
+    {
+    }
+
+    /**
+     * Read the compressed entries of the provided jar file contents.
+     * @param jarBytes The contents of the jar file.
+     * @return The compressed entries of the jar file, mapped by their entry names.
+     */
+    public static Result<java.util.Map<String,CompressedJarEntry>> readEntries(byte[] jarBytes)
+    {
+        return JarFileReader.readEntries(jarBytes, null);
+    }
+
+    /**
+     * Read the compressed entries of the provided jar file contents that have one of the provided
+     * entry names. The local headers of the other entries aren't read.
+     * @param jarBytes The contents of the jar file.
+     * @param entryNames The names of the entries to read, or null to read every entry.
+     * @return The compressed entries of the jar file, mapped by their entry names.
+     */
+    public static Result<java.util.Map<String,CompressedJarEntry>> readEntries(byte[] jarBytes, java.util.Set<String> entryNames)
+    {
+        PreCondition.assertNotNull(jarBytes, "jarBytes");
+
+        return Result.create(() ->
+        {
+            try
+            {
+                return JarFileReader.readEntries(new ByteArrayJarSource(jarBytes), entryNames);
+            }
+            catch (java.io.IOException e)
+            {
+                throw Exceptions.asRuntime(e);
+            }
+        });
+    }
+
+    /**
+     * Read the compressed entries of the provided jar file.
+     * @param jarFile The jar file to read.
+     * @return The compressed entries of the jar file, mapped by their entry names.
+     */
+    public static Result<java.util.Map<String,CompressedJarEntry>> readEntries(File jarFile)
+    {
+        return JarFileReader.readEntries(jarFile, null);
+    }
+
+    /**
+     * Read the compressed entries of the provided jar file that have one of the provided entry
+     * names. On the Java file system the jar file isn't read into memory: its central directory
+     * is read from the end of the file, and the returned entries copy their data from the file
+     * when they are written. Other file systems read the jar file's contents.
+     * @param jarFile The jar file to read.
+     * @param entryNames The names of the entries to read, or null to read every entry.
+     * @return The compressed entries of the jar file, mapped by their entry names.
+     */
+    public static Result<java.util.Map<String,CompressedJarEntry>> readEntries(File jarFile, java.util.Set<String> entryNames)
+    {
+        PreCondition.assertNotNull(jarFile, "jarFile");
+
+        return Result.create(() ->
+        {
+            java.util.Map<String,CompressedJarEntry> result;
+            if (jarFile.getFileSystem() instanceof JavaFileSystem)
+            {
+                final java.nio.file.Path jarFilePath = java.nio.file.Paths.get(jarFile.toString());
+                try (final java.nio.channels.FileChannel jarFileChannel = java.nio.channels.FileChannel.open(jarFilePath, java.nio.file.StandardOpenOption.READ))
+                {
+                    result = JarFileReader.readEntries(new FileJarSource(jarFilePath, jarFileChannel), entryNames);
+                }
+                catch (java.io.IOException e)
+                {
+                    throw Exceptions.asRuntime(e);
+                }
+            }
+            else
+            {
+                result = JarFileReader.readEntries(jarFile.getContentsAsByteArray().await(), entryNames).await();
+            }
+            return result;
+        });
+    }
+
+    private static java.util.Map<String,CompressedJarEntry> readEntries(JarSource jarSource, java.util.Set<String> entryNames) throws java.io.IOException
+    {
+        PreCondition.assertNotNull(jarSource, "jarSource");
+
+        final long jarLength = jarSource.getLength();
+
+        // The end of central directory record is followed by a comment of at most 65535 bytes,
+        // so only the end of the jar file needs to be searched for it.
+        final int tailLength = (int)Math.min(jarLength, JarFileReader.endOfCentralDirectoryLength + JarFileReader.maximumUInt16);
+        final long tailOffset = jarLength - tailLength;
+        final java.nio.ByteBuffer tail = jarSource.read(tailOffset, tailLength);
+        final int endOfCentralDirectoryTailOffset = JarFileReader.findEndOfCentralDirectory(tail);
+        if (endOfCentralDirectoryTailOffset < 0)
+        {
+            throw new ParseException("The jar file doesn't have an end of central directory record.");
+        }
+        final long endOfCentralDirectoryOffset = tailOffset + endOfCentralDirectoryTailOffset;
+
+        long entryCount = tail.getShort(endOfCentralDirectoryTailOffset + 10) & JarFileReader.maximumUInt16;
+        long centralDirectorySize = tail.getInt(endOfCentralDirectoryTailOffset + 12) & JarFileReader.maximumUInt32;
+        long centralDirectoryOffset = tail.getInt(endOfCentralDirectoryTailOffset + 16) & JarFileReader.maximumUInt32;
+
+        final long zip64LocatorOffset = endOfCentralDirectoryOffset - JarFileReader.zip64EndOfCentralDirectoryLocatorLength;
+        if (zip64LocatorOffset >= 0)
+        {
+            final java.nio.ByteBuffer zip64Locator = jarSource.read(zip64LocatorOffset, JarFileReader.zip64EndOfCentralDirectoryLocatorLength);
+            if (zip64Locator.getInt(0) == JarFileReader.zip64EndOfCentralDirectoryLocatorSignature)
+            {
+                final java.nio.ByteBuffer zip64EndOfCentralDirectory = jarSource.read(zip64Locator.getLong(8), JarFileReader.zip64EndOfCentralDirectoryLength);
+                entryCount = zip64EndOfCentralDirectory.getLong(32);
+                centralDirectorySize = zip64EndOfCentralDirectory.getLong(40);
+                centralDirectoryOffset = zip64EndOfCentralDirectory.getLong(48);
+            }
+        }
+
+        if (centralDirectorySize > Integer.MAX_VALUE)
+        {
+            throw new ParseException("The central directory of the jar file is too large to be read.");
+        }
+        final java.nio.ByteBuffer centralDirectory = jarSource.read(centralDirectoryOffset, (int)centralDirectorySize);
+
+        final java.util.Map<String,CompressedJarEntry> result = new java.util.HashMap<>();
+        int offset = 0;
+        for (long i = 0; i < entryCount; ++i)
+        {
+            if (centralDirectory.limit() < offset + JarFileReader.centralFileHeaderLength ||
+                centralDirectory.getInt(offset) != JarFileReader.centralFileHeaderSignature)
+            {
+                throw new ParseException("Expected a central directory file header at offset " + (centralDirectoryOffset + offset) + ".");
+            }
+
+            final int method = centralDirectory.getShort(offset + 10) & 0xFFFF;
+            final long dosTime = centralDirectory.getInt(offset + 12) & JarFileReader.maximumUInt32;
+            final long crc32 = centralDirectory.getInt(offset + 16) & JarFileReader.maximumUInt32;
+            long compressedSize = centralDirectory.getInt(offset + 20) & JarFileReader.maximumUInt32;
+            long uncompressedSize = centralDirectory.getInt(offset + 24) & JarFileReader.maximumUInt32;
+            final int nameLength = centralDirectory.getShort(offset + 28) & 0xFFFF;
+            final int extraLength = centralDirectory.getShort(offset + 30) & 0xFFFF;
+            final int commentLength = centralDirectory.getShort(offset + 32) & 0xFFFF;
+            long localHeaderOffset = centralDirectory.getInt(offset + 42) & JarFileReader.maximumUInt32;
+            if (centralDirectory.limit() < offset + JarFileReader.centralFileHeaderLength + nameLength + extraLength + commentLength)
+            {
+                throw new ParseException("The central directory file header at offset " + (centralDirectoryOffset + offset) + " extends past the end of the central directory.");
+            }
+
+            final byte[] nameBytes = new byte[nameLength];
+            final java.nio.ByteBuffer nameBuffer = centralDirectory.duplicate();
+            nameBuffer.position(offset + JarFileReader.centralFileHeaderLength);
+            nameBuffer.get(nameBytes);
+            final String name = new String(nameBytes, java.nio.charset.StandardCharsets.UTF_8);
+
+            // Values that don't fit in the central directory header are stored in the zip64
+            // extended information extra field in the order uncompressed size, compressed
+            // size, local header offset.
+            int extraOffset = offset + JarFileReader.centralFileHeaderLength + nameLength;
+            final int extraEndOffset = extraOffset + extraLength;
+            while (extraOffset + 4 <= extraEndOffset)
+            {
+                final int extraTag = centralDirectory.getShort(extraOffset) & 0xFFFF;
+                final int extraDataLength = centralDirectory.getShort(extraOffset + 2) & 0xFFFF;
+                if (extraTag == 0x0001)
+                {
+                    int zip64Offset = extraOffset + 4;
+                    if (uncompressedSize == JarFileReader.maximumUInt32)
+                    {
+                        uncompressedSize = centralDirectory.getLong(zip64Offset);
+                        zip64Offset += 8;
+                    }
+                    if (compressedSize == JarFileReader.maximumUInt32)
+                    {
+                        compressedSize = centralDirectory.getLong(zip64Offset);
+                        zip64Offset += 8;
+                    }
+                    if (localHeaderOffset == JarFileReader.maximumUInt32)
+                    {
+                        localHeaderOffset = centralDirectory.getLong(zip64Offset);
+                    }
+                }
+                extraOffset += 4 + extraDataLength;
+            }
+
+            if ((method == CompressedJarEntry.storedMethod || method == CompressedJarEntry.deflatedMethod) &&
+                (entryNames == null || entryNames.contains(name)))
+            {
+                final java.nio.ByteBuffer localHeader = jarSource.read(localHeaderOffset, JarFileReader.localFileHeaderLength);
+                final int localNameLength = localHeader.getShort(26) & 0xFFFF;
+                final int localExtraLength = localHeader.getShort(28) & 0xFFFF;
+                final long dataOffset = localHeaderOffset + JarFileReader.localFileHeaderLength + localNameLength + localExtraLength;
+                if (compressedSize < 0 || jarLength < dataOffset + compressedSize)
+                {
+                    throw new ParseException("The data of the entry " + Strings.escapeAndQuote(name) + " extends past the end of the jar file.");
+                }
+
+                result.put(name, jarSource.createEntry(name, dosTime, method, crc32, uncompressedSize, dataOffset, compressedSize));
+            }
+
+            offset += JarFileReader.centralFileHeaderLength + nameLength + extraLength + commentLength;
+        }
+
+        return result;
+    }
+
+    private static int findEndOfCentralDirectory(java.nio.ByteBuffer buffer)
+    {
+        int result = -1;
+        for (int offset = buffer.limit() - JarFileReader.endOfCentralDirectoryLength; 0 <= offset; --offset)
+        {
+            if (buffer.getInt(offset) == JarFileReader.endOfCentralDirectorySignature)
+            {
+                result = offset;
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The contents of a jar file that is being read.
+     */
+    private interface JarSource
+    {
+        /**
+         * Get the number of bytes in the jar file.
+         * @return The number of bytes in the jar file.
+         */
+        long getLength() throws java.io.IOException;
+
+        /**
+         * Read a range of the jar file.
+         * @param offset The offset in the jar file where the range starts.
+         * @param length The number of bytes in the range.
+         * @return A little-endian buffer whose indexes start at the start of the range.
+         */
+        java.nio.ByteBuffer read(long offset, int length) throws java.io.IOException;
+
+        /**
+         * Create an entry whose compressed data is a range of the jar file.
+         * @return The new entry.
+         */
+        CompressedJarEntry createEntry(String name, long dosTime, int method, long crc32, long uncompressedSize, long dataOffset, long compressedSize);
+    }
+
+    private static class ByteArrayJarSource implements JarSource
+    {
+        private final byte[] jarBytes;
+
+        private ByteArrayJarSource(byte[] jarBytes)
+        {
+            this.jarBytes = jarBytes;
+        }
+
+        @Override
+        public long getLength()
+        {
+            return this.jarBytes.length;
+        }
+
+        @Override
+        public java.nio.ByteBuffer read(long offset, int length)
+        {
+            if (offset < 0 || length < 0 || this.jarBytes.length < offset + length)
+            {
+                throw new ParseException("Expected " + length + " bytes at offset " + offset + ", but the jar file is only " + this.jarBytes.length + " bytes long.");
+            }
+            return java.nio.ByteBuffer.wrap(this.jarBytes, (int)offset, length).slice().order(java.nio.ByteOrder.LITTLE_ENDIAN);
+        }
+
+        @Override
+        public CompressedJarEntry createEntry(String name, long dosTime, int method, long crc32, long uncompressedSize, long dataOffset, long compressedSize)
+        {
+            return CompressedJarEntry.create(name, dosTime, method, crc32, uncompressedSize, this.jarBytes, (int)dataOffset, (int)compressedSize);
+        }
+    }
+
+    private static class FileJarSource implements JarSource
+    {
+        private final java.nio.file.Path jarFilePath;
+        private final java.nio.channels.FileChannel jarFileChannel;
+
+        private FileJarSource(java.nio.file.Path jarFilePath, java.nio.channels.FileChannel jarFileChannel)
+        {
+            this.jarFilePath = jarFilePath;
+            this.jarFileChannel = jarFileChannel;
+        }
+
+        @Override
+        public long getLength() throws java.io.IOException
+        {
+            return this.jarFileChannel.size();
+        }
+
+        @Override
+        public java.nio.ByteBuffer read(long offset, int length) throws java.io.IOException
+        {
+            if (offset < 0 || length < 0 || this.getLength() < offset + length)
+            {
+                throw new ParseException("Expected " + length + " bytes at offset " + offset + ", but the jar file is only " + this.getLength() + " bytes long.");
+            }
+
+            final java.nio.ByteBuffer result = java.nio.ByteBuffer.allocate(length).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+            while (result.hasRemaining())
+            {
+                if (this.jarFileChannel.read(result, offset + result.position()) < 0)
+                {
+                    throw new java.io.EOFException("Expected " + length + " bytes at offset " + offset + " of " + this.jarFilePath + ".");
+                }
+            }
+            result.flip();
+            return result;
+        }
+
+        @Override
+        public CompressedJarEntry createEntry(String name, long dosTime, int method, long crc32, long uncompressedSize, long dataOffset, long compressedSize)
+        {
+            return CompressedJarEntry.create(name, dosTime, method, crc32, uncompressedSize, this.jarFilePath, dataOffset, compressedSize);
+        }
+    }
+}
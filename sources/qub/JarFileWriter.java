@@ -0,0 +1,379 @@
+package qub;
+
+/**
+ * A writer that writes already compressed entries to a jar file in the order that they are
+ * written, followed by the jar file's central directory. Because the entries are already
+ * compressed, the compression of a jar file's entries can happen in parallel or can be skipped
+ * entirely. Entries whose data is a range of another jar file are copied from that file with
+ * FileChannel.transferTo(). Each such file is opened once, and a run of entries that were
+ * written next to each other with the same local headers is copied with a single transfer.
+ */
+public class JarFileWriter implements java.lang.AutoCloseable
+{
+    private static final int localFileHeaderSignature = 0x04034b50;
+    private static final int centralFileHeaderSignature = 0x02014b50;
+    private static final int endOfCentralDirectorySignature = 0x06054b50;
+    private static final int zip64EndOfCentralDirectorySignature = 0x06064b50;
+    private static final int zip64EndOfCentralDirectoryLocatorSignature = 0x07064b50;
+    private static final int utf8Flag = 0x0800;
+    private static final int storedVersion = 10;
+    private static final int deflatedVersion = 20;
+    private static final int zip64Version = 45;
+    private static final long maximumUInt16 = 0xFFFFL;
+    private static final long maximumUInt32 = 0xFFFFFFFFL;
+    private static final int localFileHeaderLength = 30;
+
+    /**
+     * The size of the buffer that headers and in-memory entry data are written through on their
+     * way to the jar file.
+     */
+    private static final int outputBufferBytes = 64 * 1024;
+
+    private final java.nio.channels.WritableByteChannel outputChannel;
+    private final java.io.OutputStream outputStream;
+    private final List<CentralDirectoryEntry> centralDirectoryEntries;
+    private long offset;
+    private boolean closed;
+
+    private java.nio.file.Path copyFilePath;
+    private java.nio.channels.FileChannel copyFileChannel;
+    private long copyStartOffset;
+    private long copyEndOffset;
+
+    private JarFileWriter(java.nio.channels.WritableByteChannel outputChannel)
+    {
+        PreCondition.assertNotNull(outputChannel, "outputChannel");
+
+        this.outputChannel = outputChannel;
+        this.outputStream = new java.io.BufferedOutputStream(java.nio.channels.Channels.newOutputStream(outputChannel), JarFileWriter.outputBufferBytes);
+        this.centralDirectoryEntries = List.create();
+    }
+
+    /**
+     * Create a new JarFileWriter that will write to the provided OutputStream.
+     * @param outputStream The OutputStream that the jar file will be written to.
+     * @return The new JarFileWriter.
+     */
+    public static JarFileWriter create(java.io.OutputStream outputStream)
+    {
+        PreCondition.assertNotNull(outputStream, "outputStream");
+
+        return new JarFileWriter(java.nio.channels.Channels.newChannel(outputStream));
+    }
+
+    /**
+     * Create a new JarFileWriter that will write to the provided channel. If the channel is a
+     * FileChannel, then entries that are copied from another jar file are transferred between
+     * the two files without passing through this process.
+     * @param outputChannel The channel that the jar file will be written to.
+     * @return The new JarFileWriter.
+     */
+    public static JarFileWriter create(java.nio.channels.WritableByteChannel outputChannel)
+    {
+        return new JarFileWriter(outputChannel);
+    }
+
+    /**
+     * Get the number of entries that have been written.
+     * @return The number of entries that have been written.
+     */
+    public int getEntryCount()
+    {
+        return this.centralDirectoryEntries.getCount();
+    }
+
+    /**
+     * Get the number of bytes that have been written.
+     * @return The number of bytes that have been written.
+     */
+    public long getBytesWritten()
+    {
+        return this.offset;
+    }
+
+    /**
+     * Write the provided entry to the jar file.
+     * @param entry The entry to write.
+     */
+    public void writeEntry(CompressedJarEntry entry) throws java.io.IOException
+    {
+        PreCondition.assertNotNull(entry, "entry");
+        PreCondition.assertFalse(this.closed, "this.closed");
+
+        final byte[] nameBytes = entry.getName().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        final int versionNeeded = entry.getMethod() == CompressedJarEntry.storedMethod ? JarFileWriter.storedVersion : JarFileWriter.deflatedVersion;
+        final byte[] localHeader = JarFileWriter.getLocalHeader(entry, nameBytes, versionNeeded);
+
+        this.centralDirectoryEntries.add(new CentralDirectoryEntry(entry, nameBytes, versionNeeded, this.offset));
+
+        final java.nio.file.Path dataFilePath = entry.getDataFilePath();
+        if (dataFilePath == null)
+        {
+            this.copyPendingRange();
+            this.outputStream.write(localHeader);
+            entry.writeData(this.outputStream);
+        }
+        else
+        {
+            if (!dataFilePath.equals(this.copyFilePath))
+            {
+                this.copyPendingRange();
+                this.closeCopyFile();
+                this.copyFileChannel = java.nio.channels.FileChannel.open(dataFilePath, java.nio.file.StandardOpenOption.READ);
+                this.copyFilePath = dataFilePath;
+            }
+
+            // If the entry's local header in the other jar file is the same as the header that
+            // would be written here, then the header is copied along with the entry's data.
+            // That lets the entries that follow each other in both jar files be copied at once.
+            final long dataOffset = entry.getDataFileOffset();
+            final long localHeaderOffset = dataOffset - localHeader.length;
+            final boolean copyLocalHeader = localHeaderOffset >= 0 && this.copyFileHasBytes(localHeaderOffset, localHeader);
+            if (copyLocalHeader && this.copyStartOffset < this.copyEndOffset && this.copyEndOffset == localHeaderOffset)
+            {
+                this.copyEndOffset = dataOffset + entry.getCompressedSize();
+            }
+            else
+            {
+                this.copyPendingRange();
+                if (copyLocalHeader)
+                {
+                    this.copyStartOffset = localHeaderOffset;
+                }
+                else
+                {
+                    this.outputStream.write(localHeader);
+                    this.copyStartOffset = dataOffset;
+                }
+                this.copyEndOffset = dataOffset + entry.getCompressedSize();
+            }
+        }
+        this.offset += localHeader.length + entry.getCompressedSize();
+    }
+
+    /**
+     * Get the local file header that is written before the provided entry's data.
+     * @param entry The entry to get the local file header of.
+     * @param nameBytes The UTF-8 bytes of the entry's name.
+     * @param versionNeeded The version needed to extract the entry.
+     * @return The local file header of the entry.
+     */
+    private static byte[] getLocalHeader(CompressedJarEntry entry, byte[] nameBytes, int versionNeeded)
+    {
+        final byte[] extra = entry.getExtra();
+        final java.nio.ByteBuffer result = java.nio.ByteBuffer.allocate(JarFileWriter.localFileHeaderLength + nameBytes.length + extra.length)
+            .order(java.nio.ByteOrder.LITTLE_ENDIAN);
+        result.putInt(JarFileWriter.localFileHeaderSignature);
+        result.putShort((short)versionNeeded);
+        result.putShort((short)JarFileWriter.utf8Flag);
+        result.putShort((short)entry.getMethod());
+        result.putInt((int)entry.getDosTime());
+        result.putInt((int)entry.getCrc32());
+        result.putInt((int)entry.getCompressedSize());
+        result.putInt((int)entry.getUncompressedSize());
+        result.putShort((short)nameBytes.length);
+        result.putShort((short)extra.length);
+        result.put(nameBytes);
+        result.put(extra);
+        return result.array();
+    }
+
+    /**
+     * Get whether or not the file that entries are being copied from has the provided bytes at
+     * the provided offset.
+     * @param fileOffset The offset in the file to compare at.
+     * @param expectedBytes The bytes to compare with.
+     * @return Whether or not the file has the provided bytes at the provided offset.
+     */
+    private boolean copyFileHasBytes(long fileOffset, byte[] expectedBytes) throws java.io.IOException
+    {
+        final java.nio.ByteBuffer fileBytes = java.nio.ByteBuffer.allocate(expectedBytes.length);
+        int bytesRead = 0;
+        while (fileBytes.hasRemaining() && bytesRead >= 0)
+        {
+            bytesRead = this.copyFileChannel.read(fileBytes, fileOffset + fileBytes.position());
+        }
+        return !fileBytes.hasRemaining() && java.util.Arrays.equals(fileBytes.array(), expectedBytes);
+    }
+
+    /**
+     * Copy the range of the other jar file that has been collected from the entries that were
+     * written since the last copy.
+     */
+    private void copyPendingRange() throws java.io.IOException
+    {
+        if (this.copyStartOffset < this.copyEndOffset)
+        {
+            // The buffered headers go before the copied range.
+            this.outputStream.flush();
+
+            long position = this.copyStartOffset;
+            while (position < this.copyEndOffset)
+            {
+                final long bytesTransferred = this.copyFileChannel.transferTo(position, this.copyEndOffset - position, this.outputChannel);
+                if (bytesTransferred <= 0)
+                {
+                    throw new java.io.EOFException("Expected " + (this.copyEndOffset - this.copyStartOffset) + " bytes at offset " + this.copyStartOffset + " of " + this.copyFilePath + ".");
+                }
+                position += bytesTransferred;
+            }
+        }
+        this.copyStartOffset = 0;
+        this.copyEndOffset = 0;
+    }
+
+    private void closeCopyFile() throws java.io.IOException
+    {
+        if (this.copyFileChannel != null)
+        {
+            this.copyFileChannel.close();
+            this.copyFileChannel = null;
+            this.copyFilePath = null;
+        }
+    }
+
+    /**
+     * Write the central directory of the jar file. No more entries can be written after this
+     * writer has been closed. The channel or stream that the jar file was written to isn't
+     * closed.
+     */
+    @Override
+    public void close() throws java.io.IOException
+    {
+        if (!this.closed)
+        {
+            this.closed = true;
+
+            try
+            {
+                this.copyPendingRange();
+            }
+            finally
+            {
+                this.closeCopyFile();
+            }
+
+            final long centralDirectoryOffset = this.offset;
+            for (final CentralDirectoryEntry centralDirectoryEntry : this.centralDirectoryEntries)
+            {
+                final boolean zip64Offset = centralDirectoryEntry.localHeaderOffset >= JarFileWriter.maximumUInt32;
+
+                this.writeInt(JarFileWriter.centralFileHeaderSignature);
+                this.writeShort(zip64Offset ? JarFileWriter.zip64Version : centralDirectoryEntry.versionNeeded);
+                this.writeShort(zip64Offset ? JarFileWriter.zip64Version : centralDirectoryEntry.versionNeeded);
+                this.writeShort(JarFileWriter.utf8Flag);
+                this.writeShort(centralDirectoryEntry.method);
+                this.writeInt(centralDirectoryEntry.dosTime);
+                this.writeInt(centralDirectoryEntry.crc32);
+                this.writeInt(centralDirectoryEntry.compressedSize);
+                this.writeInt(centralDirectoryEntry.uncompressedSize);
+                this.writeShort(centralDirectoryEntry.nameBytes.length);
+                this.writeShort(centralDirectoryEntry.extra.length + (zip64Offset ? 12 : 0));
+                this.writeShort(0); // Comment length
+                this.writeShort(0); // Disk number start
+                this.writeShort(0); // Internal file attributes
+                this.writeInt(0); // External file attributes
+                this.writeInt(zip64Offset ? JarFileWriter.maximumUInt32 : centralDirectoryEntry.localHeaderOffset);
+                this.writeBytes(centralDirectoryEntry.nameBytes);
+                this.writeBytes(centralDirectoryEntry.extra);
+                if (zip64Offset)
+                {
+                    this.writeShort(0x0001); // Zip64 extended information extra field tag
+                    this.writeShort(8);
+                    this.writeLong(centralDirectoryEntry.localHeaderOffset);
+                }
+            }
+            final long centralDirectorySize = this.offset - centralDirectoryOffset;
+            final long entryCount = this.centralDirectoryEntries.getCount();
+
+            if (entryCount >= JarFileWriter.maximumUInt16 ||
+                centralDirectoryOffset >= JarFileWriter.maximumUInt32 ||
+                centralDirectorySize >= JarFileWriter.maximumUInt32)
+            {
+                final long zip64EndOfCentralDirectoryOffset = this.offset;
+
+                this.writeInt(JarFileWriter.zip64EndOfCentralDirectorySignature);
+                this.writeLong(44); // Size of the remaining zip64 end of central directory record
+                this.writeShort(JarFileWriter.zip64Version);
+                this.writeShort(JarFileWriter.zip64Version);
+                this.writeInt(0); // Number of this disk
+                this.writeInt(0); // Number of the disk with the start of the central directory
+                this.writeLong(entryCount);
+                this.writeLong(entryCount);
+                this.writeLong(centralDirectorySize);
+                this.writeLong(centralDirectoryOffset);
+
+                this.writeInt(JarFileWriter.zip64EndOfCentralDirectoryLocatorSignature);
+                this.writeInt(0); // Number of the disk with the zip64 end of central directory
+                this.writeLong(zip64EndOfCentralDirectoryOffset);
+                this.writeInt(1); // Total number of disks
+            }
+
+            this.writeInt(JarFileWriter.endOfCentralDirectorySignature);
+            this.writeShort(0); // Number of this disk
+            this.writeShort(0); // Number of the disk with the start of the central directory
+            this.writeShort(Math.min(entryCount, JarFileWriter.maximumUInt16));
+            this.writeShort(Math.min(entryCount, JarFileWriter.maximumUInt16));
+            this.writeInt(Math.min(centralDirectorySize, JarFileWriter.maximumUInt32));
+            this.writeInt(Math.min(centralDirectoryOffset, JarFileWriter.maximumUInt32));
+            this.writeShort(0); // Comment length
+
+            this.outputStream.flush();
+        }
+    }
+
+    private void writeShort(long value) throws java.io.IOException
+    {
+        this.outputStream.write((int)(value & 0xFF));
+        this.outputStream.write((int)((value >>> 8) & 0xFF));
+        this.offset += 2;
+    }
+
+    private void writeInt(long value) throws java.io.IOException
+    {
+        this.writeShort(value & 0xFFFF);
+        this.writeShort((value >>> 16) & 0xFFFF);
+    }
+
+    private void writeLong(long value) throws java.io.IOException
+    {
+        this.writeInt(value & JarFileWriter.maximumUInt32);
+        this.writeInt((value >>> 32) & JarFileWriter.maximumUInt32);
+    }
+
+    private void writeBytes(byte[] bytes) throws java.io.IOException
+    {
+        this.outputStream.write(bytes);
+        this.offset += bytes.length;
+    }
+
+    /**
+     * The information about a written entry that is needed to write the central directory. The
+     * entry's data isn't kept so that it can be garbage collected as soon as it is written.
+     */
+    private static class CentralDirectoryEntry
+    {
+        private final byte[] nameBytes;
+        private final byte[] extra;
+        private final int versionNeeded;
+        private final int method;
+        private final long dosTime;
+        private final long crc32;
+        private final long compressedSize;
+        private final long uncompressedSize;
+        private final long localHeaderOffset;
+
+        private CentralDirectoryEntry(CompressedJarEntry entry, byte[] nameBytes, int versionNeeded, long localHeaderOffset)
+        {
+            this.nameBytes = nameBytes;
+            this.extra = entry.getExtra();
+            this.versionNeeded = versionNeeded;
+            this.method = entry.getMethod();
+            this.dosTime = entry.getDosTime();
+            this.crc32 = entry.getCrc32();
+            this.compressedSize = entry.getCompressedSize();
+            this.uncompressedSize = entry.getUncompressedSize();
+            this.localHeaderOffset = localHeaderOffset;
+        }
+    }
+}
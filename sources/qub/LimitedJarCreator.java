@@ -0,0 +1,40 @@
+package qub;
+
+/**
+ * A JarCreator that takes a permit from a Semaphore that is shared by every pack in a batch
+ * before it creates each jar file, so that the number of jar files that are created at the same
+ * time across all of those packs is limited.
+ */
+public class LimitedJarCreator implements JarCreator
+{
+    private final JarCreator innerJarCreator;
+    private final java.util.concurrent.Semaphore permits;
+
+    private LimitedJarCreator(JarCreator innerJarCreator, java.util.concurrent.Semaphore permits)
+    {
+        PreCondition.assertNotNull(innerJarCreator, "innerJarCreator");
+        PreCondition.assertNotNull(permits, "permits");
+
+        this.innerJarCreator = innerJarCreator;
+        this.permits = permits;
+    }
+
+    /**
+     * Create a new LimitedJarCreator.
+     * @param innerJarCreator The JarCreator that will create the jar files.
+     * @param permits The permits that are shared by every pack in a batch.
+     * @return The new LimitedJarCreator.
+     */
+    public static LimitedJarCreator create(JarCreator innerJarCreator, java.util.concurrent.Semaphore permits)
+    {
+        return new LimitedJarCreator(innerJarCreator, permits);
+    }
+
+    @Override
+    public Result<Integer> createJarFile(CreateJarFileParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        return LazyResult.create(() -> QubPack.runWithPermit(this.permits, () -> this.innerJarCreator.createJarFile(parameters).await()));
+    }
+}
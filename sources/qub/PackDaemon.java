@@ -0,0 +1,360 @@
+package qub;
+
+/**
+ * A long-lived process that packs the projects that other qub-pack processes send to it. The
+ * daemon's JVM stays warm between packs, and the PackJSON that each pack leaves behind is kept in
+ * memory so that the next pack of the same folder doesn't read and parse the pack.json file
+ * again. The daemon only listens on the loopback address, and it only runs requests that contain
+ * the random token that it wrote to its owner-only daemon file, so only processes that run as the
+ * daemon's owner can send it packs.
+ */
+public class PackDaemon implements java.lang.AutoCloseable
+{
+    private static final String portPropertyName = "port";
+    private static final String tokenPropertyName = "token";
+
+    private final QubPackParameters daemonParameters;
+    private final java.util.concurrent.ExecutorService connectionThreads;
+    private final java.util.concurrent.ConcurrentHashMap<String,FolderState> folderStates;
+    private final String token;
+    private volatile java.net.ServerSocket serverSocket;
+
+    /**
+     * The state that the daemon keeps between the packs of a folder. Packs of the same folder
+     * synchronize on this state so that they don't run at the same time.
+     */
+    private static class FolderState
+    {
+        private PackJSON packJson;
+        private DateTime packJsonLastModified;
+    }
+
+    private PackDaemon(QubPackParameters daemonParameters)
+    {
+        PreCondition.assertNotNull(daemonParameters, "daemonParameters");
+
+        this.daemonParameters = daemonParameters;
+        this.connectionThreads = java.util.concurrent.Executors.newCachedThreadPool();
+        this.folderStates = new java.util.concurrent.ConcurrentHashMap<>();
+        this.token = PackDaemon.createToken();
+    }
+
+    /**
+     * Create a new PackDaemon.
+     * @param daemonParameters The parameters of the daemon process. Every pack that the daemon
+     *                         runs uses the environment of these parameters.
+     * @return The new PackDaemon.
+     */
+    public static PackDaemon create(QubPackParameters daemonParameters)
+    {
+        return new PackDaemon(daemonParameters);
+    }
+
+    /**
+     * Listen for pack requests until this daemon is closed. The port that this daemon listens on
+     * and the token that requests must contain are written to the daemon file so that qub-pack
+     * processes that run as the same user can find it.
+     */
+    public void run()
+    {
+        final File daemonFile = this.daemonParameters.getDaemonFile();
+        try (final java.net.ServerSocket serverSocket = new java.net.ServerSocket(0, 50, java.net.InetAddress.getLoopbackAddress()))
+        {
+            this.serverSocket = serverSocket;
+
+            final int port = serverSocket.getLocalPort();
+            PackDaemon.writeDaemonFile(daemonFile, JSONObject.create()
+                .setNumber(PackDaemon.portPropertyName, port)
+                .setString(PackDaemon.tokenPropertyName, this.token)
+                .toString());
+            this.daemonParameters.getOutputWriteStream().writeLine("Pack daemon listening on port " + port + ".").await();
+
+            while (!serverSocket.isClosed())
+            {
+                final java.net.Socket socket;
+                try
+                {
+                    socket = serverSocket.accept();
+                }
+                catch (java.net.SocketException e)
+                {
+                    // The server socket was closed.
+                    break;
+                }
+                this.connectionThreads.execute(() -> this.handleConnection(socket));
+            }
+        }
+        catch (java.io.IOException e)
+        {
+            throw Exceptions.asRuntime(e);
+        }
+        finally
+        {
+            daemonFile.delete()
+                .catchError(FileNotFoundException.class)
+                .await();
+        }
+    }
+
+    /**
+     * Run the pack that the provided request asks for.
+     * @param request The request to run.
+     * @return The response that contains the result of the pack.
+     */
+    public PackDaemonResponse pack(PackDaemonRequest request)
+    {
+        PreCondition.assertNotNull(request, "request");
+
+        final InMemoryCharacterToByteStream output = InMemoryCharacterToByteStream.create();
+        final InMemoryCharacterToByteStream error = InMemoryCharacterToByteStream.create();
+        int exitCode;
+        try
+        {
+            final QubPackParameters parameters = request.createParameters(this.daemonParameters, output, error);
+            final Folder folderToPack = parameters.getFolderToPack();
+            final File packJsonFile = folderToPack.getFile("outputs/pack.json").await();
+            final FolderState folderState = this.folderStates.computeIfAbsent(folderToPack.toString(), (String folderPath) -> new FolderState());
+            synchronized (folderState)
+            {
+                // Another process may have packed the folder since this daemon last did, so the
+                // PackJSON in memory is only used if the pack.json file hasn't been written since.
+                if (folderState.packJson != null && Comparer.equal(folderState.packJsonLastModified, PackDaemon.getLastModified(packJsonFile)))
+                {
+                    parameters.setPreviousPackJson(folderState.packJson);
+                }
+
+                exitCode = QubPack.pack(parameters);
+
+                if (exitCode == 0)
+                {
+                    folderState.packJson = parameters.getPreviousPackJson();
+                    folderState.packJsonLastModified = PackDaemon.getLastModified(packJsonFile);
+                }
+                else
+                {
+                    folderState.packJson = null;
+                    folderState.packJsonLastModified = null;
+                }
+            }
+        }
+        catch (Throwable e)
+        {
+            error.writeLine("ERROR: " + e.getMessage()).await();
+            exitCode = -1;
+        }
+
+        return PackDaemonResponse.create()
+            .setExitCode(exitCode)
+            .setOutput(output.getText().await())
+            .setError(error.getText().await());
+    }
+
+    @Override
+    public void close()
+    {
+        final java.net.ServerSocket serverSocket = this.serverSocket;
+        if (serverSocket != null)
+        {
+            try
+            {
+                serverSocket.close();
+            }
+            catch (java.io.IOException e)
+            {
+                throw Exceptions.asRuntime(e);
+            }
+        }
+        this.connectionThreads.shutdown();
+    }
+
+    /**
+     * Send the provided request to the pack daemon that is recorded in the provided daemon file
+     * and wait for its response.
+     * @param daemonFile The file that a running pack daemon records its port in.
+     * @param request The request to send.
+     * @return The response of the pack daemon, or null if no pack daemon is running.
+     */
+    public static PackDaemonResponse send(File daemonFile, PackDaemonRequest request)
+    {
+        PreCondition.assertNotNull(daemonFile, "daemonFile");
+        PreCondition.assertNotNull(request, "request");
+
+        PackDaemonResponse result = null;
+        final String daemonFileContents = daemonFile.getContentsAsString()
+            .catchError()
+            .await();
+        if (!Strings.isNullOrEmpty(daemonFileContents))
+        {
+            final JSONObject daemonJson = JSON.parseObject(daemonFileContents)
+                .catchError()
+                .await();
+            final Double port = daemonJson == null
+                ? null
+                : daemonJson.getNumber(PackDaemon.portPropertyName).catchError().await();
+            final String token = daemonJson == null
+                ? null
+                : daemonJson.getString(PackDaemon.tokenPropertyName).catchError().await();
+            if (port != null && !Strings.isNullOrEmpty(token))
+            {
+                request.setToken(token);
+                try (final java.net.Socket socket = new java.net.Socket(java.net.InetAddress.getLoopbackAddress(), port.intValue()))
+                {
+                    final java.io.Writer writer = new java.io.OutputStreamWriter(socket.getOutputStream(), java.nio.charset.StandardCharsets.UTF_8);
+                    writer.write(request.toString() + "\n");
+                    writer.flush();
+
+                    final java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.InputStreamReader(socket.getInputStream(), java.nio.charset.StandardCharsets.UTF_8));
+                    final String responseLine = reader.readLine();
+                    if (!Strings.isNullOrEmpty(responseLine))
+                    {
+                        result = PackDaemonResponse.create(JSON.parseObject(responseLine).await());
+                    }
+                }
+                catch (java.io.IOException e)
+                {
+                    // The daemon that wrote the daemon file isn't running anymore.
+                    result = null;
+                }
+            }
+        }
+        return result;
+    }
+
+    private void handleConnection(java.net.Socket socket)
+    {
+        PreCondition.assertNotNull(socket, "socket");
+
+        try (final java.net.Socket connection = socket)
+        {
+            final java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.InputStreamReader(connection.getInputStream(), java.nio.charset.StandardCharsets.UTF_8));
+            final String requestLine = reader.readLine();
+            if (!Strings.isNullOrEmpty(requestLine))
+            {
+                final JSONObject requestJson = JSON.parseObject(requestLine)
+                    .catchError()
+                    .await();
+                final PackDaemonRequest request = requestJson == null
+                    ? null
+                    : PackDaemonRequest.create(requestJson);
+                final PackDaemonResponse response;
+                if (request == null)
+                {
+                    response = PackDaemonResponse.create().setExitCode(-1).setOutput("").setError("ERROR: The pack daemon request was not a JSON object.\n");
+                }
+                else if (!PackDaemon.isAuthorized(this.token, request))
+                {
+                    response = PackDaemonResponse.create().setExitCode(-1).setOutput("").setError("ERROR: The pack daemon request didn't contain the pack daemon's token.\n");
+                }
+                else
+                {
+                    response = this.pack(request);
+                }
+
+                final java.io.Writer writer = new java.io.OutputStreamWriter(connection.getOutputStream(), java.nio.charset.StandardCharsets.UTF_8);
+                writer.write(response.toString() + "\n");
+                writer.flush();
+            }
+        }
+        catch (java.io.IOException e)
+        {
+            // The client disconnected before the response could be sent.
+        }
+    }
+
+    /**
+     * Create a new random token that pack requests must contain.
+     * @return The new random token.
+     */
+    static String createToken()
+    {
+        final byte[] tokenBytes = new byte[32];
+        new java.security.SecureRandom().nextBytes(tokenBytes);
+
+        final StringBuilder result = new StringBuilder();
+        for (final byte tokenByte : tokenBytes)
+        {
+            result.append(String.format("%02x", tokenByte & 0xFF));
+        }
+
+        PostCondition.assertNotNullAndNotEmpty(result.toString(), "result");
+
+        return result.toString();
+    }
+
+    /**
+     * Get whether or not the provided request contains the provided token. The tokens are
+     * compared in constant time so that the comparison doesn't reveal how much of a guess was
+     * right.
+     * @param token The token of the pack daemon.
+     * @param request The request to check.
+     * @return Whether or not the provided request contains the provided token.
+     */
+    static boolean isAuthorized(String token, PackDaemonRequest request)
+    {
+        PreCondition.assertNotNullAndNotEmpty(token, "token");
+        PreCondition.assertNotNull(request, "request");
+
+        final String requestToken = request.getToken();
+        return !Strings.isNullOrEmpty(requestToken) &&
+            java.security.MessageDigest.isEqual(
+                token.getBytes(java.nio.charset.StandardCharsets.UTF_8),
+                requestToken.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Write the provided contents to the daemon file. On the Java file system the daemon file is
+     * created with owner-only permissions before the token is written to it, so other users
+     * can't read the token.
+     * @param daemonFile The daemon file to write.
+     * @param contents The contents to write.
+     */
+    static void writeDaemonFile(File daemonFile, String contents)
+    {
+        PreCondition.assertNotNull(daemonFile, "daemonFile");
+        PreCondition.assertNotNullAndNotEmpty(contents, "contents");
+
+        if (daemonFile.getFileSystem() instanceof JavaFileSystem)
+        {
+            final java.nio.file.Path daemonFilePath = java.nio.file.Paths.get(daemonFile.toString());
+            final java.nio.file.Path temporaryDaemonFilePath = daemonFilePath.resolveSibling(daemonFilePath.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+            try
+            {
+                java.nio.file.Files.createDirectories(daemonFilePath.getParent());
+                java.nio.file.Files.deleteIfExists(temporaryDaemonFilePath);
+                if (java.nio.file.FileSystems.getDefault().supportedFileAttributeViews().contains("posix"))
+                {
+                    java.nio.file.Files.createFile(temporaryDaemonFilePath, java.nio.file.attribute.PosixFilePermissions.asFileAttribute(
+                        java.nio.file.attribute.PosixFilePermissions.fromString("rw-------")));
+                }
+                else
+                {
+                    java.nio.file.Files.createFile(temporaryDaemonFilePath);
+                    final java.io.File temporaryDaemonFile = temporaryDaemonFilePath.toFile();
+                    temporaryDaemonFile.setReadable(false, false);
+                    temporaryDaemonFile.setReadable(true, true);
+                    temporaryDaemonFile.setWritable(false, false);
+                    temporaryDaemonFile.setWritable(true, true);
+                }
+                java.nio.file.Files.write(temporaryDaemonFilePath, contents.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                java.nio.file.Files.move(temporaryDaemonFilePath, daemonFilePath, java.nio.file.StandardCopyOption.REPLACE_EXISTING, java.nio.file.StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (java.io.IOException e)
+            {
+                throw Exceptions.asRuntime(e);
+            }
+        }
+        else
+        {
+            daemonFile.setContentsAsString(contents).await();
+        }
+    }
+
+    private static DateTime getLastModified(File file)
+    {
+        PreCondition.assertNotNull(file, "file");
+
+        return file.getLastModified()
+            .catchError(FileNotFoundException.class)
+            .await();
+    }
+}
@@ -0,0 +1,230 @@
+package qub;
+
+/**
+ * A request that a qub-pack process sends to a pack daemon. It contains the folder to pack and
+ * the pack settings that were parsed from the sending process's command line.
+ */
+public class PackDaemonRequest extends JSONObjectWrapperBase
+{
+    private static final String folderToPackPropertyName = "folderToPack";
+    private static final String packJsonPropertyName = "packJson";
+    private static final String contentHashPropertyName = "contentHash";
+    private static final String parallelPackPropertyName = "parallelPack";
+    private static final String jarEnginePropertyName = "jarEngine";
+    private static final String incrementalPackPropertyName = "incrementalPack";
+    private static final String forceTestsPropertyName = "forceTests";
+    private static final String pipelinedPackPropertyName = "pipelinedPack";
+    private static final String criticalPathPackPropertyName = "criticalPathPack";
+    private static final String packMetricsPropertyName = "packMetrics";
+    private static final String traceFilePropertyName = "traceFile";
+    private static final String sourcesJarCompressionLevelPropertyName = "sourcesJarCompressionLevel";
+    private static final String compiledSourcesJarCompressionLevelPropertyName = "compiledSourcesJarCompressionLevel";
+    private static final String compiledTestsJarCompressionLevelPropertyName = "compiledTestsJarCompressionLevel";
+    private static final String adaptiveCompressionPropertyName = "adaptiveCompression";
+    private static final String reproduciblePropertyName = "reproducible";
+    private static final String jarCachePropertyName = "jarCache";
+    private static final String testJsonPropertyName = "testJson";
+    private static final String buildJsonPropertyName = "buildJson";
+    private static final String warningsPropertyName = "warnings";
+    private static final String verbosePropertyName = "verbose";
+    private static final String tokenPropertyName = "token";
+
+    private PackDaemonRequest(JSONObject json)
+    {
+        super(json);
+    }
+
+    public static PackDaemonRequest create(JSONObject json)
+    {
+        return new PackDaemonRequest(json);
+    }
+
+    /**
+     * Create a new PackDaemonRequest that asks a pack daemon to pack with the provided parameters.
+     * @param parameters The parameters of the pack.
+     * @return The new PackDaemonRequest.
+     */
+    public static PackDaemonRequest create(QubPackParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        final JSONObject json = JSONObject.create()
+            .setString(PackDaemonRequest.folderToPackPropertyName, parameters.getFolderToPack().toString())
+            .setBoolean(PackDaemonRequest.packJsonPropertyName, parameters.getPackJson())
+            .setBoolean(PackDaemonRequest.contentHashPropertyName, parameters.getContentHash())
+            .setBoolean(PackDaemonRequest.parallelPackPropertyName, parameters.getParallelPack())
+            .setString(PackDaemonRequest.jarEnginePropertyName, parameters.getJarEngine().name())
+            .setBoolean(PackDaemonRequest.incrementalPackPropertyName, parameters.getIncrementalPack())
+            .setBoolean(PackDaemonRequest.forceTestsPropertyName, parameters.getForceTests())
+            .setBoolean(PackDaemonRequest.pipelinedPackPropertyName, parameters.getPipelinedPack())
+            .setBoolean(PackDaemonRequest.criticalPathPackPropertyName, parameters.getCriticalPathPack())
+            .setBoolean(PackDaemonRequest.packMetricsPropertyName, parameters.getPackMetrics())
+            .setNumber(PackDaemonRequest.sourcesJarCompressionLevelPropertyName, parameters.getSourcesJarCompressionLevel())
+            .setNumber(PackDaemonRequest.compiledSourcesJarCompressionLevelPropertyName, parameters.getCompiledSourcesJarCompressionLevel())
+            .setNumber(PackDaemonRequest.compiledTestsJarCompressionLevelPropertyName, parameters.getCompiledTestsJarCompressionLevel())
+            .setBoolean(PackDaemonRequest.adaptiveCompressionPropertyName, parameters.getAdaptiveCompression())
+            .setBoolean(PackDaemonRequest.reproduciblePropertyName, parameters.getReproducible())
+            .setBoolean(PackDaemonRequest.jarCachePropertyName, parameters.getJarCache())
+            .setBoolean(PackDaemonRequest.testJsonPropertyName, parameters.getTestJson())
+            .setBoolean(PackDaemonRequest.buildJsonPropertyName, parameters.getBuildJson())
+            .setString(PackDaemonRequest.warningsPropertyName, parameters.getWarnings().name())
+            .setBoolean(PackDaemonRequest.verbosePropertyName, parameters.getVerbose().isVerbose());
+        final File traceFile = parameters.getTraceFile();
+        if (traceFile != null)
+        {
+            json.setString(PackDaemonRequest.traceFilePropertyName, traceFile.toString());
+        }
+        return PackDaemonRequest.create(json);
+    }
+
+    /**
+     * Set the token that proves that this request was sent by a process that can read the pack
+     * daemon's daemon file.
+     * @param token The token of the pack daemon.
+     * @return This object for method chaining.
+     */
+    public PackDaemonRequest setToken(String token)
+    {
+        PreCondition.assertNotNullAndNotEmpty(token, "token");
+
+        this.json.setString(PackDaemonRequest.tokenPropertyName, token);
+
+        return this;
+    }
+
+    /**
+     * Get the token that proves that this request was sent by a process that can read the pack
+     * daemon's daemon file.
+     * @return The token of the pack daemon, or null if this request doesn't have one.
+     */
+    public String getToken()
+    {
+        return this.getString(PackDaemonRequest.tokenPropertyName);
+    }
+
+    /**
+     * Get the path of the folder to pack.
+     * @return The path of the folder to pack, or null if it isn't known.
+     */
+    public String getFolderToPack()
+    {
+        return this.json.getString(PackDaemonRequest.folderToPackPropertyName)
+            .catchError()
+            .await();
+    }
+
+    /**
+     * Create the parameters that a pack daemon will use to pack this request's folder. Settings
+     * that aren't in this request keep the daemon's values.
+     * @param daemonParameters The parameters of the pack daemon process.
+     * @param outputWriteStream The stream that the output of the pack will be written to.
+     * @param errorWriteStream The stream that the errors of the pack will be written to.
+     * @return The parameters of the pack.
+     */
+    public QubPackParameters createParameters(QubPackParameters daemonParameters, CharacterToByteWriteStream outputWriteStream, CharacterToByteWriteStream errorWriteStream)
+    {
+        PreCondition.assertNotNull(daemonParameters, "daemonParameters");
+        PreCondition.assertNotNull(outputWriteStream, "outputWriteStream");
+        PreCondition.assertNotNull(errorWriteStream, "errorWriteStream");
+        PreCondition.assertNotNullAndNotEmpty(this.getFolderToPack(), "this.getFolderToPack()");
+
+        final FileSystem fileSystem = daemonParameters.getFolderToPack().getFileSystem();
+        final Folder folderToPack = fileSystem.getFolder(this.getFolderToPack()).await();
+        final QubPackParameters result = daemonParameters.createForFolder(outputWriteStream, errorWriteStream, folderToPack);
+        result.setPackJson(this.getBoolean(PackDaemonRequest.packJsonPropertyName, result.getPackJson()));
+        result.setContentHash(this.getBoolean(PackDaemonRequest.contentHashPropertyName, result.getContentHash()));
+        result.setParallelPack(this.getBoolean(PackDaemonRequest.parallelPackPropertyName, result.getParallelPack()));
+        result.setIncrementalPack(this.getBoolean(PackDaemonRequest.incrementalPackPropertyName, result.getIncrementalPack()));
+        result.setForceTests(this.getBoolean(PackDaemonRequest.forceTestsPropertyName, result.getForceTests()));
+        result.setPipelinedPack(this.getBoolean(PackDaemonRequest.pipelinedPackPropertyName, result.getPipelinedPack()));
+        result.setCriticalPathPack(this.getBoolean(PackDaemonRequest.criticalPathPackPropertyName, result.getCriticalPathPack()));
+        result.setPackMetrics(this.getBoolean(PackDaemonRequest.packMetricsPropertyName, result.getPackMetrics()));
+        result.setAdaptiveCompression(this.getBoolean(PackDaemonRequest.adaptiveCompressionPropertyName, result.getAdaptiveCompression()));
+        result.setReproducible(this.getBoolean(PackDaemonRequest.reproduciblePropertyName, result.getReproducible()));
+        result.setJarCache(this.getBoolean(PackDaemonRequest.jarCachePropertyName, result.getJarCache()));
+        result.setTestJson(this.getBoolean(PackDaemonRequest.testJsonPropertyName, result.getTestJson()));
+        result.setBuildJson(this.getBoolean(PackDaemonRequest.buildJsonPropertyName, result.getBuildJson()));
+        result.setSourcesJarCompressionLevel(this.getInteger(PackDaemonRequest.sourcesJarCompressionLevelPropertyName, result.getSourcesJarCompressionLevel()));
+        result.setCompiledSourcesJarCompressionLevel(this.getInteger(PackDaemonRequest.compiledSourcesJarCompressionLevelPropertyName, result.getCompiledSourcesJarCompressionLevel()));
+        result.setCompiledTestsJarCompressionLevel(this.getInteger(PackDaemonRequest.compiledTestsJarCompressionLevelPropertyName, result.getCompiledTestsJarCompressionLevel()));
+
+        final String jarEngine = this.getString(PackDaemonRequest.jarEnginePropertyName);
+        if (!Strings.isNullOrEmpty(jarEngine))
+        {
+            result.setJarEngine(JarEngine.valueOf(jarEngine));
+        }
+        final String warnings = this.getString(PackDaemonRequest.warningsPropertyName);
+        if (!Strings.isNullOrEmpty(warnings))
+        {
+            result.setWarnings(Warnings.valueOf(warnings));
+        }
+        final String traceFilePath = this.getString(PackDaemonRequest.traceFilePropertyName);
+        if (!Strings.isNullOrEmpty(traceFilePath))
+        {
+            final Folder outputsFolder = folderToPack.getFolder("outputs").await();
+            if (PackDaemonRequest.isInFolder(outputsFolder, traceFilePath))
+            {
+                result.setTraceFile(fileSystem.getFile(traceFilePath).await());
+            }
+            else
+            {
+                errorWriteStream.writeLine("WARNING: The pack daemon only writes trace files inside " + Strings.escapeAndQuote(outputsFolder.toString()) + ", so the trace file at " + Strings.escapeAndQuote(traceFilePath) + " won't be written.").await();
+            }
+        }
+        result.setVerbose(VerboseCharacterToByteWriteStream.create(outputWriteStream)
+            .setIsVerbose(this.getBoolean(PackDaemonRequest.verbosePropertyName, false)));
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Get whether or not the provided file path is inside of the provided folder after any "."
+     * and ".." segments are removed. The pack daemon writes the trace file that a request asks
+     * for, so it must not be able to be pointed at files outside of the packed folder's outputs.
+     * @param folder The folder that the file path must be inside of.
+     * @param filePath The file path to check.
+     * @return Whether or not the provided file path is inside of the provided folder.
+     */
+    static boolean isInFolder(Folder folder, String filePath)
+    {
+        PreCondition.assertNotNull(folder, "folder");
+        PreCondition.assertNotNullAndNotEmpty(filePath, "filePath");
+
+        final java.nio.file.Path folderPath = java.nio.file.Paths.get(folder.toString()).normalize();
+        final java.nio.file.Path normalizedFilePath = java.nio.file.Paths.get(filePath).normalize();
+        return normalizedFilePath.isAbsolute() &&
+            normalizedFilePath.startsWith(folderPath) &&
+            !normalizedFilePath.equals(folderPath);
+    }
+
+    private String getString(String propertyName)
+    {
+        PreCondition.assertNotNullAndNotEmpty(propertyName, "propertyName");
+
+        return this.json.getString(propertyName)
+            .catchError()
+            .await();
+    }
+
+    private boolean getBoolean(String propertyName, boolean defaultValue)
+    {
+        PreCondition.assertNotNullAndNotEmpty(propertyName, "propertyName");
+
+        final Boolean result = this.json.getBoolean(propertyName)
+            .catchError()
+            .await();
+        return result == null ? defaultValue : result;
+    }
+
+    private int getInteger(String propertyName, int defaultValue)
+    {
+        PreCondition.assertNotNullAndNotEmpty(propertyName, "propertyName");
+
+        final Double result = this.json.getNumber(propertyName)
+            .catchError()
+            .await();
+        return result == null ? defaultValue : result.intValue();
+    }
+}
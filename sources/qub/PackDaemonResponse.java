@@ -0,0 +1,79 @@
+package qub;
+
+/**
+ * The response that a pack daemon sends back to the qub-pack process that requested a pack. It
+ * contains the exit code of the pack and the text that the pack wrote to its output and error
+ * streams.
+ */
+public class PackDaemonResponse extends JSONObjectWrapperBase
+{
+    private static final String exitCodePropertyName = "exitCode";
+    private static final String outputPropertyName = "output";
+    private static final String errorPropertyName = "error";
+
+    private PackDaemonResponse(JSONObject json)
+    {
+        super(json);
+    }
+
+    public static PackDaemonResponse create()
+    {
+        return PackDaemonResponse.create(JSONObject.create());
+    }
+
+    public static PackDaemonResponse create(JSONObject json)
+    {
+        return new PackDaemonResponse(json);
+    }
+
+    public PackDaemonResponse setExitCode(int exitCode)
+    {
+        this.json.setNumber(PackDaemonResponse.exitCodePropertyName, exitCode);
+
+        return this;
+    }
+
+    /**
+     * Get the exit code of the pack.
+     * @return The exit code of the pack, or null if it isn't known.
+     */
+    public Integer getExitCode()
+    {
+        final Double exitCode = this.json.getNumber(PackDaemonResponse.exitCodePropertyName)
+            .catchError()
+            .await();
+        return exitCode == null ? null : exitCode.intValue();
+    }
+
+    public PackDaemonResponse setOutput(String output)
+    {
+        PreCondition.assertNotNull(output, "output");
+
+        this.json.setString(PackDaemonResponse.outputPropertyName, output);
+
+        return this;
+    }
+
+    public String getOutput()
+    {
+        return this.json.getString(PackDaemonResponse.outputPropertyName)
+            .catchError()
+            .await();
+    }
+
+    public PackDaemonResponse setError(String error)
+    {
+        PreCondition.assertNotNull(error, "error");
+
+        this.json.setString(PackDaemonResponse.errorPropertyName, error);
+
+        return this;
+    }
+
+    public String getError()
+    {
+        return this.json.getString(PackDaemonResponse.errorPropertyName)
+            .catchError()
+            .await();
+    }
+}
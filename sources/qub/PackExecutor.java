@@ -0,0 +1,83 @@
+package qub;
+
+/**
+ * The executor that runs the background work of every pack in this process: the folders of a
+ * batch, the jar files that are waited for in parallel, pipelined sources jar files, the
+ * compression of jar file entries, and the file attribute requests of folder scans. The
+ * executor is created the first time that it is needed and then reused, so a pack daemon or a
+ * batch doesn't create new threads for every pack. Its threads are created on demand because the
+ * work that it runs waits for other work that it runs, so a fixed number of threads could
+ * deadlock. How much of that work runs at once is limited by the work that is submitted and by
+ * permits, such as the permits of a batch or the ones that submit(Semaphore, Callable) takes.
+ * Its threads are daemon threads so that they don't keep the process
+ * alive.
+ */
+public class PackExecutor
+{
+    private static java.util.concurrent.ExecutorService executor;
+
+    private PackExecutor()
+    {
+    }
+
+    /**
+     * Get the executor that is shared by every pack in this process.
+     * @return The executor that is shared by every pack in this process.
+     */
+    public static synchronized java.util.concurrent.ExecutorService get()
+    {
+        if (PackExecutor.executor == null)
+        {
+            PackExecutor.executor = java.util.concurrent.Executors.newCachedThreadPool((Runnable runnable) ->
+            {
+                final Thread thread = new Thread(runnable, "qub-pack");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        PostCondition.assertNotNull(PackExecutor.executor, "PackExecutor.executor");
+
+        return PackExecutor.executor;
+    }
+
+    /**
+     * Submit the provided task to the executor that is shared by every pack in this process once
+     * one of the provided permits is available. The permit is released when the task finishes, so
+     * the number of permits limits how many of the tasks that share them run at the same time.
+     * @param permits The permits that limit how many of the tasks run at the same time.
+     * @param task The task to run.
+     * @param <T> The type of value that the task returns.
+     * @return The Future of the submitted task.
+     */
+    public static <T> java.util.concurrent.Future<T> submit(java.util.concurrent.Semaphore permits, java.util.concurrent.Callable<T> task)
+    {
+        PreCondition.assertNotNull(permits, "permits");
+        PreCondition.assertNotNull(task, "task");
+
+        try
+        {
+            permits.acquire();
+        }
+        catch (InterruptedException e)
+        {
+            throw Exceptions.asRuntime(e);
+        }
+
+        final java.util.concurrent.Future<T> result = PackExecutor.get().submit(() ->
+        {
+            try
+            {
+                return task.call();
+            }
+            finally
+            {
+                permits.release();
+            }
+        });
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+}
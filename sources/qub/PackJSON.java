@@ -6,6 +6,7 @@ public class PackJSON extends JSONObjectWrapperBase
     private static final String sourceFilesPropertyName = "sourceFiles";
     private static final String sourceOutputFilesPropertyName = "sourceOutputFiles";
     private static final String testOutputFilesPropertyName = "testOutputFiles";
+    private static final String jarMillisecondsPropertyName = "jarMilliseconds";
 
     private PackJSON(JSONObject json)
     {
@@ -80,6 +81,47 @@ public class PackJSON extends JSONObjectWrapperBase
         return PackJSON.parsePackJSONFiles(this.json, PackJSON.testOutputFilesPropertyName);
     }
 
+    /**
+     * Set the number of milliseconds that it took to create the provided type of jar file the
+     * last time that it was created.
+     * @param jarType The type of the jar file: sources, compiledSources, or compiledTests.
+     * @param milliseconds The number of milliseconds that it took to create the jar file.
+     * @return This object for method chaining.
+     */
+    public PackJSON setJarMilliseconds(String jarType, long milliseconds)
+    {
+        PreCondition.assertNotNullAndNotEmpty(jarType, "jarType");
+        PreCondition.assertGreaterThanOrEqualTo(milliseconds, 0, "milliseconds");
+
+        JSONObject jarMilliseconds = this.json.getObject(PackJSON.jarMillisecondsPropertyName).catchError().await();
+        if (jarMilliseconds == null)
+        {
+            jarMilliseconds = JSONObject.create();
+            this.json.setObject(PackJSON.jarMillisecondsPropertyName, jarMilliseconds);
+        }
+        jarMilliseconds.setNumber(jarType, milliseconds);
+
+        return this;
+    }
+
+    /**
+     * Get the number of milliseconds that it took to create the provided type of jar file the
+     * last time that it was created.
+     * @param jarType The type of the jar file: sources, compiledSources, or compiledTests.
+     * @return The number of milliseconds that it took to create the jar file, or null if it
+     * wasn't recorded.
+     */
+    public Long getJarMilliseconds(String jarType)
+    {
+        PreCondition.assertNotNullAndNotEmpty(jarType, "jarType");
+
+        final Double result = this.json.getObject(PackJSON.jarMillisecondsPropertyName)
+            .then((JSONObject jarMilliseconds) -> jarMilliseconds.getNumber(jarType).await())
+            .catchError()
+            .await();
+        return result == null ? null : result.longValue();
+    }
+
     private static void setPackJsonFiles(JSONObject json, String propertyName, Iterable<PackJSONFile> packJSONFiles)
     {
         PreCondition.assertNotNull(json, "json");
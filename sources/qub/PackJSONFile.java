@@ -2,6 +2,10 @@ package qub;
 
 public class PackJSONFile
 {
+    private static final String lastModifiedPropertyName = "lastModified";
+    private static final String sizePropertyName = "size";
+    private static final String contentHashPropertyName = "contentHash";
+
     private final JSONProperty json;
 
     private PackJSONFile(JSONProperty json)
@@ -28,6 +32,29 @@ public class PackJSONFile
         return new PackJSONFile(JSONProperty.create(relativePath.toString(), lastModified.toString()));
     }
 
+    /**
+     * Create a new PackJSONFile that records the size and the content hash of the file in addition
+     * to its last modified time.
+     * @param relativePath The path of the file relative to the folder that is being packed.
+     * @param lastModified The last time the file was modified.
+     * @param size The number of bytes in the file.
+     * @param contentHash The hash of the file's contents.
+     * @return The new PackJSONFile.
+     */
+    public static PackJSONFile create(Path relativePath, DateTime lastModified, long size, String contentHash)
+    {
+        PreCondition.assertNotNull(relativePath, "relativePath");
+        PreCondition.assertFalse(relativePath.isRooted(), "relativePath.isRooted()");
+        PreCondition.assertNotNull(lastModified, "lastModified");
+        PreCondition.assertGreaterThanOrEqualTo(size, 0, "size");
+        PreCondition.assertNotNullAndNotEmpty(contentHash, "contentHash");
+
+        return new PackJSONFile(JSONProperty.create(relativePath.toString(), JSONObject.create()
+            .setString(PackJSONFile.lastModifiedPropertyName, lastModified.toString())
+            .setNumber(PackJSONFile.sizePropertyName, size)
+            .setString(PackJSONFile.contentHashPropertyName, contentHash)));
+    }
+
     public static Result<PackJSONFile> parse(JSONProperty json)
     {
         PreCondition.assertNotNull(json, "json");
@@ -35,13 +62,36 @@ public class PackJSONFile
         return Result.create(() ->
         {
             // If the DateTime successfully parses the property value, then it's a valid
-            // PackJSONFile JSONProperty.
-            DateTime.parse(json.getStringValue().await()).await();
+            // PackJSONFile JSONProperty. The property value is either the last modified DateTime
+            // or an object that also contains the file's size and content hash.
+            if (json.getValue() instanceof JSONObject)
+            {
+                final JSONObject jsonObject = json.getObjectValue().await();
+                DateTime.parse(jsonObject.getString(PackJSONFile.lastModifiedPropertyName).await()).await();
+            }
+            else
+            {
+                DateTime.parse(json.getStringValue().await()).await();
+            }
 
             return new PackJSONFile(json);
         });
     }
 
+    /**
+     * Get the hash of the provided file contents that is stored by content hash PackJSONFiles.
+     * @param contents The file contents to hash.
+     * @return The hash of the provided file contents.
+     */
+    public static String getContentHash(byte[] contents)
+    {
+        PreCondition.assertNotNull(contents, "contents");
+
+        final java.util.zip.CRC32C crc32c = new java.util.zip.CRC32C();
+        crc32c.update(contents);
+        return "crc32c:" + Long.toHexString(crc32c.getValue());
+    }
+
     public Path getRelativePath()
     {
         return Path.parse(this.json.getName());
@@ -49,7 +99,53 @@ public class PackJSONFile
 
     public DateTime getLastModified()
     {
-        return DateTime.parse(this.json.getStringValue().await()).await();
+        final JSONObject jsonObject = this.getJsonObjectValue();
+        final String lastModifiedString = jsonObject != null
+            ? jsonObject.getString(PackJSONFile.lastModifiedPropertyName).await()
+            : this.json.getStringValue().await();
+        return DateTime.parse(lastModifiedString).await();
+    }
+
+    /**
+     * Get the number of bytes in the file, or null if the size wasn't recorded.
+     * @return The number of bytes in the file, or null if the size wasn't recorded.
+     */
+    public Long getSize()
+    {
+        Long result = null;
+        final JSONObject jsonObject = this.getJsonObjectValue();
+        if (jsonObject != null)
+        {
+            final Double size = jsonObject.getNumber(PackJSONFile.sizePropertyName)
+                .catchError()
+                .await();
+            if (size != null)
+            {
+                result = size.longValue();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the hash of the file's contents, or null if the content hash wasn't recorded.
+     * @return The hash of the file's contents, or null if the content hash wasn't recorded.
+     */
+    public String getContentHash()
+    {
+        final JSONObject jsonObject = this.getJsonObjectValue();
+        return jsonObject == null
+            ? null
+            : jsonObject.getString(PackJSONFile.contentHashPropertyName)
+                .catchError()
+                .await();
+    }
+
+    private JSONObject getJsonObjectValue()
+    {
+        return this.json.getValue() instanceof JSONObject
+            ? this.json.getObjectValue().await()
+            : null;
     }
 
     @Override
@@ -62,7 +158,9 @@ public class PackJSONFile
     {
         return rhs != null &&
             Comparer.equal(this.getRelativePath(), rhs.getRelativePath()) &&
-            Comparer.equal(this.getLastModified(), rhs.getLastModified());
+            Comparer.equal(this.getLastModified(), rhs.getLastModified()) &&
+            Comparer.equal(this.getSize(), rhs.getSize()) &&
+            Comparer.equal(this.getContentHash(), rhs.getContentHash());
     }
 
     @Override
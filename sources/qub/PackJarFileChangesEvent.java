@@ -0,0 +1,108 @@
+package qub;
+
+/**
+ * A Java Flight Recorder event that is emitted when a pack decides whether or not a jar file
+ * needs to be created. This event is disabled by default. It can be enabled in a recording's
+ * settings with the name "qub.pack.JarFileChanges".
+ */
+@jdk.jfr.Name("qub.pack.JarFileChanges")
+@jdk.jfr.Label("Pack Jar File Changes")
+@jdk.jfr.Description("The detection of the changes to a jar file's files since the previous pack.")
+@jdk.jfr.Category({"Qub", "Pack"})
+@jdk.jfr.Enabled(false)
+@jdk.jfr.StackTrace(false)
+public class PackJarFileChangesEvent extends jdk.jfr.Event
+{
+    @jdk.jfr.Label("Jar Type")
+    @jdk.jfr.Description("The type of jar file that was checked: sources, compiledSources, or compiledTests.")
+    String jarType;
+
+    @jdk.jfr.Label("Files Scanned")
+    int filesScanned;
+
+    @jdk.jfr.Label("New Files")
+    int newFiles;
+
+    @jdk.jfr.Label("Modified Files")
+    int modifiedFiles;
+
+    @jdk.jfr.Label("Deleted Files")
+    int deletedFiles;
+
+    @jdk.jfr.Label("Has Changes")
+    @jdk.jfr.Description("Whether or not the jar file needs to be created.")
+    boolean hasChanges;
+
+    @jdk.jfr.Label("Reason")
+    @jdk.jfr.Description("Why the jar file does or doesn't need to be created.")
+    String reason;
+
+    /**
+     * Create a new PackJarFileChangesEvent and start timing it.
+     * @return The new PackJarFileChangesEvent.
+     */
+    public static PackJarFileChangesEvent start()
+    {
+        final PackJarFileChangesEvent result = new PackJarFileChangesEvent();
+        result.begin();
+        return result;
+    }
+
+    /**
+     * Stop timing this event and commit it if it is enabled.
+     * @param jarType The type of jar file that was checked.
+     * @param filesScanned The number of files that were checked.
+     * @param jarFileChanges The changes that were detected.
+     */
+    public void finish(String jarType, int filesScanned, JarFileChanges jarFileChanges)
+    {
+        PreCondition.assertNotNullAndNotEmpty(jarType, "jarType");
+        PreCondition.assertGreaterThanOrEqualTo(filesScanned, 0, "filesScanned");
+        PreCondition.assertNotNull(jarFileChanges, "jarFileChanges");
+
+        this.end();
+        if (this.shouldCommit())
+        {
+            this.jarType = jarType;
+            this.filesScanned = filesScanned;
+            this.newFiles = jarFileChanges.getNewFiles().getCount();
+            this.modifiedFiles = jarFileChanges.getModifiedFiles().getCount();
+            this.deletedFiles = jarFileChanges.getDeletedFiles().getCount();
+            this.hasChanges = jarFileChanges.hasChanges();
+            this.reason = PackJarFileChangesEvent.getReason(jarFileChanges);
+            this.commit();
+        }
+    }
+
+    /**
+     * Get why the provided changes do or don't require the jar file to be created.
+     * @param jarFileChanges The changes to the jar file's files.
+     * @return Why the provided changes do or don't require the jar file to be created.
+     */
+    static String getReason(JarFileChanges jarFileChanges)
+    {
+        PreCondition.assertNotNull(jarFileChanges, "jarFileChanges");
+
+        String result;
+        if (!jarFileChanges.isPreviousStateKnown())
+        {
+            result = "previous pack unknown";
+        }
+        else if (jarFileChanges.getProjectChanged())
+        {
+            result = "project changed";
+        }
+        else if (jarFileChanges.hasChanges())
+        {
+            result = "files changed";
+        }
+        else
+        {
+            result = "unchanged";
+        }
+
+        PostCondition.assertNotNullAndNotEmpty(result, "result");
+
+        return result;
+    }
+}
@@ -0,0 +1,79 @@
+package qub;
+
+/**
+ * A Java Flight Recorder event that is emitted when a pack creates a jar file. This event is
+ * disabled by default. It can be enabled in a recording's settings with the name
+ * "qub.pack.JarFile".
+ */
+@jdk.jfr.Name("qub.pack.JarFile")
+@jdk.jfr.Label("Pack Jar File")
+@jdk.jfr.Description("The creation of a jar file by qub-pack.")
+@jdk.jfr.Category({"Qub", "Pack"})
+@jdk.jfr.Enabled(false)
+@jdk.jfr.StackTrace(false)
+public class PackJarFileEvent extends jdk.jfr.Event
+{
+    @jdk.jfr.Label("Jar Type")
+    @jdk.jfr.Description("The type of jar file that was created: sources, compiledSources, or compiledTests.")
+    String jarType;
+
+    @jdk.jfr.Label("Jar File")
+    String jarFile;
+
+    @jdk.jfr.Label("Entry Count")
+    @jdk.jfr.Description("The number of files that were added to the jar file.")
+    int entryCount;
+
+    @jdk.jfr.Label("Bytes In")
+    @jdk.jfr.Description("The number of bytes in the files that were added to the jar file, or -1 if it isn't known.")
+    @jdk.jfr.DataAmount
+    long bytesIn;
+
+    @jdk.jfr.Label("Bytes Out")
+    @jdk.jfr.Description("The number of bytes in the created jar file, or -1 if it isn't known.")
+    @jdk.jfr.DataAmount
+    long bytesOut;
+
+    @jdk.jfr.Label("Exit Code")
+    int exitCode;
+
+    /**
+     * Create a new PackJarFileEvent and start timing it.
+     * @return The new PackJarFileEvent.
+     */
+    public static PackJarFileEvent start()
+    {
+        final PackJarFileEvent result = new PackJarFileEvent();
+        result.begin();
+        return result;
+    }
+
+    /**
+     * Stop timing this event and commit it if it is enabled. The jar file's size is only measured
+     * when the event will be committed.
+     * @param jarType The type of jar file that was created.
+     * @param jarFile The jar file that was created.
+     * @param files The snapshots of the files that were added to the jar file.
+     * @param exitCode The exit code of creating the jar file.
+     */
+    public void finish(String jarType, File jarFile, Iterable<FileSnapshot> files, int exitCode)
+    {
+        PreCondition.assertNotNullAndNotEmpty(jarType, "jarType");
+        PreCondition.assertNotNull(jarFile, "jarFile");
+        PreCondition.assertNotNull(files, "files");
+
+        this.end();
+        if (this.shouldCommit())
+        {
+            this.jarType = jarType;
+            this.jarFile = jarFile.toString();
+            this.entryCount = files.getCount();
+            final Long bytesIn = QubPack.getByteCount(files);
+            this.bytesIn = bytesIn == null ? -1 : bytesIn;
+            final Long bytesOut = exitCode == 0 ? QubPack.getByteCount(jarFile) : null;
+            this.bytesOut = bytesOut == null ? -1 : bytesOut;
+            this.exitCode = exitCode;
+            this.commit();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package qub;
+
+/**
+ * A jar file that a pack will create, along with what is known about how expensive it will be to
+ * create it. When a pack's jar files are started in order of their estimated cost, the most
+ * expensive jar file is started first so that it is the least likely to be the jar file that the
+ * pack ends up waiting for.
+ */
+public class PackJarTask
+{
+    /**
+     * The number of bytes that each file's fixed cost is estimated to be worth. Every file that
+     * is added to a jar file is opened and gets its own local header and central directory
+     * record, regardless of its size.
+     */
+    static final long fileCostBytes = 4096;
+
+    private final String jarType;
+    private final int fileCount;
+    private final Long byteCount;
+    private final Function0<Result<Void>> createJarFile;
+    private Long previousMilliseconds;
+    private long startNanoseconds;
+    private Result<Void> result;
+    private Long milliseconds;
+
+    private PackJarTask(String jarType, Iterable<FileSnapshot> files, Function0<Result<Void>> createJarFile)
+    {
+        PreCondition.assertNotNullAndNotEmpty(jarType, "jarType");
+        PreCondition.assertNotNull(files, "files");
+        PreCondition.assertNotNull(createJarFile, "createJarFile");
+
+        this.jarType = jarType;
+        this.fileCount = files.getCount();
+        this.byteCount = QubPack.getByteCount(files);
+        this.createJarFile = createJarFile;
+    }
+
+    /**
+     * Create a new PackJarTask.
+     * @param jarType The type of the jar file: sources, compiledSources, or compiledTests.
+     * @param files The snapshots of the files that will be added to the jar file.
+     * @param createJarFile The function that starts creating the jar file.
+     * @return The new PackJarTask.
+     */
+    public static PackJarTask create(String jarType, Iterable<FileSnapshot> files, Function0<Result<Void>> createJarFile)
+    {
+        return new PackJarTask(jarType, files, createJarFile);
+    }
+
+    /**
+     * Get the type of the jar file: sources, compiledSources, or compiledTests.
+     * @return The type of the jar file.
+     */
+    public String getJarType()
+    {
+        return this.jarType;
+    }
+
+    /**
+     * Get the number of files that will be added to the jar file.
+     * @return The number of files that will be added to the jar file.
+     */
+    public int getFileCount()
+    {
+        return this.fileCount;
+    }
+
+    /**
+     * Get the total number of bytes in the files that will be added to the jar file.
+     * @return The total number of bytes in the files, or null if the size of any of the files
+     * wasn't collected.
+     */
+    public Long getByteCount()
+    {
+        return this.byteCount;
+    }
+
+    /**
+     * Get the estimated cost of creating the jar file from its file and byte counts.
+     * @return The estimated cost of creating the jar file.
+     */
+    public long getEstimatedBytes()
+    {
+        return (this.byteCount == null ? 0 : this.byteCount) + this.fileCount * PackJarTask.fileCostBytes;
+    }
+
+    /**
+     * Set the number of milliseconds that it took to create the jar file the last time that it
+     * was created.
+     * @param previousMilliseconds The number of milliseconds that it took to create the jar file
+     *                             the last time, or null if it isn't known.
+     * @return This object for method chaining.
+     */
+    public PackJarTask setPreviousMilliseconds(Long previousMilliseconds)
+    {
+        PreCondition.assertTrue(previousMilliseconds == null || previousMilliseconds >= 0, "previousMilliseconds == null || previousMilliseconds >= 0");
+
+        this.previousMilliseconds = previousMilliseconds;
+        return this;
+    }
+
+    /**
+     * Get the number of milliseconds that it took to create the jar file the last time that it
+     * was created.
+     * @return The number of milliseconds that it took to create the jar file the last time, or
+     * null if it isn't known.
+     */
+    public Long getPreviousMilliseconds()
+    {
+        return this.previousMilliseconds;
+    }
+
+    /**
+     * Start creating the jar file.
+     * @return The result of creating the jar file.
+     */
+    public Result<Void> start()
+    {
+        PreCondition.assertTrue(this.result == null, "this.result == null");
+
+        this.startNanoseconds = System.nanoTime();
+        this.result = this.createJarFile.run();
+
+        PostCondition.assertNotNull(this.result, "this.result");
+
+        return this.result;
+    }
+
+    /**
+     * Wait for the jar file to be created and record how long it took since it was started.
+     */
+    public void await()
+    {
+        PreCondition.assertNotNull(this.result, "this.result");
+
+        this.result.await();
+        this.milliseconds = (System.nanoTime() - this.startNanoseconds) / 1_000_000;
+    }
+
+    /**
+     * Get the number of milliseconds that it took to create the jar file.
+     * @return The number of milliseconds that it took to create the jar file, or null if it
+     * hasn't been created yet.
+     */
+    public Long getMilliseconds()
+    {
+        return this.milliseconds;
+    }
+
+    /**
+     * Get the order that the provided tasks should be started in: most expensive first. If the
+     * time that it took to create every one of the jar files was recorded the last time that they
+     * were created, then those times are compared. Otherwise the jar files' file and byte counts
+     * are compared. Tasks with the same cost keep their order.
+     * @param tasks The tasks to order.
+     * @return The tasks in the order that they should be started in.
+     */
+    public static Iterable<PackJarTask> getStartOrder(Iterable<PackJarTask> tasks)
+    {
+        PreCondition.assertNotNull(tasks, "tasks");
+
+        final java.util.List<PackJarTask> orderedTasks = new java.util.ArrayList<>();
+        boolean allTimed = true;
+        for (final PackJarTask task : tasks)
+        {
+            orderedTasks.add(task);
+            allTimed = allTimed && task.getPreviousMilliseconds() != null;
+        }
+
+        // java.util.List.sort() is stable, so tasks with the same cost keep their order.
+        if (allTimed)
+        {
+            orderedTasks.sort((PackJarTask lhs, PackJarTask rhs) -> Long.compare(rhs.getPreviousMilliseconds(), lhs.getPreviousMilliseconds()));
+        }
+        else
+        {
+            orderedTasks.sort((PackJarTask lhs, PackJarTask rhs) -> Long.compare(rhs.getEstimatedBytes(), lhs.getEstimatedBytes()));
+        }
+
+        final List<PackJarTask> result = List.create();
+        for (final PackJarTask task : orderedTasks)
+        {
+            result.add(task);
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+}
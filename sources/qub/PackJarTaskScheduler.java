@@ -0,0 +1,153 @@
+package qub;
+
+/**
+ * Decides when each of a pack's jar files is created. If the jar files aren't created in
+ * parallel, then each jar file is created as soon as it is added. If they are created in
+ * parallel, then each jar file is started as soon as it is added and the pack waits for all of
+ * them at the end. If they are created in parallel along the critical path, then the jar files
+ * are held until the pack waits for them and started most expensive first. Jar files that are
+ * created in parallel are waited for on separate threads, because JarCreators return lazy
+ * results that only create their jar files when they are waited for, and so that each jar
+ * file's completion (such as publishing it) runs as soon as that jar file is created instead of
+ * after the jar files that were started before it. Those threads come from the process's shared
+ * PackExecutor, and jar files that aren't created in parallel don't use any other threads.
+ */
+public class PackJarTaskScheduler
+{
+    private final boolean parallel;
+    private final boolean criticalPath;
+    private final List<PackJarTask> startedTasks;
+    private final List<PackJarTask> scheduledTasks;
+
+    private PackJarTaskScheduler(boolean parallel, boolean criticalPath)
+    {
+        this.parallel = parallel;
+        this.criticalPath = criticalPath;
+        this.startedTasks = List.create();
+        this.scheduledTasks = List.create();
+    }
+
+    /**
+     * Create a new PackJarTaskScheduler.
+     * @param parallel Whether or not the jar files will be created in parallel.
+     * @param criticalPath Whether or not the jar files that are created in parallel will be
+     *                     started most expensive first.
+     * @return The new PackJarTaskScheduler.
+     */
+    public static PackJarTaskScheduler create(boolean parallel, boolean criticalPath)
+    {
+        return new PackJarTaskScheduler(parallel, criticalPath);
+    }
+
+    /**
+     * Add a jar file that will be created.
+     * @param task The jar file to create.
+     * @return This object for method chaining.
+     */
+    public PackJarTaskScheduler add(PackJarTask task)
+    {
+        PreCondition.assertNotNull(task, "task");
+
+        if (!this.parallel)
+        {
+            task.start();
+            task.await();
+        }
+        else if (!this.criticalPath)
+        {
+            task.start();
+            this.startedTasks.add(task);
+        }
+        else
+        {
+            this.scheduledTasks.add(task);
+        }
+
+        return this;
+    }
+
+    /**
+     * Wait for every jar file that was added to this scheduler to be created. Scheduled jar files
+     * are started in order of their estimated cost before they are waited for.
+     * @return The scheduled jar files, in the order that they were started.
+     */
+    public Iterable<PackJarTask> await()
+    {
+        final Iterable<PackJarTask> result = PackJarTask.getStartOrder(this.scheduledTasks);
+        this.scheduledTasks.clear();
+
+        final List<PackJarTask> tasksToAwait = List.create();
+        for (final PackJarTask task : this.startedTasks)
+        {
+            tasksToAwait.add(task);
+        }
+        this.startedTasks.clear();
+        for (final PackJarTask task : result)
+        {
+            task.start();
+            tasksToAwait.add(task);
+        }
+
+        PackJarTaskScheduler.awaitConcurrently(tasksToAwait);
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Wait for every one of the provided tasks at the same time. The first task is waited for on
+     * the calling thread and the others are waited for on the process's shared executor, so a
+     * single task doesn't need any other threads.
+     * @param tasks The tasks to wait for.
+     */
+    private static void awaitConcurrently(Iterable<PackJarTask> tasks)
+    {
+        PreCondition.assertNotNull(tasks, "tasks");
+
+        final List<java.util.concurrent.CompletableFuture<Void>> awaitTasks = List.create();
+        boolean first = true;
+        for (final PackJarTask task : tasks)
+        {
+            if (first)
+            {
+                first = false;
+            }
+            else
+            {
+                awaitTasks.add(java.util.concurrent.CompletableFuture.runAsync(task::await, PackExecutor.get()));
+            }
+        }
+
+        RuntimeException firstError = null;
+        if (!first)
+        {
+            try
+            {
+                tasks.first().await();
+            }
+            catch (RuntimeException e)
+            {
+                firstError = e;
+            }
+        }
+        for (final java.util.concurrent.CompletableFuture<Void> awaitTask : awaitTasks)
+        {
+            try
+            {
+                awaitTask.join();
+            }
+            catch (java.util.concurrent.CompletionException e)
+            {
+                if (firstError == null)
+                {
+                    firstError = Exceptions.asRuntime(e.getCause());
+                }
+            }
+        }
+        if (firstError != null)
+        {
+            throw firstError;
+        }
+    }
+}
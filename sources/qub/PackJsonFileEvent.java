@@ -0,0 +1,59 @@
+package qub;
+
+/**
+ * A Java Flight Recorder event that is emitted when a pack reads or writes its pack.json file.
+ * This event is disabled by default. It can be enabled in a recording's settings with the name
+ * "qub.pack.PackJsonFile".
+ */
+@jdk.jfr.Name("qub.pack.PackJsonFile")
+@jdk.jfr.Label("Pack JSON File")
+@jdk.jfr.Description("The reading or writing of a pack.json file by qub-pack.")
+@jdk.jfr.Category({"Qub", "Pack"})
+@jdk.jfr.Enabled(false)
+@jdk.jfr.StackTrace(false)
+public class PackJsonFileEvent extends jdk.jfr.Event
+{
+    @jdk.jfr.Label("Operation")
+    @jdk.jfr.Description("Whether the pack.json file was read or written.")
+    String operation;
+
+    @jdk.jfr.Label("Path")
+    String path;
+
+    @jdk.jfr.Label("Bytes")
+    @jdk.jfr.Description("The number of bytes that were read or written, or -1 if the file didn't exist.")
+    @jdk.jfr.DataAmount
+    long bytes;
+
+    /**
+     * Create a new PackJsonFileEvent and start timing it.
+     * @return The new PackJsonFileEvent.
+     */
+    public static PackJsonFileEvent start()
+    {
+        final PackJsonFileEvent result = new PackJsonFileEvent();
+        result.begin();
+        return result;
+    }
+
+    /**
+     * Stop timing this event and commit it if it is enabled.
+     * @param operation Whether the pack.json file was "read" or "written".
+     * @param packJsonFile The pack.json file.
+     * @param contents The contents that were read or written, or null if the file didn't exist.
+     */
+    public void finish(String operation, File packJsonFile, String contents)
+    {
+        PreCondition.assertNotNullAndNotEmpty(operation, "operation");
+        PreCondition.assertNotNull(packJsonFile, "packJsonFile");
+
+        this.end();
+        if (this.shouldCommit())
+        {
+            this.operation = operation;
+            this.path = packJsonFile.toString();
+            this.bytes = contents == null ? -1 : contents.getBytes(java.nio.charset.StandardCharsets.UTF_8).length;
+            this.commit();
+        }
+    }
+}
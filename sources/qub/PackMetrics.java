@@ -0,0 +1,209 @@
+package qub;
+
+/**
+ * The wall time, CPU time, file counts, and byte counts of each phase of a pack. These are
+ * written to the pack-metrics.json file so that slow packs can be diagnosed without attaching a
+ * profiler. They can also be exported as a Chrome trace so that the phases that ran at the same
+ * time can be seen on a timeline.
+ */
+public class PackMetrics
+{
+    private static final String phasesPropertyName = "phases";
+    private static final String totalWallMillisecondsPropertyName = "totalWallMilliseconds";
+    private static final String traceEventsPropertyName = "traceEvents";
+    private static final int traceProcessId = 1;
+
+    private final PackMetricsPhase total;
+    private final java.util.List<PackMetricsPhase> phases;
+
+    private PackMetrics()
+    {
+        this.total = PackMetricsPhase.start("total");
+        this.phases = java.util.Collections.synchronizedList(new java.util.ArrayList<>());
+    }
+
+    /**
+     * Create a new PackMetrics object and start measuring the total time of the pack.
+     * @return The new PackMetrics object.
+     */
+    public static PackMetrics create()
+    {
+        return new PackMetrics();
+    }
+
+    /**
+     * Start a new phase with the provided name.
+     * @param name The name of the phase.
+     * @return The new phase.
+     */
+    public PackMetricsPhase startPhase(String name)
+    {
+        PreCondition.assertNotNullAndNotEmpty(name, "name");
+
+        final PackMetricsPhase result = PackMetricsPhase.start(name);
+        this.phases.add(result);
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Start a new phase with the provided name that may overlap other phases that were started on
+     * the same thread.
+     * @param name The name of the phase.
+     * @return The new phase.
+     */
+    public PackMetricsPhase startConcurrentPhase(String name)
+    {
+        PreCondition.assertNotNullAndNotEmpty(name, "name");
+
+        final PackMetricsPhase result = PackMetricsPhase.startConcurrent(name);
+        this.phases.add(result);
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Get the phases that have been started.
+     * @return The phases that have been started.
+     */
+    public Iterable<PackMetricsPhase> getPhases()
+    {
+        final List<PackMetricsPhase> result = List.create();
+        synchronized (this.phases)
+        {
+            for (final PackMetricsPhase phase : this.phases)
+            {
+                result.add(phase);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Stop measuring the total time of the pack.
+     * @return This object for method chaining.
+     */
+    public PackMetrics end()
+    {
+        this.total.end();
+        return this;
+    }
+
+    /**
+     * Get the number of milliseconds that the pack took.
+     * @return The number of milliseconds that the pack took.
+     */
+    public double getTotalWallMilliseconds()
+    {
+        return this.total.getWallMilliseconds();
+    }
+
+    /**
+     * Get a single line summary of the phases that have ended.
+     * @return A single line summary of the phases that have ended.
+     */
+    public String getSummary()
+    {
+        final StringBuilder result = new StringBuilder("Pack metrics:");
+        for (final PackMetricsPhase phase : this.getPhases().where(PackMetricsPhase::hasEnded))
+        {
+            result.append(' ').append(phase.getName()).append('=').append(PackMetrics.formatMilliseconds(phase.getWallMilliseconds())).append(',');
+        }
+        result.append(" total=").append(PackMetrics.formatMilliseconds(this.getTotalWallMilliseconds()));
+        return result.toString();
+    }
+
+    private static String formatMilliseconds(double milliseconds)
+    {
+        return Math.round(milliseconds) + "ms";
+    }
+
+    /**
+     * Get the JSON object that describes the phases that have ended.
+     * @return The JSON object that describes the phases that have ended.
+     */
+    public JSONObject toJson()
+    {
+        return JSONObject.create()
+            .setObject(PackMetrics.phasesPropertyName, JSONObject.create(this.getPhases()
+                .where(PackMetricsPhase::hasEnded)
+                .map(PackMetricsPhase::toJsonProperty)))
+            .setNumber(PackMetrics.totalWallMillisecondsPropertyName, this.getTotalWallMilliseconds());
+    }
+
+    /**
+     * Get the Chrome trace event JSON object that describes the phases that have ended. The
+     * returned object can be loaded by chrome://tracing or by the Perfetto UI.
+     * @return The Chrome trace event JSON object that describes the phases that have ended.
+     */
+    public JSONObject toTraceJson()
+    {
+        PreCondition.assertTrue(this.total.hasEnded(), "this.total.hasEnded()");
+
+        final long originNanoseconds = this.total.getStartNanoseconds();
+        final List<PackMetricsPhase> tracedPhases = List.create();
+        tracedPhases.add(this.total);
+        for (final PackMetricsPhase phase : this.getPhases().where(PackMetricsPhase::hasEnded))
+        {
+            tracedPhases.add(phase);
+        }
+
+        final List<JSONSegment> traceEvents = List.create();
+        traceEvents.add(PackMetrics.createTraceMetadataEvent("process_name", 0, "qub-pack"));
+        final java.util.Map<Long,String> threadNames = new java.util.LinkedHashMap<>();
+        for (final PackMetricsPhase phase : tracedPhases)
+        {
+            threadNames.putIfAbsent(phase.getThreadId(), phase.getThreadName());
+        }
+        for (final java.util.Map.Entry<Long,String> threadName : threadNames.entrySet())
+        {
+            traceEvents.add(PackMetrics.createTraceMetadataEvent("thread_name", threadName.getKey(), threadName.getValue()));
+        }
+
+        int asyncId = 0;
+        for (final PackMetricsPhase phase : tracedPhases)
+        {
+            for (final JSONObject traceEvent : phase.toTraceEvents(PackMetrics.traceProcessId, originNanoseconds, asyncId++))
+            {
+                traceEvents.add(traceEvent);
+            }
+        }
+
+        return JSONObject.create()
+            .setArray(PackMetrics.traceEventsPropertyName, JSONArray.create(traceEvents))
+            .setString("displayTimeUnit", "ms");
+    }
+
+    private static JSONObject createTraceMetadataEvent(String name, long threadId, String value)
+    {
+        return JSONObject.create()
+            .setString("name", name)
+            .setString("ph", "M")
+            .setNumber("pid", PackMetrics.traceProcessId)
+            .setNumber("tid", threadId)
+            .setObject("args", JSONObject.create()
+                .setString("name", value));
+    }
+
+    /**
+     * Get the string representation of this object in the provided JSON format.
+     * @param format The format to use.
+     * @return The string representation of this object.
+     */
+    public String toString(JSONFormat format)
+    {
+        PreCondition.assertNotNull(format, "format");
+
+        return this.toJson().toString(format);
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.toJson().toString();
+    }
+}
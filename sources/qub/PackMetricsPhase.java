@@ -0,0 +1,310 @@
+package qub;
+
+/**
+ * The measurements of a single phase of a pack.
+ */
+public class PackMetricsPhase
+{
+    private static final String wallMillisecondsPropertyName = "wallMilliseconds";
+    private static final String cpuMillisecondsPropertyName = "cpuMilliseconds";
+    private static final String filesPropertyName = "files";
+    private static final String bytesInPropertyName = "bytesIn";
+    private static final String bytesOutPropertyName = "bytesOut";
+    private static final String traceCategory = "pack";
+
+    private final String name;
+    private final boolean concurrent;
+    private final Thread startThread;
+    private final long startNanoseconds;
+    private final long startCpuNanoseconds;
+    private long wallNanoseconds;
+    private long cpuNanoseconds;
+    private boolean ended;
+    private Integer files;
+    private Long bytesIn;
+    private Long bytesOut;
+
+    private PackMetricsPhase(String name, boolean concurrent)
+    {
+        PreCondition.assertNotNullAndNotEmpty(name, "name");
+
+        this.name = name;
+        this.concurrent = concurrent;
+        this.startThread = Thread.currentThread();
+        this.startCpuNanoseconds = PackMetricsPhase.getCurrentThreadCpuNanoseconds();
+        this.startNanoseconds = System.nanoTime();
+        this.cpuNanoseconds = -1;
+    }
+
+    /**
+     * Start a new phase with the provided name.
+     * @param name The name of the phase.
+     * @return The new phase.
+     */
+    public static PackMetricsPhase start(String name)
+    {
+        return new PackMetricsPhase(name, false);
+    }
+
+    /**
+     * Start a new phase with the provided name that may overlap other phases that were started on
+     * the same thread, such as a jar file that is created while other jar files are created.
+     * @param name The name of the phase.
+     * @return The new phase.
+     */
+    public static PackMetricsPhase startConcurrent(String name)
+    {
+        return new PackMetricsPhase(name, true);
+    }
+
+    private static long getCurrentThreadCpuNanoseconds()
+    {
+        final java.lang.management.ThreadMXBean threadBean = java.lang.management.ManagementFactory.getThreadMXBean();
+        return threadBean.isCurrentThreadCpuTimeSupported() ? threadBean.getCurrentThreadCpuTime() : -1;
+    }
+
+    /**
+     * End this phase. The phase's CPU time is only measured if the phase ends on the same thread
+     * that it started on.
+     * @return This object for method chaining.
+     */
+    public PackMetricsPhase end()
+    {
+        PreCondition.assertFalse(this.ended, "this.ended");
+
+        this.wallNanoseconds = System.nanoTime() - this.startNanoseconds;
+        if (this.startCpuNanoseconds >= 0 && Thread.currentThread() == this.startThread)
+        {
+            this.cpuNanoseconds = PackMetricsPhase.getCurrentThreadCpuNanoseconds() - this.startCpuNanoseconds;
+        }
+        this.ended = true;
+
+        return this;
+    }
+
+    /**
+     * Get the name of this phase.
+     * @return The name of this phase.
+     */
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * Get whether or not this phase may overlap other phases that were started on the same
+     * thread.
+     * @return Whether or not this phase may overlap other phases that were started on the same
+     * thread.
+     */
+    public boolean isConcurrent()
+    {
+        return this.concurrent;
+    }
+
+    /**
+     * Get the value of System.nanoTime() when this phase started.
+     * @return The value of System.nanoTime() when this phase started.
+     */
+    public long getStartNanoseconds()
+    {
+        return this.startNanoseconds;
+    }
+
+    /**
+     * Get the id of the thread that this phase started on.
+     * @return The id of the thread that this phase started on.
+     */
+    public long getThreadId()
+    {
+        return this.startThread.getId();
+    }
+
+    /**
+     * Get the name of the thread that this phase started on.
+     * @return The name of the thread that this phase started on.
+     */
+    public String getThreadName()
+    {
+        return this.startThread.getName();
+    }
+
+    /**
+     * Get whether or not this phase has ended.
+     * @return Whether or not this phase has ended.
+     */
+    public boolean hasEnded()
+    {
+        return this.ended;
+    }
+
+    /**
+     * Get the number of milliseconds that this phase took.
+     * @return The number of milliseconds that this phase took.
+     */
+    public double getWallMilliseconds()
+    {
+        PreCondition.assertTrue(this.ended, "this.ended");
+
+        return this.wallNanoseconds / 1_000_000.0;
+    }
+
+    /**
+     * Get the number of milliseconds of CPU time that this phase used on the thread that it ran
+     * on.
+     * @return The number of milliseconds of CPU time that this phase used, or null if it wasn't
+     * measured.
+     */
+    public Double getCpuMilliseconds()
+    {
+        PreCondition.assertTrue(this.ended, "this.ended");
+
+        return this.cpuNanoseconds < 0 ? null : this.cpuNanoseconds / 1_000_000.0;
+    }
+
+    /**
+     * Set the number of files that this phase processed.
+     * @param files The number of files that this phase processed.
+     * @return This object for method chaining.
+     */
+    public PackMetricsPhase setFiles(int files)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(files, 0, "files");
+
+        this.files = files;
+        return this;
+    }
+
+    /**
+     * Get the number of files that this phase processed.
+     * @return The number of files that this phase processed, or null if it wasn't recorded.
+     */
+    public Integer getFiles()
+    {
+        return this.files;
+    }
+
+    /**
+     * Set the number of bytes that this phase read.
+     * @param bytesIn The number of bytes that this phase read.
+     * @return This object for method chaining.
+     */
+    public PackMetricsPhase setBytesIn(long bytesIn)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(bytesIn, 0L, "bytesIn");
+
+        this.bytesIn = bytesIn;
+        return this;
+    }
+
+    /**
+     * Get the number of bytes that this phase read.
+     * @return The number of bytes that this phase read, or null if it wasn't recorded.
+     */
+    public Long getBytesIn()
+    {
+        return this.bytesIn;
+    }
+
+    /**
+     * Set the number of bytes that this phase wrote.
+     * @param bytesOut The number of bytes that this phase wrote.
+     * @return This object for method chaining.
+     */
+    public PackMetricsPhase setBytesOut(long bytesOut)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(bytesOut, 0L, "bytesOut");
+
+        this.bytesOut = bytesOut;
+        return this;
+    }
+
+    /**
+     * Get the number of bytes that this phase wrote.
+     * @return The number of bytes that this phase wrote, or null if it wasn't recorded.
+     */
+    public Long getBytesOut()
+    {
+        return this.bytesOut;
+    }
+
+    /**
+     * Get the JSON property that describes this phase.
+     * @return The JSON property that describes this phase.
+     */
+    public JSONProperty toJsonProperty()
+    {
+        PreCondition.assertTrue(this.ended, "this.ended");
+
+        final JSONObject json = JSONObject.create()
+            .setNumber(PackMetricsPhase.wallMillisecondsPropertyName, this.getWallMilliseconds());
+        final Double cpuMilliseconds = this.getCpuMilliseconds();
+        if (cpuMilliseconds != null)
+        {
+            json.setNumber(PackMetricsPhase.cpuMillisecondsPropertyName, cpuMilliseconds);
+        }
+        if (this.files != null)
+        {
+            json.setNumber(PackMetricsPhase.filesPropertyName, this.files);
+        }
+        if (this.bytesIn != null)
+        {
+            json.setNumber(PackMetricsPhase.bytesInPropertyName, this.bytesIn);
+        }
+        if (this.bytesOut != null)
+        {
+            json.setNumber(PackMetricsPhase.bytesOutPropertyName, this.bytesOut);
+        }
+        return JSONProperty.create(this.name, json);
+    }
+
+    /**
+     * Get the Chrome trace events that describe this phase. A phase that may overlap other phases
+     * on its thread is described by a pair of async begin and end events so that it gets its own
+     * track. Every other phase is described by a single complete event on its thread.
+     * @param processId The id of the process that the events belong to.
+     * @param originNanoseconds The value of System.nanoTime() that the event timestamps are
+     *                          relative to.
+     * @param asyncId The id that pairs this phase's async begin and end events.
+     * @return The Chrome trace events that describe this phase.
+     */
+    public Iterable<JSONObject> toTraceEvents(int processId, long originNanoseconds, int asyncId)
+    {
+        PreCondition.assertTrue(this.ended, "this.ended");
+
+        final double startMicroseconds = (this.startNanoseconds - originNanoseconds) / 1_000.0;
+        final double durationMicroseconds = this.wallNanoseconds / 1_000.0;
+        final JSONObject args = this.toJsonProperty().getObjectValue().await();
+
+        final List<JSONObject> result = List.create();
+        if (!this.concurrent)
+        {
+            result.add(PackMetricsPhase.createTraceEvent(this.name, "X", startMicroseconds, processId, this.getThreadId())
+                .setNumber("dur", durationMicroseconds)
+                .setObject("args", args));
+        }
+        else
+        {
+            result.add(PackMetricsPhase.createTraceEvent(this.name, "b", startMicroseconds, processId, this.getThreadId())
+                .setNumber("id", asyncId)
+                .setObject("args", args));
+            result.add(PackMetricsPhase.createTraceEvent(this.name, "e", startMicroseconds + durationMicroseconds, processId, this.getThreadId())
+                .setNumber("id", asyncId));
+        }
+
+        PostCondition.assertNotNullAndNotEmpty(result, "result");
+
+        return result;
+    }
+
+    private static JSONObject createTraceEvent(String name, String phase, double timestampMicroseconds, int processId, long threadId)
+    {
+        return JSONObject.create()
+            .setString("name", name)
+            .setString("cat", PackMetricsPhase.traceCategory)
+            .setString("ph", phase)
+            .setNumber("ts", timestampMicroseconds)
+            .setNumber("pid", processId)
+            .setNumber("tid", threadId);
+    }
+}
@@ -0,0 +1,54 @@
+package qub;
+
+/**
+ * The record of the last time that a project's tests passed during a pack. This is stored next
+ * to the pack.json file so that a pack can skip running the tests when nothing that the tests
+ * depend on has changed since they last passed.
+ */
+public class PackTestsJSON extends JSONObjectWrapperBase
+{
+    private static final String testsPassedFingerprintPropertyName = "testsPassedFingerprint";
+
+    private PackTestsJSON(JSONObject json)
+    {
+        super(json);
+    }
+
+    public static PackTestsJSON create()
+    {
+        return PackTestsJSON.create(JSONObject.create());
+    }
+
+    public static PackTestsJSON create(JSONObject json)
+    {
+        return new PackTestsJSON(json);
+    }
+
+    /**
+     * Set the fingerprint of the project's source files, test files, and compiled class files at
+     * the time that the project's tests passed.
+     * @param testsPassedFingerprint The fingerprint of the project when its tests passed.
+     * @return This object for method chaining.
+     */
+    public PackTestsJSON setTestsPassedFingerprint(String testsPassedFingerprint)
+    {
+        PreCondition.assertNotNullAndNotEmpty(testsPassedFingerprint, "testsPassedFingerprint");
+
+        this.json.setString(PackTestsJSON.testsPassedFingerprintPropertyName, testsPassedFingerprint);
+
+        return this;
+    }
+
+    /**
+     * Get the fingerprint of the project's source files, test files, and compiled class files at
+     * the time that the project's tests last passed.
+     * @return The fingerprint of the project when its tests last passed, or null if it isn't
+     * known.
+     */
+    public String getTestsPassedFingerprint()
+    {
+        return this.json.getString(PackTestsJSON.testsPassedFingerprintPropertyName)
+            .catchError()
+            .await();
+    }
+}
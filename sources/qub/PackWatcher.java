@@ -0,0 +1,284 @@
+package qub;
+
+/**
+ * Watches the sources, tests, and outputs folders of a project on the Java file system and
+ * collects the files that change in them. Only the files that are packed (Java source files and
+ * compiled class files) are collected, so the jar files and JSON files that a pack writes to the
+ * outputs folder don't cause another pack.
+ */
+public class PackWatcher implements java.lang.AutoCloseable
+{
+    private static final Iterable<String> watchedFolderNames = Iterable.create("sources", "tests", "outputs");
+
+    private final java.nio.file.Path rootPath;
+    private final java.nio.file.WatchService watchService;
+    private final java.util.Map<java.nio.file.WatchKey,java.nio.file.Path> watchedFolderPaths;
+    private volatile boolean closed;
+
+    private PackWatcher(java.nio.file.Path rootPath, java.nio.file.WatchService watchService)
+    {
+        PreCondition.assertNotNull(rootPath, "rootPath");
+        PreCondition.assertNotNull(watchService, "watchService");
+
+        this.rootPath = rootPath;
+        this.watchService = watchService;
+        this.watchedFolderPaths = new java.util.HashMap<>();
+    }
+
+    /**
+     * Start watching the sources, tests, and outputs folders of the provided project folder. The
+     * project folder itself is also watched so that these folders are watched if they are created
+     * later.
+     * @param folderToPack The project folder to watch. This must be on the Java file system.
+     * @return The new PackWatcher.
+     */
+    public static PackWatcher create(Folder folderToPack)
+    {
+        PreCondition.assertNotNull(folderToPack, "folderToPack");
+        PreCondition.assertTrue(folderToPack.getFileSystem() instanceof JavaFileSystem, "folderToPack.getFileSystem() instanceof JavaFileSystem");
+
+        final java.nio.file.Path rootPath = java.nio.file.Paths.get(folderToPack.toString());
+        final PackWatcher result;
+        try
+        {
+            result = new PackWatcher(rootPath, rootPath.getFileSystem().newWatchService());
+        }
+        catch (java.io.IOException e)
+        {
+            throw Exceptions.asRuntime(e);
+        }
+
+        result.registerFolder(rootPath);
+        for (final String watchedFolderName : PackWatcher.watchedFolderNames)
+        {
+            final java.nio.file.Path watchedFolderPath = rootPath.resolve(watchedFolderName);
+            if (java.nio.file.Files.isDirectory(watchedFolderPath))
+            {
+                result.registerFolders(watchedFolderPath, null);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Get whether or not a change to the file at the provided path should cause the project to be
+     * packed again.
+     * @param relativePath The path of the changed file relative to the project folder.
+     * @return Whether or not a change to the file should cause the project to be packed again.
+     */
+    static boolean isWatchedChange(Path relativePath)
+    {
+        PreCondition.assertNotNull(relativePath, "relativePath");
+
+        final List<String> segments = relativePath.getSegments().toList();
+        final int segmentCount = segments.getCount();
+        boolean result = false;
+        if (segmentCount >= 2)
+        {
+            final String folderName = segments.get(0);
+            final String fileName = segments.get(segmentCount - 1);
+            if (folderName.equals("sources") || folderName.equals("tests"))
+            {
+                result = fileName.endsWith(".java");
+            }
+            else if (folderName.equals("outputs"))
+            {
+                result = fileName.endsWith(".class");
+                for (int i = 1; result && i < segmentCount - 1; ++i)
+                {
+                    result = FolderSnapshot.isPackageFolderName(segments.get(i));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Wait for files in the watched folders to change. After the first change, this keeps
+     * collecting changes until no files have changed for the provided number of milliseconds, so
+     * a burst of changes (such as a compile that writes many class files) is returned together.
+     * @param debounceMilliseconds The number of milliseconds that no files can change for before
+     *                             the collected changes are returned.
+     * @return The paths of the changed files relative to the project folder. If the file system
+     * dropped events, then the path of the watched folder that dropped them is returned instead.
+     * If this PackWatcher is closed or the waiting thread is interrupted, then the changes that
+     * were collected so far are returned, which may be none.
+     */
+    public Iterable<Path> waitForChanges(int debounceMilliseconds)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(debounceMilliseconds, 0, "debounceMilliseconds");
+
+        final java.util.Set<String> changes = new java.util.TreeSet<>();
+        try
+        {
+            while (changes.isEmpty() && !this.closed)
+            {
+                java.nio.file.WatchKey watchKey = this.watchService.take();
+                while (watchKey != null)
+                {
+                    this.addChanges(watchKey, changes);
+                    watchKey = this.watchService.poll(debounceMilliseconds, java.util.concurrent.TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+        catch (java.nio.file.ClosedWatchServiceException e)
+        {
+            // This PackWatcher was closed while it was waiting.
+        }
+        catch (InterruptedException e)
+        {
+            // Keep the thread's interrupted status so that the caller can stop watching.
+            Thread.currentThread().interrupt();
+        }
+
+        final List<Path> result = List.create();
+        for (final String change : changes)
+        {
+            result.add(Path.parse(change));
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Get whether or not this PackWatcher has been closed.
+     * @return Whether or not this PackWatcher has been closed.
+     */
+    public boolean isClosed()
+    {
+        return this.closed;
+    }
+
+    /**
+     * Stop watching the project folder. A thread that is waiting for changes stops waiting. This
+     * can be called from any thread, and it can be called more than once.
+     */
+    @Override
+    public void close()
+    {
+        this.closed = true;
+        try
+        {
+            this.watchService.close();
+        }
+        catch (java.io.IOException e)
+        {
+            throw Exceptions.asRuntime(e);
+        }
+    }
+
+    private void addChanges(java.nio.file.WatchKey watchKey, java.util.Set<String> changes)
+    {
+        PreCondition.assertNotNull(watchKey, "watchKey");
+        PreCondition.assertNotNull(changes, "changes");
+
+        final java.nio.file.Path folderPath = this.watchedFolderPaths.get(watchKey);
+        if (folderPath != null)
+        {
+            for (final java.nio.file.WatchEvent<?> event : watchKey.pollEvents())
+            {
+                if (event.kind() == java.nio.file.StandardWatchEventKinds.OVERFLOW)
+                {
+                    // Some changes in this folder were lost, so report the whole folder.
+                    if (folderPath.equals(this.rootPath))
+                    {
+                        for (final String watchedFolderName : PackWatcher.watchedFolderNames)
+                        {
+                            changes.add(watchedFolderName);
+                        }
+                    }
+                    else
+                    {
+                        changes.add(this.getRelativePath(folderPath).toString());
+                    }
+                }
+                else
+                {
+                    final java.nio.file.Path changedPath = folderPath.resolve((java.nio.file.Path)event.context());
+                    final Path relativePath = this.getRelativePath(changedPath);
+                    if (event.kind() == java.nio.file.StandardWatchEventKinds.ENTRY_CREATE &&
+                        java.nio.file.Files.isDirectory(changedPath) &&
+                        PackWatcher.watchedFolderNames.contains(relativePath.getSegments().first()))
+                    {
+                        // The files in a new folder can be created before the folder is watched,
+                        // so they are added as changes while the folder is registered.
+                        this.registerFolders(changedPath, changes);
+                    }
+                    else if (PackWatcher.isWatchedChange(relativePath))
+                    {
+                        changes.add(relativePath.toString());
+                    }
+                }
+            }
+
+            if (!watchKey.reset())
+            {
+                this.watchedFolderPaths.remove(watchKey);
+            }
+        }
+    }
+
+    private void registerFolders(java.nio.file.Path folderPath, java.util.Set<String> changes)
+    {
+        PreCondition.assertNotNull(folderPath, "folderPath");
+
+        try
+        {
+            java.nio.file.Files.walkFileTree(folderPath, new java.nio.file.SimpleFileVisitor<java.nio.file.Path>()
+            {
+                @Override
+                public java.nio.file.FileVisitResult preVisitDirectory(java.nio.file.Path directoryPath, java.nio.file.attribute.BasicFileAttributes attributes)
+                {
+                    PackWatcher.this.registerFolder(directoryPath);
+                    return java.nio.file.FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public java.nio.file.FileVisitResult visitFile(java.nio.file.Path filePath, java.nio.file.attribute.BasicFileAttributes attributes)
+                {
+                    if (changes != null)
+                    {
+                        final Path relativePath = PackWatcher.this.getRelativePath(filePath);
+                        if (PackWatcher.isWatchedChange(relativePath))
+                        {
+                            changes.add(relativePath.toString());
+                        }
+                    }
+                    return java.nio.file.FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        catch (java.io.IOException e)
+        {
+            throw Exceptions.asRuntime(e);
+        }
+    }
+
+    private void registerFolder(java.nio.file.Path folderPath)
+    {
+        PreCondition.assertNotNull(folderPath, "folderPath");
+
+        try
+        {
+            final java.nio.file.WatchKey watchKey = folderPath.register(this.watchService,
+                java.nio.file.StandardWatchEventKinds.ENTRY_CREATE,
+                java.nio.file.StandardWatchEventKinds.ENTRY_DELETE,
+                java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY);
+            this.watchedFolderPaths.put(watchKey, folderPath);
+        }
+        catch (java.io.IOException e)
+        {
+            throw Exceptions.asRuntime(e);
+        }
+    }
+
+    private Path getRelativePath(java.nio.file.Path path)
+    {
+        PreCondition.assertNotNull(path, "path");
+
+        return Path.parse(this.rootPath.relativize(path).toString().replace('\\', '/'));
+    }
+}
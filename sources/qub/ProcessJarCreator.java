@@ -0,0 +1,169 @@
+package qub;
+
+/**
+ * A JarCreator that creates jar files by running the external jar executable. The jar executable
+ * can only store entries or compress them with its default compression level, so any compression
+ * level other than 0 uses the default compression level.
+ */
+public class ProcessJarCreator implements JarCreator
+{
+    /**
+     * The output of "jar --version". The jar executable doesn't change while qub-pack runs, so it
+     * is only run once per process.
+     */
+    private static String version;
+
+    private final ProcessFactory processFactory;
+    private int argumentFileThreshold;
+
+    private ProcessJarCreator(ProcessFactory processFactory)
+    {
+        PreCondition.assertNotNull(processFactory, "processFactory");
+
+        this.processFactory = processFactory;
+        this.argumentFileThreshold = QubPackParameters.getJarArgumentFileThresholdDefault();
+    }
+
+    /**
+     * Create a new ProcessJarCreator.
+     * @param processFactory The ProcessFactory that will be used to run the jar executable.
+     * @return The new ProcessJarCreator.
+     */
+    public static ProcessJarCreator create(ProcessFactory processFactory)
+    {
+        return new ProcessJarCreator(processFactory);
+    }
+
+    /**
+     * Set the number of content files above which the content files will be passed to the jar
+     * executable in an argument file instead of on the command line.
+     * @param argumentFileThreshold The number of content files above which an argument file will
+     *                              be used.
+     * @return This object for method chaining.
+     */
+    public ProcessJarCreator setArgumentFileThreshold(int argumentFileThreshold)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(argumentFileThreshold, 0, "argumentFileThreshold");
+
+        this.argumentFileThreshold = argumentFileThreshold;
+        return this;
+    }
+
+    /**
+     * Get the number of content files above which the content files will be passed to the jar
+     * executable in an argument file instead of on the command line.
+     * @return The number of content files above which an argument file will be used.
+     */
+    public int getArgumentFileThreshold()
+    {
+        return this.argumentFileThreshold;
+    }
+
+    /**
+     * Get the version of the jar executable that the provided ProcessFactory runs.
+     * @param processFactory The ProcessFactory that will be used to run the jar executable.
+     * @return The version of the jar executable.
+     */
+    static synchronized String getVersion(ProcessFactory processFactory)
+    {
+        PreCondition.assertNotNull(processFactory, "processFactory");
+
+        if (ProcessJarCreator.version == null)
+        {
+            final InMemoryCharacterToByteStream output = InMemoryCharacterToByteStream.create();
+            final JarProcessBuilder jar = JarProcessBuilder.get(processFactory).await()
+                .addVersion();
+            jar.redirectOutput(output);
+            final Integer exitCode = jar.start().await().await();
+            final String versionText = output.getText().await().trim();
+            if (exitCode == null || exitCode != 0 || Strings.isNullOrEmpty(versionText))
+            {
+                throw new RuntimeException("Failed to get the version of the jar executable by running " + jar.getCommand() + ".");
+            }
+            ProcessJarCreator.version = versionText;
+        }
+
+        PostCondition.assertNotNullAndNotEmpty(ProcessJarCreator.version, "result");
+
+        return ProcessJarCreator.version;
+    }
+
+    /**
+     * Get the argument file that the content files of the provided jar file will be written to.
+     * @param jarFile The jar file that will be created.
+     * @return The argument file that the content files will be written to.
+     */
+    static File getArgumentFile(File jarFile)
+    {
+        PreCondition.assertNotNull(jarFile, "jarFile");
+
+        return jarFile.getParentFolder().await().getFile(jarFile.getName() + ".args").await();
+    }
+
+    @Override
+    public Result<Integer> createJarFile(CreateJarFileParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+        PreCondition.assertTrue(parameters.getReproducibleTimestamp() == null, "parameters.getReproducibleTimestamp() == null");
+
+        final VerboseCharacterToByteWriteStream verbose = parameters.getVerbose();
+
+        final JarProcessBuilder jar = JarProcessBuilder.get(this.processFactory).await()
+            .setWorkingFolder(parameters.getBaseFolder())
+            .addCreate()
+            .addJarFile(parameters.getJarFile());
+        if (parameters.getCompressionLevel() == 0)
+        {
+            jar.addNoCompress();
+        }
+        final File manifestFile = parameters.getManifestFile();
+        if (manifestFile != null)
+        {
+            jar.addManifestFile(manifestFile);
+        }
+
+        final Iterable<File> files = parameters.getFilesInEntryOrder();
+        final File argumentFile;
+        if (files.getCount() <= this.argumentFileThreshold)
+        {
+            argumentFile = null;
+            jar.addContentFiles(files);
+        }
+        else
+        {
+            argumentFile = ProcessJarCreator.getArgumentFile(parameters.getJarFile());
+            argumentFile.setContentsAsString(JarArgumentFile.getContents(files
+                .map((File file) -> jar.relativeToWorkingFolderPath(file.getPath()).toString())))
+                .await();
+            jar.addArgumentFile(argumentFile);
+        }
+
+        if (verbose.isVerbose())
+        {
+            jar.redirectOutput(parameters.getOutputWriteStream());
+            jar.redirectError(parameters.getErrorWriteStream());
+            verbose.writeLine("Running " + jar.getCommand()).await();
+        }
+
+        final PackMetrics metrics = parameters.getMetrics();
+        final PackMetricsPhase childProcessPhase = metrics == null
+            ? null
+            : metrics.startConcurrentPhase("jarProcess:" + parameters.getJarFile().getName());
+        final ChildProcess childProcess = jar.start().await();
+        return LazyResult.create(() ->
+        {
+            final Integer result = childProcess.await();
+            if (childProcessPhase != null)
+            {
+                childProcessPhase.end();
+            }
+            if (argumentFile != null)
+            {
+                argumentFile.delete()
+                    .catchError(FileNotFoundException.class)
+                    .await();
+            }
+            return result;
+        });
+    }
+}
@@ -35,6 +35,289 @@ public interface QubPack
             .setDescription("Whether or not the jar files will be packaged in parallel. Defaults to " + parallelDefault + ".");
     }
 
+    static CommandLineParameterBoolean addIncrementalPackParameter(CommandLineParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        final boolean incrementalPackDefault = QubPackParameters.getIncrementalPackDefault();
+        return parameters.addBoolean("incrementalpack", incrementalPackDefault)
+            .setDescription("Whether or not unchanged entries will be copied from the previous jar files instead of being compressed again. Only used by the internal jar engine. Defaults to " + incrementalPackDefault + ".");
+    }
+
+    static CommandLineParameterBoolean addForceTestsParameter(CommandLineParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        final boolean forceTestsDefault = QubPackParameters.getForceTestsDefault();
+        return parameters.addBoolean("forcetests", forceTestsDefault)
+            .setDescription("Whether or not the project will be compiled and tested even if its files, its dependencies, and the test parameters haven't changed since its tests last passed. When this is false and --packjson is true, an unchanged project's compilation and tests are skipped. Defaults to " + forceTestsDefault + ".");
+    }
+
+    static CommandLineParameterBoolean addPipelinedPackParameter(CommandLineParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        final boolean pipelinedPackDefault = QubPackParameters.getPipelinedPackDefault();
+        return parameters.addBoolean("pipelinedpack", pipelinedPackDefault)
+            .setDescription("Whether or not the sources jar file will be created while the tests run. It is only published after the tests pass. Defaults to " + pipelinedPackDefault + ".");
+    }
+
+    static CommandLineParameterBoolean addCriticalPathPackParameter(CommandLineParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        final boolean criticalPathPackDefault = QubPackParameters.getCriticalPathPackDefault();
+        return parameters.addBoolean("criticalpathpack", criticalPathPackDefault)
+            .setDescription("Whether or not the parallel jar files will be started most expensive first, with the compiled sources jar file published as soon as it is created. Defaults to " + criticalPathPackDefault + ".");
+    }
+
+    static CommandLineParameterBoolean addPackMetricsParameter(CommandLineParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        final boolean packMetricsDefault = QubPackParameters.getPackMetricsDefault();
+        return parameters.addBoolean("packmetrics", packMetricsDefault)
+            .setDescription("Whether or not the time, file counts, and byte counts of each phase of the pack will be written to a pack-metrics.json file. Defaults to " + packMetricsDefault + ".");
+    }
+
+    static CommandLineParameter<File> addTraceParameter(CommandLineParameters parameters, DesktopProcess process)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+        PreCondition.assertNotNull(process, "process");
+
+        return parameters.addFile("trace", process)
+            .setValueName("<trace-file>")
+            .setDescription("The file that a Chrome trace event timeline of each phase of the pack will be written to. The file can be opened with chrome://tracing or with the Perfetto UI.");
+    }
+
+    static CommandLineParameter<String> addCompressionLevelParameter(CommandLineParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        return parameters.addString("compressionlevel")
+            .setValueName("<0-9>")
+            .setDescription("The compression level of every jar file, from 0 (stored) to 9 (best compression). Each jar file's own compression level parameter overrides this. The jar engine process only supports 0 or its default compression level.");
+    }
+
+    static CommandLineParameter<String> addSourcesCompressionLevelParameter(CommandLineParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        return parameters.addString("sourcescompressionlevel")
+            .setValueName("<0-9>")
+            .setDescription("The compression level of the sources jar file, from 0 (stored) to 9 (best compression). Defaults to " + QubPackParameters.getSourcesJarCompressionLevelDefault() + ".");
+    }
+
+    static CommandLineParameter<String> addCompiledSourcesCompressionLevelParameter(CommandLineParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        return parameters.addString("compiledsourcescompressionlevel")
+            .setValueName("<0-9>")
+            .setDescription("The compression level of the compiled sources jar file, from 0 (stored) to 9 (best compression). Defaults to " + QubPackParameters.getCompiledSourcesJarCompressionLevelDefault() + ".");
+    }
+
+    static CommandLineParameter<String> addCompiledTestsCompressionLevelParameter(CommandLineParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        return parameters.addString("compiledtestscompressionlevel")
+            .setValueName("<0-9>")
+            .setDescription("The compression level of the compiled tests jar file, from 0 (stored) to 9 (best compression). Defaults to " + QubPackParameters.getCompiledTestsJarCompressionLevelDefault() + ".");
+    }
+
+    static CommandLineParameterBoolean addAdaptiveCompressionParameter(CommandLineParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        final boolean adaptiveCompressionDefault = QubPackParameters.getAdaptiveCompressionDefault();
+        return parameters.addBoolean("adaptivecompression", adaptiveCompressionDefault)
+            .setDescription("Whether or not jar file entries that don't shrink when they are compressed will be stored instead. The jar engine process doesn't support this. Defaults to " + adaptiveCompressionDefault + ".");
+    }
+
+    static CommandLineParameterBoolean addReproducibleParameter(CommandLineParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        final boolean reproducibleDefault = QubPackParameters.getReproducibleDefault();
+        return parameters.addBoolean("reproducible", reproducibleDefault)
+            .setDescription("Whether or not the jar file entries will be sorted by name and given a fixed timestamp so that identical files produce identical jar files. Reproducible jar files are always created by the internal jar engine. Defaults to " + reproducibleDefault + ".");
+    }
+
+    static CommandLineParameterBoolean addJarCacheParameter(CommandLineParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        final boolean jarCacheDefault = QubPackParameters.getJarCacheDefault();
+        return parameters.addBoolean("jarcache", jarCacheDefault)
+            .setDescription("Whether or not jar files will be copied from a cache that is shared by every project on this machine when a jar file with the same contents has already been created. Defaults to " + jarCacheDefault + ".");
+    }
+
+    static CommandLineParameterBoolean addDaemonParameter(CommandLineParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        final boolean daemonDefault = QubPackParameters.getDaemonDefault();
+        return parameters.addBoolean("daemon", daemonDefault)
+            .setDescription("Whether or not this process will keep running and pack the projects that other qub-pack processes send to it. Defaults to " + daemonDefault + ".");
+    }
+
+    static CommandLineParameterBoolean addUseDaemonParameter(CommandLineParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        final boolean useDaemonDefault = QubPackParameters.getUseDaemonDefault();
+        return parameters.addBoolean("usedaemon", useDaemonDefault)
+            .setDescription("Whether or not the project will be sent to a running pack daemon to be packed. If no pack daemon is running, then the project is packed by this process. Defaults to " + useDaemonDefault + ".");
+    }
+
+    static CommandLineParameterBoolean addWatchParameter(CommandLineParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        final boolean watchDefault = QubPackParameters.getWatchDefault();
+        return parameters.addBoolean("watch", watchDefault)
+            .setDescription("Whether or not the project will be packed again every time that its source files, test files, or compiled class files change. Defaults to " + watchDefault + ".");
+    }
+
+    static CommandLineParameter<String> addFoldersParameter(CommandLineParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        return parameters.addString("folders")
+            .setValueName("<folder-patterns>")
+            .setDescription("A comma-separated list of project folders to pack instead of the folder to pack. Each folder is relative to the folder to pack and each of its segments can be a glob, such as libraries/*.");
+    }
+
+    static CommandLineParameter<String> addConcurrencyParameter(CommandLineParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        return parameters.addString("concurrency")
+            .setValueName("<count>")
+            .setDescription("The maximum number of project folders, test runs, and jar files that will be packed, run, and created at the same time when --folders is used. Defaults to the number of processors.");
+    }
+
+    /**
+     * Parse the value of the --folders parameter.
+     * @param foldersString The value of the --folders parameter.
+     * @return The folder patterns.
+     */
+    static Iterable<String> parseFolderPatterns(String foldersString)
+    {
+        PreCondition.assertNotNull(foldersString, "foldersString");
+
+        final List<String> result = List.create();
+        for (final String folderPattern : foldersString.split(","))
+        {
+            final String trimmedFolderPattern = folderPattern.trim();
+            if (!trimmedFolderPattern.isEmpty())
+            {
+                result.add(trimmedFolderPattern);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Parse the value of the --concurrency parameter.
+     * @param concurrencyString The value of the --concurrency parameter.
+     * @return The concurrency, or null if the value isn't a positive integer.
+     */
+    static Integer parseConcurrency(String concurrencyString)
+    {
+        PreCondition.assertNotNullAndNotEmpty(concurrencyString, "concurrencyString");
+
+        Integer result;
+        try
+        {
+            result = Integer.parseInt(concurrencyString);
+            if (result < 1)
+            {
+                result = null;
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            result = null;
+        }
+        return result;
+    }
+
+    /**
+     * Parse the value of one of the compression level parameters.
+     * @param compressionLevelString The value of the compression level parameter.
+     * @return The compression level, or null if the value isn't an integer from 0 to 9.
+     */
+    static Integer parseCompressionLevel(String compressionLevelString)
+    {
+        PreCondition.assertNotNullAndNotEmpty(compressionLevelString, "compressionLevelString");
+
+        Integer result = null;
+        if (compressionLevelString.length() == 1)
+        {
+            final char digit = compressionLevelString.charAt(0);
+            if ('0' <= digit && digit <= '9')
+            {
+                result = digit - '0';
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Parse the value of the compression level parameter with the provided name and pass the
+     * parsed compression level to the provided setter. If the parameter wasn't provided, then
+     * the setter isn't called.
+     * @param parameterName The name of the compression level parameter.
+     * @param compressionLevelString The value of the compression level parameter, or null if it
+     *                               wasn't provided.
+     * @param setCompressionLevel The function that sets the parsed compression level.
+     * @param error The stream that an error will be written to if the value is invalid.
+     * @return Whether or not the value was valid.
+     */
+    static boolean setCompressionLevel(String parameterName, String compressionLevelString, Action1<Integer> setCompressionLevel, CharacterToByteWriteStream error)
+    {
+        PreCondition.assertNotNullAndNotEmpty(parameterName, "parameterName");
+        PreCondition.assertNotNull(setCompressionLevel, "setCompressionLevel");
+        PreCondition.assertNotNull(error, "error");
+
+        boolean result = true;
+        if (!Strings.isNullOrEmpty(compressionLevelString))
+        {
+            final Integer compressionLevel = QubPack.parseCompressionLevel(compressionLevelString);
+            if (compressionLevel == null)
+            {
+                error.writeLine("ERROR: The --" + parameterName + " value must be an integer from 0 to 9, but was " + Strings.escapeAndQuote(compressionLevelString) + ".").await();
+                result = false;
+            }
+            else
+            {
+                setCompressionLevel.run(compressionLevel);
+            }
+        }
+        return result;
+    }
+
+    static CommandLineParameterBoolean addContentHashParameter(CommandLineParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        final boolean contentHashDefault = QubPackParameters.getContentHashDefault();
+        return parameters.addBoolean("contenthash", contentHashDefault)
+            .setDescription("Whether or not the pack.json file will record the size and content hash of each file so that files that are rewritten with identical contents don't cause the jar files to be created again. Defaults to " + contentHashDefault + ".");
+    }
+
+    static CommandLineParameter<JarEngine> addJarEngineParameter(CommandLineParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        final JarEngine jarEngineDefault = QubPackParameters.getJarEngineDefault();
+        return parameters.addEnum("jarengine", jarEngineDefault)
+            .setValueName("<process|internal>")
+            .setDescription("The engine that will be used to create the jar files. Can be either \"process\" or \"internal\". Defaults to \"" + jarEngineDefault.toString().toLowerCase() + "\".");
+    }
+
     /**
      * Get the QubPackParameters from the provided Process.
      * @param process The process to get the QubPackParameters from.
@@ -49,7 +332,27 @@ public interface QubPack
             .setApplicationDescription("Used to package source and compiled code in source code projects.");
         final CommandLineParameter<Folder> folderToPackParameter = QubPack.addFolderToPack(parameters, process);
         final CommandLineParameterBoolean packJsonParameter = QubPack.addPackJsonParameter(parameters);
+        final CommandLineParameterBoolean contentHashParameter = QubPack.addContentHashParameter(parameters);
         final CommandLineParameterBoolean parallelParameter = QubPack.addParallelParameter(parameters);
+        final CommandLineParameter<JarEngine> jarEngineParameter = QubPack.addJarEngineParameter(parameters);
+        final CommandLineParameterBoolean incrementalPackParameter = QubPack.addIncrementalPackParameter(parameters);
+        final CommandLineParameterBoolean forceTestsParameter = QubPack.addForceTestsParameter(parameters);
+        final CommandLineParameterBoolean pipelinedPackParameter = QubPack.addPipelinedPackParameter(parameters);
+        final CommandLineParameterBoolean criticalPathPackParameter = QubPack.addCriticalPathPackParameter(parameters);
+        final CommandLineParameterBoolean packMetricsParameter = QubPack.addPackMetricsParameter(parameters);
+        final CommandLineParameter<File> traceParameter = QubPack.addTraceParameter(parameters, process);
+        final CommandLineParameter<String> compressionLevelParameter = QubPack.addCompressionLevelParameter(parameters);
+        final CommandLineParameter<String> sourcesCompressionLevelParameter = QubPack.addSourcesCompressionLevelParameter(parameters);
+        final CommandLineParameter<String> compiledSourcesCompressionLevelParameter = QubPack.addCompiledSourcesCompressionLevelParameter(parameters);
+        final CommandLineParameter<String> compiledTestsCompressionLevelParameter = QubPack.addCompiledTestsCompressionLevelParameter(parameters);
+        final CommandLineParameterBoolean adaptiveCompressionParameter = QubPack.addAdaptiveCompressionParameter(parameters);
+        final CommandLineParameterBoolean reproducibleParameter = QubPack.addReproducibleParameter(parameters);
+        final CommandLineParameterBoolean jarCacheParameter = QubPack.addJarCacheParameter(parameters);
+        final CommandLineParameterBoolean watchParameter = QubPack.addWatchParameter(parameters);
+        final CommandLineParameterBoolean daemonParameter = QubPack.addDaemonParameter(parameters);
+        final CommandLineParameterBoolean useDaemonParameter = QubPack.addUseDaemonParameter(parameters);
+        final CommandLineParameter<String> foldersParameter = QubPack.addFoldersParameter(parameters);
+        final CommandLineParameter<String> concurrencyParameter = QubPack.addConcurrencyParameter(parameters);
         final CommandLineParameterBoolean testJsonParameter = QubTestRun.addTestJsonParameter(parameters);
         final CommandLineParameterBoolean buildJsonParameter = QubBuildCompile.addBuildJsonParameter(parameters);
         final CommandLineParameter<Warnings> warningsParameter = QubBuildCompile.addWarningsParameter(parameters);
@@ -68,7 +371,27 @@ public interface QubPack
             final DefaultApplicationLauncher defaultApplicationLauncher = process.getDefaultApplicationLauncher();
             final Folder folderToPack = folderToPackParameter.getValue().await();
             final boolean packJson = packJsonParameter.getValue().await();
+            final boolean contentHash = contentHashParameter.getValue().await();
             final boolean parallel = parallelParameter.getValue().await();
+            final JarEngine jarEngine = jarEngineParameter.getValue().await();
+            final boolean incrementalPack = incrementalPackParameter.getValue().await();
+            final boolean forceTests = forceTestsParameter.getValue().await();
+            final boolean pipelinedPack = pipelinedPackParameter.getValue().await();
+            final boolean criticalPathPack = criticalPathPackParameter.getValue().await();
+            final boolean packMetrics = packMetricsParameter.getValue().await();
+            final File traceFile = traceParameter.getValue().await();
+            final String compressionLevelString = compressionLevelParameter.getValue().await();
+            final String sourcesCompressionLevelString = sourcesCompressionLevelParameter.getValue().await();
+            final String compiledSourcesCompressionLevelString = compiledSourcesCompressionLevelParameter.getValue().await();
+            final String compiledTestsCompressionLevelString = compiledTestsCompressionLevelParameter.getValue().await();
+            final boolean adaptiveCompression = adaptiveCompressionParameter.getValue().await();
+            final boolean reproducible = reproducibleParameter.getValue().await();
+            final boolean jarCache = jarCacheParameter.getValue().await();
+            final boolean watch = watchParameter.getValue().await();
+            final boolean daemon = daemonParameter.getValue().await();
+            final boolean useDaemon = useDaemonParameter.getValue().await();
+            final String foldersString = foldersParameter.getValue().await();
+            final String concurrencyString = concurrencyParameter.getValue().await();
             final EnvironmentVariables environmentVariables = process.getEnvironmentVariables();
             final ProcessFactory processFactory = process.getProcessFactory();
             final boolean testJson = testJsonParameter.removeValue().await();
@@ -82,12 +405,57 @@ public interface QubPack
 
             result = new QubPackParameters(output, error, folderToPack, environmentVariables, processFactory, defaultApplicationLauncher, jvmClassPath, typeLoader, qubFolder)
                 .setPackJson(packJson)
+                .setContentHash(contentHash)
                 .setParallelPack(parallel)
+                .setJarEngine(jarEngine)
+                .setIncrementalPack(incrementalPack)
+                .setForceTests(forceTests)
+                .setPipelinedPack(pipelinedPack)
+                .setCriticalPathPack(criticalPathPack)
+                .setPackMetrics(packMetrics)
+                .setTraceFile(traceFile)
+                .setAdaptiveCompression(adaptiveCompression)
+                .setReproducible(reproducible)
+                .setJarCache(jarCache)
+                .setWatch(watch)
+                .setDaemon(daemon)
+                .setUseDaemon(useDaemon)
                 .setTestJson(testJson)
                 .setBuildJson(buildJson)
                 .setWarnings(warnings)
                 .setVerbose(verboseStream)
                 .setProfiler(profiler);
+
+            // The compression level applies to every jar file, so it is set before the
+            // compression levels of the individual jar files.
+            if (!QubPack.setCompressionLevel("compressionlevel", compressionLevelString, result::setCompressionLevel, error) ||
+                !QubPack.setCompressionLevel("sourcescompressionlevel", sourcesCompressionLevelString, result::setSourcesJarCompressionLevel, error) ||
+                !QubPack.setCompressionLevel("compiledsourcescompressionlevel", compiledSourcesCompressionLevelString, result::setCompiledSourcesJarCompressionLevel, error) ||
+                !QubPack.setCompressionLevel("compiledtestscompressionlevel", compiledTestsCompressionLevelString, result::setCompiledTestsJarCompressionLevel, error))
+            {
+                process.setExitCode(-1);
+                result = null;
+            }
+
+            if (result != null && !Strings.isNullOrEmpty(foldersString))
+            {
+                result.setFolderPatterns(QubPack.parseFolderPatterns(foldersString));
+            }
+
+            if (result != null && !Strings.isNullOrEmpty(concurrencyString))
+            {
+                final Integer concurrency = QubPack.parseConcurrency(concurrencyString);
+                if (concurrency == null)
+                {
+                    error.writeLine("ERROR: The --concurrency value must be a positive integer, but was " + Strings.escapeAndQuote(concurrencyString) + ".").await();
+                    process.setExitCode(-1);
+                    result = null;
+                }
+                else
+                {
+                    result.setConcurrency(concurrency);
+                }
+            }
         }
 
         return result;
@@ -97,268 +465,1562 @@ public interface QubPack
     {
         PreCondition.assertNotNull(parameters, "parameters");
 
-        final IntegerValue result = IntegerValue.create(QubTestRun.run(parameters));
-        if (result.equals(0))
+        int result;
+        if (parameters.getDaemon())
         {
-            final ProcessFactory processFactory = parameters.getProcessFactory();
-            final Folder folderToPack = parameters.getFolderToPack();
-            final boolean usePackJson = parameters.getPackJson();
-            final boolean parallel = parameters.getParallelPack();
-            final CharacterToByteWriteStream output = parameters.getOutputWriteStream();
-            final CharacterToByteWriteStream error = parameters.getErrorWriteStream();
-            final VerboseCharacterToByteWriteStream verbose = parameters.getVerbose();
-
-            final Folder outputFolder = folderToPack.getFolder("outputs").await();
-            final File packJsonFile = outputFolder.getFile("pack.json").await();
-            PackJSON packJson = null;
-            if (usePackJson)
+            try (final PackDaemon daemon = PackDaemon.create(parameters))
             {
-                final String packJsonFileContents = packJsonFile.getContentsAsString()
-                    .catchError(FileNotFoundException.class)
-                    .await();
-                if (!Strings.isNullOrEmpty(packJsonFileContents))
-                {
-                    packJson = PackJSON.create(JSON.parseObject(packJsonFileContents).await());
-                }
-                if (packJson == null)
-                {
-                    packJson = PackJSON.create();
-                }
+                daemon.run();
             }
+            result = 0;
+        }
+        else if (parameters.getFolderPatterns().any())
+        {
+            result = QubPack.packFolders(parameters);
+        }
+        else if (parameters.getWatch())
+        {
+            result = QubPack.watch(parameters);
+        }
+        else
+        {
+            final Integer daemonResult = parameters.getUseDaemon()
+                ? QubPack.packWithDaemon(parameters)
+                : null;
+            result = daemonResult != null
+                ? daemonResult
+                : QubPack.pack(parameters);
+        }
+        return result;
+    }
 
-            final List<Result<Void>> tasksToAwait = List.create();
-
-            final Folder sourceFolder = folderToPack.getFolder("sources").await();
-            final Iterable<File> sourceJavaFiles = sourceFolder.iterateFilesRecursively()
-                .where((File file) -> Comparer.equal(file.getFileExtension(), ".java"))
-                .toList();
+    /**
+     * Pack every project folder that matches the folder patterns of the provided parameters. The
+     * folders are packed by a shared pool of threads, and every pack shares one set of permits
+     * that limits how many test runs and jar files run and are created at the same time. The
+     * output of each pack is written after the pack finishes so that the output of different
+     * folders isn't interleaved.
+     * @param parameters The parameters of the packs.
+     * @return The number of folders that failed to pack.
+     */
+    static int packFolders(QubPackParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
 
-            final File projectJsonFile = folderToPack.getFile("project.json").await();
-            final ProjectJSON projectJson = ProjectJSON.parse(projectJsonFile).await();
-            final String project = projectJson.getProject();
-            final boolean shouldCreateSourcesJarFile = QubPack.shouldCreateJarFile(packJson, PackJSON::getSourceFiles, PackJSON::setSourceFiles, project, sourceFolder, sourceJavaFiles);
+        final CharacterToByteWriteStream output = parameters.getOutputWriteStream();
+        final Folder rootFolder = parameters.getFolderToPack();
+        final Iterable<Folder> foldersToPack = QubPack.findFoldersToPack(rootFolder, parameters.getFolderPatterns());
 
-            if (!shouldCreateSourcesJarFile)
-            {
-                output.writeLine("Skipping sources jar file.").await();
-            }
-            else
+        int result;
+        if (!foldersToPack.any())
+        {
+            parameters.getErrorWriteStream().writeLine("ERROR: No project folders in " + rootFolder + " matched " + Strings.escapeAndQuote(String.join(",", parameters.getFolderPatterns())) + ".").await();
+            result = 1;
+        }
+        else
+        {
+            final int concurrency = parameters.getConcurrency();
+            final java.util.concurrent.Semaphore taskPermits = new java.util.concurrent.Semaphore(concurrency, true);
+            // The packs run on the process's shared executor. A permit is taken before each pack
+            // is submitted so that no more than the concurrency limit of packs run at once.
+            final java.util.concurrent.Semaphore packPermits = new java.util.concurrent.Semaphore(concurrency);
+            final java.util.concurrent.ExecutorService packThreads = PackExecutor.get();
+            final List<java.util.concurrent.Future<Integer>> packTasks = List.create();
+            final List<InMemoryCharacterToByteStream> packOutputs = List.create();
+            final List<InMemoryCharacterToByteStream> packErrors = List.create();
+            for (final Folder folderToPack : foldersToPack)
             {
-                output.writeLine("Creating sources jar file...").await();
-                final File sourcesJarFile = sourceFolder.getFile(project + ".sources.jar").await();
-                final Result<Void> createSourcesJarFileTask = QubPack.createJarFile(processFactory, sourceFolder, sourcesJarFile, sourceJavaFiles, verbose, output, error)
-                    .then((Integer createSourcesJarFileResult) ->
+                final InMemoryCharacterToByteStream packOutput = InMemoryCharacterToByteStream.create();
+                final InMemoryCharacterToByteStream packError = InMemoryCharacterToByteStream.create();
+                final QubPackParameters packParameters = parameters.createForFolder(packOutput, packError, folderToPack)
+                    .setTaskPermits(taskPermits);
+                packOutputs.add(packOutput);
+                packErrors.add(packError);
+                packPermits.acquireUninterruptibly();
+                packTasks.add(packThreads.submit(() ->
+                {
+                    int packResult;
+                    try
                     {
-                        if (createSourcesJarFileResult == 0)
-                        {
-                            final File sourcesJarFileInOutputsFolder = outputFolder.getFile(sourcesJarFile.getName()).await();
-                            sourcesJarFile.copyTo(sourcesJarFileInOutputsFolder).await();
-                            sourcesJarFile.delete().await();
-                            verbose.writeLine("Created " + sourcesJarFileInOutputsFolder + ".").await();
-                        }
-                        else
-                        {
-                            result.increment();
-                        }
-                    });
+                        packResult = QubPack.pack(packParameters);
+                    }
+                    catch (Exception e)
+                    {
+                        packError.writeLine("ERROR: " + QubPack.getErrorMessage(e)).await();
+                        packResult = -1;
+                    }
+                    finally
+                    {
+                        packPermits.release();
+                    }
+                    return packResult;
+                }));
+            }
 
-                if (!parallel)
+            final List<Folder> failedFolders = List.create();
+            int folderIndex = 0;
+            for (final Folder folderToPack : foldersToPack)
+            {
+                final int packResult = QubPack.awaitPackTask(packTasks.get(folderIndex));
+                output.writeLine("Packing " + folderToPack + "...").await();
+                output.write(packOutputs.get(folderIndex).getText().await()).await();
+                final String packErrorText = packErrors.get(folderIndex).getText().await();
+                if (!packErrorText.isEmpty())
                 {
-                    createSourcesJarFileTask.await();
+                    parameters.getErrorWriteStream().write(packErrorText).await();
                 }
-                else
+                if (packResult != 0)
                 {
-                    tasksToAwait.add(createSourcesJarFileTask);
+                    failedFolders.add(folderToPack);
                 }
+                ++folderIndex;
             }
 
-            final Iterable<File> outputClassFiles = outputFolder.iterateFilesRecursively()
-                .where((File file) -> Comparer.equal(file.getFileExtension(), ".class"))
-                .toList();
-
-            final Iterable<File> compiledSourcesFile = QubPack.getSourceClassFiles(outputFolder, outputClassFiles, sourceFolder, sourceJavaFiles);
-            final boolean shouldCreateCompiledSourcesJarFile = QubPack.shouldCreateJarFile(packJson, PackJSON::getSourceOutputFiles, PackJSON::setSourceOutputFiles, project, outputFolder, compiledSourcesFile);
-            if (!shouldCreateCompiledSourcesJarFile)
+            final int folderCount = packTasks.getCount();
+            output.writeLine("Packed " + folderCount + " folder" + (folderCount == 1 ? "" : "s") + ": " + (folderCount - failedFolders.getCount()) + " succeeded, " + failedFolders.getCount() + " failed.").await();
+            for (final Folder failedFolder : failedFolders)
             {
-                output.writeLine("Skipping compiled sources jar file.").await();
+                output.writeLine("  Failed: " + failedFolder).await();
             }
-            else
-            {
-                output.writeLine("Creating compiled sources jar file...").await();
-                File manifestFile = null;
-                final String mainClass = projectJson.getJava().getMainClass();
-                if (!Strings.isNullOrEmpty(mainClass))
-                {
-                    manifestFile = outputFolder.getFile("META-INF/MANIFEST.MF").await();
-                    final String manifestFileContents =
-                        "Manifest-Version: 1.0\n" +
-                        "Main-Class: " + mainClass + "\n";
-                    manifestFile.setContentsAsString(manifestFileContents).await();
-                }
-                final File compiledSourcesJarFile = outputFolder.getFile(project + ".jar").await();
-                final Result<Void> createCompiledSourcesJarFileTask = QubPack.createJarFile(processFactory, outputFolder, manifestFile, compiledSourcesJarFile, compiledSourcesFile, verbose, output, error)
-                    .then((Integer createCompiledSourcesJarFileResult) ->
-                    {
-                        if (createCompiledSourcesJarFileResult == 0)
-                        {
-                            verbose.writeLine("Created " + compiledSourcesJarFile + ".").await();
-                        }
-                        else
-                        {
-                            result.increment();
-                        }
-                    });
+            result = failedFolders.getCount();
+        }
+        return result;
+    }
 
-                if (!parallel)
-                {
-                    createCompiledSourcesJarFileTask.await();
-                }
-                else
-                {
-                    tasksToAwait.add(createCompiledSourcesJarFileTask);
-                }
-            }
 
-            boolean shouldCreateCompiledTestsJarFile = false;
-            final Folder testFolder = folderToPack.getFolder("tests").await();
-            if (testFolder.exists().await())
+    /**
+     * Find the project folders that match the provided folder patterns. Each pattern is a folder
+     * path relative to the root folder, and each segment of a pattern can be a glob. Only folders
+     * that contain a project.json file are returned, and each folder is only returned once.
+     * @param rootFolder The folder that the patterns are relative to.
+     * @param folderPatterns The folder patterns.
+     * @return The project folders that match the folder patterns, in pattern order and then in
+     * name order.
+     */
+    static Iterable<Folder> findFoldersToPack(Folder rootFolder, Iterable<String> folderPatterns)
+    {
+        PreCondition.assertNotNull(rootFolder, "rootFolder");
+        PreCondition.assertNotNull(folderPatterns, "folderPatterns");
+
+        final java.util.LinkedHashMap<String,Folder> foldersByPath = new java.util.LinkedHashMap<>();
+        for (final String folderPattern : folderPatterns)
+        {
+            List<Folder> matchingFolders = List.create(rootFolder);
+            for (final String segment : folderPattern.replace('\\', '/').split("/"))
             {
-                final File compiledTestsJarFile = outputFolder.getFile(projectJson.getProject() + ".tests.jar").await();
-                final Iterable<File> testJavaFiles = testFolder.iterateFilesRecursively()
-                    .where((File file) -> Comparer.equal(file.getFileExtension(), ".java"))
-                    .toList();
-                final Iterable<File> testSourceClassFiles = QubPack.getSourceClassFiles(outputFolder, outputClassFiles, testFolder, testJavaFiles);
+                if (segment.isEmpty() || segment.equals("."))
+                {
+                    continue;
+                }
 
-                shouldCreateCompiledTestsJarFile = QubPack.shouldCreateJarFile(packJson, PackJSON::getTestOutputFiles, PackJSON::setTestOutputFiles, project, outputFolder, testSourceClassFiles);
-                if (!shouldCreateCompiledTestsJarFile)
+                final List<Folder> nextMatchingFolders = List.create();
+                if (!QubPack.isGlob(segment))
                 {
-                    output.writeLine("Skipping compiled tests jar file.").await();
+                    for (final Folder matchingFolder : matchingFolders)
+                    {
+                        nextMatchingFolders.add(matchingFolder.getFolder(segment).await());
+                    }
                 }
                 else
                 {
-                    output.writeLine("Creating compiled tests jar file...").await();
-                    final Result<Void> createTestSourcesJarFileTask = QubPack.createJarFile(processFactory, outputFolder, compiledTestsJarFile, testSourceClassFiles, verbose, output, error)
-                        .then((Integer createTestSourcesJarFileResult) ->
+                    final java.nio.file.PathMatcher segmentMatcher = java.nio.file.FileSystems.getDefault().getPathMatcher("glob:" + segment);
+                    for (final Folder matchingFolder : matchingFolders)
+                    {
+                        if (matchingFolder.exists().await())
                         {
-                            if (createTestSourcesJarFileResult == 0)
+                            final java.util.List<Folder> childFolders = new java.util.ArrayList<>();
+                            for (final Folder childFolder : matchingFolder.getFolders().await())
                             {
-                                verbose.writeLine("Created " + compiledTestsJarFile + ".").await();
+                                if (segmentMatcher.matches(java.nio.file.Paths.get(childFolder.getName())))
+                                {
+                                    childFolders.add(childFolder);
+                                }
                             }
-                            else
+                            childFolders.sort(java.util.Comparator.comparing(Folder::getName));
+                            for (final Folder childFolder : childFolders)
                             {
-                                result.increment();
+                                nextMatchingFolders.add(childFolder);
                             }
-                        });
-
-                    if (!parallel)
-                    {
-                        createTestSourcesJarFileTask.await();
-                    }
-                    else
-                    {
-                        tasksToAwait.add(createTestSourcesJarFileTask);
+                        }
                     }
                 }
+                matchingFolders = nextMatchingFolders;
             }
 
-            Result.await(tasksToAwait);
-
-            if (usePackJson && (shouldCreateSourcesJarFile || shouldCreateCompiledSourcesJarFile || shouldCreateCompiledTestsJarFile))
+            for (final Folder matchingFolder : matchingFolders)
             {
-                packJson.setProject(project);
-
-                packJsonFile.setContentsAsString(packJson.toString(JSONFormat.pretty)).await();
+                if (!foldersByPath.containsKey(matchingFolder.toString()) && matchingFolder.getFile("project.json").await().exists().await())
+                {
+                    foldersByPath.put(matchingFolder.toString(), matchingFolder);
+                }
             }
         }
 
-        return result.getAsInt();
+        final List<Folder> result = List.create();
+        for (final Folder folderToPack : foldersByPath.values())
+        {
+            result.add(folderToPack);
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
     }
 
-    static boolean shouldCreateJarFile(PackJSON packJson, Function1<PackJSON,Iterable<PackJSONFile>> getPackJSONFiles, Action2<PackJSON,Iterable<PackJSONFile>> setPackJSONFiles, String project, Folder folder, Iterable<File> files)
+    /**
+     * Get whether or not the provided folder pattern segment is a glob.
+     * @param segment The folder pattern segment.
+     * @return Whether or not the segment contains glob characters.
+     */
+    static boolean isGlob(String segment)
     {
-        PreCondition.assertNotNull(getPackJSONFiles, "getPackJSONFiles");
+        PreCondition.assertNotNull(segment, "segment");
+
+        return segment.contains("*") || segment.contains("?") || segment.contains("[") || segment.contains("{");
+    }
+
+    /**
+     * Take a permit from the provided permits, run the provided action, and then give the permit
+     * back.
+     * @param permits The permits to take a permit from, or null if the action doesn't need a
+     *                permit.
+     * @param action The action to run.
+     * @param <T> The type of value that the action returns.
+     * @return The value that the action returned.
+     */
+    static <T> T runWithPermit(java.util.concurrent.Semaphore permits, Function0<T> action)
+    {
+        PreCondition.assertNotNull(action, "action");
+
+        T result;
+        if (permits == null)
+        {
+            result = action.run();
+        }
+        else
+        {
+            permits.acquireUninterruptibly();
+            try
+            {
+                result = action.run();
+            }
+            finally
+            {
+                permits.release();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the message that will be written after "ERROR: " when the provided exception stops a
+     * pack. Exceptions without a message (such as a NullPointerException) are described by their
+     * type so that the error is never just "null".
+     * @param e The exception that stopped the pack.
+     * @return The message that describes the provided exception.
+     */
+    static String getErrorMessage(Throwable e)
+    {
+        PreCondition.assertNotNull(e, "e");
+
+        final String message = e.getMessage();
+        final String result = Strings.isNullOrEmpty(message)
+            ? "An unexpected " + e.getClass().getName() + " was thrown."
+            : message;
+
+        PostCondition.assertNotNullAndNotEmpty(result, "result");
+
+        return result;
+    }
+
+    static int awaitPackTask(java.util.concurrent.Future<Integer> packTask)
+    {
+        PreCondition.assertNotNull(packTask, "packTask");
+
+        try
+        {
+            return packTask.get();
+        }
+        catch (InterruptedException e)
+        {
+            throw Exceptions.asRuntime(e);
+        }
+        catch (java.util.concurrent.ExecutionException e)
+        {
+            throw Exceptions.asRuntime(e.getCause());
+        }
+    }
+
+    /**
+     * Send the project to the running pack daemon to be packed, and write the pack's output and
+     * errors to this process's streams.
+     * @param parameters The parameters of the pack.
+     * @return The exit code of the pack, or null if no pack daemon is running.
+     */
+    static Integer packWithDaemon(QubPackParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        final PackDaemonResponse response = PackDaemon.send(parameters.getDaemonFile(), PackDaemonRequest.create(parameters));
+        Integer result = null;
+        if (response == null)
+        {
+            parameters.getVerbose().writeLine("No pack daemon is running, so this process will pack the project.").await();
+        }
+        else
+        {
+            final String output = response.getOutput();
+            if (!Strings.isNullOrEmpty(output))
+            {
+                parameters.getOutputWriteStream().write(output).await();
+            }
+            final String error = response.getError();
+            if (!Strings.isNullOrEmpty(error))
+            {
+                parameters.getErrorWriteStream().write(error).await();
+            }
+            result = response.getExitCode();
+        }
+        return result;
+    }
+
+    /**
+     * Pack the project and then pack it again every time that its source files, test files, or
+     * compiled class files change. Changes that happen close together are packed together. The
+     * process stays running between packs, so the PackJSON that each pack leaves behind is
+     * reused by the next pack instead of the pack.json file being read and parsed again, and the
+     * jar files whose files didn't change are skipped. The pack.json file is written by every
+     * pack that changes it, so it matches the PackJSON in memory whenever no pack is running.
+     * @param parameters The parameters of the packs.
+     * @return The exit code of the last pack, or -1 if the project can't be watched.
+     */
+    static int watch(QubPackParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        final Folder folderToPack = parameters.getFolderToPack();
+
+        int result;
+        if (!(folderToPack.getFileSystem() instanceof JavaFileSystem))
+        {
+            parameters.getErrorWriteStream().writeLine("ERROR: --watch can only watch folders on the local file system.").await();
+            result = -1;
+        }
+        else
+        {
+            try (final PackWatcher watcher = PackWatcher.create(folderToPack))
+            {
+                // Stopping the process (such as with Ctrl+C) closes the watcher so that its
+                // watch service is released and watchPacks() returns.
+                final Thread closeWatcherHook = new Thread(watcher::close);
+                java.lang.Runtime.getRuntime().addShutdownHook(closeWatcherHook);
+                try
+                {
+                    result = QubPack.watchPacks(parameters, watcher);
+                }
+                finally
+                {
+                    try
+                    {
+                        java.lang.Runtime.getRuntime().removeShutdownHook(closeWatcherHook);
+                    }
+                    catch (IllegalStateException e)
+                    {
+                        // The process is already stopping, so the hook is running or has run.
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Pack the project and then pack it again every time that the provided PackWatcher reports
+     * changes, until the PackWatcher is closed or the current thread is interrupted.
+     * @param parameters The parameters of the packs.
+     * @param watcher The PackWatcher that is watching the project.
+     * @return The exit code of the last pack.
+     */
+    static int watchPacks(QubPackParameters parameters, PackWatcher watcher)
+    {
+        return QubPack.watchPacks(parameters, watcher, QubPack::pack);
+    }
+
+    /**
+     * Run the provided pack function and then run it again every time that the provided
+     * PackWatcher reports changes, until the PackWatcher is closed or the current thread is
+     * interrupted.
+     * @param parameters The parameters of the packs.
+     * @param watcher The PackWatcher that is watching the project.
+     * @param pack The function that packs the project and returns the pack's exit code.
+     * @return The exit code of the last pack.
+     */
+    static int watchPacks(QubPackParameters parameters, PackWatcher watcher, Function1<QubPackParameters,Integer> pack)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+        PreCondition.assertNotNull(watcher, "watcher");
+        PreCondition.assertNotNull(pack, "pack");
+
+        final Folder folderToPack = parameters.getFolderToPack();
+        final CharacterToByteWriteStream output = parameters.getOutputWriteStream();
+        final VerboseCharacterToByteWriteStream verbose = parameters.getVerbose();
+
+        int result = 0;
+        boolean packAgain = true;
+        while (packAgain)
+        {
+            result = pack.run(parameters);
+            if (result != 0)
+            {
+                // A pack that fails might have updated the PackJSON without writing it, so the
+                // next pack reads the pack.json file instead.
+                parameters.setPreviousPackJson(null);
+            }
+
+            packAgain = !watcher.isClosed() && !Thread.currentThread().isInterrupted();
+            if (packAgain)
+            {
+                output.writeLine("Watching " + folderToPack + " for changes...").await();
+                final Iterable<Path> changes = watcher.waitForChanges(parameters.getWatchDebounceMilliseconds());
+                for (final Path change : changes)
+                {
+                    verbose.writeLine("Changed: " + change).await();
+                }
+
+                packAgain = changes.any() && !watcher.isClosed() && !Thread.currentThread().isInterrupted();
+                if (packAgain)
+                {
+                    output.writeLine("Packing again because " + changes.getCount() + " file" + (changes.getCount() == 1 ? "" : "s") + " changed...").await();
+                }
+                else
+                {
+                    output.writeLine("Stopped watching " + folderToPack + ".").await();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Pack the project once.
+     * @param parameters The parameters of the pack.
+     * @return The exit code of the pack.
+     */
+    static int pack(QubPackParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        final Folder folderToPack = parameters.getFolderToPack();
+        final boolean usePackJson = parameters.getPackJson();
+        final boolean parallel = parameters.getParallelPack();
+        final int fileAttributeThreadCount = parallel ? parameters.getFileAttributeThreadCount() : 1;
+        final CharacterToByteWriteStream output = parameters.getOutputWriteStream();
+        final VerboseCharacterToByteWriteStream verbose = parameters.getVerbose();
+        final Folder sourceFolder = folderToPack.getFolder("sources").await();
+        final Folder testFolder = folderToPack.getFolder("tests").await();
+        final Folder outputFolder = folderToPack.getFolder("outputs").await();
+        final File projectJsonFile = folderToPack.getFile("project.json").await();
+        final File packTestsJsonFile = outputFolder.getFile("pack.tests.json").await();
+        final boolean writePackMetrics = parameters.getPackMetrics();
+        final PackMetrics metrics = PackMetrics.create();
+
+        // If the tests passed the last time that this project was packed and nothing has changed
+        // since then, then the tests don't need to be run again.
+        String testsPassedFingerprint = null;
+        if (usePackJson && !parameters.getForceTests())
+        {
+            final String packTestsJsonFileContents = packTestsJsonFile.getContentsAsString()
+                .catchError(FileNotFoundException.class)
+                .await();
+            if (!Strings.isNullOrEmpty(packTestsJsonFileContents))
+            {
+                testsPassedFingerprint = JSON.parseObject(packTestsJsonFileContents)
+                    .then((JSONObject json) -> PackTestsJSON.create(json).getTestsPassedFingerprint())
+                    .catchError()
+                    .await();
+            }
+        }
+
+        FolderSnapshot sourceFolderSnapshot = null;
+        FolderSnapshot outputFolderSnapshot = null;
+        FolderSnapshot testFolderSnapshot = null;
+        final IntegerValue result = IntegerValue.create(0);
+        if (!Strings.isNullOrEmpty(testsPassedFingerprint))
+        {
+            sourceFolderSnapshot = QubPack.scanFolder(metrics, "scanSources", sourceFolder, ".java", false, fileAttributeThreadCount);
+            outputFolderSnapshot = QubPack.scanFolder(metrics, "scanOutputs", outputFolder, ".class", true, fileAttributeThreadCount);
+            testFolderSnapshot = QubPack.scanFolder(metrics, "scanTests", testFolder, ".java", false, fileAttributeThreadCount);
+            final String testsFingerprint = QubPack.getTestsFingerprint(parameters, projectJsonFile, Iterable.create(sourceFolderSnapshot, outputFolderSnapshot, testFolderSnapshot));
+            verbose.writeLine("Tests fingerprint: " + testsFingerprint).await();
+            if (!testsPassedFingerprint.equals(testsFingerprint))
+            {
+                verbose.writeLine("Running tests because the project, its dependencies, or the test parameters changed since the tests last passed.").await();
+                sourceFolderSnapshot = null;
+                outputFolderSnapshot = null;
+                testFolderSnapshot = null;
+                testsPassedFingerprint = null;
+            }
+        }
+
+        final JarCreator jarCreator = JarCreator.create(parameters);
+        if (QubPack.getJarEngine(parameters) != parameters.getJarEngine())
+        {
+            verbose.writeLine("Using the internal jar engine because reproducible jar files need a fixed entry timestamp.").await();
+        }
+        final File packJsonFile = outputFolder.getFile("pack.json").await();
+        PackJSON packJson = null;
+        if (usePackJson && parameters.getPreviousPackJson() != null)
+        {
+            packJson = parameters.getPreviousPackJson();
+            verbose.writeLine("Using the pack.json state from the previous pack.").await();
+        }
+        else if (usePackJson)
+        {
+            final PackJsonFileEvent packJsonReadEvent = PackJsonFileEvent.start();
+            final PackMetricsPhase packJsonLoadPhase = metrics.startPhase("packJsonLoad");
+            final String packJsonFileContents = packJsonFile.getContentsAsString()
+                .catchError(FileNotFoundException.class)
+                .await();
+            packJsonReadEvent.finish("read", packJsonFile, packJsonFileContents);
+            if (!Strings.isNullOrEmpty(packJsonFileContents))
+            {
+                packJson = PackJSON.create(JSON.parseObject(packJsonFileContents).await());
+                packJsonLoadPhase.setBytesIn(packJsonFileContents.getBytes(java.nio.charset.StandardCharsets.UTF_8).length);
+            }
+            if (packJson == null)
+            {
+                packJson = PackJSON.create();
+            }
+            packJsonLoadPhase.end();
+        }
+        if (usePackJson)
+        {
+            parameters.setPreviousPackJson(packJson);
+        }
+
+        // The sources jar file only depends on the source files, so when the pack is pipelined it
+        // is created while the tests run on the process's shared PackExecutor. It only reads the
+        // PackJSON, and it isn't published to the outputs folder or recorded in the PackJSON until
+        // the tests pass.
+        java.util.concurrent.CompletableFuture<SourcesJarFileBuild> sourcesJarFileBuildTask = null;
+        boolean sourcesJarFilePublished = false;
+        try
+        {
+            if (testsPassedFingerprint != null)
+            {
+                output.writeLine("Skipping compilation and tests because nothing has changed since the tests last passed. Use --forcetests to run them anyway.").await();
+            }
+            else
+            {
+                if (parameters.getPipelinedPack())
+                {
+                    final PackJSON previousPackJson = packJson;
+                    sourcesJarFileBuildTask = java.util.concurrent.CompletableFuture.supplyAsync(() ->
+                    {
+                        return SourcesJarFileBuild.run(parameters, jarCreator, previousPackJson, projectJsonFile, sourceFolder, outputFolder, fileAttributeThreadCount, metrics);
+                    }, PackExecutor.get());
+                }
+                final PackMetricsPhase testRunPhase = metrics.startPhase("testRun");
+                result.set(QubPack.runWithPermit(parameters.getTaskPermits(), () -> QubTestRun.run(parameters)));
+                testRunPhase.end();
+            }
+
+            if (result.equals(0))
+            {
+                final boolean contentHash = parameters.getContentHash();
+                final boolean criticalPath = parallel && parameters.getCriticalPathPack();
+                final PackJarTaskScheduler jarTasks = PackJarTaskScheduler.create(parallel, criticalPath);
+
+                SourcesJarFileBuild sourcesJarFileBuild = null;
+                if (sourcesJarFileBuildTask != null)
+                {
+                    final PackMetricsPhase sourcesJarFileBuildWaitPhase = metrics.startPhase("sourcesJarWait");
+                    sourcesJarFileBuild = QubPack.awaitSourcesJarFileBuild(sourcesJarFileBuildTask);
+                    sourcesJarFileBuildWaitPhase.end();
+                    sourceFolderSnapshot = sourcesJarFileBuild.getSourceFolderSnapshot();
+                    if (usePackJson)
+                    {
+                        // The sources jar file build only reads the PackJSON, so its source files are
+                        // updated here on the pack's thread once the build has finished.
+                        packJson.setSourceFiles(sourcesJarFileBuild.getJarFileChanges().getCurrentFiles());
+                    }
+                }
+
+                // Scan each folder once. Every jar file decision and every jar file that is written
+                // uses these snapshots instead of asking the file system about each file again. If
+                // the tests were skipped, then the snapshots that were used to decide that are still
+                // accurate.
+                if (sourceFolderSnapshot == null)
+                {
+                    sourceFolderSnapshot = QubPack.scanFolder(metrics, "scanSources", sourceFolder, ".java", false, fileAttributeThreadCount);
+                }
+                if (outputFolderSnapshot == null)
+                {
+                    outputFolderSnapshot = QubPack.scanFolder(metrics, "scanOutputs", outputFolder, ".class", true, fileAttributeThreadCount);
+                    testFolderSnapshot = QubPack.scanFolder(metrics, "scanTests", testFolder, ".java", false, fileAttributeThreadCount);
+                }
+                final Iterable<FileSnapshot> sourceJavaFiles = sourceFolderSnapshot.getFiles();
+
+                final ProjectJSON projectJson = ProjectJSON.parse(projectJsonFile).await();
+                final String project = projectJson.getProject();
+                final JarFileChanges sourcesJarFileChanges;
+                if (sourcesJarFileBuild != null)
+                {
+                    sourcesJarFileChanges = sourcesJarFileBuild.getJarFileChanges();
+                }
+                else
+                {
+                    sourcesJarFileChanges = QubPack.getJarFileChanges(metrics, "sources", packJson, PackJSON::getSourceFiles, PackJSON::setSourceFiles, project, sourceJavaFiles, contentHash);
+                }
+                final boolean shouldCreateSourcesJarFile = sourcesJarFileChanges.hasChanges();
+
+                if (!shouldCreateSourcesJarFile)
+                {
+                    output.writeLine("Skipping sources jar file.").await();
+                }
+                else if (sourcesJarFileBuild != null)
+                {
+                    output.writeLine("Creating sources jar file...").await();
+                    final File sourcesJarFile = sourcesJarFileBuild.getSourcesJarFile();
+                    if (sourcesJarFileBuild.getCreateJarFileResult() == 0)
+                    {
+                        final File sourcesJarFileInOutputsFolder = sourcesJarFileBuild.getPublishedSourcesJarFile();
+                        QubPack.publishSourcesJarFile(metrics, writePackMetrics, sourcesJarFile, sourcesJarFileInOutputsFolder);
+                        sourcesJarFilePublished = true;
+                        verbose.writeLine("Created " + sourcesJarFileInOutputsFolder + ".").await();
+                    }
+                    else
+                    {
+                        result.increment();
+                    }
+                }
+                else
+                {
+                    output.writeLine("Creating sources jar file...").await();
+                    final File sourcesJarFileInOutputsFolder = outputFolder.getFile(project + ".sources.jar").await();
+                    final File sourcesJarFile = QubPack.getUnpublishedJarFile(sourcesJarFileInOutputsFolder);
+                    final CreateJarFileParameters createSourcesJarFileParameters = QubPack.getCreateJarFileParameters(parameters, sourceFolder, sourcesJarFile, sourceJavaFiles, sourcesJarFileInOutputsFolder, sourcesJarFileChanges, parameters.getSourcesJarCompressionLevel(), metrics);
+                    jarTasks.add(PackJarTask.create("sources", sourceJavaFiles, () ->
+                    {
+                        final PackJarFileEvent sourcesJarFileEvent = PackJarFileEvent.start();
+                        final PackMetricsPhase sourcesJarPhase = QubPack.startJarPhase(metrics, "sourcesJar", sourceJavaFiles);
+                        return jarCreator.createJarFile(createSourcesJarFileParameters)
+                            .then((Integer createSourcesJarFileResult) ->
+                            {
+                                QubPack.endJarPhase(sourcesJarPhase, writePackMetrics, sourcesJarFile);
+                                sourcesJarFileEvent.finish("sources", sourcesJarFile, sourceJavaFiles, createSourcesJarFileResult);
+                                if (createSourcesJarFileResult == 0)
+                                {
+                                    QubPack.publishSourcesJarFile(metrics, writePackMetrics, sourcesJarFile, sourcesJarFileInOutputsFolder);
+                                    verbose.writeLine("Created " + sourcesJarFileInOutputsFolder + ".").await();
+                                }
+                                else
+                                {
+                                    QubPack.increment(result);
+                                }
+                            });
+                    })
+                        .setPreviousMilliseconds(QubPack.getJarMilliseconds(packJson, "sources")));
+                }
+
+                final PackMetricsPhase classFilesPhase = metrics.startPhase("matchClassFiles");
+                final List<FileSnapshot> compiledSourcesFile = List.create();
+                final List<FileSnapshot> testSourceClassFiles = List.create();
+                final SourceClassFileIndex sourceClassFileIndex = SourceClassFileIndex.create(sourceFolderSnapshot);
+                final SourceClassFileIndex testClassFileIndex = SourceClassFileIndex.create(testFolderSnapshot);
+                for (final FileSnapshot outputClassFile : outputFolderSnapshot.getFiles())
+                {
+                    final String classFileKey = SourceClassFileIndex.getClassFileKey(outputClassFile.getRelativePath());
+                    if (sourceClassFileIndex.contains(classFileKey))
+                    {
+                        compiledSourcesFile.add(outputClassFile);
+                    }
+                    if (testClassFileIndex.contains(classFileKey))
+                    {
+                        testSourceClassFiles.add(outputClassFile);
+                    }
+                }
+
+                classFilesPhase.setFiles(outputFolderSnapshot.getFiles().getCount()).end();
+
+                final JarFileChanges compiledSourcesJarFileChanges = QubPack.getJarFileChanges(metrics, "compiledSources", packJson, PackJSON::getSourceOutputFiles, PackJSON::setSourceOutputFiles, project, compiledSourcesFile, contentHash);
+                final boolean shouldCreateCompiledSourcesJarFile = compiledSourcesJarFileChanges.hasChanges();
+                if (!shouldCreateCompiledSourcesJarFile)
+                {
+                    output.writeLine("Skipping compiled sources jar file.").await();
+                }
+                else
+                {
+                    output.writeLine("Creating compiled sources jar file...").await();
+                    File manifestFile = null;
+                    final String mainClass = projectJson.getJava().getMainClass();
+                    if (!Strings.isNullOrEmpty(mainClass))
+                    {
+                        manifestFile = outputFolder.getFile("META-INF/MANIFEST.MF").await();
+                        final String manifestFileContents =
+                            "Manifest-Version: 1.0\n" +
+                            "Main-Class: " + mainClass + "\n";
+                        manifestFile.setContentsAsString(manifestFileContents).await();
+                    }
+                    // Downstream consumers wait on the compiled sources jar file, so along the critical
+                    // path it is created next to its location in the outputs folder and published as
+                    // soon as it is created instead of after every other jar file.
+                    final File compiledSourcesJarFileInOutputsFolder = outputFolder.getFile(project + ".jar").await();
+                    final File compiledSourcesJarFile = criticalPath
+                        ? QubPack.getUnpublishedJarFile(compiledSourcesJarFileInOutputsFolder)
+                        : compiledSourcesJarFileInOutputsFolder;
+                    final CreateJarFileParameters createCompiledSourcesJarFileParameters = QubPack.getCreateJarFileParameters(parameters, outputFolder, compiledSourcesJarFile, compiledSourcesFile, compiledSourcesJarFileInOutputsFolder, compiledSourcesJarFileChanges, parameters.getCompiledSourcesJarCompressionLevel(), metrics)
+                        .setManifestFile(manifestFile);
+                    jarTasks.add(PackJarTask.create("compiledSources", compiledSourcesFile, () ->
+                    {
+                        final PackJarFileEvent compiledSourcesJarFileEvent = PackJarFileEvent.start();
+                        final PackMetricsPhase compiledSourcesJarPhase = QubPack.startJarPhase(metrics, "compiledSourcesJar", compiledSourcesFile);
+                        return jarCreator.createJarFile(createCompiledSourcesJarFileParameters)
+                            .then((Integer createCompiledSourcesJarFileResult) ->
+                            {
+                                QubPack.endJarPhase(compiledSourcesJarPhase, writePackMetrics, compiledSourcesJarFile);
+                                compiledSourcesJarFileEvent.finish("compiledSources", compiledSourcesJarFile, compiledSourcesFile, createCompiledSourcesJarFileResult);
+                                if (createCompiledSourcesJarFileResult == 0)
+                                {
+                                    if (criticalPath)
+                                    {
+                                        QubPack.publishJarFile(metrics, "publishCompiledSourcesJar", writePackMetrics, compiledSourcesJarFile, compiledSourcesJarFileInOutputsFolder);
+                                    }
+                                    verbose.writeLine("Created " + compiledSourcesJarFileInOutputsFolder + ".").await();
+                                }
+                                else
+                                {
+                                    QubPack.increment(result);
+                                }
+                            });
+                    })
+                        .setPreviousMilliseconds(QubPack.getJarMilliseconds(packJson, "compiledSources")));
+                }
+
+                boolean shouldCreateCompiledTestsJarFile = false;
+                if (testFolderSnapshot.exists())
+                {
+                    final File compiledTestsJarFile = outputFolder.getFile(projectJson.getProject() + ".tests.jar").await();
+
+                    final JarFileChanges compiledTestsJarFileChanges = QubPack.getJarFileChanges(metrics, "compiledTests", packJson, PackJSON::getTestOutputFiles, PackJSON::setTestOutputFiles, project, testSourceClassFiles, contentHash);
+                    shouldCreateCompiledTestsJarFile = compiledTestsJarFileChanges.hasChanges();
+                    if (!shouldCreateCompiledTestsJarFile)
+                    {
+                        output.writeLine("Skipping compiled tests jar file.").await();
+                    }
+                    else
+                    {
+                        output.writeLine("Creating compiled tests jar file...").await();
+                        final CreateJarFileParameters createTestSourcesJarFileParameters = QubPack.getCreateJarFileParameters(parameters, outputFolder, compiledTestsJarFile, testSourceClassFiles, compiledTestsJarFile, compiledTestsJarFileChanges, parameters.getCompiledTestsJarCompressionLevel(), metrics);
+                        jarTasks.add(PackJarTask.create("compiledTests", testSourceClassFiles, () ->
+                        {
+                            final PackJarFileEvent compiledTestsJarFileEvent = PackJarFileEvent.start();
+                            final PackMetricsPhase compiledTestsJarPhase = QubPack.startJarPhase(metrics, "compiledTestsJar", testSourceClassFiles);
+                            return jarCreator.createJarFile(createTestSourcesJarFileParameters)
+                                .then((Integer createTestSourcesJarFileResult) ->
+                                {
+                                    QubPack.endJarPhase(compiledTestsJarPhase, writePackMetrics, compiledTestsJarFile);
+                                    compiledTestsJarFileEvent.finish("compiledTests", compiledTestsJarFile, testSourceClassFiles, createTestSourcesJarFileResult);
+                                    if (createTestSourcesJarFileResult == 0)
+                                    {
+                                        verbose.writeLine("Created " + compiledTestsJarFile + ".").await();
+                                    }
+                                    else
+                                    {
+                                        QubPack.increment(result);
+                                    }
+                                });
+                        })
+                            .setPreviousMilliseconds(QubPack.getJarMilliseconds(packJson, "compiledTests")));
+                    }
+                }
+
+                final Iterable<PackJarTask> scheduledJarTasks = jarTasks.await();
+                if (usePackJson)
+                {
+                    for (final PackJarTask scheduledJarTask : scheduledJarTasks)
+                    {
+                        packJson.setJarMilliseconds(scheduledJarTask.getJarType(), scheduledJarTask.getMilliseconds());
+                    }
+                }
+
+                if (usePackJson && (shouldCreateSourcesJarFile || shouldCreateCompiledSourcesJarFile || shouldCreateCompiledTestsJarFile))
+                {
+                    packJson.setProject(project);
+
+                    final PackJsonFileEvent packJsonWriteEvent = PackJsonFileEvent.start();
+                    final PackMetricsPhase packJsonWritePhase = metrics.startPhase("packJsonWrite");
+                    final String packJsonFileContents = packJson.toString(JSONFormat.pretty);
+                    packJsonFile.setContentsAsString(packJsonFileContents).await();
+                    packJsonWriteEvent.finish("write", packJsonFile, packJsonFileContents);
+                    packJsonWritePhase.setBytesOut(packJsonFileContents.getBytes(java.nio.charset.StandardCharsets.UTF_8).length).end();
+                }
+
+                if (usePackJson && testsPassedFingerprint == null)
+                {
+                    final String testsFingerprint = QubPack.getTestsFingerprint(parameters, projectJsonFile, Iterable.create(sourceFolderSnapshot, outputFolderSnapshot, testFolderSnapshot));
+                    packTestsJsonFile.setContentsAsString(PackTestsJSON.create()
+                        .setTestsPassedFingerprint(testsFingerprint)
+                        .toString(JSONFormat.pretty))
+                        .await();
+                }
+            }
+        }
+        finally
+        {
+            // If the tests failed or threw, if the sources jar file didn't change, or if creating
+            // it failed, then the pipelined sources jar file is never published. The build is
+            // still waited for so that it doesn't outlive the pack, and its unpublished jar file
+            // is deleted.
+            if (!sourcesJarFilePublished)
+            {
+                QubPack.discardSourcesJarFileBuild(sourcesJarFileBuildTask);
+            }
+        }
+
+        final File traceFile = parameters.getTraceFile();
+        if (writePackMetrics || traceFile != null)
+        {
+            metrics.end();
+        }
+        if (writePackMetrics)
+        {
+            outputFolder.getFile("pack-metrics.json").await()
+                .setContentsAsString(metrics.toString(JSONFormat.pretty))
+                .await();
+            verbose.writeLine(metrics.getSummary()).await();
+        }
+        if (traceFile != null)
+        {
+            traceFile.setContentsAsString(metrics.toTraceJson().toString()).await();
+            verbose.writeLine("Wrote trace to " + traceFile + ".").await();
+        }
+
+        return result.getAsInt();
+    }
+
+    /**
+     * Scan the provided folder and record how long the scan took.
+     * @param metrics The metrics of the pack.
+     * @param phaseName The name of the phase to record.
+     * @param folder The folder to scan.
+     * @param fileExtension The file extension of the files to collect.
+     * @param packageFoldersOnly Whether or not subfolders whose names can't be part of a Java
+     *                           package name will be skipped.
+     * @param fileAttributeThreadCount The number of threads that will get the attributes of the
+     *                                 scanned files.
+     * @return The snapshot of the scanned folder.
+     */
+    static FolderSnapshot scanFolder(PackMetrics metrics, String phaseName, Folder folder, String fileExtension, boolean packageFoldersOnly, int fileAttributeThreadCount)
+    {
+        PreCondition.assertNotNull(metrics, "metrics");
+        PreCondition.assertNotNullAndNotEmpty(phaseName, "phaseName");
+
+        final PackMetricsPhase phase = metrics.startPhase(phaseName);
+        final FolderSnapshot result = FolderSnapshot.create(folder, fileExtension, packageFoldersOnly, fileAttributeThreadCount);
+        phase.setFiles(result.getFiles().getCount()).end();
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Start the phase that records the creation of a jar file.
+     * @param metrics The metrics of the pack.
+     * @param phaseName The name of the phase to record.
+     * @param files The snapshots of the files that will be added to the jar file.
+     * @return The started phase.
+     */
+    static PackMetricsPhase startJarPhase(PackMetrics metrics, String phaseName, Iterable<FileSnapshot> files)
+    {
+        PreCondition.assertNotNull(metrics, "metrics");
+        PreCondition.assertNotNullAndNotEmpty(phaseName, "phaseName");
+        PreCondition.assertNotNull(files, "files");
+
+        final PackMetricsPhase result = metrics.startConcurrentPhase(phaseName)
+            .setFiles(files.getCount());
+        final Long bytesIn = QubPack.getByteCount(files);
+        if (bytesIn != null)
+        {
+            result.setBytesIn(bytesIn);
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * End the phase that records the creation of a jar file.
+     * @param phase The phase to end.
+     * @param measureJarFile Whether or not the size of the created jar file will be recorded.
+     * @param jarFile The jar file that was created.
+     */
+    static void endJarPhase(PackMetricsPhase phase, boolean measureJarFile, File jarFile)
+    {
+        PreCondition.assertNotNull(phase, "phase");
+        PreCondition.assertNotNull(jarFile, "jarFile");
+
+        phase.end();
+        if (measureJarFile)
+        {
+            final Long bytesOut = QubPack.getByteCount(jarFile);
+            if (bytesOut != null)
+            {
+                phase.setBytesOut(bytesOut);
+            }
+        }
+    }
+
+    /**
+     * Get the file that a jar file is created in before it is published. The file is in the same
+     * folder as the published jar file so that publishing it is a rename instead of a copy.
+     * @param publishedJarFile The jar file that will be published.
+     * @return The file that the jar file will be created in before it is published.
+     */
+    static File getUnpublishedJarFile(File publishedJarFile)
+    {
+        PreCondition.assertNotNull(publishedJarFile, "publishedJarFile");
+
+        return publishedJarFile.getParentFolder().await().getFile(publishedJarFile.getName() + ".tmp").await();
+    }
+
+    /**
+     * Get a temporary file next to the provided file whose name no other pack will use.
+     * @param file The file that the temporary file will be moved to.
+     * @return The temporary file.
+     */
+    static File getTemporaryFile(File file)
+    {
+        PreCondition.assertNotNull(file, "file");
+
+        return file.getParentFolder().await()
+            .getFile(file.getName() + "." + java.util.UUID.randomUUID() + ".tmp").await();
+    }
+
+    /**
+     * Publish the sources jar file that was created next to its location in the outputs folder
+     * by renaming it.
+     * @param metrics The metrics of the pack.
+     * @param measureJarFile Whether or not the size of the sources jar file will be recorded.
+     * @param sourcesJarFile The unpublished sources jar file.
+     * @param sourcesJarFileInOutputsFolder The location of the sources jar file in the outputs
+     *                                      folder.
+     */
+    static void publishSourcesJarFile(PackMetrics metrics, boolean measureJarFile, File sourcesJarFile, File sourcesJarFileInOutputsFolder)
+    {
+        PreCondition.assertNotNull(metrics, "metrics");
+        PreCondition.assertNotNull(sourcesJarFile, "sourcesJarFile");
+        PreCondition.assertNotNull(sourcesJarFileInOutputsFolder, "sourcesJarFileInOutputsFolder");
+
+        QubPack.publishJarFile(metrics, "publishSourcesJar", measureJarFile, sourcesJarFile, sourcesJarFileInOutputsFolder);
+    }
+
+    /**
+     * Publish a jar file that was created next to its location in the outputs folder by renaming
+     * it.
+     * @param metrics The metrics of the pack.
+     * @param phaseName The name of the phase to record.
+     * @param measureJarFile Whether or not the size of the jar file will be recorded.
+     * @param jarFile The unpublished jar file.
+     * @param jarFileInOutputsFolder The location of the jar file in the outputs folder.
+     */
+    static void publishJarFile(PackMetrics metrics, String phaseName, boolean measureJarFile, File jarFile, File jarFileInOutputsFolder)
+    {
+        PreCondition.assertNotNull(metrics, "metrics");
+        PreCondition.assertNotNullAndNotEmpty(phaseName, "phaseName");
+        PreCondition.assertNotNull(jarFile, "jarFile");
+        PreCondition.assertNotNull(jarFileInOutputsFolder, "jarFileInOutputsFolder");
+
+        final PackMetricsPhase phase = metrics.startPhase(phaseName);
+        QubPack.moveFile(jarFile, jarFileInOutputsFolder);
+        phase.end();
+        if (measureJarFile)
+        {
+            final Long bytesOut = QubPack.getByteCount(jarFileInOutputsFolder);
+            if (bytesOut != null)
+            {
+                phase.setBytesOut(bytesOut);
+            }
+        }
+    }
+
+    /**
+     * Increment the provided pack result. Jar files that are created along the critical path
+     * complete on separate threads, so the increment is synchronized.
+     * @param result The pack result to increment.
+     */
+    static void increment(IntegerValue result)
+    {
+        PreCondition.assertNotNull(result, "result");
+
+        synchronized (result)
+        {
+            result.increment();
+        }
+    }
+
+    /**
+     * Get the number of milliseconds that it took to create the provided type of jar file the
+     * last time that it was created.
+     * @param packJson The PackJSON from the previous pack, or null if pack.json isn't being used.
+     * @param jarType The type of the jar file: sources, compiledSources, or compiledTests.
+     * @return The number of milliseconds that it took to create the jar file, or null if it
+     * wasn't recorded.
+     */
+    static Long getJarMilliseconds(PackJSON packJson, String jarType)
+    {
+        PreCondition.assertNotNullAndNotEmpty(jarType, "jarType");
+
+        return packJson == null ? null : packJson.getJarMilliseconds(jarType);
+    }
+
+    /**
+     * Get the total number of bytes in the provided file snapshots.
+     * @param files The file snapshots.
+     * @return The total number of bytes in the provided file snapshots, or null if the size of
+     * any of the files wasn't collected.
+     */
+    static Long getByteCount(Iterable<FileSnapshot> files)
+    {
+        PreCondition.assertNotNull(files, "files");
+
+        long result = 0;
+        for (final FileSnapshot file : files)
+        {
+            final Long size = file.getSize();
+            if (size == null)
+            {
+                return null;
+            }
+            result += size;
+        }
+        return result;
+    }
+
+    /**
+     * Move the provided file to the provided destination, replacing the destination if it
+     * already exists. On the Java file system this is an atomic rename, so readers of the
+     * destination see either the old file or the new file and never a partially written one. If
+     * the file system doesn't support atomic moves, the file is still renamed instead of being
+     * copied. Other file systems copy the file and delete the original.
+     * @param file The file to move.
+     * @param destination The location to move the file to.
+     */
+    static void moveFile(File file, File destination)
+    {
+        PreCondition.assertNotNull(file, "file");
+        PreCondition.assertNotNull(destination, "destination");
+
+        if (file.getFileSystem() instanceof JavaFileSystem)
+        {
+            final java.nio.file.Path filePath = java.nio.file.Paths.get(file.toString());
+            final java.nio.file.Path destinationPath = java.nio.file.Paths.get(destination.toString());
+            try
+            {
+                try
+                {
+                    java.nio.file.Files.move(filePath, destinationPath, java.nio.file.StandardCopyOption.ATOMIC_MOVE, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+                }
+                catch (java.nio.file.AtomicMoveNotSupportedException e)
+                {
+                    java.nio.file.Files.move(filePath, destinationPath, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            catch (java.io.IOException e)
+            {
+                throw Exceptions.asRuntime(e);
+            }
+        }
+        else
+        {
+            file.copyTo(destination).await();
+            file.delete().await();
+        }
+    }
+
+    /**
+     * Get the number of bytes in the provided file.
+     * @param file The file.
+     * @return The number of bytes in the provided file, or null if the file doesn't exist.
+     */
+    static Long getByteCount(File file)
+    {
+        PreCondition.assertNotNull(file, "file");
+
+        Long result;
+        if (file.getFileSystem() instanceof JavaFileSystem)
+        {
+            try
+            {
+                result = java.nio.file.Files.size(java.nio.file.Paths.get(file.toString()));
+            }
+            catch (java.io.IOException e)
+            {
+                result = null;
+            }
+        }
+        else
+        {
+            final byte[] contents = file.getContentsAsByteArray()
+                .catchError(FileNotFoundException.class)
+                .await();
+            result = contents == null ? null : (long)contents.length;
+        }
+        return result;
+    }
+
+    /**
+     * Wait for the sources jar file that was created while the tests were running.
+     * @param sourcesJarFileBuildTask The task that is creating the sources jar file.
+     * @return The result of creating the sources jar file.
+     */
+    static SourcesJarFileBuild awaitSourcesJarFileBuild(java.util.concurrent.CompletableFuture<SourcesJarFileBuild> sourcesJarFileBuildTask)
+    {
+        PreCondition.assertNotNull(sourcesJarFileBuildTask, "sourcesJarFileBuildTask");
+
+        try
+        {
+            return sourcesJarFileBuildTask.join();
+        }
+        catch (java.util.concurrent.CompletionException e)
+        {
+            throw Exceptions.asRuntime(e.getCause());
+        }
+    }
+
+    /**
+     * Wait for the sources jar file that was being created while the tests were running and
+     * delete it without publishing it. An error from creating the sources jar file is ignored
+     * because the sources jar file won't be published.
+     * @param sourcesJarFileBuildTask The task that is creating the sources jar file, or null if
+     *                                the pack isn't pipelined.
+     */
+    static void discardSourcesJarFileBuild(java.util.concurrent.CompletableFuture<SourcesJarFileBuild> sourcesJarFileBuildTask)
+    {
+        if (sourcesJarFileBuildTask != null)
+        {
+            final SourcesJarFileBuild sourcesJarFileBuild = sourcesJarFileBuildTask
+                .exceptionally((Throwable error) -> null)
+                .join();
+            if (sourcesJarFileBuild != null)
+            {
+                sourcesJarFileBuild.discard();
+            }
+        }
+    }
+
+    /**
+     * Get the fingerprint of everything that a project's tests depend on. The fingerprint changes
+     * whenever one of the parameters that changes how the project is compiled or tested changes,
+     * the project.json file's contents change, one of the project's dependency jar files is
+     * added, deleted, or modified, or a file in one of the provided snapshots is added, deleted,
+     * resized, or modified.
+     * @param parameters The parameters of the pack.
+     * @param projectJsonFile The project.json file of the project.
+     * @param folderSnapshots The snapshots of the project's source, test, and output folders.
+     * @return The fingerprint of everything that the project's tests depend on.
+     */
+    static String getTestsFingerprint(QubPackParameters parameters, File projectJsonFile, Iterable<FolderSnapshot> folderSnapshots)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+        PreCondition.assertNotNull(projectJsonFile, "projectJsonFile");
+        PreCondition.assertNotNull(folderSnapshots, "folderSnapshots");
+
+        final java.security.MessageDigest digest;
+        try
+        {
+            digest = java.security.MessageDigest.getInstance("SHA-256");
+        }
+        catch (java.security.NoSuchAlgorithmException e)
+        {
+            throw Exceptions.asRuntime(e);
+        }
+
+        final String parameterLines =
+            "pattern=" + parameters.getPattern() + "\n" +
+            "coverage=" + parameters.getCoverage() + "\n" +
+            "testJson=" + parameters.getTestJson() + "\n" +
+            "buildJson=" + parameters.getBuildJson() + "\n" +
+            "warnings=" + parameters.getWarnings() + "\n";
+        digest.update(parameterLines.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+
+        final byte[] projectJsonFileContents = projectJsonFile.getContentsAsByteArray()
+            .catchError(FileNotFoundException.class)
+            .await();
+        if (projectJsonFileContents != null)
+        {
+            digest.update(projectJsonFileContents);
+        }
+
+        // Sort the dependency jar files so that the fingerprint doesn't depend on the order that
+        // the dependencies are listed in.
+        final java.util.List<String> dependencyLines = new java.util.ArrayList<>();
+        for (final File dependencyFile : QubPack.getDependencyCompiledSourcesFiles(parameters.getQubFolder(), projectJsonFile))
+        {
+            final DateTime lastModified = dependencyFile.getLastModified()
+                .catchError(FileNotFoundException.class)
+                .await();
+            dependencyLines.add(dependencyFile.toString() + "|" + lastModified);
+        }
+        java.util.Collections.sort(dependencyLines);
+        digest.update("\ndependencies\n".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        for (final String dependencyLine : dependencyLines)
+        {
+            digest.update((dependencyLine + "\n").getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        }
+
+        for (final FolderSnapshot folderSnapshot : folderSnapshots)
+        {
+            // Sort the files so that the fingerprint doesn't depend on the order that the file
+            // system returned them in.
+            final java.util.List<String> fileLines = new java.util.ArrayList<>();
+            for (final FileSnapshot fileSnapshot : folderSnapshot.getFiles())
+            {
+                fileLines.add(QubPack.getRelativePathKey(fileSnapshot.getRelativePath()) + "|" + fileSnapshot.getSize() + "|" + fileSnapshot.getLastModified());
+            }
+            java.util.Collections.sort(fileLines);
+
+            digest.update(("\n" + folderSnapshot.getFolder().getName() + "\n").getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            for (final String fileLine : fileLines)
+            {
+                digest.update((fileLine + "\n").getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            }
+        }
+
+        final StringBuilder result = new StringBuilder("sha256:");
+        for (final byte digestByte : digest.digest())
+        {
+            result.append(String.format("%02x", digestByte & 0xFF));
+        }
+
+        PostCondition.assertNotNullAndNotEmpty(result.toString(), "result");
+
+        return result.toString();
+    }
+
+    /**
+     * Get the compiled sources jar files of the dependencies of the project with the provided
+     * project.json file, including the dependencies of those dependencies. Each dependency is
+     * resolved from the provided QubFolder, and the dependencies of a dependency are read from
+     * the project.json file next to its compiled sources jar file. A dependency whose
+     * project.json file doesn't exist or can't be parsed doesn't add any more dependencies.
+     * @param qubFolder The QubFolder that the dependencies are published to.
+     * @param projectJsonFile The project.json file of the project.
+     * @return The compiled sources jar files of the project's dependencies.
+     */
+    static Iterable<File> getDependencyCompiledSourcesFiles(QubFolder qubFolder, File projectJsonFile)
+    {
+        PreCondition.assertNotNull(qubFolder, "qubFolder");
+        PreCondition.assertNotNull(projectJsonFile, "projectJsonFile");
+
+        final List<File> result = List.create();
+        final java.util.Set<String> visitedDependencies = new java.util.HashSet<>();
+        final java.util.Deque<File> projectJsonFilesToVisit = new java.util.ArrayDeque<>();
+        projectJsonFilesToVisit.add(projectJsonFile);
+        while (!projectJsonFilesToVisit.isEmpty())
+        {
+            final File projectJsonFileToVisit = projectJsonFilesToVisit.removeFirst();
+            final ProjectJSON projectJson = ProjectJSON.parse(projectJsonFileToVisit)
+                .catchError()
+                .await();
+            final ProjectJSONJava projectJsonJava = projectJson == null ? null : projectJson.getJava();
+            if (projectJsonJava != null)
+            {
+                for (final ProjectSignature dependency : projectJsonJava.getDependencies())
+                {
+                    final String publisher = dependency.getPublisher();
+                    final String project = dependency.getProject();
+                    final String version = dependency.getVersion().toString();
+                    if (visitedDependencies.add(publisher + "/" + project + "@" + version))
+                    {
+                        final File compiledSourcesFile = qubFolder.getCompiledSourcesFile(publisher, project, version).await();
+                        result.add(compiledSourcesFile);
+                        projectJsonFilesToVisit.add(compiledSourcesFile.getParentFolder().await().getFile("project.json").await());
+                    }
+                }
+            }
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    static boolean shouldCreateJarFile(PackJSON packJson, Function1<PackJSON,Iterable<PackJSONFile>> getPackJSONFiles, Action2<PackJSON,Iterable<PackJSONFile>> setPackJSONFiles, String project, Folder folder, Iterable<File> files)
+    {
+        return QubPack.getJarFileChanges(packJson, getPackJSONFiles, setPackJSONFiles, project, folder, files).hasChanges();
+    }
+
+    /**
+     * Get the changes between the files that were packed into a jar file the last time it was
+     * created and the provided files. If the provided PackJSON isn't null, then its files will be
+     * updated to match the provided files.
+     * @param packJson The PackJSON from the previous pack, or null if there was no previous pack.
+     * @param getPackJSONFiles The function that gets the jar file's files from the PackJSON.
+     * @param setPackJSONFiles The function that sets the jar file's files in the PackJSON.
+     * @param project The name of the project that is being packed.
+     * @param folder The folder that the files are relative to.
+     * @param files The files that will be packed into the jar file.
+     * @return The changes to the jar file's files.
+     */
+    static JarFileChanges getJarFileChanges(PackJSON packJson, Function1<PackJSON,Iterable<PackJSONFile>> getPackJSONFiles, Action2<PackJSON,Iterable<PackJSONFile>> setPackJSONFiles, String project, Folder folder, Iterable<File> files)
+    {
+        return QubPack.getJarFileChanges(packJson, getPackJSONFiles, setPackJSONFiles, project, folder, files, false);
+    }
+
+    /**
+     * Get the changes between the files that were packed into a jar file the last time it was
+     * created and the provided files. If the provided PackJSON isn't null, then its files will be
+     * updated to match the provided files.
+     * @param packJson The PackJSON from the previous pack, or null if there was no previous pack.
+     * @param getPackJSONFiles The function that gets the jar file's files from the PackJSON.
+     * @param setPackJSONFiles The function that sets the jar file's files in the PackJSON.
+     * @param project The name of the project that is being packed.
+     * @param folder The folder that the files are relative to.
+     * @param files The files that will be packed into the jar file.
+     * @param contentHash Whether or not the size and content hash of each file will be recorded
+     *                    and used to detect changes. The last modified time is still checked
+     *                    first so that only files whose last modified time changed are hashed.
+     * @return The changes to the jar file's files.
+     */
+    static JarFileChanges getJarFileChanges(PackJSON packJson, Function1<PackJSON,Iterable<PackJSONFile>> getPackJSONFiles, Action2<PackJSON,Iterable<PackJSONFile>> setPackJSONFiles, String project, Folder folder, Iterable<File> files, boolean contentHash)
+    {
+        PreCondition.assertNotNull(folder, "folder");
+        PreCondition.assertNotNull(files, "files");
+
+        final Iterable<FileSnapshot> fileSnapshots = files.map((File file) -> FileSnapshot.create(file, file.relativeTo(folder), null, file.getLastModified().await()));
+        return QubPack.getJarFileChanges(packJson, getPackJSONFiles, setPackJSONFiles, project, fileSnapshots, contentHash);
+    }
+
+    /**
+     * Get the changes between the files that were packed into a jar file the last time it was
+     * created and the provided file snapshots. If the provided PackJSON isn't null, then its files
+     * will be updated to match the provided file snapshots.
+     * @param packJson The PackJSON from the previous pack, or null if there was no previous pack.
+     * @param getPackJSONFiles The function that gets the jar file's files from the PackJSON.
+     * @param setPackJSONFiles The function that sets the jar file's files in the PackJSON.
+     * @param project The name of the project that is being packed.
+     * @param files The snapshots of the files that will be packed into the jar file.
+     * @param contentHash Whether or not the size and content hash of each file will be recorded
+     *                    and used to detect changes.
+     * @return The changes to the jar file's files.
+     */
+    static JarFileChanges getJarFileChanges(PackJSON packJson, Function1<PackJSON,Iterable<PackJSONFile>> getPackJSONFiles, Action2<PackJSON,Iterable<PackJSONFile>> setPackJSONFiles, String project, Iterable<FileSnapshot> files, boolean contentHash)
+    {
+        PreCondition.assertNotNull(getPackJSONFiles, "getPackJSONFiles");
         PreCondition.assertNotNull(setPackJSONFiles, "setPackJSONFiles");
         PreCondition.assertNotNullAndNotEmpty(project, "project");
-        PreCondition.assertNotNull(folder, "folder");
         PreCondition.assertNotNull(files, "files");
 
-        boolean result;
+        JarFileChanges result;
         if (packJson == null)
         {
-            result = true;
+            result = JarFileChanges.unknown();
         }
         else
         {
-            result = !Comparer.equal(packJson.getProject(), project);
+            result = JarFileChanges.create()
+                .setProjectChanged(!Comparer.equal(packJson.getProject(), project));
             Iterable<PackJSONFile> packJsonFiles = getPackJSONFiles.run(packJson);
             if (packJsonFiles == null)
             {
                 packJsonFiles = Iterable.create();
             }
-            final List<PackJSONFile> newPackJsonSourceFiles = List.create();
-            final List<PackJSONFile> deletedSourceFiles = List.create(packJsonFiles);
-            for (final File file : files)
+            // Index the previous files by their relative paths so that each file can be matched
+            // to its previous entry in constant time. The entries that are left in the index
+            // after every file has been matched are the files that have been deleted.
+            final java.util.Map<String,PackJSONFile> previousPackJsonFiles = new java.util.LinkedHashMap<>();
+            for (final PackJSONFile packJsonFile : packJsonFiles)
+            {
+                previousPackJsonFiles.put(QubPack.getRelativePathKey(packJsonFile.getRelativePath()), packJsonFile);
+            }
+
+            for (final FileSnapshot fileSnapshot : files)
             {
-                final Path fileRelativePath = file.relativeTo(folder);
-                final PackJSONFile packJsonFile = packJsonFiles.first(value -> Comparer.equal(value.getRelativePath(), fileRelativePath));
-                final DateTime sourceJavaFileLastModified = file.getLastModified().await();
-                if (packJsonFile == null || !Comparer.equal(packJsonFile.getLastModified(), sourceJavaFileLastModified))
+                final File file = fileSnapshot.getFile();
+                final Path fileRelativePath = fileSnapshot.getRelativePath();
+                final PackJSONFile packJsonFile = previousPackJsonFiles.remove(QubPack.getRelativePathKey(fileRelativePath));
+                final DateTime sourceJavaFileLastModified = fileSnapshot.getLastModified();
+                if (packJsonFile == null)
                 {
-                    newPackJsonSourceFiles.add(PackJSONFile.create(fileRelativePath, sourceJavaFileLastModified));
-                    result = true;
+                    result.addNewFile(QubPack.createPackJSONFile(file, fileRelativePath, sourceJavaFileLastModified, contentHash));
                 }
                 else
                 {
-                    newPackJsonSourceFiles.add(packJsonFile);
-                    deletedSourceFiles.removeFirst(value -> Comparer.equal(value.getRelativePath(), fileRelativePath));
+                    if (Comparer.equal(packJsonFile.getLastModified(), sourceJavaFileLastModified))
+                    {
+                        if (contentHash && packJsonFile.getContentHash() == null)
+                        {
+                            // Record the content hash of the unchanged file so that it can be
+                            // used the next time the file's last modified time changes.
+                            result.addUnchangedFile(QubPack.createPackJSONFile(file, fileRelativePath, sourceJavaFileLastModified, contentHash));
+                        }
+                        else
+                        {
+                            result.addUnchangedFile(packJsonFile);
+                        }
+                    }
+                    else
+                    {
+                        final PackJSONFile newPackJsonFile = QubPack.createPackJSONFile(file, fileRelativePath, sourceJavaFileLastModified, contentHash);
+                        if (contentHash &&
+                            packJsonFile.getContentHash() != null &&
+                            Comparer.equal(packJsonFile.getSize(), newPackJsonFile.getSize()) &&
+                            Comparer.equal(packJsonFile.getContentHash(), newPackJsonFile.getContentHash()))
+                        {
+                            // The file was rewritten with identical contents.
+                            result.addUnchangedFile(newPackJsonFile);
+                        }
+                        else
+                        {
+                            result.addModifiedFile(newPackJsonFile);
+                        }
+                    }
                 }
             }
 
-            setPackJSONFiles.run(packJson, newPackJsonSourceFiles);
+            setPackJSONFiles.run(packJson, result.getCurrentFiles());
 
-            if (deletedSourceFiles.any())
+            for (final PackJSONFile deletedFile : previousPackJsonFiles.values())
             {
-                result = true;
+                result.addDeletedFile(deletedFile);
             }
         }
+
+        PostCondition.assertNotNull(result, "result");
+
         return result;
     }
 
-    static Result<Integer> createJarFile(ProcessFactory processFactory, Folder baseFolder, File jarFile, Iterable<File> files, VerboseCharacterToByteWriteStream verbose, ByteWriteStream outputByteWriteStream, ByteWriteStream errorByteWriteStream)
+    /**
+     * Get the changes between the files that were packed into a jar file the last time it was
+     * created and the provided file snapshots, and record how long it took in the pack's metrics
+     * and in a PackJarFileChangesEvent.
+     * @param metrics The metrics of the pack.
+     * @param jarType The type of the jar file: sources, compiledSources, or compiledTests.
+     * @param packJson The PackJSON from the previous pack, or null if there was no previous pack.
+     * @param getPackJSONFiles The function that gets the jar file's files from the PackJSON.
+     * @param setPackJSONFiles The function that sets the jar file's files in the PackJSON.
+     * @param project The name of the project that is being packed.
+     * @param files The snapshots of the files that will be packed into the jar file.
+     * @param contentHash Whether or not the size and content hash of each file will be recorded
+     *                    and used to detect changes.
+     * @return The changes to the jar file's files.
+     */
+    static JarFileChanges getJarFileChanges(PackMetrics metrics, String jarType, PackJSON packJson, Function1<PackJSON,Iterable<PackJSONFile>> getPackJSONFiles, Action2<PackJSON,Iterable<PackJSONFile>> setPackJSONFiles, String project, Iterable<FileSnapshot> files, boolean contentHash)
     {
-        return QubPack.createJarFile(processFactory, baseFolder, null, jarFile, files, verbose, outputByteWriteStream, errorByteWriteStream);
+        PreCondition.assertNotNull(metrics, "metrics");
+        PreCondition.assertNotNullAndNotEmpty(jarType, "jarType");
+        PreCondition.assertNotNull(files, "files");
+
+        final PackJarFileChangesEvent event = PackJarFileChangesEvent.start();
+        final PackMetricsPhase phase = metrics.startPhase(jarType + "Changes");
+        final JarFileChanges result = QubPack.getJarFileChanges(packJson, getPackJSONFiles, setPackJSONFiles, project, files, contentHash);
+        final int fileCount = files.getCount();
+        phase.setFiles(fileCount).end();
+        event.finish(jarType, fileCount, result);
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
     }
 
-    static Result<Integer> createJarFile(ProcessFactory processFactory, Folder baseFolder, File manifestFile, File jarFile, Iterable<File> files, VerboseCharacterToByteWriteStream verbose, ByteWriteStream outputByteWriteStream, ByteWriteStream errorByteWriteStream)
+    /**
+     * Get the key that identifies the provided relative path in a hash index. Relative paths that
+     * only differ by their path separators have the same key.
+     * @param relativePath The relative path to get the key of.
+     * @return The key that identifies the provided relative path.
+     */
+    static String getRelativePathKey(Path relativePath)
     {
-        PreCondition.assertNotNull(processFactory, "processFactory");
-        PreCondition.assertNotNull(baseFolder, "baseFolder");
-        PreCondition.assertNotNull(jarFile, "jarFile");
-        PreCondition.assertNotNullAndNotEmpty(files, "files");
-        PreCondition.assertNotNull(verbose, "verbose");
-        PreCondition.assertNotNull(outputByteWriteStream, "outputByteWriteStream");
-        PreCondition.assertNotNull(errorByteWriteStream, "errorByteWriteStream");
+        PreCondition.assertNotNull(relativePath, "relativePath");
+
+        return relativePath.toString().replace('\\', '/');
+    }
+
+    /**
+     * Get the JarEngine that will create a pack's jar files. Reproducible jar files are always
+     * created by the internal jar engine, because the jar executable only accepts a fixed entry
+     * timestamp (--date) in Java 17 and later, and this project supports Java 14.
+     * @param parameters The parameters of the pack.
+     * @return The JarEngine that will create the pack's jar files.
+     */
+    static JarEngine getJarEngine(QubPackParameters parameters)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+
+        return parameters.getReproducible() ? JarEngine.Internal : parameters.getJarEngine();
+    }
 
-        final JarProcessBuilder jar = JarProcessBuilder.get(processFactory).await()
-            .setWorkingFolder(baseFolder)
-            .addCreate()
-            .addJarFile(jarFile);
-        if (manifestFile != null)
+    /**
+     * Create the PackJSONFile that records the current state of the provided file.
+     * @param file The file to record.
+     * @param relativePath The path of the file relative to the folder that is being packed.
+     * @param lastModified The last time the file was modified.
+     * @param contentHash Whether or not the file's size and content hash will be recorded.
+     * @return The new PackJSONFile.
+     */
+    static PackJSONFile createPackJSONFile(File file, Path relativePath, DateTime lastModified, boolean contentHash)
+    {
+        PreCondition.assertNotNull(file, "file");
+        PreCondition.assertNotNull(relativePath, "relativePath");
+        PreCondition.assertNotNull(lastModified, "lastModified");
+
+        PackJSONFile result;
+        if (!contentHash)
         {
-            jar.addManifestFile(manifestFile);
+            result = PackJSONFile.create(relativePath, lastModified);
         }
+        else
+        {
+            final byte[] contents = file.getContentsAsByteArray().await();
+            result = PackJSONFile.create(relativePath, lastModified, contents.length, PackJSONFile.getContentHash(contents));
+        }
+
+        PostCondition.assertNotNull(result, "result");
 
-        jar.addContentFiles(files);
+        return result;
+    }
+
+    /**
+     * Get the CreateJarFileParameters for a jar file that will be created during a pack.
+     * @param parameters The parameters of the pack.
+     * @param baseFolder The folder that the jar file's entries will be relative to.
+     * @param jarFile The jar file to create.
+     * @param files The snapshots of the files that will be added to the jar file.
+     * @param previousJarFile The location of the jar file that was created by the previous pack.
+     * @param jarFileChanges The changes to the jar file's files since the previous pack.
+     * @param compressionLevel The compression level of the jar file's entries.
+     * @param metrics The metrics of the pack.
+     * @return The CreateJarFileParameters.
+     */
+    static CreateJarFileParameters getCreateJarFileParameters(QubPackParameters parameters, Folder baseFolder, File jarFile, Iterable<FileSnapshot> files, File previousJarFile, JarFileChanges jarFileChanges, int compressionLevel, PackMetrics metrics)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+        PreCondition.assertNotNull(files, "files");
+        PreCondition.assertNotNull(previousJarFile, "previousJarFile");
+        PreCondition.assertNotNull(jarFileChanges, "jarFileChanges");
+        PreCondition.assertNotNull(metrics, "metrics");
 
-        if (verbose.isVerbose())
+        final CreateJarFileParameters result = CreateJarFileParameters.create(baseFolder, jarFile, files.map(FileSnapshot::getFile).toList())
+            .setFileSnapshots(files)
+            .setCompressionLevel(compressionLevel)
+            .setMinimumCompressionSavings(parameters.getAdaptiveCompression() ? parameters.getAdaptiveCompressionMinimumSavings() : null)
+            .setReproducibleTimestamp(parameters.getReproducible() ? parameters.getReproducibleTimestamp() : null)
+            .setMetrics(metrics)
+            .setVerbose(parameters.getVerbose())
+            .setOutputWriteStream(parameters.getOutputWriteStream())
+            .setErrorWriteStream(parameters.getErrorWriteStream());
+        if (parameters.getIncrementalPack() && jarFileChanges.isPreviousStateKnown() && !jarFileChanges.getProjectChanged())
         {
-            jar.redirectOutput(outputByteWriteStream);
-            jar.redirectError(errorByteWriteStream);
-            verbose.writeLine("Running " + jar.getCommand()).await();
+            result.setPreviousJarFile(previousJarFile, jarFileChanges.getUnchangedFiles().map(PackJSONFile::getRelativePath));
         }
 
-        final ChildProcess childProcess = jar.start().await();
-        return LazyResult.create(childProcess::await);
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
     }
 
     static boolean isSourceClassFile(Folder outputFolder, File outputClassFile, Folder sourceFolder, Iterable<File> sourceJavaFiles)
@@ -368,28 +2030,17 @@ public interface QubPack
         PreCondition.assertNotNull(sourceFolder, "sourceFolder");
         PreCondition.assertNotNull(sourceJavaFiles, "sourceJavaFiles");
 
-        Path outputClassFilePath = outputClassFile.relativeTo(outputFolder).withoutFileExtension();
-        if (outputClassFilePath.getSegments().last().contains("$"))
-        {
-            final String outputClassFileRelativePathString = outputClassFilePath.toString();
-            final int dollarSignIndex = outputClassFileRelativePathString.lastIndexOf('$');
-            final String outputClassFileRelativePathStringWithoutDollarSign = outputClassFileRelativePathString.substring(0, dollarSignIndex);
-            outputClassFilePath = Path.parse(outputClassFileRelativePathStringWithoutDollarSign);
-        }
-        final Path outputClassFileRelativePath = outputClassFilePath;
-        return sourceJavaFiles.contains((File sourceJavaFile) ->
-        {
-            final Path sourceJavaFileRelativePath = sourceJavaFile.relativeTo(sourceFolder).withoutFileExtension();
-            return outputClassFileRelativePath.equals(sourceJavaFileRelativePath);
-        });
+        return SourceClassFileIndex.create(sourceFolder, sourceJavaFiles).contains(outputFolder, outputClassFile);
     }
 
     static Iterable<File> getSourceClassFiles(Folder outputFolder, Iterable<File> outputClassFiles, Folder sourceFolder, Iterable<File> sourceJavaFiles)
     {
+        PreCondition.assertNotNull(outputFolder, "outputFolder");
+        PreCondition.assertNotNull(outputClassFiles, "outputClassFiles");
+
+        final SourceClassFileIndex sourceClassFileIndex = SourceClassFileIndex.create(sourceFolder, sourceJavaFiles);
         return outputClassFiles
-            .where((File outputClassFile) ->
-            {
-                return QubPack.isSourceClassFile(outputFolder, outputClassFile, sourceFolder, sourceJavaFiles);
-            });
+            .where((File outputClassFile) -> sourceClassFileIndex.contains(outputFolder, outputClassFile))
+            .toList();
     }
-}
\ No newline at end of file
+}
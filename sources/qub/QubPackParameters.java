@@ -5,8 +5,39 @@ package qub;
  */
 public class QubPackParameters extends QubTestRunParameters
 {
+    private final TypeLoader typeLoader;
+    private final QubFolder qubFolder;
     private boolean packJson;
+    private boolean contentHash;
     private boolean parallelPack;
+    private JarEngine jarEngine;
+    private boolean incrementalPack;
+    private int fileAttributeThreadCount;
+    private int jarArgumentFileThreshold;
+    private int sourcesJarCompressionLevel;
+    private int compiledSourcesJarCompressionLevel;
+    private int compiledTestsJarCompressionLevel;
+    private boolean adaptiveCompression;
+    private double adaptiveCompressionMinimumSavings;
+    private boolean reproducible;
+    private DateTime reproducibleTimestamp;
+    private boolean jarCache;
+    private Folder jarCacheFolder;
+    private long jarCacheMaximumBytes;
+    private boolean watch;
+    private int watchDebounceMilliseconds;
+    private PackJSON previousPackJson;
+    private boolean daemon;
+    private boolean useDaemon;
+    private File daemonFile;
+    private Iterable<String> folderPatterns;
+    private int concurrency;
+    private java.util.concurrent.Semaphore taskPermits;
+    private boolean forceTests;
+    private boolean pipelinedPack;
+    private boolean criticalPathPack;
+    private boolean packMetrics;
+    private File traceFile;
 
     /**
      * Create a new QubPackParameters object.
@@ -21,6 +52,35 @@ public class QubPackParameters extends QubTestRunParameters
     public QubPackParameters(CharacterToByteWriteStream outputWriteStream, CharacterToByteWriteStream errorWriteStream, Folder folderToPack, EnvironmentVariables environmentVariables, ProcessFactory processFactory, DefaultApplicationLauncher defaultApplicationLauncher, String jvmClassPath, TypeLoader typeLoader, QubFolder qubFolder)
     {
         super(outputWriteStream, errorWriteStream, folderToPack, environmentVariables, processFactory, defaultApplicationLauncher, jvmClassPath, qubFolder, QubPackParameters.getQubTestDataFolder(folderToPack, typeLoader), typeLoader);
+
+        this.typeLoader = typeLoader;
+        this.qubFolder = qubFolder;
+        this.contentHash = QubPackParameters.getContentHashDefault();
+        this.jarEngine = QubPackParameters.getJarEngineDefault();
+        this.incrementalPack = QubPackParameters.getIncrementalPackDefault();
+        this.fileAttributeThreadCount = QubPackParameters.getFileAttributeThreadCountDefault();
+        this.jarArgumentFileThreshold = QubPackParameters.getJarArgumentFileThresholdDefault();
+        this.sourcesJarCompressionLevel = QubPackParameters.getSourcesJarCompressionLevelDefault();
+        this.compiledSourcesJarCompressionLevel = QubPackParameters.getCompiledSourcesJarCompressionLevelDefault();
+        this.compiledTestsJarCompressionLevel = QubPackParameters.getCompiledTestsJarCompressionLevelDefault();
+        this.adaptiveCompression = QubPackParameters.getAdaptiveCompressionDefault();
+        this.adaptiveCompressionMinimumSavings = QubPackParameters.getAdaptiveCompressionMinimumSavingsDefault();
+        this.reproducible = QubPackParameters.getReproducibleDefault();
+        this.reproducibleTimestamp = QubPackParameters.getReproducibleTimestampDefault();
+        this.jarCache = QubPackParameters.getJarCacheDefault();
+        this.jarCacheFolder = QubPackParameters.getJarCacheFolderDefault(qubFolder);
+        this.jarCacheMaximumBytes = QubPackParameters.getJarCacheMaximumBytesDefault();
+        this.watch = QubPackParameters.getWatchDefault();
+        this.watchDebounceMilliseconds = QubPackParameters.getWatchDebounceMillisecondsDefault();
+        this.daemon = QubPackParameters.getDaemonDefault();
+        this.useDaemon = QubPackParameters.getUseDaemonDefault();
+        this.daemonFile = QubPackParameters.getDaemonFileDefault(qubFolder);
+        this.folderPatterns = QubPackParameters.getFolderPatternsDefault();
+        this.concurrency = QubPackParameters.getConcurrencyDefault();
+        this.forceTests = QubPackParameters.getForceTestsDefault();
+        this.pipelinedPack = QubPackParameters.getPipelinedPackDefault();
+        this.criticalPathPack = QubPackParameters.getCriticalPathPackDefault();
+        this.packMetrics = QubPackParameters.getPackMetricsDefault();
     }
 
     private static Folder getQubTestDataFolder(Folder folderToPack, TypeLoader typeLoader)
@@ -54,6 +114,30 @@ public class QubPackParameters extends QubTestRunParameters
         return this.packJson;
     }
 
+    /**
+     * Set whether or not the pack.json file will record the size and content hash of each file.
+     * Files whose last modified time changed but whose contents didn't change will not cause the
+     * jar files to be created again.
+     * @param contentHash Whether or not the pack.json file will record the size and content hash
+     *                    of each file.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setContentHash(boolean contentHash)
+    {
+        this.contentHash = contentHash;
+        return this;
+    }
+
+    /**
+     * Get whether or not the pack.json file will record the size and content hash of each file.
+     * @return Whether or not the pack.json file will record the size and content hash of each
+     * file.
+     */
+    public boolean getContentHash()
+    {
+        return this.contentHash;
+    }
+
     /**
      * Set whether or not the jar files will be packaged in parallel.
      * @param parallelPack Whether or not the jar files will be packaged in parallel.
@@ -74,6 +158,739 @@ public class QubPackParameters extends QubTestRunParameters
         return this.parallelPack;
     }
 
+    /**
+     * Set the engine that will be used to create the jar files.
+     * @param jarEngine The engine that will be used to create the jar files.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setJarEngine(JarEngine jarEngine)
+    {
+        PreCondition.assertNotNull(jarEngine, "jarEngine");
+
+        this.jarEngine = jarEngine;
+        return this;
+    }
+
+    /**
+     * Get the engine that will be used to create the jar files.
+     * @return The engine that will be used to create the jar files.
+     */
+    public JarEngine getJarEngine()
+    {
+        return this.jarEngine;
+    }
+
+    /**
+     * Set whether or not unchanged entries will be copied from the previous jar files instead of
+     * being compressed again. This is only used by the internal jar engine.
+     * @param incrementalPack Whether or not unchanged entries will be copied from the previous jar
+     *                        files.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setIncrementalPack(boolean incrementalPack)
+    {
+        this.incrementalPack = incrementalPack;
+        return this;
+    }
+
+    /**
+     * Get whether or not unchanged entries will be copied from the previous jar files instead of
+     * being compressed again.
+     * @return Whether or not unchanged entries will be copied from the previous jar files.
+     */
+    public boolean getIncrementalPack()
+    {
+        return this.incrementalPack;
+    }
+
+    /**
+     * Set the number of threads that will get the attributes of the files that are being packed
+     * when the jar files are packaged in parallel. Each request for a file's attributes is a round
+     * trip on a network file system, so making these requests concurrently can greatly reduce the
+     * time that it takes to detect that nothing has changed.
+     * @param fileAttributeThreadCount The number of threads that will get the attributes of the
+     *                                 files that are being packed.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setFileAttributeThreadCount(int fileAttributeThreadCount)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(fileAttributeThreadCount, 1, "fileAttributeThreadCount");
+
+        this.fileAttributeThreadCount = fileAttributeThreadCount;
+        return this;
+    }
+
+    /**
+     * Get the number of threads that will get the attributes of the files that are being packed
+     * when the jar files are packaged in parallel.
+     * @return The number of threads that will get the attributes of the files that are being
+     * packed.
+     */
+    public int getFileAttributeThreadCount()
+    {
+        return this.fileAttributeThreadCount;
+    }
+
+    /**
+     * Set the number of content files above which the jar executable will be passed its content
+     * files in an argument file instead of on the command line. Passing every content file on the
+     * command line can exceed the operating system's command line length limit and makes the jar
+     * process slow to start.
+     * @param jarArgumentFileThreshold The number of content files above which an argument file
+     *                                 will be used.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setJarArgumentFileThreshold(int jarArgumentFileThreshold)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(jarArgumentFileThreshold, 0, "jarArgumentFileThreshold");
+
+        this.jarArgumentFileThreshold = jarArgumentFileThreshold;
+        return this;
+    }
+
+    /**
+     * Get the number of content files above which the jar executable will be passed its content
+     * files in an argument file instead of on the command line.
+     * @return The number of content files above which an argument file will be used.
+     */
+    public int getJarArgumentFileThreshold()
+    {
+        return this.jarArgumentFileThreshold;
+    }
+
+    /**
+     * Set the compression level of the sources, compiled sources, and compiled tests jar files.
+     * By default each jar file has its own compression level: the published sources jar file is
+     * compressed the most, and the compiled tests jar file is compressed the least.
+     * @param compressionLevel The compression level, from 0 (stored) to 9 (best compression).
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setCompressionLevel(int compressionLevel)
+    {
+        PreCondition.assertBetween(0, compressionLevel, 9, "compressionLevel");
+
+        return this.setSourcesJarCompressionLevel(compressionLevel)
+            .setCompiledSourcesJarCompressionLevel(compressionLevel)
+            .setCompiledTestsJarCompressionLevel(compressionLevel);
+    }
+
+    /**
+     * Set the compression level of the sources jar file. A compression level of 0 stores the
+     * entries without compressing them, which is faster when the jar file is only going to be
+     * used on the machine that created it. The jar executable only supports storing entries or
+     * compressing them with its default compression level.
+     * @param sourcesJarCompressionLevel The compression level, from 0 (stored) to 9 (best
+     *                                   compression).
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setSourcesJarCompressionLevel(int sourcesJarCompressionLevel)
+    {
+        PreCondition.assertBetween(0, sourcesJarCompressionLevel, 9, "sourcesJarCompressionLevel");
+
+        this.sourcesJarCompressionLevel = sourcesJarCompressionLevel;
+        return this;
+    }
+
+    /**
+     * Get the compression level of the sources jar file.
+     * @return The compression level of the sources jar file.
+     */
+    public int getSourcesJarCompressionLevel()
+    {
+        return this.sourcesJarCompressionLevel;
+    }
+
+    /**
+     * Set the compression level of the compiled sources jar file.
+     * @param compiledSourcesJarCompressionLevel The compression level, from 0 (stored) to 9 (best
+     *                                           compression).
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setCompiledSourcesJarCompressionLevel(int compiledSourcesJarCompressionLevel)
+    {
+        PreCondition.assertBetween(0, compiledSourcesJarCompressionLevel, 9, "compiledSourcesJarCompressionLevel");
+
+        this.compiledSourcesJarCompressionLevel = compiledSourcesJarCompressionLevel;
+        return this;
+    }
+
+    /**
+     * Get the compression level of the compiled sources jar file.
+     * @return The compression level of the compiled sources jar file.
+     */
+    public int getCompiledSourcesJarCompressionLevel()
+    {
+        return this.compiledSourcesJarCompressionLevel;
+    }
+
+    /**
+     * Set the compression level of the compiled tests jar file.
+     * @param compiledTestsJarCompressionLevel The compression level, from 0 (stored) to 9 (best
+     *                                         compression).
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setCompiledTestsJarCompressionLevel(int compiledTestsJarCompressionLevel)
+    {
+        PreCondition.assertBetween(0, compiledTestsJarCompressionLevel, 9, "compiledTestsJarCompressionLevel");
+
+        this.compiledTestsJarCompressionLevel = compiledTestsJarCompressionLevel;
+        return this;
+    }
+
+    /**
+     * Get the compression level of the compiled tests jar file.
+     * @return The compression level of the compiled tests jar file.
+     */
+    public int getCompiledTestsJarCompressionLevel()
+    {
+        return this.compiledTestsJarCompressionLevel;
+    }
+
+    /**
+     * Set whether or not each jar file entry will only be compressed if compressing it saves at
+     * least the adaptive compression minimum savings. Entries that don't shrink enough (such as
+     * small files or files that are already compressed) are stored instead. The jar executable
+     * doesn't support adaptive compression, so this only applies to the internal jar engine.
+     * @param adaptiveCompression Whether or not adaptive compression will be used.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setAdaptiveCompression(boolean adaptiveCompression)
+    {
+        this.adaptiveCompression = adaptiveCompression;
+        return this;
+    }
+
+    /**
+     * Get whether or not each jar file entry will only be compressed if compressing it saves at
+     * least the adaptive compression minimum savings.
+     * @return Whether or not adaptive compression will be used.
+     */
+    public boolean getAdaptiveCompression()
+    {
+        return this.adaptiveCompression;
+    }
+
+    /**
+     * Set the ratio of an entry's size that compressing it must save for the entry to be
+     * compressed when adaptive compression is used.
+     * @param adaptiveCompressionMinimumSavings The ratio, from 0 to 1.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setAdaptiveCompressionMinimumSavings(double adaptiveCompressionMinimumSavings)
+    {
+        PreCondition.assertTrue(0 <= adaptiveCompressionMinimumSavings && adaptiveCompressionMinimumSavings <= 1, "0 <= adaptiveCompressionMinimumSavings && adaptiveCompressionMinimumSavings <= 1");
+
+        this.adaptiveCompressionMinimumSavings = adaptiveCompressionMinimumSavings;
+        return this;
+    }
+
+    /**
+     * Get the ratio of an entry's size that compressing it must save for the entry to be
+     * compressed when adaptive compression is used.
+     * @return The ratio of an entry's size that compressing it must save.
+     */
+    public double getAdaptiveCompressionMinimumSavings()
+    {
+        return this.adaptiveCompressionMinimumSavings;
+    }
+
+    /**
+     * Set whether or not the jar files will be reproducible. Reproducible jar files have their
+     * entries sorted by name and every entry has the reproducible timestamp, so packing identical
+     * files always produces identical jar files.
+     * @param reproducible Whether or not the jar files will be reproducible.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setReproducible(boolean reproducible)
+    {
+        this.reproducible = reproducible;
+        return this;
+    }
+
+    /**
+     * Get whether or not the jar files will be reproducible.
+     * @return Whether or not the jar files will be reproducible.
+     */
+    public boolean getReproducible()
+    {
+        return this.reproducible;
+    }
+
+    /**
+     * Set the timestamp that every entry of a reproducible jar file will have.
+     * @param reproducibleTimestamp The timestamp that every entry of a reproducible jar file will
+     *                              have.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setReproducibleTimestamp(DateTime reproducibleTimestamp)
+    {
+        PreCondition.assertNotNull(reproducibleTimestamp, "reproducibleTimestamp");
+
+        this.reproducibleTimestamp = reproducibleTimestamp;
+        return this;
+    }
+
+    /**
+     * Get the timestamp that every entry of a reproducible jar file will have.
+     * @return The timestamp that every entry of a reproducible jar file will have.
+     */
+    public DateTime getReproducibleTimestamp()
+    {
+        return this.reproducibleTimestamp;
+    }
+
+    /**
+     * Set whether or not jar files will be copied from the jar file cache when a jar file with
+     * the same contents has already been created by any project on this machine. Jar files that
+     * are created are added to the cache.
+     * @param jarCache Whether or not the jar file cache will be used.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setJarCache(boolean jarCache)
+    {
+        this.jarCache = jarCache;
+        return this;
+    }
+
+    /**
+     * Get whether or not jar files will be copied from and added to the jar file cache.
+     * @return Whether or not the jar file cache will be used.
+     */
+    public boolean getJarCache()
+    {
+        return this.jarCache;
+    }
+
+    /**
+     * Set the folder that the jar file cache stores its jar files in.
+     * @param jarCacheFolder The folder that the jar file cache stores its jar files in.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setJarCacheFolder(Folder jarCacheFolder)
+    {
+        PreCondition.assertNotNull(jarCacheFolder, "jarCacheFolder");
+
+        this.jarCacheFolder = jarCacheFolder;
+        return this;
+    }
+
+    /**
+     * Get the folder that the jar file cache stores its jar files in.
+     * @return The folder that the jar file cache stores its jar files in.
+     */
+    public Folder getJarCacheFolder()
+    {
+        return this.jarCacheFolder;
+    }
+
+    /**
+     * Set the total number of bytes that the jar file cache can use before its least recently
+     * used jar files are removed.
+     * @param jarCacheMaximumBytes The total number of bytes that the jar file cache can use.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setJarCacheMaximumBytes(long jarCacheMaximumBytes)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(jarCacheMaximumBytes, 0, "jarCacheMaximumBytes");
+
+        this.jarCacheMaximumBytes = jarCacheMaximumBytes;
+        return this;
+    }
+
+    /**
+     * Get the total number of bytes that the jar file cache can use before its least recently
+     * used jar files are removed.
+     * @return The total number of bytes that the jar file cache can use.
+     */
+    public long getJarCacheMaximumBytes()
+    {
+        return this.jarCacheMaximumBytes;
+    }
+
+    /**
+     * Set whether or not the project will be packed again every time that its source files, test
+     * files, or compiled class files change, until the process is stopped.
+     * @param watch Whether or not the project will be packed again when its files change.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setWatch(boolean watch)
+    {
+        this.watch = watch;
+        return this;
+    }
+
+    /**
+     * Get whether or not the project will be packed again when its files change.
+     * @return Whether or not the project will be packed again when its files change.
+     */
+    public boolean getWatch()
+    {
+        return this.watch;
+    }
+
+    /**
+     * Set the number of milliseconds that no files can change for before a watched project is
+     * packed again. Changes that happen closer together than this are packed together.
+     * @param watchDebounceMilliseconds The number of milliseconds that no files can change for
+     *                                  before a watched project is packed again.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setWatchDebounceMilliseconds(int watchDebounceMilliseconds)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(watchDebounceMilliseconds, 0, "watchDebounceMilliseconds");
+
+        this.watchDebounceMilliseconds = watchDebounceMilliseconds;
+        return this;
+    }
+
+    /**
+     * Get the number of milliseconds that no files can change for before a watched project is
+     * packed again.
+     * @return The number of milliseconds that no files can change for before a watched project
+     * is packed again.
+     */
+    public int getWatchDebounceMilliseconds()
+    {
+        return this.watchDebounceMilliseconds;
+    }
+
+    /**
+     * Set the PackJSON that the previous pack in this process left behind. When this is set, the
+     * pack.json file isn't read and parsed again. Every pack that uses a pack.json file sets this
+     * value to the PackJSON that it used, so that a later pack in the same process can reuse it.
+     * @param previousPackJson The PackJSON that the previous pack left behind, or null to read
+     *                         the pack.json file.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setPreviousPackJson(PackJSON previousPackJson)
+    {
+        this.previousPackJson = previousPackJson;
+        return this;
+    }
+
+    /**
+     * Get the PackJSON that the previous pack in this process left behind.
+     * @return The PackJSON that the previous pack left behind, or null if the pack.json file
+     * should be read.
+     */
+    public PackJSON getPreviousPackJson()
+    {
+        return this.previousPackJson;
+    }
+
+    /**
+     * Set whether or not this process will run as a pack daemon that packs the projects that
+     * other qub-pack processes send to it, until this process is stopped.
+     * @param daemon Whether or not this process will run as a pack daemon.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setDaemon(boolean daemon)
+    {
+        this.daemon = daemon;
+        return this;
+    }
+
+    /**
+     * Get whether or not this process will run as a pack daemon.
+     * @return Whether or not this process will run as a pack daemon.
+     */
+    public boolean getDaemon()
+    {
+        return this.daemon;
+    }
+
+    /**
+     * Set whether or not the project will be sent to a running pack daemon to be packed. If no
+     * pack daemon is running, then the project is packed by this process.
+     * @param useDaemon Whether or not the project will be sent to a running pack daemon.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setUseDaemon(boolean useDaemon)
+    {
+        this.useDaemon = useDaemon;
+        return this;
+    }
+
+    /**
+     * Get whether or not the project will be sent to a running pack daemon to be packed.
+     * @return Whether or not the project will be sent to a running pack daemon.
+     */
+    public boolean getUseDaemon()
+    {
+        return this.useDaemon;
+    }
+
+    /**
+     * Set the file that a running pack daemon records the port that it listens on in.
+     * @param daemonFile The file that a running pack daemon records its port in.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setDaemonFile(File daemonFile)
+    {
+        PreCondition.assertNotNull(daemonFile, "daemonFile");
+
+        this.daemonFile = daemonFile;
+        return this;
+    }
+
+    /**
+     * Get the file that a running pack daemon records the port that it listens on in.
+     * @return The file that a running pack daemon records its port in.
+     */
+    public File getDaemonFile()
+    {
+        return this.daemonFile;
+    }
+
+    /**
+     * Set the patterns of the project folders that will be packed. Each pattern is a folder path
+     * relative to the folder to pack, and each segment of a pattern can be a glob (such as
+     * "libraries/*"). If any patterns are set, then every project folder that matches one of them
+     * is packed instead of the folder to pack.
+     * @param folderPatterns The patterns of the project folders that will be packed.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setFolderPatterns(Iterable<String> folderPatterns)
+    {
+        PreCondition.assertNotNull(folderPatterns, "folderPatterns");
+
+        this.folderPatterns = folderPatterns;
+        return this;
+    }
+
+    /**
+     * Get the patterns of the project folders that will be packed.
+     * @return The patterns of the project folders that will be packed.
+     */
+    public Iterable<String> getFolderPatterns()
+    {
+        return this.folderPatterns;
+    }
+
+    /**
+     * Set the maximum number of project folders that will be packed at the same time when folder
+     * patterns are set. This is also the maximum number of test runs and jar files that will be
+     * run and created at the same time across all of those project folders.
+     * @param concurrency The maximum number of packs, test runs, and jar files at the same time.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setConcurrency(int concurrency)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(concurrency, 1, "concurrency");
+
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * Get the maximum number of project folders that will be packed at the same time when folder
+     * patterns are set.
+     * @return The maximum number of packs, test runs, and jar files at the same time.
+     */
+    public int getConcurrency()
+    {
+        return this.concurrency;
+    }
+
+    /**
+     * Set the permits that are shared by every pack in a batch. A pack takes a permit before it
+     * runs its tests and before it creates each jar file, and gives the permit back afterwards.
+     * @param taskPermits The permits that are shared by every pack in a batch, or null if the
+     *                    number of test runs and jar files isn't limited.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setTaskPermits(java.util.concurrent.Semaphore taskPermits)
+    {
+        this.taskPermits = taskPermits;
+        return this;
+    }
+
+    /**
+     * Get the permits that are shared by every pack in a batch.
+     * @return The permits that are shared by every pack in a batch, or null if the number of test
+     * runs and jar files isn't limited.
+     */
+    public java.util.concurrent.Semaphore getTaskPermits()
+    {
+        return this.taskPermits;
+    }
+
+    /**
+     * Create new QubPackParameters that pack the provided folder with the same process
+     * environment and pack settings as these parameters. The settings that only make sense for
+     * a single pack of a single folder (the trace file, watch mode, daemon mode, the folder
+     * patterns, and the previous PackJSON) aren't copied.
+     * @param outputWriteStream The stream that the output of the pack will be written to.
+     * @param errorWriteStream The stream that the errors of the pack will be written to.
+     * @param folderToPack The folder to pack.
+     * @return The new QubPackParameters.
+     */
+    public QubPackParameters createForFolder(CharacterToByteWriteStream outputWriteStream, CharacterToByteWriteStream errorWriteStream, Folder folderToPack)
+    {
+        PreCondition.assertNotNull(outputWriteStream, "outputWriteStream");
+        PreCondition.assertNotNull(errorWriteStream, "errorWriteStream");
+        PreCondition.assertNotNull(folderToPack, "folderToPack");
+
+        final QubPackParameters result = new QubPackParameters(outputWriteStream, errorWriteStream, folderToPack, this.getEnvironmentVariables(), this.getProcessFactory(), this.getDefaultApplicationLauncher(), this.getJvmClassPath(), this.typeLoader, this.qubFolder)
+            .setPackJson(this.packJson)
+            .setContentHash(this.contentHash)
+            .setParallelPack(this.parallelPack)
+            .setJarEngine(this.jarEngine)
+            .setIncrementalPack(this.incrementalPack)
+            .setFileAttributeThreadCount(this.fileAttributeThreadCount)
+            .setJarArgumentFileThreshold(this.jarArgumentFileThreshold)
+            .setSourcesJarCompressionLevel(this.sourcesJarCompressionLevel)
+            .setCompiledSourcesJarCompressionLevel(this.compiledSourcesJarCompressionLevel)
+            .setCompiledTestsJarCompressionLevel(this.compiledTestsJarCompressionLevel)
+            .setAdaptiveCompression(this.adaptiveCompression)
+            .setAdaptiveCompressionMinimumSavings(this.adaptiveCompressionMinimumSavings)
+            .setReproducible(this.reproducible)
+            .setReproducibleTimestamp(this.reproducibleTimestamp)
+            .setJarCache(this.jarCache)
+            .setJarCacheFolder(this.jarCacheFolder)
+            .setJarCacheMaximumBytes(this.jarCacheMaximumBytes)
+            .setWatchDebounceMilliseconds(this.watchDebounceMilliseconds)
+            .setDaemonFile(this.daemonFile)
+            .setForceTests(this.forceTests)
+            .setPipelinedPack(this.pipelinedPack)
+            .setCriticalPathPack(this.criticalPathPack)
+            .setPackMetrics(this.packMetrics)
+            .setCoverage(this.getCoverage())
+            .setTestJson(this.getTestJson())
+            .setBuildJson(this.getBuildJson())
+            .setWarnings(this.getWarnings())
+            .setVerbose(VerboseCharacterToByteWriteStream.create(outputWriteStream)
+                .setIsVerbose(this.getVerbose().isVerbose()));
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Set whether or not the tests will be run even if none of the project's source files, test
+     * files, or compiled class files have changed since the tests last passed.
+     * @param forceTests Whether or not the tests will always be run.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setForceTests(boolean forceTests)
+    {
+        this.forceTests = forceTests;
+        return this;
+    }
+
+    /**
+     * Get whether or not the tests will be run even if nothing has changed since they last
+     * passed.
+     * @return Whether or not the tests will always be run.
+     */
+    public boolean getForceTests()
+    {
+        return this.forceTests;
+    }
+
+    /**
+     * Set whether or not the sources jar file will be created while the tests run. The sources
+     * jar file is only published to the outputs folder after the tests pass.
+     * @param pipelinedPack Whether or not the sources jar file will be created while the tests
+     *                      run.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setPipelinedPack(boolean pipelinedPack)
+    {
+        this.pipelinedPack = pipelinedPack;
+        return this;
+    }
+
+    /**
+     * Get whether or not the sources jar file will be created while the tests run.
+     * @return Whether or not the sources jar file will be created while the tests run.
+     */
+    public boolean getPipelinedPack()
+    {
+        return this.pipelinedPack;
+    }
+
+    /**
+     * Set whether or not the jar files that are created in parallel will be started in order of
+     * their estimated cost, most expensive first. The cost of each jar file is estimated from the
+     * time that it took to create it the last time, or from its file and byte counts if that time
+     * wasn't recorded. The compiled sources jar file is created next to its location in the
+     * outputs folder and is published as soon as it is created, without waiting for the other
+     * jar files.
+     * @param criticalPathPack Whether or not the jar files will be started in order of their
+     *                         estimated cost.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setCriticalPathPack(boolean criticalPathPack)
+    {
+        this.criticalPathPack = criticalPathPack;
+        return this;
+    }
+
+    /**
+     * Get whether or not the jar files that are created in parallel will be started in order of
+     * their estimated cost.
+     * @return Whether or not the jar files will be started in order of their estimated cost.
+     */
+    public boolean getCriticalPathPack()
+    {
+        return this.criticalPathPack;
+    }
+
+    /**
+     * Set whether or not the time, file counts, and byte counts of each phase of the pack will be
+     * written to the outputs folder's pack-metrics.json file and summarized in the verbose
+     * output.
+     * @param packMetrics Whether or not the metrics of each phase of the pack will be written.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setPackMetrics(boolean packMetrics)
+    {
+        this.packMetrics = packMetrics;
+        return this;
+    }
+
+    /**
+     * Get whether or not the metrics of each phase of the pack will be written.
+     * @return Whether or not the metrics of each phase of the pack will be written.
+     */
+    public boolean getPackMetrics()
+    {
+        return this.packMetrics;
+    }
+
+    /**
+     * Set the file that a Chrome trace event timeline of the pack's phases will be written to.
+     * The file can be opened with chrome://tracing or with the Perfetto UI.
+     * @param traceFile The file that the trace will be written to, or null if no trace should be
+     *                  written.
+     * @return This object for method chaining.
+     */
+    public QubPackParameters setTraceFile(File traceFile)
+    {
+        this.traceFile = traceFile;
+        return this;
+    }
+
+    /**
+     * Get the file that a Chrome trace event timeline of the pack's phases will be written to.
+     * @return The file that the trace will be written to, or null if no trace will be written.
+     */
+    public File getTraceFile()
+    {
+        return this.traceFile;
+    }
+
+    /**
+     * Get the QubFolder that the project's dependencies are published to.
+     * @return The QubFolder that the project's dependencies are published to.
+     */
+    public QubFolder getQubFolder()
+    {
+        return this.qubFolder;
+    }
+
     /**
      * Get the folder that should be packed.
      * @return The folder that should be packed.
@@ -136,8 +953,146 @@ public class QubPackParameters extends QubTestRunParameters
         return true;
     }
 
+    public static boolean getContentHashDefault()
+    {
+        return false;
+    }
+
     public static boolean getParallelPackDefault()
     {
         return true;
     }
+
+    public static JarEngine getJarEngineDefault()
+    {
+        return JarEngine.Internal;
+    }
+
+    public static boolean getIncrementalPackDefault()
+    {
+        return true;
+    }
+
+    public static boolean getForceTestsDefault()
+    {
+        return false;
+    }
+
+    public static boolean getPipelinedPackDefault()
+    {
+        return false;
+    }
+
+    public static boolean getCriticalPathPackDefault()
+    {
+        return false;
+    }
+
+    public static boolean getPackMetricsDefault()
+    {
+        return false;
+    }
+
+    public static int getFileAttributeThreadCountDefault()
+    {
+        return 16;
+    }
+
+    public static int getJarArgumentFileThresholdDefault()
+    {
+        return 256;
+    }
+
+    public static int getSourcesJarCompressionLevelDefault()
+    {
+        return 6;
+    }
+
+    public static int getCompiledSourcesJarCompressionLevelDefault()
+    {
+        return 6;
+    }
+
+    public static int getCompiledTestsJarCompressionLevelDefault()
+    {
+        return 1;
+    }
+
+    public static boolean getAdaptiveCompressionDefault()
+    {
+        return false;
+    }
+
+    public static double getAdaptiveCompressionMinimumSavingsDefault()
+    {
+        return 0.1;
+    }
+
+    public static boolean getReproducibleDefault()
+    {
+        return false;
+    }
+
+    public static DateTime getReproducibleTimestampDefault()
+    {
+        return DateTime.create(1980, 2, 1);
+    }
+
+    public static boolean getJarCacheDefault()
+    {
+        return false;
+    }
+
+    public static Folder getJarCacheFolderDefault(QubFolder qubFolder)
+    {
+        PreCondition.assertNotNull(qubFolder, "qubFolder");
+
+        return qubFolder.getProjectFolder("qub", "pack-java").await()
+            .getProjectDataFolder().await()
+            .getFolder("jar-cache").await();
+    }
+
+    public static long getJarCacheMaximumBytesDefault()
+    {
+        return 1024L * 1024 * 1024;
+    }
+
+    public static boolean getWatchDefault()
+    {
+        return false;
+    }
+
+    public static int getWatchDebounceMillisecondsDefault()
+    {
+        return 200;
+    }
+
+    public static boolean getDaemonDefault()
+    {
+        return false;
+    }
+
+    public static boolean getUseDaemonDefault()
+    {
+        return false;
+    }
+
+    public static File getDaemonFileDefault(QubFolder qubFolder)
+    {
+        PreCondition.assertNotNull(qubFolder, "qubFolder");
+
+        return qubFolder.getProjectFolder("qub", "pack-java").await()
+            .getProjectDataFolder().await()
+            .getFile("daemon.json").await();
+    }
+
+    public static Iterable<String> getFolderPatternsDefault()
+    {
+        return Iterable.create();
+    }
+
+    public static int getConcurrencyDefault()
+    {
+        return java.lang.Runtime.getRuntime().availableProcessors();
+    }
 }
@@ -0,0 +1,128 @@
+package qub;
+
+/**
+ * An index of the java source files in a folder that can be used to find the compiled class
+ * files that belong to those source files. Each source file is only relativized once, so
+ * matching class files to source files takes linear time instead of taking time proportional to
+ * the number of class files multiplied by the number of source files.
+ */
+public class SourceClassFileIndex
+{
+    private final java.util.Set<String> sourceFileKeys;
+
+    private SourceClassFileIndex(java.util.Set<String> sourceFileKeys)
+    {
+        PreCondition.assertNotNull(sourceFileKeys, "sourceFileKeys");
+
+        this.sourceFileKeys = sourceFileKeys;
+    }
+
+    /**
+     * Create a new SourceClassFileIndex for the provided java source files.
+     * @param sourceFolder The folder that contains the java source files.
+     * @param sourceJavaFiles The java source files to index.
+     * @return The new SourceClassFileIndex.
+     */
+    public static SourceClassFileIndex create(Folder sourceFolder, Iterable<File> sourceJavaFiles)
+    {
+        PreCondition.assertNotNull(sourceFolder, "sourceFolder");
+        PreCondition.assertNotNull(sourceJavaFiles, "sourceJavaFiles");
+
+        final java.util.Set<String> sourceFileKeys = new java.util.HashSet<>();
+        for (final File sourceJavaFile : sourceJavaFiles)
+        {
+            sourceFileKeys.add(QubPack.getRelativePathKey(sourceJavaFile.relativeTo(sourceFolder).withoutFileExtension()));
+        }
+        return new SourceClassFileIndex(sourceFileKeys);
+    }
+
+    /**
+     * Create a new SourceClassFileIndex for the java source files in the provided snapshot.
+     * @param sourceFolderSnapshot The snapshot of the folder that contains the java source files.
+     * @return The new SourceClassFileIndex.
+     */
+    public static SourceClassFileIndex create(FolderSnapshot sourceFolderSnapshot)
+    {
+        PreCondition.assertNotNull(sourceFolderSnapshot, "sourceFolderSnapshot");
+
+        final java.util.Set<String> sourceFileKeys = new java.util.HashSet<>();
+        for (final FileSnapshot sourceJavaFile : sourceFolderSnapshot.getFiles())
+        {
+            sourceFileKeys.add(QubPack.getRelativePathKey(sourceJavaFile.getRelativePath().withoutFileExtension()));
+        }
+        return new SourceClassFileIndex(sourceFileKeys);
+    }
+
+    /**
+     * Get the key of the source file that the provided class file was compiled from. Inner,
+     * nested, and anonymous classes (such as "a/B$C.class" or "a/B$1$D.class") have the same key
+     * as the class that they are declared in ("a/B").
+     * @param outputFolder The folder that contains the class file.
+     * @param outputClassFile The class file.
+     * @return The key of the source file that the class file was compiled from.
+     */
+    public static String getClassFileKey(Folder outputFolder, File outputClassFile)
+    {
+        PreCondition.assertNotNull(outputFolder, "outputFolder");
+        PreCondition.assertNotNull(outputClassFile, "outputClassFile");
+
+        return SourceClassFileIndex.getClassFileKey(outputClassFile.relativeTo(outputFolder));
+    }
+
+    /**
+     * Get the key of the source file that the class file at the provided relative path was
+     * compiled from.
+     * @param outputClassFileRelativePath The path of the class file relative to the folder that
+     *                                    contains it.
+     * @return The key of the source file that the class file was compiled from.
+     */
+    public static String getClassFileKey(Path outputClassFileRelativePath)
+    {
+        PreCondition.assertNotNull(outputClassFileRelativePath, "outputClassFileRelativePath");
+
+        String result = QubPack.getRelativePathKey(outputClassFileRelativePath.withoutFileExtension());
+        final int lastSeparatorIndex = result.lastIndexOf('/');
+        final int dollarSignIndex = result.indexOf('$', lastSeparatorIndex + 1);
+        if (dollarSignIndex >= 0)
+        {
+            result = result.substring(0, dollarSignIndex);
+        }
+        return result;
+    }
+
+    /**
+     * Get the number of source files in this index.
+     * @return The number of source files in this index.
+     */
+    public int getCount()
+    {
+        return this.sourceFileKeys.size();
+    }
+
+    /**
+     * Get whether or not the class file with the provided key was compiled from one of the source
+     * files in this index.
+     * @param classFileKey The key of the class file.
+     * @return Whether or not the class file was compiled from one of the source files in this
+     * index.
+     */
+    public boolean contains(String classFileKey)
+    {
+        PreCondition.assertNotNull(classFileKey, "classFileKey");
+
+        return this.sourceFileKeys.contains(classFileKey);
+    }
+
+    /**
+     * Get whether or not the provided class file was compiled from one of the source files in this
+     * index.
+     * @param outputFolder The folder that contains the class file.
+     * @param outputClassFile The class file.
+     * @return Whether or not the class file was compiled from one of the source files in this
+     * index.
+     */
+    public boolean contains(Folder outputFolder, File outputClassFile)
+    {
+        return this.contains(SourceClassFileIndex.getClassFileKey(outputFolder, outputClassFile));
+    }
+}
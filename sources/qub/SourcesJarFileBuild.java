@@ -0,0 +1,129 @@
+package qub;
+
+/**
+ * The result of scanning a project's sources folder and creating its sources jar file before the
+ * project's tests have finished. The sources jar file is created next to its location in the
+ * outputs folder and is only published (renamed) after the tests pass.
+ */
+public class SourcesJarFileBuild
+{
+    private final FolderSnapshot sourceFolderSnapshot;
+    private final JarFileChanges jarFileChanges;
+    private final File sourcesJarFile;
+    private final File publishedSourcesJarFile;
+    private final Integer createJarFileResult;
+
+    private SourcesJarFileBuild(FolderSnapshot sourceFolderSnapshot, JarFileChanges jarFileChanges, File sourcesJarFile, File publishedSourcesJarFile, Integer createJarFileResult)
+    {
+        PreCondition.assertNotNull(sourceFolderSnapshot, "sourceFolderSnapshot");
+        PreCondition.assertNotNull(jarFileChanges, "jarFileChanges");
+        PreCondition.assertNotNull(sourcesJarFile, "sourcesJarFile");
+        PreCondition.assertNotNull(publishedSourcesJarFile, "publishedSourcesJarFile");
+
+        this.sourceFolderSnapshot = sourceFolderSnapshot;
+        this.jarFileChanges = jarFileChanges;
+        this.sourcesJarFile = sourcesJarFile;
+        this.publishedSourcesJarFile = publishedSourcesJarFile;
+        this.createJarFileResult = createJarFileResult;
+    }
+
+    /**
+     * Scan the provided sources folder and create the unpublished sources jar file in the outputs
+     * folder if any of the source files have changed.
+     * @param parameters The parameters of the pack.
+     * @param jarCreator The JarCreator that will create the sources jar file.
+     * @param packJson The PackJSON from the previous pack, or null if pack.json isn't being used.
+     *                 This runs while the tests run, so the PackJSON is only read. Its source
+     *                 files are updated from getJarFileChanges() after the build is waited for.
+     * @param projectJsonFile The project.json file of the project that is being packed.
+     * @param sourceFolder The sources folder to scan.
+     * @param outputFolder The folder that the sources jar file will be published to.
+     * @param fileAttributeThreadCount The number of threads that will get the attributes of the
+     *                                 scanned files.
+     * @param metrics The metrics of the pack.
+     * @return The result of building the sources jar file.
+     */
+    public static SourcesJarFileBuild run(QubPackParameters parameters, JarCreator jarCreator, PackJSON packJson, File projectJsonFile, Folder sourceFolder, Folder outputFolder, int fileAttributeThreadCount, PackMetrics metrics)
+    {
+        PreCondition.assertNotNull(parameters, "parameters");
+        PreCondition.assertNotNull(jarCreator, "jarCreator");
+        PreCondition.assertNotNull(projectJsonFile, "projectJsonFile");
+        PreCondition.assertNotNull(sourceFolder, "sourceFolder");
+        PreCondition.assertNotNull(outputFolder, "outputFolder");
+        PreCondition.assertNotNull(metrics, "metrics");
+
+        final FolderSnapshot sourceFolderSnapshot = QubPack.scanFolder(metrics, "scanSources", sourceFolder, ".java", false, fileAttributeThreadCount);
+        final Iterable<FileSnapshot> sourceJavaFiles = sourceFolderSnapshot.getFiles();
+        final String project = ProjectJSON.parse(projectJsonFile).await().getProject();
+        final JarFileChanges jarFileChanges = QubPack.getJarFileChanges(metrics, "sources", packJson, PackJSON::getSourceFiles, (PackJSON json, Iterable<PackJSONFile> files) -> {}, project, sourceJavaFiles, parameters.getContentHash());
+        final File sourcesJarFileInOutputsFolder = outputFolder.getFile(project + ".sources.jar").await();
+        final File sourcesJarFile = QubPack.getUnpublishedJarFile(sourcesJarFileInOutputsFolder);
+        Integer createJarFileResult = null;
+        if (jarFileChanges.hasChanges())
+        {
+            final PackJarFileEvent sourcesJarFileEvent = PackJarFileEvent.start();
+            final PackMetricsPhase sourcesJarPhase = QubPack.startJarPhase(metrics, "sourcesJar", sourceJavaFiles);
+            createJarFileResult = jarCreator.createJarFile(QubPack.getCreateJarFileParameters(parameters, sourceFolder, sourcesJarFile, sourceJavaFiles, sourcesJarFileInOutputsFolder, jarFileChanges, parameters.getSourcesJarCompressionLevel(), metrics)).await();
+            QubPack.endJarPhase(sourcesJarPhase, parameters.getPackMetrics(), sourcesJarFile);
+            sourcesJarFileEvent.finish("sources", sourcesJarFile, sourceJavaFiles, createJarFileResult);
+        }
+        return new SourcesJarFileBuild(sourceFolderSnapshot, jarFileChanges, sourcesJarFile, sourcesJarFileInOutputsFolder, createJarFileResult);
+    }
+
+    /**
+     * Get the snapshot of the sources folder that was scanned.
+     * @return The snapshot of the sources folder that was scanned.
+     */
+    public FolderSnapshot getSourceFolderSnapshot()
+    {
+        return this.sourceFolderSnapshot;
+    }
+
+    /**
+     * Get the changes to the source files since the previous pack.
+     * @return The changes to the source files since the previous pack.
+     */
+    public JarFileChanges getJarFileChanges()
+    {
+        return this.jarFileChanges;
+    }
+
+    /**
+     * Get the unpublished sources jar file that was created.
+     * @return The unpublished sources jar file that was created.
+     */
+    public File getSourcesJarFile()
+    {
+        return this.sourcesJarFile;
+    }
+
+    /**
+     * Get the location that the sources jar file will be published to.
+     * @return The location that the sources jar file will be published to.
+     */
+    public File getPublishedSourcesJarFile()
+    {
+        return this.publishedSourcesJarFile;
+    }
+
+    /**
+     * Get the exit code of creating the sources jar file.
+     * @return The exit code of creating the sources jar file, or null if the sources jar file
+     * wasn't created because none of the source files changed.
+     */
+    public Integer getCreateJarFileResult()
+    {
+        return this.createJarFileResult;
+    }
+
+    /**
+     * Delete the unpublished sources jar file without publishing it.
+     * This is used when the project's tests fail.
+     */
+    public void discard()
+    {
+        this.sourcesJarFile.delete()
+            .catchError(FileNotFoundException.class)
+            .await();
+    }
+}
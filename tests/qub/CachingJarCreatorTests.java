@@ -0,0 +1,97 @@
+package qub;
+
+public interface CachingJarCreatorTests
+{
+    static void test(TestRunner runner)
+    {
+        PreCondition.assertNotNull(runner, "runner");
+
+        runner.testGroup(CachingJarCreator.class, () ->
+        {
+            runner.testGroup("createJarFile(CreateJarFileParameters)", () ->
+            {
+                runner.test("with the same files in two projects",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final IntegerValue innerCreateCount = IntegerValue.create(0);
+                    final JarCreator innerJarCreator = (CreateJarFileParameters parameters) ->
+                    {
+                        innerCreateCount.increment();
+                        return InternalJarCreator.create().createJarFile(parameters);
+                    };
+                    final JarFileCache cache = JarFileCache.create(process.getCurrentFolder().getFolder("cache").await(), 1024 * 1024);
+                    final CachingJarCreator jarCreator = CachingJarCreator.create(innerJarCreator, JarEngine.Internal, "14.0.1 (Oracle Corporation)", cache);
+                    final VerboseCharacterToByteWriteStream verbose = VerboseCharacterToByteWriteStream.create(process.getOutputWriteStream());
+
+                    for (final String project : Iterable.create("a", "b"))
+                    {
+                        final Folder outputsFolder = process.getCurrentFolder().getFolder(project + "/outputs").await();
+                        final File aClassFile = outputsFolder.getFile("A.class").await();
+                        aClassFile.setContentsAsString("A bytecode").await();
+                        final File jarFile = outputsFolder.getFile(project + ".jar").await();
+
+                        test.assertEqual(0, jarCreator.createJarFile(CreateJarFileParameters.create(outputsFolder, jarFile, Iterable.create(aClassFile))
+                            .setVerbose(verbose)
+                            .setOutputWriteStream(process.getOutputWriteStream())
+                            .setErrorWriteStream(process.getErrorWriteStream()))
+                            .await());
+                        test.assertEqual("A bytecode", QubPackTests.getJarEntryContents(jarFile, "A.class"));
+                    }
+
+                    test.assertEqual(1, innerCreateCount.getAsInt());
+                });
+
+                runner.test("before the result is awaited",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final IntegerValue innerCreateCount = IntegerValue.create(0);
+                    final JarCreator innerJarCreator = (CreateJarFileParameters parameters) ->
+                    {
+                        innerCreateCount.increment();
+                        return Result.success(0);
+                    };
+                    final Folder cacheFolder = process.getCurrentFolder().getFolder("cache").await();
+                    final CachingJarCreator jarCreator = CachingJarCreator.create(innerJarCreator, JarEngine.Internal, "14.0.1 (Oracle Corporation)", JarFileCache.create(cacheFolder, 1024 * 1024));
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A bytecode").await();
+                    final File jarFile = outputsFolder.getFile("a.jar").await();
+                    jarFile.setContentsAsString("not really a jar").await();
+                    final CreateJarFileParameters parameters = CreateJarFileParameters.create(outputsFolder, jarFile, Iterable.create(aClassFile))
+                        .setVerbose(VerboseCharacterToByteWriteStream.create(process.getOutputWriteStream()))
+                        .setOutputWriteStream(process.getOutputWriteStream())
+                        .setErrorWriteStream(process.getErrorWriteStream());
+
+                    final Result<Integer> result = jarCreator.createJarFile(parameters);
+                    test.assertEqual(0, innerCreateCount.getAsInt());
+                    test.assertFalse(cacheFolder.exists().await());
+
+                    test.assertEqual(0, result.await());
+                    test.assertEqual(1, innerCreateCount.getAsInt());
+                });
+
+                runner.test("when the inner JarCreator fails",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final JarCreator innerJarCreator = (CreateJarFileParameters parameters) -> Result.success(1);
+                    final Folder cacheFolder = process.getCurrentFolder().getFolder("cache").await();
+                    final JarFileCache cache = JarFileCache.create(cacheFolder, 1024 * 1024);
+                    final CachingJarCreator jarCreator = CachingJarCreator.create(innerJarCreator, JarEngine.Internal, "14.0.1 (Oracle Corporation)", cache);
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A bytecode").await();
+                    final CreateJarFileParameters parameters = CreateJarFileParameters.create(outputsFolder, outputsFolder.getFile("a.jar").await(), Iterable.create(aClassFile))
+                        .setVerbose(VerboseCharacterToByteWriteStream.create(process.getOutputWriteStream()))
+                        .setOutputWriteStream(process.getOutputWriteStream())
+                        .setErrorWriteStream(process.getErrorWriteStream());
+
+                    test.assertEqual(1, jarCreator.createJarFile(parameters).await());
+                    test.assertFalse(cache.getCachedJarFile(JarFileCache.getKey(parameters, JarEngine.Internal, "14.0.1 (Oracle Corporation)")).exists().await());
+                });
+            });
+        });
+    }
+}
@@ -0,0 +1,146 @@
+package qub;
+
+public interface FolderSnapshotTests
+{
+    static void test(TestRunner runner)
+    {
+        PreCondition.assertNotNull(runner, "runner");
+
+        runner.testGroup(FolderSnapshot.class, () ->
+        {
+            runner.testGroup("create(Folder,String,boolean)", () ->
+            {
+                runner.test("with null folder", (Test test) ->
+                {
+                    test.assertThrows(() -> FolderSnapshot.create(null, ".java", false),
+                        new PreConditionFailure("folder cannot be null."));
+                });
+
+                runner.test("with null fileExtension",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder folder = process.getCurrentFolder().getFolder("sources").await();
+                    test.assertThrows(() -> FolderSnapshot.create(folder, null, false),
+                        new PreConditionFailure("fileExtension cannot be null."));
+                });
+
+                runner.test("with empty fileExtension",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder folder = process.getCurrentFolder().getFolder("sources").await();
+                    test.assertThrows(() -> FolderSnapshot.create(folder, "", false),
+                        new PreConditionFailure("fileExtension cannot be empty."));
+                });
+
+                runner.test("with folder that doesn't exist",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder folder = process.getCurrentFolder().getFolder("sources").await();
+                    final FolderSnapshot snapshot = FolderSnapshot.create(folder, ".java", false);
+                    test.assertNotNull(snapshot);
+                    test.assertSame(folder, snapshot.getFolder());
+                    test.assertFalse(snapshot.exists());
+                    test.assertEqual(Iterable.create(), snapshot.getFiles());
+                });
+
+                runner.test("with files with other file extensions",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder folder = process.getCurrentFolder().getFolder("sources").await();
+                    folder.getFile("A.java").await().setContentsAsString("A.java").await();
+                    folder.getFile("b/C.java").await().setContentsAsString("b/C.java").await();
+                    folder.getFile("b/C.txt").await().setContentsAsString("b/C.txt").await();
+                    folder.getFile("a.jar").await().setContentsAsString("a.jar").await();
+
+                    final FolderSnapshot snapshot = FolderSnapshot.create(folder, ".java", false);
+                    test.assertTrue(snapshot.exists());
+                    final Iterable<String> relativePaths = snapshot.getFiles().map((FileSnapshot file) -> file.getRelativePath().toString()).toList();
+                    test.assertEqual(2, relativePaths.getCount());
+                    test.assertTrue(relativePaths.contains("A.java"));
+                    test.assertTrue(relativePaths.contains("b/C.java"));
+                    for (final FileSnapshot file : snapshot.getFiles())
+                    {
+                        test.assertEqual(file.getFile().getLastModified().await(), file.getLastModified());
+                    }
+                });
+
+                runner.test("with packageFoldersOnly",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder folder = process.getCurrentFolder().getFolder("outputs").await();
+                    folder.getFile("A.class").await().setContentsAsString("A.class").await();
+                    folder.getFile("b/C.class").await().setContentsAsString("b/C.class").await();
+                    folder.getFile("META-INF/D.class").await().setContentsAsString("META-INF/D.class").await();
+                    folder.getFile("b/not-a-package/E.class").await().setContentsAsString("b/not-a-package/E.class").await();
+
+                    final Iterable<String> relativePaths = FolderSnapshot.create(folder, ".class", true).getFiles()
+                        .map((FileSnapshot file) -> file.getRelativePath().toString())
+                        .toList();
+                    test.assertEqual(2, relativePaths.getCount());
+                    test.assertTrue(relativePaths.contains("A.class"));
+                    test.assertTrue(relativePaths.contains("b/C.class"));
+                    test.assertEqual(4, FolderSnapshot.create(folder, ".class", false).getFiles().getCount());
+                });
+            });
+
+            runner.testGroup("create(Folder,String,boolean,int)", () ->
+            {
+                runner.test("with 0 fileAttributeThreadCount",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder folder = process.getCurrentFolder().getFolder("sources").await();
+                    test.assertThrows(() -> FolderSnapshot.create(folder, ".java", false, 0),
+                        new PreConditionFailure("fileAttributeThreadCount (0) must be greater than or equal to 1."));
+                });
+
+                runner.test("with 4 fileAttributeThreadCount",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder folder = process.getCurrentFolder().getFolder("outputs").await();
+                    for (int i = 0; i < 100; ++i)
+                    {
+                        final String relativePath = "p" + (i / 10) + "/C" + i + ".class";
+                        folder.getFile(relativePath).await().setContentsAsString(relativePath).await();
+                    }
+                    folder.getFile("META-INF/D.class").await().setContentsAsString("D").await();
+
+                    final FolderSnapshot serialSnapshot = FolderSnapshot.create(folder, ".class", true, 1);
+                    final FolderSnapshot concurrentSnapshot = FolderSnapshot.create(folder, ".class", true, 4);
+                    test.assertTrue(concurrentSnapshot.exists());
+                    test.assertEqual(
+                        serialSnapshot.getFiles().map(FileSnapshot::toString).toList(),
+                        concurrentSnapshot.getFiles().map(FileSnapshot::toString).toList());
+                    test.assertEqual(
+                        serialSnapshot.getFiles().map(FileSnapshot::getLastModified).toList(),
+                        concurrentSnapshot.getFiles().map(FileSnapshot::getLastModified).toList());
+                    test.assertEqual(100, concurrentSnapshot.getFiles().getCount());
+                });
+            });
+
+            runner.testGroup("isPackageFolderName(String)", () ->
+            {
+                final Action2<String,Boolean> isPackageFolderNameTest = (String folderName, Boolean expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(folderName), (Test test) ->
+                    {
+                        test.assertEqual(expected, FolderSnapshot.isPackageFolderName(folderName));
+                    });
+                };
+
+                isPackageFolderNameTest.run("", false);
+                isPackageFolderNameTest.run("qub", true);
+                isPackageFolderNameTest.run("_a1", true);
+                isPackageFolderNameTest.run("1a", false);
+                isPackageFolderNameTest.run("META-INF", false);
+                isPackageFolderNameTest.run("coverage.report", false);
+            });
+        });
+    }
+}
@@ -0,0 +1,414 @@
+package qub;
+
+public interface InternalJarCreatorTests
+{
+    static void test(TestRunner runner)
+    {
+        PreCondition.assertNotNull(runner, "runner");
+
+        runner.testGroup(InternalJarCreator.class, () ->
+        {
+            runner.test("create()", (Test test) ->
+            {
+                final InternalJarCreator jarCreator = InternalJarCreator.create();
+                test.assertNotNull(jarCreator);
+                test.assertEqual(1, jarCreator.getCompressionThreadCount());
+            });
+
+            runner.testGroup("setCompressionThreadCount(int)", () ->
+            {
+                runner.test("with 0", (Test test) ->
+                {
+                    final InternalJarCreator jarCreator = InternalJarCreator.create();
+                    test.assertThrows(() -> jarCreator.setCompressionThreadCount(0),
+                        new PreConditionFailure("compressionThreadCount (0) must be greater than or equal to 1."));
+                    test.assertEqual(1, jarCreator.getCompressionThreadCount());
+                });
+
+                runner.test("with 8", (Test test) ->
+                {
+                    final InternalJarCreator jarCreator = InternalJarCreator.create();
+                    final InternalJarCreator setCompressionThreadCountResult = jarCreator.setCompressionThreadCount(8);
+                    test.assertSame(jarCreator, setCompressionThreadCountResult);
+                    test.assertEqual(8, jarCreator.getCompressionThreadCount());
+                });
+            });
+
+            runner.testGroup("createJarFile(CreateJarFileParameters)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    final InternalJarCreator jarCreator = InternalJarCreator.create();
+                    test.assertThrows(() -> jarCreator.createJarFile(null),
+                        new PreConditionFailure("parameters cannot be null."));
+                });
+
+                final Action1<Integer> createJarFileTest = (Integer compressionThreadCount) ->
+                {
+                    runner.test("with " + compressionThreadCount + " compression threads",
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                        final List<File> classFiles = List.create();
+                        final List<String> expectedEntryNames = List.create("META-INF/", "META-INF/MANIFEST.MF");
+                        for (int i = 0; i < 100; ++i)
+                        {
+                            final String folderName = "p" + (i / 10) + "/";
+                            if (i % 10 == 0)
+                            {
+                                expectedEntryNames.add(folderName);
+                            }
+                            final File classFile = outputsFolder.getFile(folderName + "C" + i + ".class").await();
+                            classFile.setContentsAsString("C" + i + " bytecode").await();
+                            classFiles.add(classFile);
+                            expectedEntryNames.add(classFile.relativeTo(outputsFolder).toString());
+                        }
+                        final File jarFile = outputsFolder.getFile("a.jar").await();
+                        final InternalJarCreator jarCreator = InternalJarCreator.create()
+                            .setCompressionThreadCount(compressionThreadCount);
+
+                        final Integer createJarFileResult = jarCreator.createJarFile(CreateJarFileParameters.create(outputsFolder, jarFile, classFiles)
+                            .setVerbose(VerboseCharacterToByteWriteStream.create(process.getOutputWriteStream()))
+                            .setOutputWriteStream(process.getOutputWriteStream())
+                            .setErrorWriteStream(process.getErrorWriteStream()))
+                            .await();
+                        test.assertEqual(0, createJarFileResult);
+
+                        test.assertEqual(expectedEntryNames, QubPackTests.getJarEntryNames(jarFile));
+                        test.assertEqual("C57 bytecode", QubPackTests.getJarEntryContents(jarFile, "p5/C57.class"));
+                    });
+                };
+
+                createJarFileTest.run(1);
+                createJarFileTest.run(4);
+
+                runner.test("before the result is awaited",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A bytecode").await();
+                    final File jarFile = outputsFolder.getFile("a.jar").await();
+                    final InternalJarCreator jarCreator = InternalJarCreator.create();
+
+                    final Result<Integer> createJarFileResult = jarCreator.createJarFile(CreateJarFileParameters.create(outputsFolder, jarFile, Iterable.create(aClassFile))
+                        .setVerbose(VerboseCharacterToByteWriteStream.create(process.getOutputWriteStream()))
+                        .setOutputWriteStream(process.getOutputWriteStream())
+                        .setErrorWriteStream(process.getErrorWriteStream()));
+                    test.assertFalse(jarFile.exists().await());
+
+                    test.assertEqual(0, createJarFileResult.await());
+                    test.assertEqual("A bytecode", QubPackTests.getJarEntryContents(jarFile, "A.class"));
+                    for (final File outputsFile : outputsFolder.iterateFilesRecursively())
+                    {
+                        test.assertFalse(outputsFile.getName().endsWith(".tmp"));
+                    }
+                });
+
+                runner.test("with previous jar file and unchanged files",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A bytecode").await();
+                    final File bClassFile = outputsFolder.getFile("B.class").await();
+                    bClassFile.setContentsAsString("B bytecode").await();
+                    final File jarFile = outputsFolder.getFile("a.jar").await();
+                    final InternalJarCreator jarCreator = InternalJarCreator.create();
+                    final VerboseCharacterToByteWriteStream verbose = VerboseCharacterToByteWriteStream.create(process.getOutputWriteStream());
+
+                    test.assertEqual(0, jarCreator.createJarFile(CreateJarFileParameters.create(outputsFolder, jarFile, Iterable.create(aClassFile, bClassFile))
+                        .setVerbose(verbose)
+                        .setOutputWriteStream(process.getOutputWriteStream())
+                        .setErrorWriteStream(process.getErrorWriteStream()))
+                        .await());
+
+                    // The unchanged entry must be copied from the previous jar file, so changing
+                    // its file without reporting the change must not change the new jar file.
+                    aClassFile.setContentsAsString("A bytecode that wasn't reported as changed").await();
+                    bClassFile.setContentsAsString("B bytecode 2").await();
+
+                    test.assertEqual(0, jarCreator.createJarFile(CreateJarFileParameters.create(outputsFolder, jarFile, Iterable.create(aClassFile, bClassFile))
+                        .setPreviousJarFile(jarFile, Iterable.create(aClassFile.relativeTo(outputsFolder)))
+                        .setVerbose(verbose)
+                        .setOutputWriteStream(process.getOutputWriteStream())
+                        .setErrorWriteStream(process.getErrorWriteStream()))
+                        .await());
+
+                    test.assertEqual(
+                        Iterable.create(
+                            "META-INF/",
+                            "META-INF/MANIFEST.MF",
+                            "A.class",
+                            "B.class"),
+                        QubPackTests.getJarEntryNames(jarFile));
+                    test.assertEqual("A bytecode", QubPackTests.getJarEntryContents(jarFile, "A.class"));
+                    test.assertEqual("B bytecode 2", QubPackTests.getJarEntryContents(jarFile, "B.class"));
+                });
+
+                runner.test("with compression level 0",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A bytecode").await();
+                    final File jarFile = outputsFolder.getFile("a.jar").await();
+                    final InternalJarCreator jarCreator = InternalJarCreator.create();
+
+                    test.assertEqual(0, jarCreator.createJarFile(CreateJarFileParameters.create(outputsFolder, jarFile, Iterable.create(aClassFile))
+                        .setCompressionLevel(0)
+                        .setVerbose(VerboseCharacterToByteWriteStream.create(process.getOutputWriteStream()))
+                        .setOutputWriteStream(process.getOutputWriteStream())
+                        .setErrorWriteStream(process.getErrorWriteStream()))
+                        .await());
+
+                    test.assertEqual(
+                        Iterable.create(
+                            "META-INF/",
+                            "META-INF/MANIFEST.MF",
+                            "A.class"),
+                        QubPackTests.getJarEntryNames(jarFile));
+                    test.assertEqual("A bytecode", QubPackTests.getJarEntryContents(jarFile, "A.class"));
+                    final java.util.Map<String,CompressedJarEntry> entries = JarFileReader.readEntries(jarFile).await();
+                    test.assertEqual(CompressedJarEntry.storedMethod, entries.get("META-INF/MANIFEST.MF").getMethod());
+                    test.assertEqual(CompressedJarEntry.storedMethod, entries.get("A.class").getMethod());
+                });
+
+                runner.test("with previous jar file that was compressed and compression level 0",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A bytecode").await();
+                    final File jarFile = outputsFolder.getFile("a.jar").await();
+                    final InternalJarCreator jarCreator = InternalJarCreator.create();
+                    final VerboseCharacterToByteWriteStream verbose = VerboseCharacterToByteWriteStream.create(process.getOutputWriteStream());
+
+                    test.assertEqual(0, jarCreator.createJarFile(CreateJarFileParameters.create(outputsFolder, jarFile, Iterable.create(aClassFile))
+                        .setVerbose(verbose)
+                        .setOutputWriteStream(process.getOutputWriteStream())
+                        .setErrorWriteStream(process.getErrorWriteStream()))
+                        .await());
+
+                    // The unchanged entry was compressed, so it must be stored again instead of
+                    // being copied from the previous jar file.
+                    aClassFile.setContentsAsString("A bytecode 2").await();
+
+                    test.assertEqual(0, jarCreator.createJarFile(CreateJarFileParameters.create(outputsFolder, jarFile, Iterable.create(aClassFile))
+                        .setPreviousJarFile(jarFile, Iterable.create(aClassFile.relativeTo(outputsFolder)))
+                        .setCompressionLevel(0)
+                        .setVerbose(verbose)
+                        .setOutputWriteStream(process.getOutputWriteStream())
+                        .setErrorWriteStream(process.getErrorWriteStream()))
+                        .await());
+
+                    test.assertEqual("A bytecode 2", QubPackTests.getJarEntryContents(jarFile, "A.class"));
+                    test.assertEqual(CompressedJarEntry.storedMethod, JarFileReader.readEntries(jarFile).await().get("A.class").getMethod());
+                });
+
+                runner.test("with minimum compression savings",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A bytecode").await();
+                    final File bClassFile = outputsFolder.getFile("B.class").await();
+                    final StringBuilder bClassContents = new StringBuilder();
+                    for (int i = 0; i < 100; ++i)
+                    {
+                        bClassContents.append("B bytecode ");
+                    }
+                    bClassFile.setContentsAsString(bClassContents.toString()).await();
+                    final File jarFile = outputsFolder.getFile("a.jar").await();
+                    final InternalJarCreator jarCreator = InternalJarCreator.create();
+
+                    test.assertEqual(0, jarCreator.createJarFile(CreateJarFileParameters.create(outputsFolder, jarFile, Iterable.create(aClassFile, bClassFile))
+                        .setMinimumCompressionSavings(0.1)
+                        .setVerbose(VerboseCharacterToByteWriteStream.create(process.getOutputWriteStream()))
+                        .setOutputWriteStream(process.getOutputWriteStream())
+                        .setErrorWriteStream(process.getErrorWriteStream()))
+                        .await());
+
+                    test.assertEqual("A bytecode", QubPackTests.getJarEntryContents(jarFile, "A.class"));
+                    test.assertEqual(bClassContents.toString(), QubPackTests.getJarEntryContents(jarFile, "B.class"));
+                    final java.util.Map<String,CompressedJarEntry> entries = JarFileReader.readEntries(jarFile).await();
+                    test.assertEqual(CompressedJarEntry.storedMethod, entries.get("A.class").getMethod());
+                    test.assertEqual(CompressedJarEntry.deflatedMethod, entries.get("B.class").getMethod());
+                });
+
+                runner.test("with previous jar file that was stored by adaptive compression",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A bytecode").await();
+                    final File jarFile = outputsFolder.getFile("a.jar").await();
+                    final InternalJarCreator jarCreator = InternalJarCreator.create();
+                    final VerboseCharacterToByteWriteStream verbose = VerboseCharacterToByteWriteStream.create(process.getOutputWriteStream());
+
+                    test.assertEqual(0, jarCreator.createJarFile(CreateJarFileParameters.create(outputsFolder, jarFile, Iterable.create(aClassFile))
+                        .setMinimumCompressionSavings(0.1)
+                        .setVerbose(verbose)
+                        .setOutputWriteStream(process.getOutputWriteStream())
+                        .setErrorWriteStream(process.getErrorWriteStream()))
+                        .await());
+
+                    // The stored entry can be copied from the previous jar file, so changing its
+                    // file without reporting the change must not change the new jar file.
+                    aClassFile.setContentsAsString("A bytecode that wasn't reported as changed").await();
+
+                    test.assertEqual(0, jarCreator.createJarFile(CreateJarFileParameters.create(outputsFolder, jarFile, Iterable.create(aClassFile))
+                        .setPreviousJarFile(jarFile, Iterable.create(aClassFile.relativeTo(outputsFolder)))
+                        .setMinimumCompressionSavings(0.1)
+                        .setVerbose(verbose)
+                        .setOutputWriteStream(process.getOutputWriteStream())
+                        .setErrorWriteStream(process.getErrorWriteStream()))
+                        .await());
+
+                    test.assertEqual("A bytecode", QubPackTests.getJarEntryContents(jarFile, "A.class"));
+                    test.assertEqual(CompressedJarEntry.storedMethod, JarFileReader.readEntries(jarFile).await().get("A.class").getMethod());
+                });
+
+                runner.test("with previous jar file and only some unchanged files",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A bytecode").await();
+                    final File bClassFile = outputsFolder.getFile("B.class").await();
+                    bClassFile.setContentsAsString("B bytecode").await();
+                    final File jarFile = outputsFolder.getFile("a.jar").await();
+                    final InternalJarCreator jarCreator = InternalJarCreator.create();
+                    final VerboseCharacterToByteWriteStream verbose = VerboseCharacterToByteWriteStream.create(process.getOutputWriteStream());
+
+                    test.assertEqual(0, jarCreator.createJarFile(CreateJarFileParameters.create(outputsFolder, jarFile, Iterable.create(aClassFile, bClassFile))
+                        .setVerbose(verbose)
+                        .setOutputWriteStream(process.getOutputWriteStream())
+                        .setErrorWriteStream(process.getErrorWriteStream()))
+                        .await());
+
+                    final java.util.Map<String,CompressedJarEntry> previousEntries = InternalJarCreator.getPreviousEntries(CreateJarFileParameters.create(outputsFolder, jarFile, Iterable.create(aClassFile, bClassFile))
+                        .setPreviousJarFile(jarFile, Iterable.create(aClassFile.relativeTo(outputsFolder))));
+                    test.assertEqual(1, previousEntries.size());
+                    final CompressedJarEntry aClassEntry = previousEntries.get("A.class");
+                    test.assertNotNull(aClassEntry);
+                    test.assertEqual(aClassEntry.getCompressedSize(), (long)aClassEntry.getData().length);
+                });
+
+                runner.test("with reproducible timestamp",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    final File bClassFile = outputsFolder.getFile("c/B.class").await();
+                    final File firstJarFile = outputsFolder.getFile("first.jar").await();
+                    final File secondJarFile = outputsFolder.getFile("second.jar").await();
+                    final InternalJarCreator jarCreator = InternalJarCreator.create();
+                    final VerboseCharacterToByteWriteStream verbose = VerboseCharacterToByteWriteStream.create(process.getOutputWriteStream());
+
+                    for (final File jarFile : Iterable.create(firstJarFile, secondJarFile))
+                    {
+                        // Write the files again so that they have different last modified times.
+                        bClassFile.setContentsAsString("B bytecode").await();
+                        aClassFile.setContentsAsString("A bytecode").await();
+
+                        test.assertEqual(0, jarCreator.createJarFile(CreateJarFileParameters.create(outputsFolder, jarFile, Iterable.create(bClassFile, aClassFile))
+                            .setReproducibleTimestamp(DateTime.create(1980, 2, 1))
+                            .setVerbose(verbose)
+                            .setOutputWriteStream(process.getOutputWriteStream())
+                            .setErrorWriteStream(process.getErrorWriteStream()))
+                            .await());
+                    }
+
+                    test.assertEqual(
+                        Iterable.create(
+                            "META-INF/",
+                            "META-INF/MANIFEST.MF",
+                            "A.class",
+                            "c/",
+                            "c/B.class"),
+                        QubPackTests.getJarEntryNames(firstJarFile));
+                    test.assertEqual(firstJarFile.getContentsAsByteArray().await(), secondJarFile.getContentsAsByteArray().await());
+                    final long expectedDosTime = CompressedJarEntry.toDosTime(InternalJarCreator.getReproducibleTimeMilliseconds(DateTime.create(1980, 2, 1)));
+                    for (final CompressedJarEntry entry : JarFileReader.readEntries(firstJarFile).await().values())
+                    {
+                        test.assertEqual(expectedDosTime, entry.getDosTime());
+                    }
+                });
+
+                runner.test("with reproducible timestamp and different Java versions",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A bytecode").await();
+                    final File firstJarFile = outputsFolder.getFile("first.jar").await();
+                    final File secondJarFile = outputsFolder.getFile("second.jar").await();
+                    final InternalJarCreator jarCreator = InternalJarCreator.create();
+                    final VerboseCharacterToByteWriteStream verbose = VerboseCharacterToByteWriteStream.create(process.getOutputWriteStream());
+
+                    final String javaVersion = System.getProperty("java.version");
+                    final String javaVendor = System.getProperty("java.vendor");
+                    try
+                    {
+                        System.setProperty("java.version", "14.0.1");
+                        System.setProperty("java.vendor", "First Vendor");
+                        test.assertEqual(0, jarCreator.createJarFile(CreateJarFileParameters.create(outputsFolder, firstJarFile, Iterable.create(aClassFile))
+                            .setReproducibleTimestamp(DateTime.create(1980, 2, 1))
+                            .setVerbose(verbose)
+                            .setOutputWriteStream(process.getOutputWriteStream())
+                            .setErrorWriteStream(process.getErrorWriteStream()))
+                            .await());
+
+                        System.setProperty("java.version", "17.0.2");
+                        System.setProperty("java.vendor", "Second Vendor");
+                        test.assertEqual(0, jarCreator.createJarFile(CreateJarFileParameters.create(outputsFolder, secondJarFile, Iterable.create(aClassFile))
+                            .setReproducibleTimestamp(DateTime.create(1980, 2, 1))
+                            .setVerbose(verbose)
+                            .setOutputWriteStream(process.getOutputWriteStream())
+                            .setErrorWriteStream(process.getErrorWriteStream()))
+                            .await());
+                    }
+                    finally
+                    {
+                        System.setProperty("java.version", javaVersion);
+                        System.setProperty("java.vendor", javaVendor);
+                    }
+
+                    test.assertEqual(firstJarFile.getContentsAsByteArray().await(), secondJarFile.getContentsAsByteArray().await());
+                    test.assertFalse(QubPackTests.getJarEntryContents(firstJarFile, "META-INF/MANIFEST.MF").contains("Created-By"));
+                });
+
+                runner.test("with previous jar file that doesn't exist",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A bytecode").await();
+                    final File jarFile = outputsFolder.getFile("a.jar").await();
+                    final InternalJarCreator jarCreator = InternalJarCreator.create();
+
+                    test.assertEqual(0, jarCreator.createJarFile(CreateJarFileParameters.create(outputsFolder, jarFile, Iterable.create(aClassFile))
+                        .setPreviousJarFile(jarFile, Iterable.create(aClassFile.relativeTo(outputsFolder)))
+                        .setVerbose(VerboseCharacterToByteWriteStream.create(process.getOutputWriteStream()))
+                        .setOutputWriteStream(process.getOutputWriteStream())
+                        .setErrorWriteStream(process.getErrorWriteStream()))
+                        .await());
+
+                    test.assertEqual("A bytecode", QubPackTests.getJarEntryContents(jarFile, "A.class"));
+                });
+            });
+        });
+    }
+}
@@ -0,0 +1,90 @@
+package qub;
+
+public interface JarArgumentFileTests
+{
+    static void test(TestRunner runner)
+    {
+        PreCondition.assertNotNull(runner, "runner");
+
+        runner.testGroup(JarArgumentFile.class, () ->
+        {
+            runner.testGroup("quote(String)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> JarArgumentFile.quote(null),
+                        new PreConditionFailure("argument cannot be null."));
+                });
+
+                runner.test("with empty", (Test test) ->
+                {
+                    test.assertThrows(() -> JarArgumentFile.quote(""),
+                        new PreConditionFailure("argument cannot be empty."));
+                });
+
+                final Action2<String,String> quoteTest = (String argument, String expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(argument), (Test test) ->
+                    {
+                        test.assertEqual(expected, JarArgumentFile.quote(argument));
+                    });
+                };
+
+                quoteTest.run("A.class", "A.class");
+                quoteTest.run("a/b/C$1.class", "a/b/C$1.class");
+                quoteTest.run("a\\b\\C.class", "a\\b\\C.class");
+                quoteTest.run("a b/C.class", "\"a b/C.class\"");
+                quoteTest.run("a#b/C.class", "\"a#b/C.class\"");
+                quoteTest.run("a'b/C.class", "\"a'b/C.class\"");
+                quoteTest.run("a\"b/C.class", "\"a\\\"b/C.class\"");
+                quoteTest.run("a b\\C.class", "\"a b\\\\C.class\"");
+            });
+
+            runner.testGroup("getContents(Iterable<String>)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> JarArgumentFile.getContents(null),
+                        new PreConditionFailure("arguments cannot be null."));
+                });
+
+                runner.test("with no arguments", (Test test) ->
+                {
+                    test.assertEqual("", JarArgumentFile.getContents(Iterable.create()));
+                });
+
+                runner.test("with arguments", (Test test) ->
+                {
+                    test.assertEqual(
+                        "A.class\n\"b c/D.class\"\n",
+                        JarArgumentFile.getContents(Iterable.create("A.class", "b c/D.class")));
+                });
+            });
+
+            runner.testGroup("parseContents(String)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> JarArgumentFile.parseContents(null),
+                        new PreConditionFailure("contents cannot be null."));
+                });
+
+                runner.test("with empty", (Test test) ->
+                {
+                    test.assertEqual(Iterable.create(), JarArgumentFile.parseContents(""));
+                });
+
+                runner.test("with the contents from getContents(Iterable<String>)", (Test test) ->
+                {
+                    final Iterable<String> arguments = Iterable.create(
+                        "A.class",
+                        "b c/D.class",
+                        "e#f/G.class",
+                        "h\"i/J.class",
+                        "k l\\M.class");
+                    test.assertEqual(arguments, JarArgumentFile.parseContents(JarArgumentFile.getContents(arguments)));
+                });
+            });
+        });
+    }
+}
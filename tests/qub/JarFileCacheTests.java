@@ -0,0 +1,235 @@
+package qub;
+
+public interface JarFileCacheTests
+{
+    static void test(TestRunner runner)
+    {
+        PreCondition.assertNotNull(runner, "runner");
+
+        runner.testGroup(JarFileCache.class, () ->
+        {
+            runner.testGroup("create(Folder,long)", () ->
+            {
+                runner.test("with null folder", (Test test) ->
+                {
+                    test.assertThrows(() -> JarFileCache.create(null, 10),
+                        new PreConditionFailure("folder cannot be null."));
+                });
+
+                runner.test("with negative maximumBytes",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    test.assertThrows(() -> JarFileCache.create(process.getCurrentFolder(), -1),
+                        new PreConditionFailure("maximumBytes (-1) must be greater than or equal to 0."));
+                });
+
+                runner.test("with valid arguments",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder cacheFolder = process.getCurrentFolder().getFolder("cache").await();
+                    final JarFileCache cache = JarFileCache.create(cacheFolder, 10);
+                    test.assertEqual(cacheFolder, cache.getFolder());
+                    test.assertEqual(10L, cache.getMaximumBytes());
+                });
+            });
+
+            runner.testGroup("getKey(CreateJarFileParameters,JarEngine,String)", () ->
+            {
+                runner.test("with the same files in different folders",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder aFolder = process.getCurrentFolder().getFolder("a/outputs").await();
+                    final File aClassFile = aFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A bytecode").await();
+                    final Folder bFolder = process.getCurrentFolder().getFolder("b/outputs").await();
+                    final File bClassFile = bFolder.getFile("A.class").await();
+                    bClassFile.setContentsAsString("A bytecode").await();
+
+                    test.assertEqual(
+                        JarFileCache.getKey(CreateJarFileParameters.create(aFolder, aFolder.getFile("a.jar").await(), Iterable.create(aClassFile)), JarEngine.Internal, "14.0.1 (Oracle Corporation)"),
+                        JarFileCache.getKey(CreateJarFileParameters.create(bFolder, bFolder.getFile("b.jar").await(), Iterable.create(bClassFile)), JarEngine.Internal, "14.0.1 (Oracle Corporation)"));
+                });
+
+                runner.test("with different file contents",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    final CreateJarFileParameters parameters = CreateJarFileParameters.create(outputsFolder, outputsFolder.getFile("a.jar").await(), Iterable.create(aClassFile));
+
+                    aClassFile.setContentsAsString("A bytecode").await();
+                    final String key = JarFileCache.getKey(parameters, JarEngine.Internal, "14.0.1 (Oracle Corporation)");
+                    aClassFile.setContentsAsString("A bytecode 2").await();
+
+                    test.assertNotEqual(key, JarFileCache.getKey(parameters, JarEngine.Internal, "14.0.1 (Oracle Corporation)"));
+                });
+
+                runner.test("with different file contents that have the same size",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    final CreateJarFileParameters parameters = CreateJarFileParameters.create(outputsFolder, outputsFolder.getFile("a.jar").await(), Iterable.create(aClassFile))
+                        .setFileSnapshots(Iterable.create(FileSnapshot.create(aClassFile, Path.parse("A.class"), 10L, DateTime.epoch)));
+
+                    aClassFile.setContentsAsString("A bytecode").await();
+                    final String key = JarFileCache.getKey(parameters, JarEngine.Internal, "14.0.1 (Oracle Corporation)");
+                    aClassFile.setContentsAsString("B bytecode").await();
+
+                    test.assertNotEqual(key, JarFileCache.getKey(parameters, JarEngine.Internal, "14.0.1 (Oracle Corporation)"));
+                });
+
+                runner.test("with different manifest files",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A bytecode").await();
+                    final File manifestFile = outputsFolder.getFile("META-INF/MANIFEST.MF").await();
+                    final CreateJarFileParameters parameters = CreateJarFileParameters.create(outputsFolder, outputsFolder.getFile("a.jar").await(), Iterable.create(aClassFile))
+                        .setManifestFile(manifestFile);
+
+                    manifestFile.setContentsAsString("Main-Class: A\n").await();
+                    final String key = JarFileCache.getKey(parameters, JarEngine.Internal, "14.0.1 (Oracle Corporation)");
+                    manifestFile.setContentsAsString("Main-Class: B\n").await();
+
+                    test.assertNotEqual(key, JarFileCache.getKey(parameters, JarEngine.Internal, "14.0.1 (Oracle Corporation)"));
+                });
+
+                runner.test("with different compression levels",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A bytecode").await();
+                    final CreateJarFileParameters parameters = CreateJarFileParameters.create(outputsFolder, outputsFolder.getFile("a.jar").await(), Iterable.create(aClassFile));
+
+                    final String key = JarFileCache.getKey(parameters, JarEngine.Internal, "14.0.1 (Oracle Corporation)");
+                    parameters.setCompressionLevel(0);
+
+                    test.assertNotEqual(key, JarFileCache.getKey(parameters, JarEngine.Internal, "14.0.1 (Oracle Corporation)"));
+                });
+
+                runner.test("with different jar engines",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A bytecode").await();
+                    final CreateJarFileParameters parameters = CreateJarFileParameters.create(outputsFolder, outputsFolder.getFile("a.jar").await(), Iterable.create(aClassFile));
+
+                    test.assertNotEqual(JarFileCache.getKey(parameters, JarEngine.Internal, "14.0.1 (Oracle Corporation)"), JarFileCache.getKey(parameters, JarEngine.Process, "jar 14.0.1"));
+                });
+
+                runner.test("with different jar engine versions",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A bytecode").await();
+                    final CreateJarFileParameters parameters = CreateJarFileParameters.create(outputsFolder, outputsFolder.getFile("a.jar").await(), Iterable.create(aClassFile));
+
+                    test.assertNotEqual(JarFileCache.getKey(parameters, JarEngine.Internal, "14.0.1 (Oracle Corporation)"), JarFileCache.getKey(parameters, JarEngine.Internal, "17.0.2 (Oracle Corporation)"));
+                });
+            });
+
+            runner.testGroup("copyTo(String,File)", () ->
+            {
+                runner.test("with key that isn't cached",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final JarFileCache cache = JarFileCache.create(process.getCurrentFolder().getFolder("cache").await(), 100);
+                    final File destination = process.getCurrentFolder().getFile("outputs/a.jar").await();
+
+                    test.assertFalse(cache.copyTo("abc", destination));
+                    test.assertFalse(destination.exists().await());
+                });
+
+                runner.test("with key that is cached",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final JarFileCache cache = JarFileCache.create(process.getCurrentFolder().getFolder("cache").await(), 100);
+                    final File jarFile = process.getCurrentFolder().getFile("a/outputs/a.jar").await();
+                    jarFile.setContentsAsString("a jar").await();
+                    cache.add("abc", jarFile);
+                    final File destination = process.getCurrentFolder().getFile("b/outputs/a.jar").await();
+
+                    test.assertTrue(cache.copyTo("abc", destination));
+                    test.assertEqual("a jar", destination.getContentsAsString().await());
+                });
+            });
+
+            runner.testGroup("add(String,File)", () ->
+            {
+                runner.test("with more bytes than the maximum",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final JarFileCache cache = JarFileCache.create(process.getCurrentFolder().getFolder("cache").await(), 10);
+                    final File aJarFile = process.getCurrentFolder().getFile("outputs/a.jar").await();
+                    aJarFile.setContentsAsString("12345").await();
+                    final File bJarFile = process.getCurrentFolder().getFile("outputs/b.jar").await();
+                    bJarFile.setContentsAsString("12345").await();
+                    final File cJarFile = process.getCurrentFolder().getFile("outputs/c.jar").await();
+                    cJarFile.setContentsAsString("12345").await();
+                    final File destination = process.getCurrentFolder().getFile("destination.jar").await();
+
+                    cache.add("a", aJarFile);
+                    cache.add("b", bJarFile);
+                    // Use "a" so that "b" is the least recently used jar file.
+                    test.assertTrue(cache.copyTo("a", destination));
+                    cache.add("c", cJarFile);
+
+                    test.assertTrue(cache.copyTo("a", destination));
+                    test.assertFalse(cache.copyTo("b", destination));
+                    test.assertTrue(cache.copyTo("c", destination));
+                    test.assertFalse(cache.getCachedJarFile("b").exists().await());
+                });
+
+                runner.test("with two caches in the same folder",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder cacheFolder = process.getCurrentFolder().getFolder("cache").await();
+                    final JarFileCache cache1 = JarFileCache.create(cacheFolder, 10);
+                    final JarFileCache cache2 = JarFileCache.create(cacheFolder, 10);
+                    final File aJarFile = process.getCurrentFolder().getFile("outputs/a.jar").await();
+                    aJarFile.setContentsAsString("12345").await();
+                    final File bJarFile = process.getCurrentFolder().getFile("outputs/b.jar").await();
+                    bJarFile.setContentsAsString("12345").await();
+                    final File cJarFile = process.getCurrentFolder().getFile("outputs/c.jar").await();
+                    cJarFile.setContentsAsString("12345").await();
+                    final File destination = process.getCurrentFolder().getFile("destination.jar").await();
+
+                    cache1.add("a", aJarFile);
+                    cache2.add("b", bJarFile);
+                    test.assertTrue(cache2.copyTo("a", destination));
+                    test.assertTrue(cache1.copyTo("b", destination));
+
+                    // "a" is the least recently used jar file in the index that both caches share.
+                    cache1.add("c", cJarFile);
+
+                    test.assertFalse(cache2.copyTo("a", destination));
+                    test.assertTrue(cache2.copyTo("b", destination));
+                    test.assertTrue(cache2.copyTo("c", destination));
+                    test.assertFalse(cache1.getCachedJarFile("a").exists().await());
+                    for (final File cacheFile : cacheFolder.iterateFilesRecursively())
+                    {
+                        test.assertFalse(cacheFile.getName().endsWith(".tmp"));
+                    }
+                });
+            });
+        });
+    }
+}
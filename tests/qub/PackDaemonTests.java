@@ -0,0 +1,258 @@
+package qub;
+
+public interface PackDaemonTests
+{
+    static void test(TestRunner runner)
+    {
+        PreCondition.assertNotNull(runner, "runner");
+
+        runner.testGroup(PackDaemon.class, () ->
+        {
+            runner.testGroup("create(QubPackParameters)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> PackDaemon.create(null),
+                        new PreConditionFailure("daemonParameters cannot be null."));
+                });
+            });
+
+            runner.testGroup("pack(PackDaemonRequest)", () ->
+            {
+                runner.test("with null",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final PackDaemon daemon = PackDaemon.create(QubPackTests.getParameters(process));
+
+                    test.assertThrows(() -> daemon.pack(null),
+                        new PreConditionFailure("request cannot be null."));
+                });
+
+                runner.test("with no project.json file",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters parameters = QubPackTests.getParameters(process);
+                    final PackDaemon daemon = PackDaemon.create(parameters);
+
+                    final PackDaemonResponse response = daemon.pack(PackDaemonRequest.create(parameters));
+
+                    test.assertEqual(1, response.getExitCode());
+                    test.assertEqual(
+                        Iterable.create(
+                            "ERROR: The file at \"/project.json\" doesn't exist."),
+                        Strings.getLines(response.getOutput()));
+                    test.assertEqual("", response.getError());
+                    test.assertEqual("", process.getOutputWriteStream().getText().await());
+                    test.assertEqual("", process.getErrorWriteStream().getText().await());
+                });
+            });
+
+            runner.testGroup("send(File,PackDaemonRequest)", () ->
+            {
+                runner.test("with daemon file that doesn't exist",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters parameters = QubPackTests.getParameters(process);
+
+                    test.assertNull(PackDaemon.send(parameters.getDaemonFile(), PackDaemonRequest.create(parameters)));
+                });
+
+                runner.test("with daemon file that isn't JSON",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters parameters = QubPackTests.getParameters(process);
+                    parameters.getDaemonFile().setContentsAsString("not json").await();
+
+                    test.assertNull(PackDaemon.send(parameters.getDaemonFile(), PackDaemonRequest.create(parameters)));
+                });
+
+                runner.test("with daemon file without a token",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters parameters = QubPackTests.getParameters(process);
+                    parameters.getDaemonFile().setContentsAsString("{\"port\":12345}").await();
+
+                    test.assertNull(PackDaemon.send(parameters.getDaemonFile(), PackDaemonRequest.create(parameters)));
+                });
+            });
+
+            runner.testGroup("createToken()", () ->
+            {
+                runner.test("with two tokens", (Test test) ->
+                {
+                    final String token1 = PackDaemon.createToken();
+                    final String token2 = PackDaemon.createToken();
+                    test.assertEqual(64, token1.length());
+                    test.assertEqual(64, token2.length());
+                    test.assertNotEqual(token1, token2);
+                });
+            });
+
+            runner.testGroup("isAuthorized(String,PackDaemonRequest)", () ->
+            {
+                runner.test("with null token",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final PackDaemonRequest request = PackDaemonRequest.create(QubPackTests.getParameters(process));
+                    test.assertThrows(() -> PackDaemon.isAuthorized(null, request),
+                        new PreConditionFailure("token cannot be null."));
+                });
+
+                runner.test("with null request", (Test test) ->
+                {
+                    test.assertThrows(() -> PackDaemon.isAuthorized("abc", null),
+                        new PreConditionFailure("request cannot be null."));
+                });
+
+                runner.test("with request without a token",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final PackDaemonRequest request = PackDaemonRequest.create(QubPackTests.getParameters(process));
+                    test.assertFalse(PackDaemon.isAuthorized("abc", request));
+                });
+
+                runner.test("with request with a different token",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final PackDaemonRequest request = PackDaemonRequest.create(QubPackTests.getParameters(process))
+                        .setToken("abd");
+                    test.assertFalse(PackDaemon.isAuthorized("abc", request));
+                });
+
+                runner.test("with request with the same token",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final PackDaemonRequest request = PackDaemonRequest.create(QubPackTests.getParameters(process))
+                        .setToken("abc");
+                    test.assertTrue(PackDaemon.isAuthorized("abc", request));
+                });
+            });
+
+            runner.testGroup("writeDaemonFile(File,String)", () ->
+            {
+                runner.test("with fake file system",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final File daemonFile = QubPackTests.getParameters(process).getDaemonFile();
+                    PackDaemon.writeDaemonFile(daemonFile, "{\"port\":1,\"token\":\"abc\"}");
+                    test.assertEqual("{\"port\":1,\"token\":\"abc\"}", daemonFile.getContentsAsString().await());
+                });
+            });
+        });
+
+        runner.testGroup(PackDaemonRequest.class, () ->
+        {
+            runner.testGroup("createParameters(QubPackParameters,CharacterToByteWriteStream,CharacterToByteWriteStream)", () ->
+            {
+                runner.test("with default parameters",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters parameters = QubPackTests.getParameters(process);
+                    final InMemoryCharacterToByteStream output = InMemoryCharacterToByteStream.create();
+                    final InMemoryCharacterToByteStream error = InMemoryCharacterToByteStream.create();
+
+                    final QubPackParameters requestParameters = PackDaemonRequest.create(parameters).createParameters(parameters, output, error);
+
+                    test.assertNotSame(parameters, requestParameters);
+                    test.assertSame(output, requestParameters.getOutputWriteStream());
+                    test.assertSame(error, requestParameters.getErrorWriteStream());
+                    test.assertEqual(parameters.getFolderToPack(), requestParameters.getFolderToPack());
+                    test.assertEqual(parameters.getPackJson(), requestParameters.getPackJson());
+                    test.assertEqual(parameters.getJarEngine(), requestParameters.getJarEngine());
+                    test.assertEqual(parameters.getWarnings(), requestParameters.getWarnings());
+                    test.assertNull(requestParameters.getTraceFile());
+                    test.assertFalse(requestParameters.getVerbose().isVerbose());
+                });
+
+                runner.test("with changed parameters",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters daemonParameters = QubPackTests.getParameters(process);
+                    final Folder folderToPack = process.getCurrentFolder().getFolder("a").await();
+                    final File traceFile = folderToPack.getFile("outputs/trace.json").await();
+                    final QubPackParameters parameters = daemonParameters.createForFolder(process.getOutputWriteStream(), process.getErrorWriteStream(), folderToPack)
+                        .setPackJson(false)
+                        .setContentHash(true)
+                        .setJarEngine(JarEngine.Internal)
+                        .setForceTests(true)
+                        .setCriticalPathPack(true)
+                        .setTraceFile(traceFile)
+                        .setCompressionLevel(0)
+                        .setReproducible(true)
+                        .setWarnings(Warnings.Error);
+                    final InMemoryCharacterToByteStream output = InMemoryCharacterToByteStream.create();
+                    final InMemoryCharacterToByteStream error = InMemoryCharacterToByteStream.create();
+
+                    final QubPackParameters requestParameters = PackDaemonRequest.create(parameters).createParameters(daemonParameters, output, error);
+
+                    test.assertEqual(folderToPack, requestParameters.getFolderToPack());
+                    test.assertFalse(requestParameters.getPackJson());
+                    test.assertTrue(requestParameters.getContentHash());
+                    test.assertEqual(JarEngine.Internal, requestParameters.getJarEngine());
+                    test.assertTrue(requestParameters.getForceTests());
+                    test.assertTrue(requestParameters.getCriticalPathPack());
+                    test.assertEqual(traceFile, requestParameters.getTraceFile());
+                    test.assertEqual(0, requestParameters.getSourcesJarCompressionLevel());
+                    test.assertEqual(0, requestParameters.getCompiledSourcesJarCompressionLevel());
+                    test.assertEqual(0, requestParameters.getCompiledTestsJarCompressionLevel());
+                    test.assertTrue(requestParameters.getReproducible());
+                    test.assertEqual(Warnings.Error, requestParameters.getWarnings());
+                    test.assertEqual("", error.getText().await());
+                });
+
+                runner.test("with trace file outside of the outputs folder",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters daemonParameters = QubPackTests.getParameters(process);
+                    final Folder folderToPack = process.getCurrentFolder().getFolder("a").await();
+                    final File traceFile = process.getCurrentFolder().getFile("b/trace.json").await();
+                    final QubPackParameters parameters = daemonParameters.createForFolder(process.getOutputWriteStream(), process.getErrorWriteStream(), folderToPack)
+                        .setTraceFile(traceFile);
+                    final InMemoryCharacterToByteStream output = InMemoryCharacterToByteStream.create();
+                    final InMemoryCharacterToByteStream error = InMemoryCharacterToByteStream.create();
+
+                    final QubPackParameters requestParameters = PackDaemonRequest.create(parameters).createParameters(daemonParameters, output, error);
+
+                    test.assertNull(requestParameters.getTraceFile());
+                    test.assertEqual("", output.getText().await());
+                    test.assertTrue(error.getText().await().startsWith("WARNING: The pack daemon only writes trace files inside "));
+                });
+            });
+
+            runner.testGroup("isInFolder(Folder,String)", () ->
+            {
+                final Action3<String,String,Boolean> isInFolderTest = (String folderPath, String filePath, Boolean expected) ->
+                {
+                    runner.test("with " + English.andList(Strings.escapeAndQuote(folderPath), Strings.escapeAndQuote(filePath)),
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final Folder folder = process.getFileSystem().getFolder(folderPath).await();
+                        test.assertEqual(expected, PackDaemonRequest.isInFolder(folder, filePath));
+                    });
+                };
+
+                isInFolderTest.run("/a/outputs/", "/a/outputs/trace.json", true);
+                isInFolderTest.run("/a/outputs/", "/a/outputs/b/trace.json", true);
+                isInFolderTest.run("/a/outputs/", "/a/outputs", false);
+                isInFolderTest.run("/a/outputs/", "/a/trace.json", false);
+                isInFolderTest.run("/a/outputs/", "/a/outputs/../trace.json", false);
+                isInFolderTest.run("/a/outputs/", "/a/outputsx/trace.json", false);
+                isInFolderTest.run("/a/outputs/", "trace.json", false);
+            });
+        });
+    }
+}
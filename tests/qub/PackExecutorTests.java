@@ -0,0 +1,71 @@
+package qub;
+
+public interface PackExecutorTests
+{
+    static void test(TestRunner runner)
+    {
+        PreCondition.assertNotNull(runner, "runner");
+
+        runner.testGroup(PackExecutor.class, () ->
+        {
+            runner.testGroup("get()", () ->
+            {
+                runner.test("called twice", (Test test) ->
+                {
+                    final java.util.concurrent.ExecutorService executor = PackExecutor.get();
+                    test.assertNotNull(executor);
+                    test.assertSame(executor, PackExecutor.get());
+                    test.assertFalse(executor.isShutdown());
+                });
+
+                runner.test("with work that waits for other work", (Test test) ->
+                {
+                    final java.util.concurrent.ExecutorService executor = PackExecutor.get();
+                    final java.util.concurrent.Future<Integer> outer = executor.submit(() -> QubPack.awaitPackTask(executor.submit(() -> 5)));
+                    test.assertEqual(5, QubPack.awaitPackTask(outer));
+                });
+            });
+
+            runner.testGroup("submit(Semaphore,Callable<T>)", () ->
+            {
+                runner.test("with null permits", (Test test) ->
+                {
+                    test.assertThrows(() -> PackExecutor.submit(null, () -> 5),
+                        new PreConditionFailure("permits cannot be null."));
+                });
+
+                runner.test("with null task", (Test test) ->
+                {
+                    test.assertThrows(() -> PackExecutor.submit(new java.util.concurrent.Semaphore(1), null),
+                        new PreConditionFailure("task cannot be null."));
+                });
+
+                runner.test("with more tasks than permits", (Test test) ->
+                {
+                    final java.util.concurrent.Semaphore permits = new java.util.concurrent.Semaphore(2);
+                    final java.util.concurrent.atomic.AtomicInteger runningTasks = new java.util.concurrent.atomic.AtomicInteger();
+                    final java.util.concurrent.atomic.AtomicInteger maximumRunningTasks = new java.util.concurrent.atomic.AtomicInteger();
+                    final List<java.util.concurrent.Future<Integer>> tasks = List.create();
+                    for (int i = 0; i < 6; ++i)
+                    {
+                        final int taskValue = i;
+                        tasks.add(PackExecutor.submit(permits, () ->
+                        {
+                            maximumRunningTasks.accumulateAndGet(runningTasks.incrementAndGet(), Math::max);
+                            java.lang.Thread.sleep(10);
+                            runningTasks.decrementAndGet();
+                            return taskValue;
+                        }));
+                    }
+
+                    for (int i = 0; i < 6; ++i)
+                    {
+                        test.assertEqual(i, QubPack.awaitPackTask(tasks.get(i)));
+                    }
+                    test.assertTrue(maximumRunningTasks.get() <= 2);
+                    test.assertEqual(2, permits.availablePermits());
+                });
+            });
+        });
+    }
+}
@@ -75,6 +75,67 @@ public interface PackJSONFileTests
                 createTest.run(Path.parse("relative/path.txt"), DateTime.create(1, 2, 3));
             });
 
+            runner.testGroup("create(Path,DateTime,long,String)", () ->
+            {
+                final Action5<Path,DateTime,Long,String,Throwable> createErrorTest = (Path relativePath, DateTime lastModified, Long size, String contentHash, Throwable expected) ->
+                {
+                    runner.test("with " + English.andList(Strings.escapeAndQuote(relativePath), lastModified, size, Strings.escapeAndQuote(contentHash)), (Test test) ->
+                    {
+                        test.assertThrows(() -> PackJSONFile.create(relativePath, lastModified, size, contentHash), expected);
+                    });
+                };
+
+                createErrorTest.run(null, DateTime.epoch, 0L, "crc32c:0", new PreConditionFailure("relativePath cannot be null."));
+                createErrorTest.run(Path.parse("/rooted/path.txt"), DateTime.epoch, 0L, "crc32c:0", new PreConditionFailure("relativePath.isRooted() cannot be true."));
+                createErrorTest.run(Path.parse("relative/path.txt"), null, 0L, "crc32c:0", new PreConditionFailure("lastModified cannot be null."));
+                createErrorTest.run(Path.parse("relative/path.txt"), DateTime.epoch, -1L, "crc32c:0", new PreConditionFailure("size (-1) must be greater than or equal to 0."));
+                createErrorTest.run(Path.parse("relative/path.txt"), DateTime.epoch, 0L, null, new PreConditionFailure("contentHash cannot be null."));
+                createErrorTest.run(Path.parse("relative/path.txt"), DateTime.epoch, 0L, "", new PreConditionFailure("contentHash cannot be empty."));
+
+                runner.test("with valid arguments", (Test test) ->
+                {
+                    final PackJSONFile packJsonFile = PackJSONFile.create(Path.parse("a/b.class"), DateTime.create(1, 2, 3), 10, "crc32c:abc");
+                    test.assertEqual(Path.parse("a/b.class"), packJsonFile.getRelativePath());
+                    test.assertEqual(DateTime.create(1, 2, 3), packJsonFile.getLastModified());
+                    test.assertEqual(10L, packJsonFile.getSize());
+                    test.assertEqual("crc32c:abc", packJsonFile.getContentHash());
+                    test.assertEqual(
+                        "\"a/b.class\":{\"lastModified\":\"0001-02-03T00:00Z\",\"size\":10,\"contentHash\":\"crc32c:abc\"}",
+                        packJsonFile.toString());
+                    test.assertEqual(packJsonFile, PackJSONFile.parse(packJsonFile.toJsonProperty()).await());
+                });
+
+                runner.test("without content hash", (Test test) ->
+                {
+                    final PackJSONFile packJsonFile = PackJSONFile.create("a/b.class", DateTime.create(1, 2, 3));
+                    test.assertNull(packJsonFile.getSize());
+                    test.assertNull(packJsonFile.getContentHash());
+                });
+            });
+
+            runner.testGroup("getContentHash(byte[])", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> PackJSONFile.getContentHash(null),
+                        new PreConditionFailure("contents cannot be null."));
+                });
+
+                runner.test("with same contents", (Test test) ->
+                {
+                    test.assertEqual(
+                        PackJSONFile.getContentHash(new byte[] { 1, 2, 3 }),
+                        PackJSONFile.getContentHash(new byte[] { 1, 2, 3 }));
+                });
+
+                runner.test("with different contents", (Test test) ->
+                {
+                    test.assertNotEqual(
+                        PackJSONFile.getContentHash(new byte[] { 1, 2, 3 }),
+                        PackJSONFile.getContentHash(new byte[] { 1, 2, 4 }));
+                });
+            });
+
             runner.testGroup("equals(Object)", () ->
             {
                 final Action3<PackJSONFile,Object,Boolean> equalsTest = (PackJSONFile file, Object rhs, Boolean expected) ->
@@ -183,6 +183,38 @@ public interface PackJSONTests
                 });
             });
 
+            runner.testGroup("setJarMilliseconds(String,long)", () ->
+            {
+                final Action3<String,Long,Throwable> setJarMillisecondsErrorTest = (String jarType, Long milliseconds, Throwable expected) ->
+                {
+                    runner.test("with " + English.andList(Strings.escapeAndQuote(jarType), milliseconds), (Test test) ->
+                    {
+                        final PackJSON packJson = PackJSON.create();
+                        test.assertThrows(() -> packJson.setJarMilliseconds(jarType, milliseconds), expected);
+                        test.assertEqual("{}", packJson.toString());
+                    });
+                };
+
+                setJarMillisecondsErrorTest.run(null, 1L, new PreConditionFailure("jarType cannot be null."));
+                setJarMillisecondsErrorTest.run("", 1L, new PreConditionFailure("jarType cannot be empty."));
+                setJarMillisecondsErrorTest.run("sources", -1L, new PreConditionFailure("milliseconds (-1) must be greater than or equal to 0."));
+
+                runner.test("with multiple jar types", (Test test) ->
+                {
+                    final PackJSON packJson = PackJSON.create();
+                    test.assertNull(packJson.getJarMilliseconds("sources"));
+
+                    test.assertSame(packJson, packJson.setJarMilliseconds("sources", 12));
+                    test.assertSame(packJson, packJson.setJarMilliseconds("compiledSources", 0));
+                    test.assertEqual(12L, packJson.getJarMilliseconds("sources"));
+                    test.assertEqual(0L, packJson.getJarMilliseconds("compiledSources"));
+                    test.assertNull(packJson.getJarMilliseconds("compiledTests"));
+
+                    test.assertSame(packJson, packJson.setJarMilliseconds("sources", 30));
+                    test.assertEqual(30L, packJson.getJarMilliseconds("sources"));
+                });
+            });
+
             runner.testGroup("toString()", () ->
             {
                 final Action2<PackJSON,String> toStringTest = (PackJSON packJson, String expected) ->
@@ -0,0 +1,60 @@
+package qub;
+
+public interface PackJarFileChangesEventTests
+{
+    static void test(TestRunner runner)
+    {
+        PreCondition.assertNotNull(runner, "runner");
+
+        runner.testGroup(PackJarFileChangesEvent.class, () ->
+        {
+            runner.testGroup("getReason(JarFileChanges)", () ->
+            {
+                final Action3<String,JarFileChanges,String> getReasonTest = (String testName, JarFileChanges jarFileChanges, String expected) ->
+                {
+                    runner.test(testName, (Test test) ->
+                    {
+                        test.assertEqual(expected, PackJarFileChangesEvent.getReason(jarFileChanges));
+                    });
+                };
+
+                getReasonTest.run("with unknown previous state", JarFileChanges.unknown(), "previous pack unknown");
+                getReasonTest.run("with changed project", JarFileChanges.create().setProjectChanged(true), "project changed");
+                getReasonTest.run("with new file", JarFileChanges.create().addNewFile(PackJSONFile.create("A.java", DateTime.create(1, 2, 3))), "files changed");
+                getReasonTest.run("with deleted file", JarFileChanges.create().addDeletedFile(PackJSONFile.create("A.java", DateTime.create(1, 2, 3))), "files changed");
+                getReasonTest.run("with no changes", JarFileChanges.create(), "unchanged");
+            });
+
+            runner.testGroup("finish(String,int,JarFileChanges)", () ->
+            {
+                runner.test("with null jarType", (Test test) ->
+                {
+                    final PackJarFileChangesEvent event = PackJarFileChangesEvent.start();
+                    test.assertThrows(() -> event.finish(null, 0, JarFileChanges.create()),
+                        new PreConditionFailure("jarType cannot be null."));
+                });
+
+                runner.test("with negative filesScanned", (Test test) ->
+                {
+                    final PackJarFileChangesEvent event = PackJarFileChangesEvent.start();
+                    test.assertThrows(() -> event.finish("sources", -1, JarFileChanges.create()),
+                        new PreConditionFailure("filesScanned (-1) must be greater than or equal to 0."));
+                });
+
+                runner.test("with null jarFileChanges", (Test test) ->
+                {
+                    final PackJarFileChangesEvent event = PackJarFileChangesEvent.start();
+                    test.assertThrows(() -> event.finish("sources", 0, null),
+                        new PreConditionFailure("jarFileChanges cannot be null."));
+                });
+
+                runner.test("while disabled", (Test test) ->
+                {
+                    final PackJarFileChangesEvent event = PackJarFileChangesEvent.start();
+                    event.finish("sources", 1, JarFileChanges.unknown());
+                    test.assertFalse(event.isEnabled());
+                });
+            });
+        });
+    }
+}
@@ -0,0 +1,309 @@
+package qub;
+
+public interface PackJarTaskTests
+{
+    static void test(TestRunner runner)
+    {
+        PreCondition.assertNotNull(runner, "runner");
+
+        runner.testGroup(PackJarTask.class, () ->
+        {
+            runner.testGroup("create(String,Iterable<FileSnapshot>,Function0<Result<Void>>)", () ->
+            {
+                runner.test("with null jarType", (Test test) ->
+                {
+                    test.assertThrows(() -> PackJarTask.create(null, Iterable.create(), () -> Result.success()),
+                        new PreConditionFailure("jarType cannot be null."));
+                });
+
+                runner.test("with empty jarType", (Test test) ->
+                {
+                    test.assertThrows(() -> PackJarTask.create("", Iterable.create(), () -> Result.success()),
+                        new PreConditionFailure("jarType cannot be empty."));
+                });
+
+                runner.test("with null files", (Test test) ->
+                {
+                    test.assertThrows(() -> PackJarTask.create("sources", null, () -> Result.success()),
+                        new PreConditionFailure("files cannot be null."));
+                });
+
+                runner.test("with null createJarFile", (Test test) ->
+                {
+                    test.assertThrows(() -> PackJarTask.create("sources", Iterable.create(), null),
+                        new PreConditionFailure("createJarFile cannot be null."));
+                });
+
+                runner.test("with files",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final PackJarTask task = PackJarTask.create("sources", PackJarTaskTests.createFiles(process, 10L, 20L), () -> Result.success());
+                    test.assertEqual("sources", task.getJarType());
+                    test.assertEqual(2, task.getFileCount());
+                    test.assertEqual(30L, task.getByteCount());
+                    test.assertEqual(30L + 2 * PackJarTask.fileCostBytes, task.getEstimatedBytes());
+                    test.assertNull(task.getPreviousMilliseconds());
+                    test.assertNull(task.getMilliseconds());
+                });
+
+                runner.test("with files without sizes",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final PackJarTask task = PackJarTask.create("sources", PackJarTaskTests.createFiles(process, 10L, null), () -> Result.success());
+                    test.assertEqual(2, task.getFileCount());
+                    test.assertNull(task.getByteCount());
+                    test.assertEqual(2 * PackJarTask.fileCostBytes, task.getEstimatedBytes());
+                });
+            });
+
+            runner.testGroup("start() and await()", () ->
+            {
+                runner.test("with successful createJarFile", (Test test) ->
+                {
+                    final IntegerValue createCount = IntegerValue.create(0);
+                    final PackJarTask task = PackJarTask.create("sources", Iterable.create(), () -> LazyResult.create(() ->
+                    {
+                        createCount.increment();
+                        return null;
+                    }));
+
+                    test.assertNotNull(task.start());
+                    test.assertThrows(() -> task.start(),
+                        new PreConditionFailure("this.result == null must be true."));
+                    test.assertEqual(0, createCount.getAsInt());
+
+                    task.await();
+                    test.assertEqual(1, createCount.getAsInt());
+                    test.assertNotNull(task.getMilliseconds());
+                    test.assertTrue(task.getMilliseconds() >= 0);
+                });
+
+                runner.test("await() before start()", (Test test) ->
+                {
+                    final PackJarTask task = PackJarTask.create("sources", Iterable.create(), () -> Result.success());
+                    test.assertThrows(() -> task.await(),
+                        new PreConditionFailure("this.result cannot be null."));
+                });
+            });
+
+            runner.testGroup("getStartOrder(Iterable<PackJarTask>)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> PackJarTask.getStartOrder(null),
+                        new PreConditionFailure("tasks cannot be null."));
+                });
+
+                runner.test("with no tasks", (Test test) ->
+                {
+                    test.assertEqual(Iterable.create(), PackJarTask.getStartOrder(Iterable.create()));
+                });
+
+                runner.test("with no previous times",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final PackJarTask sources = PackJarTask.create("sources", PackJarTaskTests.createFiles(process, 100L), () -> Result.success());
+                    final PackJarTask compiledSources = PackJarTask.create("compiledSources", PackJarTaskTests.createFiles(process, 50000L), () -> Result.success());
+                    final PackJarTask compiledTests = PackJarTask.create("compiledTests", PackJarTaskTests.createFiles(process, 10L, 10L, 10L), () -> Result.success());
+
+                    test.assertEqual(
+                        Iterable.create(compiledSources, compiledTests, sources),
+                        PackJarTask.getStartOrder(Iterable.create(sources, compiledSources, compiledTests)));
+                });
+
+                runner.test("with equal costs",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final PackJarTask sources = PackJarTask.create("sources", PackJarTaskTests.createFiles(process, 10L), () -> Result.success());
+                    final PackJarTask compiledSources = PackJarTask.create("compiledSources", PackJarTaskTests.createFiles(process, 10L), () -> Result.success());
+
+                    test.assertEqual(
+                        Iterable.create(sources, compiledSources),
+                        PackJarTask.getStartOrder(Iterable.create(sources, compiledSources)));
+                });
+
+                runner.test("with previous times for every task",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final PackJarTask sources = PackJarTask.create("sources", PackJarTaskTests.createFiles(process, 50000L), () -> Result.success())
+                        .setPreviousMilliseconds(5L);
+                    final PackJarTask compiledSources = PackJarTask.create("compiledSources", PackJarTaskTests.createFiles(process, 100L), () -> Result.success())
+                        .setPreviousMilliseconds(40L);
+
+                    test.assertEqual(
+                        Iterable.create(compiledSources, sources),
+                        PackJarTask.getStartOrder(Iterable.create(sources, compiledSources)));
+                });
+
+                runner.test("with previous times for some tasks",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final PackJarTask sources = PackJarTask.create("sources", PackJarTaskTests.createFiles(process, 50000L), () -> Result.success())
+                        .setPreviousMilliseconds(5L);
+                    final PackJarTask compiledSources = PackJarTask.create("compiledSources", PackJarTaskTests.createFiles(process, 100L), () -> Result.success());
+
+                    test.assertEqual(
+                        Iterable.create(sources, compiledSources),
+                        PackJarTask.getStartOrder(Iterable.create(sources, compiledSources)));
+                });
+            });
+        });
+
+        runner.testGroup(PackJarTaskScheduler.class, () ->
+        {
+            runner.testGroup("add(PackJarTask)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    final PackJarTaskScheduler scheduler = PackJarTaskScheduler.create(true, true);
+                    test.assertThrows(() -> scheduler.add(null),
+                        new PreConditionFailure("task cannot be null."));
+                });
+            });
+
+            runner.testGroup("await()", () ->
+            {
+                final Action2<Boolean,Boolean> awaitTest = (Boolean parallel, Boolean criticalPath) ->
+                {
+                    runner.test("with " + English.andList("parallel=" + parallel, "criticalPath=" + criticalPath),
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final List<String> events = List.create();
+                        final PackJarTaskScheduler scheduler = PackJarTaskScheduler.create(parallel, criticalPath);
+                        for (final PackJarTask task : Iterable.create(
+                            PackJarTaskTests.createTask(process, "sources", 10L, events),
+                            PackJarTaskTests.createTask(process, "compiledSources", 50000L, events)))
+                        {
+                            test.assertSame(scheduler, scheduler.add(task));
+                        }
+                        events.add("added");
+
+                        final Iterable<PackJarTask> scheduledTasks = scheduler.await();
+
+                        if (!parallel)
+                        {
+                            test.assertEqual(Iterable.create("start sources", "create sources", "start compiledSources", "create compiledSources", "added"), events);
+                            test.assertEqual(Iterable.create(), scheduledTasks.map(PackJarTask::getJarType));
+                        }
+                        else if (!criticalPath)
+                        {
+                            test.assertEqual(Iterable.create("start sources", "start compiledSources", "added"), Iterable.create(events.get(0), events.get(1), events.get(2)));
+                            test.assertEqual(5, events.getCount());
+                            test.assertTrue(events.contains("create sources"));
+                            test.assertTrue(events.contains("create compiledSources"));
+                            test.assertEqual(Iterable.create(), scheduledTasks.map(PackJarTask::getJarType));
+                        }
+                        else
+                        {
+                            test.assertEqual(Iterable.create("added", "start compiledSources", "start sources"), Iterable.create(events.get(0), events.get(1), events.get(2)));
+                            test.assertEqual(5, events.getCount());
+                            test.assertEqual(Iterable.create("compiledSources", "sources"), scheduledTasks.map(PackJarTask::getJarType));
+                            for (final PackJarTask scheduledTask : scheduledTasks)
+                            {
+                                test.assertNotNull(scheduledTask.getMilliseconds());
+                            }
+                        }
+                    });
+                };
+
+                awaitTest.run(false, false);
+                awaitTest.run(true, false);
+                awaitTest.run(true, true);
+
+                runner.test("with lazy tasks that wait for each other", (Test test) ->
+                {
+                    // Each task can only finish after both tasks have started creating their jar
+                    // files, so this only finishes if the tasks are waited for at the same time.
+                    final java.util.concurrent.CountDownLatch createdLatch = new java.util.concurrent.CountDownLatch(2);
+                    final PackJarTaskScheduler scheduler = PackJarTaskScheduler.create(true, false);
+                    for (final String jarType : Iterable.create("sources", "compiledSources"))
+                    {
+                        scheduler.add(PackJarTask.create(jarType, Iterable.create(), () -> LazyResult.create(() ->
+                        {
+                            createdLatch.countDown();
+                            try
+                            {
+                                if (!createdLatch.await(10, java.util.concurrent.TimeUnit.SECONDS))
+                                {
+                                    throw new RuntimeException("The jar files weren't created at the same time.");
+                                }
+                            }
+                            catch (InterruptedException e)
+                            {
+                                throw Exceptions.asRuntime(e);
+                            }
+                            return null;
+                        })));
+                    }
+
+                    scheduler.await();
+                    test.assertEqual(0L, createdLatch.getCount());
+                });
+
+                runner.test("with a task that fails", (Test test) ->
+                {
+                    final PackJarTaskScheduler scheduler = PackJarTaskScheduler.create(true, true);
+                    final IntegerValue createCount = IntegerValue.create(0);
+                    scheduler.add(PackJarTask.create("sources", Iterable.create(), () -> Result.error(new NotFoundException("sources"))));
+                    scheduler.add(PackJarTask.create("compiledSources", Iterable.create(), () -> LazyResult.create(() ->
+                    {
+                        synchronized (createCount)
+                        {
+                            createCount.increment();
+                        }
+                        return null;
+                    })));
+
+                    test.assertThrows(() -> scheduler.await(),
+                        new NotFoundException("sources"));
+                    test.assertEqual(1, createCount.getAsInt());
+                });
+            });
+        });
+    }
+
+    static Iterable<FileSnapshot> createFiles(FakeDesktopProcess process, Long... sizes)
+    {
+        PreCondition.assertNotNull(process, "process");
+        PreCondition.assertNotNull(sizes, "sizes");
+
+        final Folder folder = process.getCurrentFolder();
+        final List<FileSnapshot> result = List.create();
+        for (final Long size : sizes)
+        {
+            final Path relativePath = Path.parse("File" + result.getCount() + ".java");
+            result.add(FileSnapshot.create(folder.getFile(relativePath).await(), relativePath, size, DateTime.epoch));
+        }
+        return result;
+    }
+
+    static PackJarTask createTask(FakeDesktopProcess process, String jarType, long size, List<String> events)
+    {
+        PreCondition.assertNotNull(process, "process");
+        PreCondition.assertNotNullAndNotEmpty(jarType, "jarType");
+        PreCondition.assertNotNull(events, "events");
+
+        return PackJarTask.create(jarType, PackJarTaskTests.createFiles(process, size), () ->
+        {
+            synchronized (events)
+            {
+                events.add("start " + jarType);
+            }
+            return LazyResult.create(() ->
+            {
+                synchronized (events)
+                {
+                    events.add("create " + jarType);
+                }
+                return null;
+            });
+        });
+    }
+}
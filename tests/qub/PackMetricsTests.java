@@ -0,0 +1,120 @@
+package qub;
+
+public interface PackMetricsTests
+{
+    static void test(TestRunner runner)
+    {
+        PreCondition.assertNotNull(runner, "runner");
+
+        runner.testGroup(PackMetrics.class, () ->
+        {
+            runner.test("create()", (Test test) ->
+            {
+                final PackMetrics metrics = PackMetrics.create();
+                test.assertNotNull(metrics);
+                test.assertEqual(Iterable.create(), metrics.getPhases());
+            });
+
+            runner.testGroup("startPhase(String)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    final PackMetrics metrics = PackMetrics.create();
+                    test.assertThrows(() -> metrics.startPhase(null),
+                        new PreConditionFailure("name cannot be null."));
+                });
+
+                runner.test("with empty", (Test test) ->
+                {
+                    final PackMetrics metrics = PackMetrics.create();
+                    test.assertThrows(() -> metrics.startPhase(""),
+                        new PreConditionFailure("name cannot be empty."));
+                });
+
+                runner.test("with \"scanSources\"", (Test test) ->
+                {
+                    final PackMetrics metrics = PackMetrics.create();
+                    final PackMetricsPhase phase = metrics.startPhase("scanSources");
+                    test.assertNotNull(phase);
+                    test.assertEqual("scanSources", phase.getName());
+                    test.assertFalse(phase.hasEnded());
+                    test.assertNull(phase.getFiles());
+                    test.assertNull(phase.getBytesIn());
+                    test.assertNull(phase.getBytesOut());
+                    test.assertEqual(Iterable.create(phase), metrics.getPhases());
+                });
+            });
+
+            runner.test("toJson()", (Test test) ->
+            {
+                final PackMetrics metrics = PackMetrics.create();
+                metrics.startPhase("scanSources").setFiles(3).end();
+                metrics.startPhase("sourcesJar").setFiles(3).setBytesIn(10).setBytesOut(5).end();
+                metrics.startPhase("notEnded");
+                metrics.end();
+
+                final JSONObject json = metrics.toJson();
+                final JSONObject phases = json.getObject("phases").await();
+                test.assertEqual(
+                    Iterable.create("scanSources", "sourcesJar"),
+                    phases.getProperties().map(JSONProperty::getName).toList());
+                final JSONObject sourcesJar = phases.getObject("sourcesJar").await();
+                test.assertEqual(3.0, sourcesJar.getNumber("files").await());
+                test.assertEqual(10.0, sourcesJar.getNumber("bytesIn").await());
+                test.assertEqual(5.0, sourcesJar.getNumber("bytesOut").await());
+                test.assertTrue(sourcesJar.getNumber("wallMilliseconds").await() >= 0);
+                test.assertTrue(json.getNumber("totalWallMilliseconds").await() >= 0);
+            });
+
+            runner.testGroup("toTraceJson()", () ->
+            {
+                runner.test("before end()", (Test test) ->
+                {
+                    final PackMetrics metrics = PackMetrics.create();
+                    test.assertThrows(() -> metrics.toTraceJson(),
+                        new PreConditionFailure("this.total.hasEnded() must be true."));
+                });
+
+                runner.test("after end()", (Test test) ->
+                {
+                    final PackMetrics metrics = PackMetrics.create();
+                    metrics.startPhase("scanSources").setFiles(3).end();
+                    metrics.startConcurrentPhase("sourcesJar").end();
+                    metrics.startPhase("notEnded");
+                    metrics.end();
+
+                    final JSONObject json = metrics.toTraceJson();
+                    final List<String> phases = List.create();
+                    final List<String> names = List.create();
+                    for (final JSONSegment traceEventSegment : json.getArray("traceEvents").await())
+                    {
+                        final JSONObject traceEvent = (JSONObject)traceEventSegment;
+                        phases.add(traceEvent.getString("ph").await());
+                        names.add(traceEvent.getString("name").await());
+                    }
+                    test.assertEqual(
+                        Iterable.create("M", "M", "X", "X", "b", "e"),
+                        phases);
+                    test.assertEqual(
+                        Iterable.create("process_name", "thread_name", "total", "scanSources", "sourcesJar", "sourcesJar"),
+                        names);
+                    test.assertEqual("ms", json.getString("displayTimeUnit").await());
+                });
+            });
+
+            runner.test("getSummary()", (Test test) ->
+            {
+                final PackMetrics metrics = PackMetrics.create();
+                metrics.startPhase("scanSources").end();
+                metrics.startPhase("testRun").end();
+                metrics.end();
+
+                final String summary = metrics.getSummary();
+                test.assertTrue(summary.startsWith("Pack metrics: scanSources="), summary);
+                test.assertTrue(summary.contains(", testRun="), summary);
+                test.assertTrue(summary.contains(", total="), summary);
+                test.assertTrue(summary.endsWith("ms"), summary);
+            });
+        });
+    }
+}
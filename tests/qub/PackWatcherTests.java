@@ -0,0 +1,191 @@
+package qub;
+
+public interface PackWatcherTests
+{
+    static void test(TestRunner runner)
+    {
+        PreCondition.assertNotNull(runner, "runner");
+
+        runner.testGroup(PackWatcher.class, () ->
+        {
+            runner.testGroup("create(Folder)", () ->
+            {
+                runner.test("with null folderToPack", (Test test) ->
+                {
+                    test.assertThrows(() -> PackWatcher.create(null),
+                        new PreConditionFailure("folderToPack cannot be null."));
+                });
+
+                runner.test("with folder that isn't on the Java file system",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    test.assertThrows(() -> PackWatcher.create(process.getCurrentFolder()),
+                        new PreConditionFailure("folderToPack.getFileSystem() instanceof JavaFileSystem must be true."));
+                });
+            });
+
+            runner.testGroup("isWatchedChange(Path)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> PackWatcher.isWatchedChange(null),
+                        new PreConditionFailure("relativePath cannot be null."));
+                });
+
+                final Action2<String,Boolean> isWatchedChangeTest = (String relativePath, Boolean expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(relativePath), (Test test) ->
+                    {
+                        test.assertEqual(expected, PackWatcher.isWatchedChange(Path.parse(relativePath)));
+                    });
+                };
+
+                isWatchedChangeTest.run("sources", false);
+                isWatchedChangeTest.run("sources/a/B.java", true);
+                isWatchedChangeTest.run("sources/a/B.txt", false);
+                isWatchedChangeTest.run("tests/a/BTests.java", true);
+                isWatchedChangeTest.run("outputs/a/B.class", true);
+                isWatchedChangeTest.run("outputs/a/B$1.class", true);
+                isWatchedChangeTest.run("outputs/a/B.java", false);
+                isWatchedChangeTest.run("outputs/a.jar", false);
+                isWatchedChangeTest.run("outputs/a.sources.jar.tmp", false);
+                isWatchedChangeTest.run("outputs/pack.json", false);
+                isWatchedChangeTest.run("outputs/META-INF/MANIFEST.MF", false);
+                isWatchedChangeTest.run("outputs/META-INF/A.class", false);
+                isWatchedChangeTest.run("project.json", false);
+                isWatchedChangeTest.run("other/A.java", false);
+            });
+
+            runner.testGroup("watchPacks(QubPackParameters,PackWatcher,Function1<QubPackParameters,Integer>)", () ->
+            {
+                runner.test("when closed during the debounce wait",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder projectFolder = PackWatcherTests.createProjectFolder();
+                    try
+                    {
+                        final QubPackParameters parameters = PackWatcherTests.getParameters(process, projectFolder)
+                            .setWatchDebounceMilliseconds(60000);
+                        final java.util.concurrent.atomic.AtomicInteger packCount = new java.util.concurrent.atomic.AtomicInteger();
+                        try (final PackWatcher watcher = PackWatcher.create(projectFolder))
+                        {
+                            final int exitCode = QubPack.watchPacks(parameters, watcher, (QubPackParameters packParameters) ->
+                            {
+                                packCount.incrementAndGet();
+
+                                // Change a file so that the watcher starts waiting for the changes
+                                // to stop, and then close the watcher while it waits.
+                                projectFolder.getFile("sources/A.java").await().setContentsAsString("class A {}").await();
+                                PackWatcherTests.runLater(watcher::close);
+                                return 0;
+                            });
+
+                            test.assertEqual(0, exitCode);
+                            test.assertEqual(1, packCount.get());
+                            test.assertTrue(watcher.isClosed());
+                            test.assertLinesEqual(
+                                Iterable.create(
+                                    "Watching " + projectFolder + " for changes...",
+                                    "Stopped watching " + projectFolder + "."),
+                                process.getOutputWriteStream());
+                        }
+                    }
+                    finally
+                    {
+                        projectFolder.delete().await();
+                    }
+                });
+
+                runner.test("when the thread is interrupted while waiting",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder projectFolder = PackWatcherTests.createProjectFolder();
+                    try
+                    {
+                        final QubPackParameters parameters = PackWatcherTests.getParameters(process, projectFolder);
+                        final java.util.concurrent.atomic.AtomicInteger packCount = new java.util.concurrent.atomic.AtomicInteger();
+                        try (final PackWatcher watcher = PackWatcher.create(projectFolder))
+                        {
+                            final Thread watchThread = Thread.currentThread();
+                            final int exitCode = QubPack.watchPacks(parameters, watcher, (QubPackParameters packParameters) ->
+                            {
+                                packCount.incrementAndGet();
+                                PackWatcherTests.runLater(watchThread::interrupt);
+                                return 0;
+                            });
+
+                            // Clear the interrupted status so that it doesn't leak into other tests.
+                            test.assertTrue(Thread.interrupted());
+                            test.assertEqual(0, exitCode);
+                            test.assertEqual(1, packCount.get());
+                            test.assertFalse(watcher.isClosed());
+                            test.assertLinesEqual(
+                                Iterable.create(
+                                    "Watching " + projectFolder + " for changes...",
+                                    "Stopped watching " + projectFolder + "."),
+                                process.getOutputWriteStream());
+                        }
+                    }
+                    finally
+                    {
+                        projectFolder.delete().await();
+                    }
+                });
+            });
+        });
+    }
+
+    /**
+     * Create a project folder with an empty sources folder in a new temporary folder on the Java
+     * file system, since only folders on the Java file system can be watched.
+     * @return The new project folder.
+     */
+    static Folder createProjectFolder()
+    {
+        final java.nio.file.Path temporaryFolderPath;
+        try
+        {
+            temporaryFolderPath = java.nio.file.Files.createTempDirectory("qub-pack-watcher");
+        }
+        catch (java.io.IOException e)
+        {
+            throw Exceptions.asRuntime(e);
+        }
+
+        final Folder result = JavaFileSystem.create().getFolder(temporaryFolderPath.toString()).await();
+        result.createFolder("sources").await();
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    static QubPackParameters getParameters(FakeDesktopProcess process, Folder projectFolder)
+    {
+        PreCondition.assertNotNull(process, "process");
+        PreCondition.assertNotNull(projectFolder, "projectFolder");
+
+        return QubPackTests.getParameters(process)
+            .createForFolder(process.getOutputWriteStream(), process.getErrorWriteStream(), projectFolder);
+    }
+
+    /**
+     * Run the provided action on another thread after a short delay, so that it runs while the
+     * calling thread is waiting for changes.
+     * @param action The action to run.
+     */
+    static void runLater(Action0 action)
+    {
+        PreCondition.assertNotNull(action, "action");
+
+        PackExecutor.get().submit(() ->
+        {
+            java.lang.Thread.sleep(100);
+            action.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,291 @@
+package qub;
+
+/**
+ * Measures the throughput and allocation rate of the operations that a pack spends its time in
+ * as the number of files in a project grows. This isn't a test, so it isn't run by the test
+ * runner. Run it directly with the tests' classpath:
+ * <pre>
+ * java -cp outputs;... qub.QubPackBenchmark [--files=100,1000,10000,100000]
+ *     [--innerclassratios=0,0.5] [--changedfractions=0,0.1] [--filesystems=memory,java]
+ *     [--iterations=10]
+ * </pre>
+ * To see how repack time grows with the fraction of changed files, compare the repackJarFile
+ * rows across a range of changed fractions, such as --changedfractions=0,0.01,0.1,0.5,1.
+ */
+public interface QubPackBenchmark
+{
+    static void main(String[] args)
+    {
+        DesktopProcess.run(args, (DesktopProcess process) -> QubPackBenchmark.run(process, Iterable.create(args)));
+    }
+
+    static void run(DesktopProcess process, Iterable<String> arguments)
+    {
+        PreCondition.assertNotNull(process, "process");
+        PreCondition.assertNotNull(arguments, "arguments");
+
+        final CharacterToByteWriteStream output = process.getOutputWriteStream();
+        final Iterable<Integer> fileCounts = QubPackBenchmark.getArgument(arguments, "files", "100,1000,10000,100000").map(Integer::parseInt).toList();
+        final Iterable<Double> innerClassRatios = QubPackBenchmark.getArgument(arguments, "innerclassratios", "0,0.5").map(Double::parseDouble).toList();
+        final Iterable<Double> changedFractions = QubPackBenchmark.getArgument(arguments, "changedfractions", "0,0.1").map(Double::parseDouble).toList();
+        final Iterable<String> fileSystems = QubPackBenchmark.getArgument(arguments, "filesystems", "memory,java");
+        final int iterations = Integer.parseInt(QubPackBenchmark.getArgument(arguments, "iterations", "10").first());
+
+        output.writeLine("fileSystem,files,innerClassRatio,changedFraction,operation,operationsPerSecond,bytesAllocatedPerOperation").await();
+        for (final String fileSystemName : fileSystems)
+        {
+            for (final int fileCount : fileCounts)
+            {
+                for (final double innerClassRatio : innerClassRatios)
+                {
+                    final Folder projectFolder = QubPackBenchmark.createProjectFolder(process, fileSystemName);
+                    try
+                    {
+                        QubPackBenchmark.createProject(projectFolder, fileCount, innerClassRatio);
+                        for (final double changedFraction : changedFractions)
+                        {
+                            final String prefix = fileSystemName + "," + fileCount + "," + innerClassRatio + "," + changedFraction + ",";
+                            QubPackBenchmark.runOperations(process, projectFolder, changedFraction, iterations, (String operation, Double operationsPerSecond, Long bytesAllocatedPerOperation) ->
+                            {
+                                output.writeLine(prefix + operation + "," + String.format("%.2f", operationsPerSecond) + "," + bytesAllocatedPerOperation).await();
+                            });
+                        }
+                    }
+                    finally
+                    {
+                        projectFolder.delete()
+                            .catchError()
+                            .await();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the comma-separated values of the command line argument with the provided name.
+     * @param arguments The command line arguments.
+     * @param name The name of the argument.
+     * @param defaultValue The value to use if the argument isn't provided.
+     * @return The values of the argument.
+     */
+    static Iterable<String> getArgument(Iterable<String> arguments, String name, String defaultValue)
+    {
+        PreCondition.assertNotNull(arguments, "arguments");
+        PreCondition.assertNotNullAndNotEmpty(name, "name");
+        PreCondition.assertNotNullAndNotEmpty(defaultValue, "defaultValue");
+
+        final String prefix = "--" + name + "=";
+        final String argument = arguments.first((String a) -> a.startsWith(prefix));
+        final String value = argument == null ? defaultValue : argument.substring(prefix.length());
+        return Iterable.create(value.split(","));
+    }
+
+    /**
+     * Create an empty folder for a synthetic project.
+     * @param process The process that is running the benchmark.
+     * @param fileSystemName Either "memory" for an in-memory file system or "java" for a
+     *                       temporary folder on the real file system.
+     * @return The new project folder.
+     */
+    static Folder createProjectFolder(DesktopProcess process, String fileSystemName)
+    {
+        PreCondition.assertNotNull(process, "process");
+        PreCondition.assertTrue(fileSystemName.equals("memory") || fileSystemName.equals("java"), "fileSystemName.equals(\"memory\") || fileSystemName.equals(\"java\")");
+
+        Folder result;
+        if (fileSystemName.equals("memory"))
+        {
+            final InMemoryFileSystem fileSystem = InMemoryFileSystem.create(process.getClock());
+            fileSystem.createRoot("/").await();
+            result = fileSystem.getFolder("/project/").await();
+        }
+        else
+        {
+            try
+            {
+                final java.nio.file.Path temporaryFolderPath = java.nio.file.Files.createTempDirectory("qub-pack-benchmark");
+                result = process.getFileSystem().getFolder(temporaryFolderPath.toString()).await();
+            }
+            catch (java.io.IOException e)
+            {
+                throw Exceptions.asRuntime(e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Create a synthetic project with the provided number of source files. Each source file has
+     * a matching class file, and the provided fraction of source files also have an inner class.
+     * @param projectFolder The folder to create the project in.
+     * @param fileCount The number of source files to create.
+     * @param innerClassRatio The fraction of source files that have an inner class.
+     */
+    static void createProject(Folder projectFolder, int fileCount, double innerClassRatio)
+    {
+        PreCondition.assertNotNull(projectFolder, "projectFolder");
+        PreCondition.assertGreaterThanOrEqualTo(fileCount, 1, "fileCount");
+        PreCondition.assertTrue(0 <= innerClassRatio && innerClassRatio <= 1, "0 <= innerClassRatio && innerClassRatio <= 1");
+
+        projectFolder.getFile("project.json").await().setContentsAsString(
+            ProjectJSON.create()
+                .setPublisher("me")
+                .setProject("benchmark")
+                .setVersion("1")
+                .setJava(ProjectJSONJava.create())
+                .toString())
+            .await();
+
+        final Folder sourceFolder = projectFolder.getFolder("sources").await();
+        final Folder outputFolder = projectFolder.getFolder("outputs").await();
+        final int innerClassInterval = innerClassRatio == 0 ? 0 : (int)Math.round(1 / innerClassRatio);
+        for (int i = 0; i < fileCount; ++i)
+        {
+            final String className = "p" + (i / 100) + "/C" + i;
+            sourceFolder.getFile(className + ".java").await()
+                .setContentsAsString("class C" + i + " { }").await();
+            outputFolder.getFile(className + ".class").await()
+                .setContentsAsString("C" + i + " bytecode").await();
+            if (innerClassInterval != 0 && i % innerClassInterval == 0)
+            {
+                outputFolder.getFile(className + "$Inner.class").await()
+                    .setContentsAsString("C" + i + "$Inner bytecode").await();
+            }
+        }
+    }
+
+    /**
+     * Run each of the benchmarked operations against the provided project.
+     * @param process The process that is running the benchmark.
+     * @param projectFolder The folder of the project.
+     * @param changedFraction The fraction of class files that will look like they've changed
+     *                        since the previous pack.
+     * @param iterations The number of measured iterations of each operation.
+     * @param report The action that will be invoked with each operation's name, its operations
+     *               per second, and the number of bytes it allocated per operation.
+     */
+    static void runOperations(DesktopProcess process, Folder projectFolder, double changedFraction, int iterations, Action3<String,Double,Long> report)
+    {
+        PreCondition.assertNotNull(process, "process");
+        PreCondition.assertNotNull(projectFolder, "projectFolder");
+        PreCondition.assertTrue(0 <= changedFraction && changedFraction <= 1, "0 <= changedFraction && changedFraction <= 1");
+        PreCondition.assertGreaterThanOrEqualTo(iterations, 1, "iterations");
+        PreCondition.assertNotNull(report, "report");
+
+        final Folder sourceFolder = projectFolder.getFolder("sources").await();
+        final Folder outputFolder = projectFolder.getFolder("outputs").await();
+        final FolderSnapshot sourceFolderSnapshot = FolderSnapshot.create(sourceFolder, ".java", false);
+        final FolderSnapshot outputFolderSnapshot = FolderSnapshot.create(outputFolder, ".class", true);
+
+        // Record the previous pack with an old last modified time for the changed fraction of
+        // class files so that they are detected as modified every time.
+        final DateTime oldLastModified = DateTime.create(2000, 1, 1);
+        final int changedInterval = changedFraction == 0 ? 0 : (int)Math.round(1 / changedFraction);
+        final List<PackJSONFile> previousFiles = List.create();
+        final List<Path> unchangedFilePaths = List.create();
+        int index = 0;
+        for (final FileSnapshot outputClassFile : outputFolderSnapshot.getFiles())
+        {
+            final boolean changed = changedInterval != 0 && index % changedInterval == 0;
+            previousFiles.add(PackJSONFile.create(outputClassFile.getRelativePath(), changed ? oldLastModified : outputClassFile.getLastModified()));
+            if (!changed)
+            {
+                unchangedFilePaths.add(outputClassFile.getRelativePath());
+            }
+            ++index;
+        }
+        final PackJSON packJson = PackJSON.create()
+            .setProject("benchmark")
+            .setSourceOutputFiles(previousFiles);
+        final String packJsonText = packJson.toString(JSONFormat.pretty);
+
+        QubPackBenchmark.measure("FolderSnapshot.create", iterations, report, () ->
+        {
+            FolderSnapshot.create(outputFolder, ".class", true);
+        });
+        QubPackBenchmark.measure("getJarFileChanges", iterations, report, () ->
+        {
+            QubPack.getJarFileChanges(packJson, PackJSON::getSourceOutputFiles, (PackJSON p, Iterable<PackJSONFile> files) -> {}, "benchmark", outputFolderSnapshot.getFiles(), false);
+        });
+        QubPackBenchmark.measure("getSourceClassFiles", iterations, report, () ->
+        {
+            final SourceClassFileIndex sourceClassFileIndex = SourceClassFileIndex.create(sourceFolderSnapshot);
+            int sourceClassFileCount = 0;
+            for (final FileSnapshot outputClassFile : outputFolderSnapshot.getFiles())
+            {
+                if (sourceClassFileIndex.contains(SourceClassFileIndex.getClassFileKey(outputClassFile.getRelativePath())))
+                {
+                    ++sourceClassFileCount;
+                }
+            }
+            PostCondition.assertEqual(outputFolderSnapshot.getFiles().getCount(), sourceClassFileCount, "sourceClassFileCount");
+        });
+        QubPackBenchmark.measure("PackJSON.parse", iterations, report, () ->
+        {
+            PackJSON.create(JSON.parseObject(packJsonText).await()).getSourceOutputFiles();
+        });
+        QubPackBenchmark.measure("PackJSON.toString", iterations, report, () ->
+        {
+            packJson.toString(JSONFormat.pretty);
+        });
+        final File jarFile = outputFolder.getFile("benchmark.jar").await();
+        QubPackBenchmark.measure("createJarFile", iterations, report, () ->
+        {
+            InternalJarCreator.create()
+                .createJarFile(CreateJarFileParameters.create(outputFolder, jarFile, outputFolderSnapshot.getFiles().map(FileSnapshot::getFile).toList())
+                    .setFileSnapshots(outputFolderSnapshot.getFiles())
+                    .setVerbose(VerboseCharacterToByteWriteStream.create(process.getOutputWriteStream()))
+                    .setOutputWriteStream(process.getOutputWriteStream())
+                    .setErrorWriteStream(process.getErrorWriteStream()))
+                .await();
+        });
+
+        // Repack from the jar file that was just created. Only the changed fraction of entries
+        // are compressed again. The rest are copied from the previous jar file.
+        final File repackedJarFile = outputFolder.getFile("benchmark.repacked.jar").await();
+        QubPackBenchmark.measure("repackJarFile", iterations, report, () ->
+        {
+            InternalJarCreator.create()
+                .createJarFile(CreateJarFileParameters.create(outputFolder, repackedJarFile, outputFolderSnapshot.getFiles().map(FileSnapshot::getFile).toList())
+                    .setFileSnapshots(outputFolderSnapshot.getFiles())
+                    .setPreviousJarFile(jarFile, unchangedFilePaths)
+                    .setVerbose(VerboseCharacterToByteWriteStream.create(process.getOutputWriteStream()))
+                    .setOutputWriteStream(process.getOutputWriteStream())
+                    .setErrorWriteStream(process.getErrorWriteStream()))
+                .await();
+        });
+    }
+
+    /**
+     * Run the provided operation once to warm it up, then measure the provided number of
+     * iterations. Allocations are measured on the current thread, so allocations that are made
+     * on other threads (such as compression threads) aren't included.
+     * @param operation The name of the operation.
+     * @param iterations The number of measured iterations.
+     * @param report The action that the measurements will be reported to.
+     * @param action The operation to measure.
+     */
+    static void measure(String operation, int iterations, Action3<String,Double,Long> report, Action0 action)
+    {
+        PreCondition.assertNotNullAndNotEmpty(operation, "operation");
+        PreCondition.assertGreaterThanOrEqualTo(iterations, 1, "iterations");
+        PreCondition.assertNotNull(report, "report");
+        PreCondition.assertNotNull(action, "action");
+
+        action.run();
+
+        final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean)java.lang.management.ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        final long startAllocatedBytes = threadBean.getThreadAllocatedBytes(threadId);
+        final long startNanoseconds = System.nanoTime();
+        for (int i = 0; i < iterations; ++i)
+        {
+            action.run();
+        }
+        final long elapsedNanoseconds = System.nanoTime() - startNanoseconds;
+        final long allocatedBytes = threadBean.getThreadAllocatedBytes(threadId) - startAllocatedBytes;
+
+        report.run(operation, iterations / (elapsedNanoseconds / 1_000_000_000.0), allocatedBytes / iterations);
+    }
+}
@@ -176,6 +176,695 @@ public interface QubPackParametersTests
                 setBuildJson.run(true);
             });
 
+            runner.testGroup("setJarEngine(JarEngine)", () ->
+            {
+                runner.test("with null",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                    test.assertThrows(() -> parameters.setJarEngine(null),
+                        new PreConditionFailure("jarEngine cannot be null."));
+                    test.assertEqual(JarEngine.Internal, parameters.getJarEngine());
+                });
+
+                final Action1<JarEngine> setJarEngineTest = (JarEngine jarEngine) ->
+                {
+                    runner.test("with " + jarEngine,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setJarEngineResult = parameters.setJarEngine(jarEngine);
+                        test.assertSame(parameters, setJarEngineResult);
+                        test.assertEqual(jarEngine, parameters.getJarEngine());
+                    });
+                };
+
+                for (final JarEngine jarEngine : JarEngine.values())
+                {
+                    setJarEngineTest.run(jarEngine);
+                }
+            });
+
+            runner.testGroup("setIncrementalPack(boolean)", () ->
+            {
+                final Action1<Boolean> setIncrementalPackTest = (Boolean incrementalPack) ->
+                {
+                    runner.test("with " + incrementalPack,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setIncrementalPackResult = parameters.setIncrementalPack(incrementalPack);
+                        test.assertSame(parameters, setIncrementalPackResult);
+                        test.assertEqual(incrementalPack, parameters.getIncrementalPack());
+                    });
+                };
+
+                setIncrementalPackTest.run(false);
+                setIncrementalPackTest.run(true);
+            });
+
+            runner.testGroup("setContentHash(boolean)", () ->
+            {
+                final Action1<Boolean> setContentHashTest = (Boolean contentHash) ->
+                {
+                    runner.test("with " + contentHash,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setContentHashResult = parameters.setContentHash(contentHash);
+                        test.assertSame(parameters, setContentHashResult);
+                        test.assertEqual(contentHash, parameters.getContentHash());
+                    });
+                };
+
+                setContentHashTest.run(false);
+                setContentHashTest.run(true);
+            });
+
+            runner.testGroup("setFileAttributeThreadCount(int)", () ->
+            {
+                runner.test("with 0",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                    test.assertThrows(() -> parameters.setFileAttributeThreadCount(0),
+                        new PreConditionFailure("fileAttributeThreadCount (0) must be greater than or equal to 1."));
+                    test.assertEqual(QubPackParameters.getFileAttributeThreadCountDefault(), parameters.getFileAttributeThreadCount());
+                });
+
+                final Action1<Integer> setFileAttributeThreadCountTest = (Integer fileAttributeThreadCount) ->
+                {
+                    runner.test("with " + fileAttributeThreadCount,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setFileAttributeThreadCountResult = parameters.setFileAttributeThreadCount(fileAttributeThreadCount);
+                        test.assertSame(parameters, setFileAttributeThreadCountResult);
+                        test.assertEqual(fileAttributeThreadCount, parameters.getFileAttributeThreadCount());
+                    });
+                };
+
+                setFileAttributeThreadCountTest.run(1);
+                setFileAttributeThreadCountTest.run(64);
+            });
+
+            runner.testGroup("setJarArgumentFileThreshold(int)", () ->
+            {
+                runner.test("with -1",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                    test.assertThrows(() -> parameters.setJarArgumentFileThreshold(-1),
+                        new PreConditionFailure("jarArgumentFileThreshold (-1) must be greater than or equal to 0."));
+                    test.assertEqual(QubPackParameters.getJarArgumentFileThresholdDefault(), parameters.getJarArgumentFileThreshold());
+                });
+
+                final Action1<Integer> setJarArgumentFileThresholdTest = (Integer jarArgumentFileThreshold) ->
+                {
+                    runner.test("with " + jarArgumentFileThreshold,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setJarArgumentFileThresholdResult = parameters.setJarArgumentFileThreshold(jarArgumentFileThreshold);
+                        test.assertSame(parameters, setJarArgumentFileThresholdResult);
+                        test.assertEqual(jarArgumentFileThreshold, parameters.getJarArgumentFileThreshold());
+                    });
+                };
+
+                setJarArgumentFileThresholdTest.run(0);
+                setJarArgumentFileThresholdTest.run(1000);
+            });
+
+            runner.testGroup("setSourcesJarCompressionLevel(int)", () ->
+            {
+                final Action1<Integer> setSourcesJarCompressionLevelErrorTest = (Integer sourcesJarCompressionLevel) ->
+                {
+                    runner.test("with " + sourcesJarCompressionLevel,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        test.assertThrows(() -> parameters.setSourcesJarCompressionLevel(sourcesJarCompressionLevel),
+                            new PreConditionFailure("sourcesJarCompressionLevel (" + sourcesJarCompressionLevel + ") must be between 0 and 9."));
+                    });
+                };
+
+                setSourcesJarCompressionLevelErrorTest.run(-1);
+                setSourcesJarCompressionLevelErrorTest.run(10);
+
+                final Action1<Integer> setSourcesJarCompressionLevelTest = (Integer sourcesJarCompressionLevel) ->
+                {
+                    runner.test("with " + sourcesJarCompressionLevel,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setSourcesJarCompressionLevelResult = parameters.setSourcesJarCompressionLevel(sourcesJarCompressionLevel);
+                        test.assertSame(parameters, setSourcesJarCompressionLevelResult);
+                        test.assertEqual(sourcesJarCompressionLevel, parameters.getSourcesJarCompressionLevel());
+                    });
+                };
+
+                setSourcesJarCompressionLevelTest.run(0);
+                setSourcesJarCompressionLevelTest.run(9);
+            });
+
+            runner.testGroup("setCompiledSourcesJarCompressionLevel(int)", () ->
+            {
+                final Action1<Integer> setCompiledSourcesJarCompressionLevelErrorTest = (Integer compiledSourcesJarCompressionLevel) ->
+                {
+                    runner.test("with " + compiledSourcesJarCompressionLevel,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        test.assertThrows(() -> parameters.setCompiledSourcesJarCompressionLevel(compiledSourcesJarCompressionLevel),
+                            new PreConditionFailure("compiledSourcesJarCompressionLevel (" + compiledSourcesJarCompressionLevel + ") must be between 0 and 9."));
+                    });
+                };
+
+                setCompiledSourcesJarCompressionLevelErrorTest.run(-1);
+                setCompiledSourcesJarCompressionLevelErrorTest.run(10);
+
+                final Action1<Integer> setCompiledSourcesJarCompressionLevelTest = (Integer compiledSourcesJarCompressionLevel) ->
+                {
+                    runner.test("with " + compiledSourcesJarCompressionLevel,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setCompiledSourcesJarCompressionLevelResult = parameters.setCompiledSourcesJarCompressionLevel(compiledSourcesJarCompressionLevel);
+                        test.assertSame(parameters, setCompiledSourcesJarCompressionLevelResult);
+                        test.assertEqual(compiledSourcesJarCompressionLevel, parameters.getCompiledSourcesJarCompressionLevel());
+                    });
+                };
+
+                setCompiledSourcesJarCompressionLevelTest.run(0);
+                setCompiledSourcesJarCompressionLevelTest.run(9);
+            });
+
+            runner.testGroup("setCompiledTestsJarCompressionLevel(int)", () ->
+            {
+                final Action1<Integer> setCompiledTestsJarCompressionLevelErrorTest = (Integer compiledTestsJarCompressionLevel) ->
+                {
+                    runner.test("with " + compiledTestsJarCompressionLevel,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        test.assertThrows(() -> parameters.setCompiledTestsJarCompressionLevel(compiledTestsJarCompressionLevel),
+                            new PreConditionFailure("compiledTestsJarCompressionLevel (" + compiledTestsJarCompressionLevel + ") must be between 0 and 9."));
+                    });
+                };
+
+                setCompiledTestsJarCompressionLevelErrorTest.run(-1);
+                setCompiledTestsJarCompressionLevelErrorTest.run(10);
+
+                final Action1<Integer> setCompiledTestsJarCompressionLevelTest = (Integer compiledTestsJarCompressionLevel) ->
+                {
+                    runner.test("with " + compiledTestsJarCompressionLevel,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setCompiledTestsJarCompressionLevelResult = parameters.setCompiledTestsJarCompressionLevel(compiledTestsJarCompressionLevel);
+                        test.assertSame(parameters, setCompiledTestsJarCompressionLevelResult);
+                        test.assertEqual(compiledTestsJarCompressionLevel, parameters.getCompiledTestsJarCompressionLevel());
+                    });
+                };
+
+                setCompiledTestsJarCompressionLevelTest.run(0);
+                setCompiledTestsJarCompressionLevelTest.run(9);
+            });
+
+            runner.testGroup("setCompressionLevel(int)", () ->
+            {
+                runner.test("with 10",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                    test.assertThrows(() -> parameters.setCompressionLevel(10),
+                        new PreConditionFailure("compressionLevel (10) must be between 0 and 9."));
+                });
+
+                runner.test("with 0",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                    final QubPackParameters setCompressionLevelResult = parameters.setCompressionLevel(0);
+                    test.assertSame(parameters, setCompressionLevelResult);
+                    test.assertEqual(0, parameters.getSourcesJarCompressionLevel());
+                    test.assertEqual(0, parameters.getCompiledSourcesJarCompressionLevel());
+                    test.assertEqual(0, parameters.getCompiledTestsJarCompressionLevel());
+                });
+            });
+
+            runner.testGroup("setForceTests(boolean)", () ->
+            {
+                final Action1<Boolean> setForceTestsTest = (Boolean forceTests) ->
+                {
+                    runner.test("with " + forceTests,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setForceTestsResult = parameters.setForceTests(forceTests);
+                        test.assertSame(parameters, setForceTestsResult);
+                        test.assertEqual(forceTests, parameters.getForceTests());
+                    });
+                };
+
+                setForceTestsTest.run(false);
+                setForceTestsTest.run(true);
+            });
+
+            runner.testGroup("setPipelinedPack(boolean)", () ->
+            {
+                final Action1<Boolean> setPipelinedPackTest = (Boolean pipelinedPack) ->
+                {
+                    runner.test("with " + pipelinedPack,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setPipelinedPackResult = parameters.setPipelinedPack(pipelinedPack);
+                        test.assertSame(parameters, setPipelinedPackResult);
+                        test.assertEqual(pipelinedPack, parameters.getPipelinedPack());
+                    });
+                };
+
+                setPipelinedPackTest.run(false);
+                setPipelinedPackTest.run(true);
+            });
+
+            runner.testGroup("setPackMetrics(boolean)", () ->
+            {
+                final Action1<Boolean> setPackMetricsTest = (Boolean packMetrics) ->
+                {
+                    runner.test("with " + packMetrics,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setPackMetricsResult = parameters.setPackMetrics(packMetrics);
+                        test.assertSame(parameters, setPackMetricsResult);
+                        test.assertEqual(packMetrics, parameters.getPackMetrics());
+                    });
+                };
+
+                setPackMetricsTest.run(false);
+                setPackMetricsTest.run(true);
+            });
+
+            runner.testGroup("setTraceFile(File)", () ->
+            {
+                runner.test("with null",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                    final QubPackParameters setTraceFileResult = parameters.setTraceFile(null);
+                    test.assertSame(parameters, setTraceFileResult);
+                    test.assertNull(parameters.getTraceFile());
+                });
+
+                runner.test("with non-null",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+                    final File traceFile = process.getCurrentFolder().getFile("trace.json").await();
+
+                    final QubPackParameters setTraceFileResult = parameters.setTraceFile(traceFile);
+                    test.assertSame(parameters, setTraceFileResult);
+                    test.assertSame(traceFile, parameters.getTraceFile());
+                });
+            });
+
+            runner.testGroup("setAdaptiveCompression(boolean)", () ->
+            {
+                final Action1<Boolean> setAdaptiveCompressionTest = (Boolean adaptiveCompression) ->
+                {
+                    runner.test("with " + adaptiveCompression,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setAdaptiveCompressionResult = parameters.setAdaptiveCompression(adaptiveCompression);
+                        test.assertSame(parameters, setAdaptiveCompressionResult);
+                        test.assertEqual(adaptiveCompression, parameters.getAdaptiveCompression());
+                    });
+                };
+
+                setAdaptiveCompressionTest.run(false);
+                setAdaptiveCompressionTest.run(true);
+            });
+
+            runner.testGroup("setAdaptiveCompressionMinimumSavings(double)", () ->
+            {
+                final Action1<Double> setAdaptiveCompressionMinimumSavingsErrorTest = (Double adaptiveCompressionMinimumSavings) ->
+                {
+                    runner.test("with " + adaptiveCompressionMinimumSavings,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        test.assertThrows(() -> parameters.setAdaptiveCompressionMinimumSavings(adaptiveCompressionMinimumSavings),
+                            new PreConditionFailure("0 <= adaptiveCompressionMinimumSavings && adaptiveCompressionMinimumSavings <= 1 must be true."));
+                    });
+                };
+
+                setAdaptiveCompressionMinimumSavingsErrorTest.run(-0.1);
+                setAdaptiveCompressionMinimumSavingsErrorTest.run(1.5);
+
+                final Action1<Double> setAdaptiveCompressionMinimumSavingsTest = (Double adaptiveCompressionMinimumSavings) ->
+                {
+                    runner.test("with " + adaptiveCompressionMinimumSavings,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setAdaptiveCompressionMinimumSavingsResult = parameters.setAdaptiveCompressionMinimumSavings(adaptiveCompressionMinimumSavings);
+                        test.assertSame(parameters, setAdaptiveCompressionMinimumSavingsResult);
+                        test.assertEqual(adaptiveCompressionMinimumSavings, parameters.getAdaptiveCompressionMinimumSavings());
+                    });
+                };
+
+                setAdaptiveCompressionMinimumSavingsTest.run(0.0);
+                setAdaptiveCompressionMinimumSavingsTest.run(0.25);
+                setAdaptiveCompressionMinimumSavingsTest.run(1.0);
+            });
+
+            runner.testGroup("setReproducible(boolean)", () ->
+            {
+                final Action1<Boolean> setReproducibleTest = (Boolean reproducible) ->
+                {
+                    runner.test("with " + reproducible,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setReproducibleResult = parameters.setReproducible(reproducible);
+                        test.assertSame(parameters, setReproducibleResult);
+                        test.assertEqual(reproducible, parameters.getReproducible());
+                    });
+                };
+
+                setReproducibleTest.run(false);
+                setReproducibleTest.run(true);
+            });
+
+            runner.testGroup("setReproducibleTimestamp(DateTime)", () ->
+            {
+                runner.test("with null",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                    test.assertThrows(() -> parameters.setReproducibleTimestamp(null),
+                        new PreConditionFailure("reproducibleTimestamp cannot be null."));
+                });
+
+                runner.test("with 2020-01-02",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                    final QubPackParameters setReproducibleTimestampResult = parameters.setReproducibleTimestamp(DateTime.create(2020, 1, 2));
+                    test.assertSame(parameters, setReproducibleTimestampResult);
+                    test.assertEqual(DateTime.create(2020, 1, 2), parameters.getReproducibleTimestamp());
+                });
+            });
+
+            runner.testGroup("setJarCache(boolean)", () ->
+            {
+                final Action1<Boolean> setJarCacheTest = (Boolean jarCache) ->
+                {
+                    runner.test("with " + jarCache,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setJarCacheResult = parameters.setJarCache(jarCache);
+                        test.assertSame(parameters, setJarCacheResult);
+                        test.assertEqual(jarCache, parameters.getJarCache());
+                    });
+                };
+
+                setJarCacheTest.run(false);
+                setJarCacheTest.run(true);
+            });
+
+            runner.testGroup("setWatch(boolean)", () ->
+            {
+                final Action1<Boolean> setWatchTest = (Boolean watch) ->
+                {
+                    runner.test("with " + watch,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setWatchResult = parameters.setWatch(watch);
+                        test.assertSame(parameters, setWatchResult);
+                        test.assertEqual(watch, parameters.getWatch());
+                    });
+                };
+
+                setWatchTest.run(false);
+                setWatchTest.run(true);
+            });
+
+            runner.testGroup("setWatchDebounceMilliseconds(int)", () ->
+            {
+                runner.test("with -1",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                    test.assertThrows(() -> parameters.setWatchDebounceMilliseconds(-1),
+                        new PreConditionFailure("watchDebounceMilliseconds (-1) must be greater than or equal to 0."));
+                    test.assertEqual(QubPackParameters.getWatchDebounceMillisecondsDefault(), parameters.getWatchDebounceMilliseconds());
+                });
+
+                final Action1<Integer> setWatchDebounceMillisecondsTest = (Integer watchDebounceMilliseconds) ->
+                {
+                    runner.test("with " + watchDebounceMilliseconds,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setWatchDebounceMillisecondsResult = parameters.setWatchDebounceMilliseconds(watchDebounceMilliseconds);
+                        test.assertSame(parameters, setWatchDebounceMillisecondsResult);
+                        test.assertEqual(watchDebounceMilliseconds, parameters.getWatchDebounceMilliseconds());
+                    });
+                };
+
+                setWatchDebounceMillisecondsTest.run(0);
+                setWatchDebounceMillisecondsTest.run(500);
+            });
+
+            runner.testGroup("setPreviousPackJson(PackJSON)", () ->
+            {
+                final Action1<PackJSON> setPreviousPackJsonTest = (PackJSON previousPackJson) ->
+                {
+                    runner.test("with " + previousPackJson,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setPreviousPackJsonResult = parameters.setPreviousPackJson(previousPackJson);
+                        test.assertSame(parameters, setPreviousPackJsonResult);
+                        test.assertSame(previousPackJson, parameters.getPreviousPackJson());
+                    });
+                };
+
+                setPreviousPackJsonTest.run(null);
+                setPreviousPackJsonTest.run(PackJSON.create().setProject("a"));
+            });
+
+            runner.testGroup("setDaemon(boolean)", () ->
+            {
+                final Action1<Boolean> setDaemonTest = (Boolean daemon) ->
+                {
+                    runner.test("with " + daemon,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setDaemonResult = parameters.setDaemon(daemon);
+                        test.assertSame(parameters, setDaemonResult);
+                        test.assertEqual(daemon, parameters.getDaemon());
+                    });
+                };
+
+                setDaemonTest.run(false);
+                setDaemonTest.run(true);
+            });
+
+            runner.testGroup("setUseDaemon(boolean)", () ->
+            {
+                final Action1<Boolean> setUseDaemonTest = (Boolean useDaemon) ->
+                {
+                    runner.test("with " + useDaemon,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setUseDaemonResult = parameters.setUseDaemon(useDaemon);
+                        test.assertSame(parameters, setUseDaemonResult);
+                        test.assertEqual(useDaemon, parameters.getUseDaemon());
+                    });
+                };
+
+                setUseDaemonTest.run(false);
+                setUseDaemonTest.run(true);
+            });
+
+            runner.testGroup("setFolderPatterns(Iterable<String>)", () ->
+            {
+                runner.test("with null",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                    test.assertThrows(() -> parameters.setFolderPatterns(null),
+                        new PreConditionFailure("folderPatterns cannot be null."));
+                    test.assertEqual(QubPackParameters.getFolderPatternsDefault(), parameters.getFolderPatterns());
+                });
+
+                final Action1<Iterable<String>> setFolderPatternsTest = (Iterable<String> folderPatterns) ->
+                {
+                    runner.test("with " + folderPatterns,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setFolderPatternsResult = parameters.setFolderPatterns(folderPatterns);
+                        test.assertSame(parameters, setFolderPatternsResult);
+                        test.assertEqual(folderPatterns, parameters.getFolderPatterns());
+                    });
+                };
+
+                setFolderPatternsTest.run(Iterable.create());
+                setFolderPatternsTest.run(Iterable.create("libraries/*", "apps/web"));
+            });
+
+            runner.testGroup("setConcurrency(int)", () ->
+            {
+                runner.test("with 0",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                    test.assertThrows(() -> parameters.setConcurrency(0),
+                        new PreConditionFailure("concurrency (0) must be greater than or equal to 1."));
+                    test.assertEqual(QubPackParameters.getConcurrencyDefault(), parameters.getConcurrency());
+                });
+
+                final Action1<Integer> setConcurrencyTest = (Integer concurrency) ->
+                {
+                    runner.test("with " + concurrency,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setConcurrencyResult = parameters.setConcurrency(concurrency);
+                        test.assertSame(parameters, setConcurrencyResult);
+                        test.assertEqual(concurrency, parameters.getConcurrency());
+                    });
+                };
+
+                setConcurrencyTest.run(1);
+                setConcurrencyTest.run(8);
+            });
+
+            runner.testGroup("setTaskPermits(java.util.concurrent.Semaphore)", () ->
+            {
+                final Action1<java.util.concurrent.Semaphore> setTaskPermitsTest = (java.util.concurrent.Semaphore taskPermits) ->
+                {
+                    runner.test("with " + taskPermits,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setTaskPermitsResult = parameters.setTaskPermits(taskPermits);
+                        test.assertSame(parameters, setTaskPermitsResult);
+                        test.assertSame(taskPermits, parameters.getTaskPermits());
+                    });
+                };
+
+                setTaskPermitsTest.run(null);
+                setTaskPermitsTest.run(new java.util.concurrent.Semaphore(2, true));
+            });
+
+            runner.testGroup("setCriticalPathPack(boolean)", () ->
+            {
+                final Action1<Boolean> setCriticalPathPackTest = (Boolean criticalPathPack) ->
+                {
+                    runner.test("with " + criticalPathPack,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackParametersTests.getParameters(process);
+
+                        final QubPackParameters setCriticalPathPackResult = parameters.setCriticalPathPack(criticalPathPack);
+                        test.assertSame(parameters, setCriticalPathPackResult);
+                        test.assertEqual(criticalPathPack, parameters.getCriticalPathPack());
+                    });
+                };
+
+                setCriticalPathPackTest.run(false);
+                setCriticalPathPackTest.run(true);
+            });
+
             runner.testGroup("setVerbose(VerboseCharacterWriteStream)", () ->
             {
                 runner.test("with null",
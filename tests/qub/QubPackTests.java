@@ -33,17 +33,37 @@ public interface QubPackTests
                     test.assertEqual(-1, process.getExitCode());
                     test.assertEqual(
                         Iterable.create(
-                            "Usage: qub-pack [[--folder=]<folder-to-pack>] [--packjson] [--parallelpack] [--testjson] [--buildjson] [--warnings=<show|error|hide>] [--verbose] [--profiler] [--help]",
+                            "Usage: qub-pack [[--folder=]<folder-to-pack>] [--packjson] [--contenthash] [--parallelpack] [--jarengine=<process|internal>] [--incrementalpack] [--forcetests] [--pipelinedpack] [--criticalpathpack] [--packmetrics] [--trace=<trace-file>] [--compressionlevel=<0-9>] [--sourcescompressionlevel=<0-9>] [--compiledsourcescompressionlevel=<0-9>] [--compiledtestscompressionlevel=<0-9>] [--adaptivecompression] [--reproducible] [--jarcache] [--watch] [--daemon] [--usedaemon] [--folders=<folder-patterns>] [--concurrency=<count>] [--testjson] [--buildjson] [--warnings=<show|error|hide>] [--verbose] [--profiler] [--help]",
                             "  Used to package source and compiled code in source code projects.",
-                            "  --folder:       The folder to pack. Defaults to the current folder.",
-                            "  --packjson:     Whether or not to read and write a pack.json file. Defaults to true.",
-                            "  --parallelpack: Whether or not the jar files will be packaged in parallel. Defaults to true.",
-                            "  --testjson:     Whether or not to write the test results to a test.json file.",
-                            "  --buildjson:    Whether or not to read and write a build.json file. Defaults to true.",
-                            "  --warnings:     How to handle build warnings. Can be either \"show\", \"error\", or \"hide\". Defaults to \"show\".",
-                            "  --verbose(v):   Whether or not to show verbose logs.",
-                            "  --profiler:     Whether or not this application should pause before it is run to allow a profiler to be attached.",
-                            "  --help(?):      Show the help message for this application."),
+                            "  --folder:                          The folder to pack. Defaults to the current folder.",
+                            "  --packjson:                        Whether or not to read and write a pack.json file. Defaults to true.",
+                            "  --contenthash:                     Whether or not the pack.json file will record the size and content hash of each file so that files that are rewritten with identical contents don't cause the jar files to be created again. Defaults to false.",
+                            "  --parallelpack:                    Whether or not the jar files will be packaged in parallel. Defaults to true.",
+                            "  --jarengine:                       The engine that will be used to create the jar files. Can be either \"process\" or \"internal\". Defaults to \"internal\".",
+                            "  --incrementalpack:                 Whether or not unchanged entries will be copied from the previous jar files instead of being compressed again. Only used by the internal jar engine. Defaults to true.",
+                            "  --forcetests:                      Whether or not the project will be compiled and tested even if its files, its dependencies, and the test parameters haven't changed since its tests last passed. When this is false and --packjson is true, an unchanged project's compilation and tests are skipped. Defaults to false.",
+                            "  --pipelinedpack:                   Whether or not the sources jar file will be created while the tests run. It is only published after the tests pass. Defaults to false.",
+                            "  --criticalpathpack:                Whether or not the parallel jar files will be started most expensive first, with the compiled sources jar file published as soon as it is created. Defaults to false.",
+                            "  --packmetrics:                     Whether or not the time, file counts, and byte counts of each phase of the pack will be written to a pack-metrics.json file. Defaults to false.",
+                            "  --trace:                           The file that a Chrome trace event timeline of each phase of the pack will be written to. The file can be opened with chrome://tracing or with the Perfetto UI.",
+                            "  --compressionlevel:                The compression level of every jar file, from 0 (stored) to 9 (best compression). Each jar file's own compression level parameter overrides this. The jar engine process only supports 0 or its default compression level.",
+                            "  --sourcescompressionlevel:         The compression level of the sources jar file, from 0 (stored) to 9 (best compression). Defaults to 6.",
+                            "  --compiledsourcescompressionlevel: The compression level of the compiled sources jar file, from 0 (stored) to 9 (best compression). Defaults to 6.",
+                            "  --compiledtestscompressionlevel:   The compression level of the compiled tests jar file, from 0 (stored) to 9 (best compression). Defaults to 1.",
+                            "  --adaptivecompression:             Whether or not jar file entries that don't shrink when they are compressed will be stored instead. The jar engine process doesn't support this. Defaults to false.",
+                            "  --reproducible:                    Whether or not the jar file entries will be sorted by name and given a fixed timestamp so that identical files produce identical jar files. Reproducible jar files are always created by the internal jar engine. Defaults to false.",
+                            "  --jarcache:                        Whether or not jar files will be copied from a cache that is shared by every project on this machine when a jar file with the same contents has already been created. Defaults to false.",
+                            "  --watch:                           Whether or not the project will be packed again every time that its source files, test files, or compiled class files change. Defaults to false.",
+                            "  --daemon:                          Whether or not this process will keep running and pack the projects that other qub-pack processes send to it. Defaults to false.",
+                            "  --usedaemon:                       Whether or not the project will be sent to a running pack daemon to be packed. If no pack daemon is running, then the project is packed by this process. Defaults to false.",
+                            "  --folders:                         A comma-separated list of project folders to pack instead of the folder to pack. Each folder is relative to the folder to pack and each of its segments can be a glob, such as libraries/*.",
+                            "  --concurrency:                     The maximum number of project folders, test runs, and jar files that will be packed, run, and created at the same time when --folders is used. Defaults to the number of processors.",
+                            "  --testjson:                        Whether or not to write the test results to a test.json file.",
+                            "  --buildjson:                       Whether or not to read and write a build.json file. Defaults to true.",
+                            "  --warnings:                        How to handle build warnings. Can be either \"show\", \"error\", or \"hide\". Defaults to \"show\".",
+                            "  --verbose(v):                      Whether or not to show verbose logs.",
+                            "  --profiler:                        Whether or not this application should pause before it is run to allow a profiler to be attached.",
+                            "  --help(?):                         Show the help message for this application."),
                         Strings.getLines(process.getOutputWriteStream().getText().await()));
                     test.assertEqual(
                         Iterable.create(),
@@ -85,6 +105,35 @@ public interface QubPackTests
                     test.assertNull(parameters.getPattern());
                     test.assertTrue(parameters.getPackJson());
                     test.assertTrue(parameters.getParallelPack());
+                    test.assertEqual(JarEngine.Internal, parameters.getJarEngine());
+                    test.assertTrue(parameters.getIncrementalPack());
+                    test.assertFalse(parameters.getContentHash());
+                    test.assertEqual(16, parameters.getFileAttributeThreadCount());
+                    test.assertEqual(256, parameters.getJarArgumentFileThreshold());
+                    test.assertFalse(parameters.getForceTests());
+                    test.assertFalse(parameters.getPipelinedPack());
+                    test.assertFalse(parameters.getPackMetrics());
+                    test.assertNull(parameters.getTraceFile());
+                    test.assertEqual(6, parameters.getSourcesJarCompressionLevel());
+                    test.assertEqual(6, parameters.getCompiledSourcesJarCompressionLevel());
+                    test.assertEqual(1, parameters.getCompiledTestsJarCompressionLevel());
+                    test.assertFalse(parameters.getAdaptiveCompression());
+                    test.assertEqual(0.1, parameters.getAdaptiveCompressionMinimumSavings());
+                    test.assertFalse(parameters.getReproducible());
+                    test.assertEqual(DateTime.create(1980, 2, 1), parameters.getReproducibleTimestamp());
+                    test.assertFalse(parameters.getJarCache());
+                    test.assertEqual(qubFolder.getProjectFolder("qub", "pack-java").await().getProjectDataFolder().await().getFolder("jar-cache").await(), parameters.getJarCacheFolder());
+                    test.assertEqual(1024L * 1024 * 1024, parameters.getJarCacheMaximumBytes());
+                    test.assertFalse(parameters.getWatch());
+                    test.assertEqual(200, parameters.getWatchDebounceMilliseconds());
+                    test.assertNull(parameters.getPreviousPackJson());
+                    test.assertFalse(parameters.getDaemon());
+                    test.assertFalse(parameters.getUseDaemon());
+                    test.assertEqual(qubFolder.getProjectFolder("qub", "pack-java").await().getProjectDataFolder().await().getFile("daemon.json").await(), parameters.getDaemonFile());
+                    test.assertEqual(Iterable.create(), parameters.getFolderPatterns());
+                    test.assertEqual(java.lang.Runtime.getRuntime().availableProcessors(), parameters.getConcurrency());
+                    test.assertNull(parameters.getTaskPermits());
+                    test.assertFalse(parameters.getCriticalPathPack());
                     test.assertSame(process.getProcessFactory(), parameters.getProcessFactory());
                     test.assertFalse(parameters.getProfiler());
                     test.assertEqual(qubBuildDataFolder, parameters.getQubBuildDataFolder());
@@ -98,6 +147,232 @@ public interface QubPackTests
                     test.assertEqual("", process.getOutputWriteStream().getText().await());
                     test.assertEqual("", process.getErrorWriteStream().getText().await());
                 });
+
+                runner.test("with --compressionlevel=0",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess("--compressionlevel=0")),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    QubPackTests.addQubBuildAndQubTestTypeContainers(process);
+
+                    final QubPackParameters parameters = QubPack.getParameters(process);
+                    test.assertNotNull(parameters);
+                    test.assertEqual(0, parameters.getSourcesJarCompressionLevel());
+                    test.assertEqual(0, parameters.getCompiledSourcesJarCompressionLevel());
+                    test.assertEqual(0, parameters.getCompiledTestsJarCompressionLevel());
+
+                    test.assertEqual("", process.getOutputWriteStream().getText().await());
+                    test.assertEqual("", process.getErrorWriteStream().getText().await());
+                });
+
+                runner.test("with --compressionlevel=10",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess("--compressionlevel=10")),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    QubPackTests.addQubBuildAndQubTestTypeContainers(process);
+
+                    final QubPackParameters parameters = QubPack.getParameters(process);
+                    test.assertNull(parameters);
+                    test.assertEqual(-1, process.getExitCode());
+
+                    test.assertEqual("", process.getOutputWriteStream().getText().await());
+                    test.assertEqual(
+                        Iterable.create(
+                            "ERROR: The --compressionlevel value must be an integer from 0 to 9, but was \"10\"."),
+                        Strings.getLines(process.getErrorWriteStream().getText().await()));
+                });
+
+                runner.test("with --compressionlevel=0 --compiledtestscompressionlevel=3",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess("--compressionlevel=0", "--compiledtestscompressionlevel=3")),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    QubPackTests.addQubBuildAndQubTestTypeContainers(process);
+
+                    final QubPackParameters parameters = QubPack.getParameters(process);
+                    test.assertNotNull(parameters);
+                    test.assertEqual(0, parameters.getSourcesJarCompressionLevel());
+                    test.assertEqual(0, parameters.getCompiledSourcesJarCompressionLevel());
+                    test.assertEqual(3, parameters.getCompiledTestsJarCompressionLevel());
+
+                    test.assertEqual("", process.getOutputWriteStream().getText().await());
+                    test.assertEqual("", process.getErrorWriteStream().getText().await());
+                });
+
+                runner.test("with --sourcescompressionlevel=5 --compiledsourcescompressionlevel=7",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess("--sourcescompressionlevel=5", "--compiledsourcescompressionlevel=7")),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    QubPackTests.addQubBuildAndQubTestTypeContainers(process);
+
+                    final QubPackParameters parameters = QubPack.getParameters(process);
+                    test.assertNotNull(parameters);
+                    test.assertEqual(5, parameters.getSourcesJarCompressionLevel());
+                    test.assertEqual(7, parameters.getCompiledSourcesJarCompressionLevel());
+                    test.assertEqual(1, parameters.getCompiledTestsJarCompressionLevel());
+
+                    test.assertEqual("", process.getOutputWriteStream().getText().await());
+                    test.assertEqual("", process.getErrorWriteStream().getText().await());
+                });
+
+                runner.test("with --compressionlevel=0 --compiledsourcescompressionlevel=a",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess("--compressionlevel=0", "--compiledsourcescompressionlevel=a")),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    QubPackTests.addQubBuildAndQubTestTypeContainers(process);
+
+                    final QubPackParameters parameters = QubPack.getParameters(process);
+                    test.assertNull(parameters);
+                    test.assertEqual(-1, process.getExitCode());
+
+                    test.assertEqual("", process.getOutputWriteStream().getText().await());
+                    test.assertEqual(
+                        Iterable.create(
+                            "ERROR: The --compiledsourcescompressionlevel value must be an integer from 0 to 9, but was \"a\"."),
+                        Strings.getLines(process.getErrorWriteStream().getText().await()));
+                });
+
+                runner.test("with --compiledsourcescompressionlevel=high",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess("--compiledsourcescompressionlevel=high")),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    QubPackTests.addQubBuildAndQubTestTypeContainers(process);
+
+                    final QubPackParameters parameters = QubPack.getParameters(process);
+                    test.assertNull(parameters);
+                    test.assertEqual(-1, process.getExitCode());
+
+                    test.assertEqual("", process.getOutputWriteStream().getText().await());
+                    test.assertEqual(
+                        Iterable.create(
+                            "ERROR: The --compiledsourcescompressionlevel value must be an integer from 0 to 9, but was \"high\"."),
+                        Strings.getLines(process.getErrorWriteStream().getText().await()));
+                });
+                runner.test("with --folders=libraries/*,apps/web --concurrency=3",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess("--folders=libraries/*,apps/web", "--concurrency=3")),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    QubPackTests.addQubBuildAndQubTestTypeContainers(process);
+
+                    final QubPackParameters parameters = QubPack.getParameters(process);
+                    test.assertNotNull(parameters);
+                    test.assertEqual(Iterable.create("libraries/*", "apps/web"), parameters.getFolderPatterns());
+                    test.assertEqual(3, parameters.getConcurrency());
+
+                    test.assertEqual("", process.getOutputWriteStream().getText().await());
+                    test.assertEqual("", process.getErrorWriteStream().getText().await());
+                });
+
+                runner.test("with --concurrency=0",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess("--concurrency=0")),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    QubPackTests.addQubBuildAndQubTestTypeContainers(process);
+
+                    final QubPackParameters parameters = QubPack.getParameters(process);
+                    test.assertNull(parameters);
+                    test.assertEqual(-1, process.getExitCode());
+
+                    test.assertEqual("", process.getOutputWriteStream().getText().await());
+                    test.assertEqual(
+                        Iterable.create(
+                            "ERROR: The --concurrency value must be a positive integer, but was \"0\"."),
+                        Strings.getLines(process.getErrorWriteStream().getText().await()));
+                });
+            });
+
+            runner.testGroup("parseFolderPatterns(String)", () ->
+            {
+                final Action2<String,Iterable<String>> parseFolderPatternsTest = (String foldersString, Iterable<String> expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(foldersString), (Test test) ->
+                    {
+                        test.assertEqual(expected, QubPack.parseFolderPatterns(foldersString));
+                    });
+                };
+
+                parseFolderPatternsTest.run("", Iterable.create());
+                parseFolderPatternsTest.run("a", Iterable.create("a"));
+                parseFolderPatternsTest.run("a,b/*", Iterable.create("a", "b/*"));
+                parseFolderPatternsTest.run(" a , ,b ", Iterable.create("a", "b"));
+            });
+
+            runner.testGroup("parseConcurrency(String)", () ->
+            {
+                final Action2<String,Integer> parseConcurrencyTest = (String concurrencyString, Integer expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(concurrencyString), (Test test) ->
+                    {
+                        test.assertEqual(expected, QubPack.parseConcurrency(concurrencyString));
+                    });
+                };
+
+                parseConcurrencyTest.run("1", 1);
+                parseConcurrencyTest.run("32", 32);
+                parseConcurrencyTest.run("0", null);
+                parseConcurrencyTest.run("-2", null);
+                parseConcurrencyTest.run("two", null);
+            });
+
+            runner.testGroup("getErrorMessage(Throwable)", () ->
+            {
+                final Action2<Throwable,String> getErrorMessageTest = (Throwable e, String expected) ->
+                {
+                    runner.test("with " + e.getClass().getSimpleName(), (Test test) ->
+                    {
+                        test.assertEqual(expected, QubPack.getErrorMessage(e));
+                    });
+                };
+
+                getErrorMessageTest.run(new NullPointerException(), "An unexpected java.lang.NullPointerException was thrown.");
+                getErrorMessageTest.run(new RuntimeException(""), "An unexpected java.lang.RuntimeException was thrown.");
+                getErrorMessageTest.run(new NotFoundException("The file at \"/a/project.json\" doesn't exist."), "The file at \"/a/project.json\" doesn't exist.");
+            });
+
+            runner.testGroup("getJarEngine(QubPackParameters)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> QubPack.getJarEngine(null),
+                        new PreConditionFailure("parameters cannot be null."));
+                });
+
+                final Action3<JarEngine,Boolean,JarEngine> getJarEngineTest = (JarEngine jarEngine, Boolean reproducible, JarEngine expected) ->
+                {
+                    runner.test("with " + jarEngine + " and reproducible=" + reproducible,
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final QubPackParameters parameters = QubPackTests.getParameters(process)
+                            .setJarEngine(jarEngine)
+                            .setReproducible(reproducible);
+                        test.assertEqual(expected, QubPack.getJarEngine(parameters));
+                    });
+                };
+
+                getJarEngineTest.run(JarEngine.Process, false, JarEngine.Process);
+                getJarEngineTest.run(JarEngine.Internal, false, JarEngine.Internal);
+                getJarEngineTest.run(JarEngine.Process, true, JarEngine.Internal);
+                getJarEngineTest.run(JarEngine.Internal, true, JarEngine.Internal);
+            });
+
+            runner.testGroup("findFoldersToPack(Folder,Iterable<String>)", () ->
+            {
+                runner.test("with literal and glob patterns",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder currentFolder = process.getCurrentFolder();
+                    final Folder bFolder = currentFolder.getFolder("libraries/b").await();
+                    bFolder.getFile("project.json").await().setContentsAsString("{}").await();
+                    final Folder aFolder = currentFolder.getFolder("libraries/a").await();
+                    aFolder.getFile("project.json").await().setContentsAsString("{}").await();
+                    currentFolder.getFile("libraries/c/README.md").await().setContentsAsString("Not a project.").await();
+                    final Folder webFolder = currentFolder.getFolder("apps/web").await();
+                    webFolder.getFile("project.json").await().setContentsAsString("{}").await();
+
+                    test.assertEqual(
+                        Iterable.create(aFolder, bFolder, webFolder),
+                        QubPack.findFoldersToPack(currentFolder, Iterable.create("libraries/*", "apps/web", "libraries/a", "apps/missing", "missing/*")));
+                });
             });
 
             runner.testGroup("run(QubPackParameters)", () ->
@@ -108,6 +383,86 @@ public interface QubPackTests
                         new PreConditionFailure("parameters cannot be null."));
                 });
 
+                runner.test("with watch=true on a file system that can't be watched",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters parameters = QubPackTests.getParameters(process)
+                        .setWatch(true);
+
+                    final int exitCode = QubPack.run(parameters);
+
+                    test.assertLinesEqual(
+                        Iterable.create(),
+                        process.getOutputWriteStream());
+                    test.assertLinesEqual(
+                        Iterable.create(
+                            "ERROR: --watch can only watch folders on the local file system."),
+                        process.getErrorWriteStream());
+                    test.assertEqual(-1, exitCode);
+                });
+
+                runner.test("with usedaemon=true and no running pack daemon",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters parameters = QubPackTests.getParameters(process)
+                        .setUseDaemon(true);
+
+                    final int exitCode = QubPack.run(parameters);
+
+                    test.assertLinesEqual(
+                        Iterable.create(
+                            "ERROR: The file at \"/project.json\" doesn't exist."),
+                        process.getOutputWriteStream());
+                    test.assertLinesEqual(
+                        Iterable.create(),
+                        process.getErrorWriteStream());
+                    test.assertEqual(1, exitCode);
+                });
+
+                runner.test("with folders that don't match any project folders",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters parameters = QubPackTests.getParameters(process)
+                        .setFolderPatterns(Iterable.create("libraries/*"));
+
+                    final int exitCode = QubPack.run(parameters);
+
+                    test.assertLinesEqual(
+                        Iterable.create(),
+                        process.getOutputWriteStream());
+                    test.assertLinesEqual(
+                        Iterable.create(
+                            "ERROR: No project folders in / matched \"libraries/*\"."),
+                        process.getErrorWriteStream());
+                    test.assertEqual(1, exitCode);
+                });
+
+                runner.test("with folders that match a project folder that fails to pack",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder aFolder = process.getCurrentFolder().getFolder("libraries/a").await();
+                    aFolder.getFile("project.json").await().setContentsAsString(
+                        ProjectJSON.create()
+                            .setJava(ProjectJSONJava.create())
+                            .toString())
+                        .await();
+                    final QubPackParameters parameters = QubPackTests.getParameters(process)
+                        .setFolderPatterns(Iterable.create("libraries/*"))
+                        .setConcurrency(2);
+
+                    final int exitCode = QubPack.run(parameters);
+
+                    final Iterable<String> outputLines = Strings.getLines(process.getOutputWriteStream().getText().await());
+                    test.assertEqual("Packing " + aFolder + "...", outputLines.first());
+                    test.assertTrue(outputLines.contains("Packed 1 folder: 0 succeeded, 1 failed."));
+                    test.assertTrue(outputLines.contains("  Failed: " + aFolder));
+                    test.assertEqual(1, exitCode);
+                });
+
                 runner.test("with no project.json file",
                     (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
                     (Test test, FakeDesktopProcess process) ->
@@ -205,7 +560,7 @@ public interface QubPackTests
                         .add(new FakeJarProcessRun()
                             .setWorkingFolder(sourcesFolder)
                             .addCreate()
-                            .addJarFile(aSourcesJarFile.relativeTo(outputsFolder))
+                            .addJarFile(QubPack.getUnpublishedJarFile(aSourcesJarFile))
                             .addContentFilePath(aJavaFile.relativeTo(sourcesFolder))
                             .setFunctionAutomatically())
                         .add(new FakeJarProcessRun()
@@ -243,7 +598,7 @@ public interface QubPackTests
                         Strings.getLines(aJarFile.getContentsAsString().await()));
                 });
 
-                runner.test("with simple success and verbose",
+                runner.test("with criticalpathpack=true",
                     (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
                     (Test test, FakeDesktopProcess process) ->
                 {
@@ -288,7 +643,7 @@ public interface QubPackTests
                             .addClasspath(Iterable.create(outputsFolder.toString(), jvmClassPath))
                             .addConsoleTestRunnerFullClassName()
                             .addProfiler(false)
-                            .addVerbose(true)
+                            .addVerbose(false)
                             .addTestJson(true)
                             .addLogFile(qubTestLogFile)
                             .addOutputFolder(outputsFolder)
@@ -297,46 +652,27 @@ public interface QubPackTests
                         .add(new FakeJarProcessRun()
                             .setWorkingFolder(sourcesFolder)
                             .addCreate()
-                            .addJarFile(aSourcesJarFile.relativeTo(outputsFolder))
+                            .addJarFile(QubPack.getUnpublishedJarFile(aSourcesJarFile))
                             .addContentFilePath(aJavaFile.relativeTo(sourcesFolder))
                             .setFunctionAutomatically())
                         .add(new FakeJarProcessRun()
                             .setWorkingFolder(outputsFolder)
                             .addCreate()
-                            .addJarFile(aJarFile.relativeTo(outputsFolder))
+                            .addJarFile(QubPack.getUnpublishedJarFile(aJarFile).relativeTo(outputsFolder))
                             .addContentFilePaths(Iterable.create(aClassFile.relativeTo(outputsFolder)))
                             .setFunctionAutomatically());
                     final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath)
-                        .setVerbose(VerboseCharacterToByteWriteStream.create(process.getOutputWriteStream()));
+                        .setCriticalPathPack(true);
 
                     final int exitCode = QubPack.run(parameters);
 
                     test.assertLinesEqual(
                         Iterable.create(
-                            "VERBOSE: Parsing project.json...",
-                            "VERBOSE: Getting javac version...",
-                            "VERBOSE: Running /: javac --version...",
-                            "VERBOSE: javac 14.0.1",
-                            "VERBOSE: Parsing outputs/build.json...",
-                            "VERBOSE: Updating outputs/build.json...",
-                            "VERBOSE: Setting project.json...",
-                            "VERBOSE: Setting source files...",
-                            "VERBOSE: Detecting java source files to compile...",
-                            "VERBOSE: Compiling all source files.",
                             "Compiling 1 file...",
-                            "VERBOSE: Running /: javac -d outputs -Xlint:unchecked -Xlint:deprecation -classpath /outputs/ sources/A.java...",
-                            "VERBOSE: Compilation finished.",
-                            "VERBOSE: Writing build.json file...",
-                            "VERBOSE: Done writing build.json file.",
                             "Running tests...",
-                            "VERBOSE: Running /: java -classpath /outputs/;/fake-jvm-classpath qub.ConsoleTestRunner --profiler=false --verbose=true --testjson=true --logfile=/qub/qub/test-java/data/logs/1.log --output-folder=/outputs/ --coverage=None A",
                             "",
                             "Creating sources jar file...",
-                            "VERBOSE: Running /sources/: jar --create --file=a.sources.jar A.java",
-                            "VERBOSE: Created /outputs/a.sources.jar.",
-                            "Creating compiled sources jar file...",
-                            "VERBOSE: Running /outputs/: jar --create --file=a.jar A.class",
-                            "VERBOSE: Created /outputs/a.jar."),
+                            "Creating compiled sources jar file..."),
                         process.getOutputWriteStream());
                     test.assertLinesEqual(
                         Iterable.create(),
@@ -353,9 +689,15 @@ public interface QubPackTests
                             "Content Files:",
                             "A.class"),
                         Strings.getLines(aJarFile.getContentsAsString().await()));
+                    test.assertFalse(QubPack.getUnpublishedJarFile(aJarFile).exists().await());
+
+                    final PackJSON packJson = PackJSON.create(JSON.parseObject(outputsFolder.getFile("pack.json").await().getContentsAsString().await()).await());
+                    test.assertNotNull(packJson.getJarMilliseconds("sources"));
+                    test.assertNotNull(packJson.getJarMilliseconds("compiledSources"));
+                    test.assertNull(packJson.getJarMilliseconds("compiledTests"));
                 });
 
-                runner.test("with inner class in source file",
+                runner.test("with compression level 0",
                     (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
                     (Test test, FakeDesktopProcess process) ->
                 {
@@ -379,10 +721,8 @@ public interface QubPackTests
                     final Folder outputsFolder = currentFolder.getFolder("outputs").await();
                     final File aClassFile = outputsFolder.getFile("A.class").await();
                     aClassFile.setContentsAsString("A.java bytecode").await();
-                    final File abClassFile = outputsFolder.getFile("A$B.class").await();
                     final File aSourcesJarFile = outputsFolder.getFile("a.sources.jar").await();
                     final File aJarFile = outputsFolder.getFile("a.jar").await();
-                    abClassFile.setContentsAsString("A$B bytecode").await();
                     final String jvmClassPath = "/fake-jvm-classpath";
                     process.getProcessFactory()
                         .add(new FakeJavacProcessRun()
@@ -411,18 +751,19 @@ public interface QubPackTests
                         .add(new FakeJarProcessRun()
                             .setWorkingFolder(sourcesFolder)
                             .addCreate()
-                            .addJarFile(aSourcesJarFile.relativeTo(outputsFolder))
+                            .addJarFile(QubPack.getUnpublishedJarFile(aSourcesJarFile))
+                            .addNoCompress()
                             .addContentFilePath(aJavaFile.relativeTo(sourcesFolder))
                             .setFunctionAutomatically())
                         .add(new FakeJarProcessRun()
                             .setWorkingFolder(outputsFolder)
                             .addCreate()
                             .addJarFile(aJarFile.relativeTo(outputsFolder))
-                            .addContentFilePaths(Iterable.create(
-                                abClassFile.relativeTo(outputsFolder),
-                                aClassFile.relativeTo(outputsFolder)))
+                            .addNoCompress()
+                            .addContentFilePaths(Iterable.create(aClassFile.relativeTo(outputsFolder)))
                             .setFunctionAutomatically());
-                    final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath);
+                    final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath)
+                        .setCompressionLevel(0);
 
                     final int exitCode = QubPack.run(parameters);
 
@@ -447,12 +788,11 @@ public interface QubPackTests
                     test.assertEqual(
                         Iterable.create(
                             "Content Files:",
-                            "A$B.class",
                             "A.class"),
                         Strings.getLines(aJarFile.getContentsAsString().await()));
                 });
 
-                runner.test("with anonymous classes in source file",
+                runner.test("with more content files than the jar argument file threshold",
                     (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
                     (Test test, FakeDesktopProcess process) ->
                 {
@@ -476,12 +816,10 @@ public interface QubPackTests
                     final Folder outputsFolder = currentFolder.getFolder("outputs").await();
                     final File aClassFile = outputsFolder.getFile("A.class").await();
                     aClassFile.setContentsAsString("A.java bytecode").await();
-                    final File a1ClassFile = outputsFolder.getFile("A$1.class").await();
-                    a1ClassFile.setContentsAsString("A$1 bytecode").await();
-                    final File a2ClassFile = outputsFolder.getFile("A$2.class").await();
-                    a2ClassFile.setContentsAsString("A$2 bytecode").await();
-                    final File aJarFile = outputsFolder.getFile("a.jar").await();
                     final File aSourcesJarFile = outputsFolder.getFile("a.sources.jar").await();
+                    final File aJarFile = outputsFolder.getFile("a.jar").await();
+                    final File aSourcesJarArgumentFile = outputsFolder.getFile("a.sources.jar.tmp.args").await();
+                    final File aJarArgumentFile = outputsFolder.getFile("a.jar.args").await();
                     final String jvmClassPath = "/fake-jvm-classpath";
                     process.getProcessFactory()
                         .add(new FakeJavacProcessRun()
@@ -510,19 +848,17 @@ public interface QubPackTests
                         .add(new FakeJarProcessRun()
                             .setWorkingFolder(sourcesFolder)
                             .addCreate()
-                            .addJarFile(aSourcesJarFile.relativeTo(outputsFolder))
-                            .addContentFilePath(aJavaFile.relativeTo(sourcesFolder))
+                            .addJarFile(QubPack.getUnpublishedJarFile(aSourcesJarFile))
+                            .addArgumentFile(aSourcesJarArgumentFile)
                             .setFunctionAutomatically())
                         .add(new FakeJarProcessRun()
                             .setWorkingFolder(outputsFolder)
                             .addCreate()
                             .addJarFile(aJarFile.relativeTo(outputsFolder))
-                            .addContentFilePaths(Iterable.create(
-                                a1ClassFile.relativeTo(outputsFolder),
-                                a2ClassFile.relativeTo(outputsFolder),
-                                aClassFile.relativeTo(outputsFolder)))
+                            .addArgumentFile(aJarArgumentFile)
                             .setFunctionAutomatically());
-                    final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath);
+                    final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath)
+                        .setJarArgumentFileThreshold(0);
 
                     final int exitCode = QubPack.run(parameters);
 
@@ -547,13 +883,13 @@ public interface QubPackTests
                     test.assertEqual(
                         Iterable.create(
                             "Content Files:",
-                            "A$1.class",
-                            "A$2.class",
                             "A.class"),
                         Strings.getLines(aJarFile.getContentsAsString().await()));
+                    test.assertFalse(aSourcesJarArgumentFile.exists().await());
+                    test.assertFalse(aJarArgumentFile.exists().await());
                 });
 
-                runner.test("with main class in project.json",
+                runner.test("with trace",
                     (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
                     (Test test, FakeDesktopProcess process) ->
                 {
@@ -568,8 +904,7 @@ public interface QubPackTests
                             .setPublisher("me")
                             .setProject("a")
                             .setVersion("34")
-                            .setJava(ProjectJSONJava.create()
-                                .setMainClass("A"))
+                            .setJava(ProjectJSONJava.create())
                             .toString())
                         .await();
                     final Folder sourcesFolder = currentFolder.getFolder("sources").await();
@@ -578,7 +913,6 @@ public interface QubPackTests
                     final Folder outputsFolder = currentFolder.getFolder("outputs").await();
                     final File aClassFile = outputsFolder.getFile("A.class").await();
                     aClassFile.setContentsAsString("A.java bytecode").await();
-                    final File manifestFile = outputsFolder.getFile("META-INF/MANIFEST.MF").await();
                     final File aSourcesJarFile = outputsFolder.getFile("a.sources.jar").await();
                     final File aJarFile = outputsFolder.getFile("a.jar").await();
                     final String jvmClassPath = "/fake-jvm-classpath";
@@ -609,17 +943,18 @@ public interface QubPackTests
                         .add(new FakeJarProcessRun()
                             .setWorkingFolder(sourcesFolder)
                             .addCreate()
-                            .addJarFile(aSourcesJarFile.relativeTo(outputsFolder))
+                            .addJarFile(QubPack.getUnpublishedJarFile(aSourcesJarFile))
                             .addContentFilePath(aJavaFile.relativeTo(sourcesFolder))
                             .setFunctionAutomatically())
                         .add(new FakeJarProcessRun()
                             .setWorkingFolder(outputsFolder)
                             .addCreate()
                             .addJarFile(aJarFile.relativeTo(outputsFolder))
-                            .addManifestFile(manifestFile)
                             .addContentFilePaths(Iterable.create(aClassFile.relativeTo(outputsFolder)))
                             .setFunctionAutomatically());
-                    final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath);
+                    final File traceFile = currentFolder.getFile("trace.json").await();
+                    final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath)
+                        .setTraceFile(traceFile);
 
                     final int exitCode = QubPack.run(parameters);
 
@@ -643,20 +978,33 @@ public interface QubPackTests
                         Strings.getLines(aSourcesJarFile.getContentsAsString().await()));
                     test.assertEqual(
                         Iterable.create(
-                            "Manifest File:",
-                            manifestFile.toString(),
-                            "",
                             "Content Files:",
                             "A.class"),
                         Strings.getLines(aJarFile.getContentsAsString().await()));
-                    test.assertEqual(
-                        Iterable.create(
-                            "Manifest-Version: 1.0",
-                            "Main-Class: A"),
-                        Strings.getLines(manifestFile.getContentsAsString().await()));
+
+                    final JSONObject traceJson = JSON.parseObject(traceFile.getContentsAsString().await()).await();
+                    final List<String> traceEventNames = List.create();
+                    for (final JSONSegment traceEvent : traceJson.getArray("traceEvents").await())
+                    {
+                        traceEventNames.add(((JSONObject)traceEvent).getString("name").await());
+                    }
+                    for (final String traceEventName : Iterable.create(
+                        "process_name",
+                        "thread_name",
+                        "total",
+                        "scanSources",
+                        "testRun",
+                        "sourcesJar",
+                        "jarProcess:a.sources.jar.tmp",
+                        "compiledSourcesJar",
+                        "jarProcess:a.jar",
+                        "packJsonWrite"))
+                    {
+                        test.assertTrue(traceEventNames.contains(traceEventName), traceEventName);
+                    }
                 });
 
-                runner.test("with test folder",
+                runner.test("with simple success and verbose",
                     (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
                     (Test test, FakeDesktopProcess process) ->
                 {
@@ -677,16 +1025,10 @@ public interface QubPackTests
                     final Folder sourcesFolder = currentFolder.getFolder("sources").await();
                     final File aJavaFile = sourcesFolder.getFile("A.java").await();
                     aJavaFile.setContentsAsString("A.java source").await();
-                    final Folder testsFolder = currentFolder.getFolder("tests").await();
-                    final File aTestsJavaFile = testsFolder.getFile("ATests.java").await();
-                    aTestsJavaFile.setContentsAsString("ATests.java source").await();
                     final Folder outputsFolder = currentFolder.getFolder("outputs").await();
                     final File aClassFile = outputsFolder.getFile("A.class").await();
                     aClassFile.setContentsAsString("A.java bytecode").await();
-                    final File aTestsClassFile = outputsFolder.getFile("ATests.class").await();
-                    aTestsClassFile.setContentsAsString("ATests.java bytecode").await();
                     final File aSourcesJarFile = outputsFolder.getFile("a.sources.jar").await();
-                    final File aTestsJarFile = outputsFolder.getFile("a.tests.jar").await();
                     final File aJarFile = outputsFolder.getFile("a.jar").await();
                     final String jvmClassPath = "/fake-jvm-classpath";
                     process.getProcessFactory()
@@ -700,23 +1042,23 @@ public interface QubPackTests
                             .addXlintUnchecked()
                             .addXlintDeprecation()
                             .addClasspath(outputsFolder)
-                            .addSourceFiles(aJavaFile, aTestsJavaFile)
+                            .addSourceFile(aJavaFile.relativeTo(currentFolder))
                             .setCompileFunctionAutomatically())
                         .add(new FakeConsoleTestRunnerProcessRun()
                             .setWorkingFolder(currentFolder)
                             .addClasspath(Iterable.create(outputsFolder.toString(), jvmClassPath))
                             .addConsoleTestRunnerFullClassName()
                             .addProfiler(false)
-                            .addVerbose(false)
+                            .addVerbose(true)
                             .addTestJson(true)
                             .addLogFile(qubTestLogFile)
                             .addOutputFolder(outputsFolder)
                             .addCoverage(Coverage.None)
-                            .addFullClassNamesToTest(Iterable.create("A", "ATests")))
+                            .addFullClassNamesToTest(Iterable.create("A")))
                         .add(new FakeJarProcessRun()
                             .setWorkingFolder(sourcesFolder)
                             .addCreate()
-                            .addJarFile(aSourcesJarFile.relativeTo(outputsFolder))
+                            .addJarFile(QubPack.getUnpublishedJarFile(aSourcesJarFile))
                             .addContentFilePath(aJavaFile.relativeTo(sourcesFolder))
                             .setFunctionAutomatically())
                         .add(new FakeJarProcessRun()
@@ -724,25 +1066,38 @@ public interface QubPackTests
                             .addCreate()
                             .addJarFile(aJarFile.relativeTo(outputsFolder))
                             .addContentFilePaths(Iterable.create(aClassFile.relativeTo(outputsFolder)))
-                            .setFunctionAutomatically())
-                        .add(new FakeJarProcessRun()
-                            .setWorkingFolder(outputsFolder)
-                            .addCreate()
-                            .addJarFile(aTestsJarFile.relativeTo(outputsFolder))
-                            .addContentFilePaths(Iterable.create(aTestsClassFile.relativeTo(outputsFolder)))
                             .setFunctionAutomatically());
-                    final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath);
+                    final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath)
+                        .setVerbose(VerboseCharacterToByteWriteStream.create(process.getOutputWriteStream()));
 
                     final int exitCode = QubPack.run(parameters);
 
                     test.assertLinesEqual(
                         Iterable.create(
-                            "Compiling 2 files...",
+                            "VERBOSE: Parsing project.json...",
+                            "VERBOSE: Getting javac version...",
+                            "VERBOSE: Running /: javac --version...",
+                            "VERBOSE: javac 14.0.1",
+                            "VERBOSE: Parsing outputs/build.json...",
+                            "VERBOSE: Updating outputs/build.json...",
+                            "VERBOSE: Setting project.json...",
+                            "VERBOSE: Setting source files...",
+                            "VERBOSE: Detecting java source files to compile...",
+                            "VERBOSE: Compiling all source files.",
+                            "Compiling 1 file...",
+                            "VERBOSE: Running /: javac -d outputs -Xlint:unchecked -Xlint:deprecation -classpath /outputs/ sources/A.java...",
+                            "VERBOSE: Compilation finished.",
+                            "VERBOSE: Writing build.json file...",
+                            "VERBOSE: Done writing build.json file.",
                             "Running tests...",
+                            "VERBOSE: Running /: java -classpath /outputs/;/fake-jvm-classpath qub.ConsoleTestRunner --profiler=false --verbose=true --testjson=true --logfile=/qub/qub/test-java/data/logs/1.log --output-folder=/outputs/ --coverage=None A",
                             "",
                             "Creating sources jar file...",
+                            "VERBOSE: Running /sources/: jar --create --file=../outputs/a.sources.jar.tmp A.java",
+                            "VERBOSE: Created /outputs/a.sources.jar.",
                             "Creating compiled sources jar file...",
-                            "Creating compiled tests jar file..."),
+                            "VERBOSE: Running /outputs/: jar --create --file=a.jar A.class",
+                            "VERBOSE: Created /outputs/a.jar."),
                         process.getOutputWriteStream());
                     test.assertLinesEqual(
                         Iterable.create(),
@@ -759,14 +1114,9 @@ public interface QubPackTests
                             "Content Files:",
                             "A.class"),
                         Strings.getLines(aJarFile.getContentsAsString().await()));
-                    test.assertEqual(
-                        Iterable.create(
-                            "Content Files:",
-                            "ATests.class"),
-                        Strings.getLines(aTestsJarFile.getContentsAsString().await()));
                 });
 
-                runner.test("with test folder with inner class",
+                runner.test("with inner class in source file",
                     (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
                     (Test test, FakeDesktopProcess process) ->
                 {
@@ -787,19 +1137,13 @@ public interface QubPackTests
                     final Folder sourcesFolder = currentFolder.getFolder("sources").await();
                     final File aJavaFile = sourcesFolder.getFile("A.java").await();
                     aJavaFile.setContentsAsString("A.java source").await();
-                    final Folder testsFolder = currentFolder.getFolder("tests").await();
-                    final File aTestsJavaFile = testsFolder.getFile("ATests.java").await();
-                    aTestsJavaFile.setContentsAsString("ATests.java source").await();
                     final Folder outputsFolder = currentFolder.getFolder("outputs").await();
                     final File aClassFile = outputsFolder.getFile("A.class").await();
                     aClassFile.setContentsAsString("A.java bytecode").await();
-                    final File aTestsClassFile = outputsFolder.getFile("ATests.class").await();
-                    aTestsClassFile.setContentsAsString("ATests.java bytecode").await();
-                    final File aTestsBClassFile = outputsFolder.getFile("ATests$B.class").await();
-                    aTestsBClassFile.setContentsAsString("ATests.java inner class bytecode").await();
+                    final File abClassFile = outputsFolder.getFile("A$B.class").await();
                     final File aSourcesJarFile = outputsFolder.getFile("a.sources.jar").await();
-                    final File aTestsJarFile = outputsFolder.getFile("a.tests.jar").await();
                     final File aJarFile = outputsFolder.getFile("a.jar").await();
+                    abClassFile.setContentsAsString("A$B bytecode").await();
                     final String jvmClassPath = "/fake-jvm-classpath";
                     process.getProcessFactory()
                         .add(new FakeJavacProcessRun()
@@ -812,7 +1156,7 @@ public interface QubPackTests
                             .addXlintUnchecked()
                             .addXlintDeprecation()
                             .addClasspath(outputsFolder)
-                            .addSourceFiles(aJavaFile, aTestsJavaFile)
+                            .addSourceFile(aJavaFile.relativeTo(currentFolder))
                             .setCompileFunctionAutomatically())
                         .add(new FakeConsoleTestRunnerProcessRun()
                             .setWorkingFolder(currentFolder)
@@ -824,26 +1168,20 @@ public interface QubPackTests
                             .addLogFile(qubTestLogFile)
                             .addOutputFolder(outputsFolder)
                             .addCoverage(Coverage.None)
-                            .addFullClassNamesToTest(Iterable.create("A", "ATests")))
+                            .addFullClassNamesToTest(Iterable.create("A")))
                         .add(new FakeJarProcessRun()
                             .setWorkingFolder(sourcesFolder)
                             .addCreate()
-                            .addJarFile(aSourcesJarFile.relativeTo(outputsFolder))
+                            .addJarFile(QubPack.getUnpublishedJarFile(aSourcesJarFile))
                             .addContentFilePath(aJavaFile.relativeTo(sourcesFolder))
                             .setFunctionAutomatically())
                         .add(new FakeJarProcessRun()
                             .setWorkingFolder(outputsFolder)
                             .addCreate()
                             .addJarFile(aJarFile.relativeTo(outputsFolder))
-                            .addContentFilePaths(Iterable.create(aClassFile.relativeTo(outputsFolder)))
-                            .setFunctionAutomatically())
-                        .add(new FakeJarProcessRun()
-                            .setWorkingFolder(outputsFolder)
-                            .addCreate()
-                            .addJarFile(aTestsJarFile.relativeTo(outputsFolder))
                             .addContentFilePaths(Iterable.create(
-                                aTestsBClassFile.relativeTo(outputsFolder),
-                                aTestsClassFile.relativeTo(outputsFolder)))
+                                abClassFile.relativeTo(outputsFolder),
+                                aClassFile.relativeTo(outputsFolder)))
                             .setFunctionAutomatically());
                     final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath);
 
@@ -851,12 +1189,11 @@ public interface QubPackTests
 
                     test.assertLinesEqual(
                         Iterable.create(
-                            "Compiling 2 files...",
+                            "Compiling 1 file...",
                             "Running tests...",
                             "",
                             "Creating sources jar file...",
-                            "Creating compiled sources jar file...",
-                            "Creating compiled tests jar file..."),
+                            "Creating compiled sources jar file..."),
                         process.getOutputWriteStream());
                     test.assertLinesEqual(
                         Iterable.create(),
@@ -871,17 +1208,12 @@ public interface QubPackTests
                     test.assertEqual(
                         Iterable.create(
                             "Content Files:",
+                            "A$B.class",
                             "A.class"),
                         Strings.getLines(aJarFile.getContentsAsString().await()));
-                    test.assertEqual(
-                        Iterable.create(
-                            "Content Files:",
-                            "ATests$B.class",
-                            "ATests.class"),
-                        Strings.getLines(aTestsJarFile.getContentsAsString().await()));
                 });
 
-                runner.test("with test folder with anonymous class",
+                runner.test("with anonymous classes in source file",
                     (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
                     (Test test, FakeDesktopProcess process) ->
                 {
@@ -902,19 +1234,15 @@ public interface QubPackTests
                     final Folder sourcesFolder = currentFolder.getFolder("sources").await();
                     final File aJavaFile = sourcesFolder.getFile("A.java").await();
                     aJavaFile.setContentsAsString("A.java source").await();
-                    final Folder testsFolder = currentFolder.getFolder("tests").await();
-                    final File aTestsJavaFile = testsFolder.getFile("ATests.java").await();
-                    aTestsJavaFile.setContentsAsString("ATests.java source").await();
                     final Folder outputsFolder = currentFolder.getFolder("outputs").await();
                     final File aClassFile = outputsFolder.getFile("A.class").await();
                     aClassFile.setContentsAsString("A.java bytecode").await();
-                    final File aTestsClassFile = outputsFolder.getFile("ATests.class").await();
-                    aTestsClassFile.setContentsAsString("ATests.java bytecode").await();
-                    final File aTests1ClassFile = outputsFolder.getFile("ATests$1.class").await();
-                    aTests1ClassFile.setContentsAsString("ATests.java anonymous class bytecode").await();
-                    final File aSourcesJarFile = outputsFolder.getFile("a.sources.jar").await();
-                    final File aTestsJarFile = outputsFolder.getFile("a.tests.jar").await();
+                    final File a1ClassFile = outputsFolder.getFile("A$1.class").await();
+                    a1ClassFile.setContentsAsString("A$1 bytecode").await();
+                    final File a2ClassFile = outputsFolder.getFile("A$2.class").await();
+                    a2ClassFile.setContentsAsString("A$2 bytecode").await();
                     final File aJarFile = outputsFolder.getFile("a.jar").await();
+                    final File aSourcesJarFile = outputsFolder.getFile("a.sources.jar").await();
                     final String jvmClassPath = "/fake-jvm-classpath";
                     process.getProcessFactory()
                         .add(new FakeJavacProcessRun()
@@ -927,7 +1255,7 @@ public interface QubPackTests
                             .addXlintUnchecked()
                             .addXlintDeprecation()
                             .addClasspath(outputsFolder)
-                            .addSourceFiles(aJavaFile, aTestsJavaFile)
+                            .addSourceFile(aJavaFile.relativeTo(currentFolder))
                             .setCompileFunctionAutomatically())
                         .add(new FakeConsoleTestRunnerProcessRun()
                             .setWorkingFolder(currentFolder)
@@ -939,26 +1267,21 @@ public interface QubPackTests
                             .addLogFile(qubTestLogFile)
                             .addOutputFolder(outputsFolder)
                             .addCoverage(Coverage.None)
-                            .addFullClassNamesToTest(Iterable.create("A", "ATests")))
+                            .addFullClassNamesToTest(Iterable.create("A")))
                         .add(new FakeJarProcessRun()
                             .setWorkingFolder(sourcesFolder)
                             .addCreate()
-                            .addJarFile(aSourcesJarFile.relativeTo(outputsFolder))
+                            .addJarFile(QubPack.getUnpublishedJarFile(aSourcesJarFile))
                             .addContentFilePath(aJavaFile.relativeTo(sourcesFolder))
                             .setFunctionAutomatically())
                         .add(new FakeJarProcessRun()
                             .setWorkingFolder(outputsFolder)
                             .addCreate()
                             .addJarFile(aJarFile.relativeTo(outputsFolder))
-                            .addContentFilePaths(Iterable.create(aClassFile.relativeTo(outputsFolder)))
-                            .setFunctionAutomatically())
-                        .add(new FakeJarProcessRun()
-                            .setWorkingFolder(outputsFolder)
-                            .addCreate()
-                            .addJarFile(aTestsJarFile.relativeTo(outputsFolder))
                             .addContentFilePaths(Iterable.create(
-                                aTests1ClassFile.relativeTo(outputsFolder),
-                                aTestsClassFile.relativeTo(outputsFolder)))
+                                a1ClassFile.relativeTo(outputsFolder),
+                                a2ClassFile.relativeTo(outputsFolder),
+                                aClassFile.relativeTo(outputsFolder)))
                             .setFunctionAutomatically());
                     final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath);
 
@@ -966,12 +1289,11 @@ public interface QubPackTests
 
                     test.assertLinesEqual(
                         Iterable.create(
-                            "Compiling 2 files...",
+                            "Compiling 1 file...",
                             "Running tests...",
                             "",
                             "Creating sources jar file...",
-                            "Creating compiled sources jar file...",
-                            "Creating compiled tests jar file..."),
+                            "Creating compiled sources jar file..."),
                         process.getOutputWriteStream());
                     test.assertLinesEqual(
                         Iterable.create(),
@@ -986,17 +1308,13 @@ public interface QubPackTests
                     test.assertEqual(
                         Iterable.create(
                             "Content Files:",
+                            "A$1.class",
+                            "A$2.class",
                             "A.class"),
                         Strings.getLines(aJarFile.getContentsAsString().await()));
-                    test.assertEqual(
-                        Iterable.create(
-                            "Content Files:",
-                            "ATests$1.class",
-                            "ATests.class"),
-                        Strings.getLines(aTestsJarFile.getContentsAsString().await()));
                 });
 
-                runner.test("with packjson=false",
+                runner.test("with main class in project.json",
                     (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
                     (Test test, FakeDesktopProcess process) ->
                 {
@@ -1011,24 +1329,19 @@ public interface QubPackTests
                             .setPublisher("me")
                             .setProject("a")
                             .setVersion("34")
-                            .setJava(ProjectJSONJava.create())
+                            .setJava(ProjectJSONJava.create()
+                                .setMainClass("A"))
                             .toString())
                         .await();
                     final Folder sourcesFolder = currentFolder.getFolder("sources").await();
                     final File aJavaFile = sourcesFolder.getFile("A.java").await();
                     aJavaFile.setContentsAsString("A.java source").await();
-                    final Folder testsFolder = currentFolder.getFolder("tests").await();
-                    final File aTestsJavaFile = testsFolder.getFile("ATests.java").await();
-                    aTestsJavaFile.setContentsAsString("ATests.java source").await();
                     final Folder outputsFolder = currentFolder.getFolder("outputs").await();
                     final File aClassFile = outputsFolder.getFile("A.class").await();
                     aClassFile.setContentsAsString("A.java bytecode").await();
-                    final File aTestsClassFile = outputsFolder.getFile("ATests.class").await();
-                    aTestsClassFile.setContentsAsString("ATests.java bytecode").await();
+                    final File manifestFile = outputsFolder.getFile("META-INF/MANIFEST.MF").await();
                     final File aSourcesJarFile = outputsFolder.getFile("a.sources.jar").await();
-                    final File aTestsJarFile = outputsFolder.getFile("a.tests.jar").await();
                     final File aJarFile = outputsFolder.getFile("a.jar").await();
-                    final File packJson = outputsFolder.getFile("pack.json").await();
                     final String jvmClassPath = "/fake-jvm-classpath";
                     process.getProcessFactory()
                         .add(new FakeJavacProcessRun()
@@ -1041,7 +1354,7 @@ public interface QubPackTests
                             .addXlintUnchecked()
                             .addXlintDeprecation()
                             .addClasspath(outputsFolder)
-                            .addSourceFiles(aJavaFile, aTestsJavaFile)
+                            .addSourceFile(aJavaFile.relativeTo(currentFolder))
                             .setCompileFunctionAutomatically())
                         .add(new FakeConsoleTestRunnerProcessRun()
                             .setWorkingFolder(currentFolder)
@@ -1053,38 +1366,31 @@ public interface QubPackTests
                             .addLogFile(qubTestLogFile)
                             .addOutputFolder(outputsFolder)
                             .addCoverage(Coverage.None)
-                            .addFullClassNamesToTest(Iterable.create("A", "ATests")))
+                            .addFullClassNamesToTest(Iterable.create("A")))
                         .add(new FakeJarProcessRun()
                             .setWorkingFolder(sourcesFolder)
                             .addCreate()
-                            .addJarFile(aSourcesJarFile.relativeTo(outputsFolder))
+                            .addJarFile(QubPack.getUnpublishedJarFile(aSourcesJarFile))
                             .addContentFilePath(aJavaFile.relativeTo(sourcesFolder))
                             .setFunctionAutomatically())
                         .add(new FakeJarProcessRun()
                             .setWorkingFolder(outputsFolder)
                             .addCreate()
                             .addJarFile(aJarFile.relativeTo(outputsFolder))
+                            .addManifestFile(manifestFile)
                             .addContentFilePaths(Iterable.create(aClassFile.relativeTo(outputsFolder)))
-                            .setFunctionAutomatically())
-                        .add(new FakeJarProcessRun()
-                            .setWorkingFolder(outputsFolder)
-                            .addCreate()
-                            .addJarFile(aTestsJarFile.relativeTo(outputsFolder))
-                            .addContentFilePaths(Iterable.create(aTestsClassFile.relativeTo(outputsFolder)))
                             .setFunctionAutomatically());
-                    final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath)
-                        .setPackJson(false);
+                    final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath);
 
                     final int exitCode = QubPack.run(parameters);
 
                     test.assertLinesEqual(
                         Iterable.create(
-                            "Compiling 2 files...",
+                            "Compiling 1 file...",
                             "Running tests...",
                             "",
                             "Creating sources jar file...",
-                            "Creating compiled sources jar file...",
-                            "Creating compiled tests jar file..."),
+                            "Creating compiled sources jar file..."),
                         process.getOutputWriteStream());
                     test.assertLinesEqual(
                         Iterable.create(),
@@ -1098,18 +1404,20 @@ public interface QubPackTests
                         Strings.getLines(aSourcesJarFile.getContentsAsString().await()));
                     test.assertEqual(
                         Iterable.create(
+                            "Manifest File:",
+                            manifestFile.toString(),
+                            "",
                             "Content Files:",
                             "A.class"),
                         Strings.getLines(aJarFile.getContentsAsString().await()));
                     test.assertEqual(
                         Iterable.create(
-                            "Content Files:",
-                            "ATests.class"),
-                        Strings.getLines(aTestsJarFile.getContentsAsString().await()));
-                    test.assertFalse(packJson.exists().await());
+                            "Manifest-Version: 1.0",
+                            "Main-Class: A"),
+                        Strings.getLines(manifestFile.getContentsAsString().await()));
                 });
 
-                runner.test("with packjson=true but no existing pack.json file",
+                runner.test("with test folder",
                     (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
                     (Test test, FakeDesktopProcess process) ->
                 {
@@ -1141,7 +1449,6 @@ public interface QubPackTests
                     final File aSourcesJarFile = outputsFolder.getFile("a.sources.jar").await();
                     final File aTestsJarFile = outputsFolder.getFile("a.tests.jar").await();
                     final File aJarFile = outputsFolder.getFile("a.jar").await();
-                    final File packJsonFile = outputsFolder.getFile("pack.json").await();
                     final String jvmClassPath = "/fake-jvm-classpath";
                     process.getProcessFactory()
                         .add(new FakeJavacProcessRun()
@@ -1170,7 +1477,7 @@ public interface QubPackTests
                         .add(new FakeJarProcessRun()
                             .setWorkingFolder(sourcesFolder)
                             .addCreate()
-                            .addJarFile(aSourcesJarFile.relativeTo(outputsFolder))
+                            .addJarFile(QubPack.getUnpublishedJarFile(aSourcesJarFile))
                             .addContentFilePath(aJavaFile.relativeTo(sourcesFolder))
                             .setFunctionAutomatically())
                         .add(new FakeJarProcessRun()
@@ -1185,8 +1492,7 @@ public interface QubPackTests
                             .addJarFile(aTestsJarFile.relativeTo(outputsFolder))
                             .addContentFilePaths(Iterable.create(aTestsClassFile.relativeTo(outputsFolder)))
                             .setFunctionAutomatically());
-                    final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath)
-                        .setPackJson(true);
+                    final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath);
 
                     final int exitCode = QubPack.run(parameters);
 
@@ -1219,20 +1525,9 @@ public interface QubPackTests
                             "Content Files:",
                             "ATests.class"),
                         Strings.getLines(aTestsJarFile.getContentsAsString().await()));
-                    test.assertEqual(
-                        PackJSON.create()
-                            .setSourceFiles(Iterable.create(
-                                PackJSONFile.create(aJavaFile.relativeTo(sourcesFolder), aJavaFile.getLastModified().await())))
-                            .setSourceOutputFiles(Iterable.create(
-                                PackJSONFile.create(aClassFile.relativeTo(outputsFolder), aClassFile.getLastModified().await())))
-                            .setTestOutputFiles(Iterable.create(
-                                PackJSONFile.create(aTestsClassFile.relativeTo(outputsFolder), aTestsClassFile.getLastModified().await())))
-                            .setProject("a")
-                            .toString(JSONFormat.pretty),
-                        packJsonFile.getContentsAsString().await());
                 });
 
-                runner.test("with packjson=true with existing empty pack.json file",
+                runner.test("with test folder with inner class",
                     (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
                     (Test test, FakeDesktopProcess process) ->
                 {
@@ -1261,11 +1556,11 @@ public interface QubPackTests
                     aClassFile.setContentsAsString("A.java bytecode").await();
                     final File aTestsClassFile = outputsFolder.getFile("ATests.class").await();
                     aTestsClassFile.setContentsAsString("ATests.java bytecode").await();
+                    final File aTestsBClassFile = outputsFolder.getFile("ATests$B.class").await();
+                    aTestsBClassFile.setContentsAsString("ATests.java inner class bytecode").await();
                     final File aSourcesJarFile = outputsFolder.getFile("a.sources.jar").await();
                     final File aTestsJarFile = outputsFolder.getFile("a.tests.jar").await();
                     final File aJarFile = outputsFolder.getFile("a.jar").await();
-                    final File packJsonFile = outputsFolder.getFile("pack.json").await();
-                    packJsonFile.create().await();
                     final String jvmClassPath = "/fake-jvm-classpath";
                     process.getProcessFactory()
                         .add(new FakeJavacProcessRun()
@@ -1294,7 +1589,7 @@ public interface QubPackTests
                         .add(new FakeJarProcessRun()
                             .setWorkingFolder(sourcesFolder)
                             .addCreate()
-                            .addJarFile(aSourcesJarFile.relativeTo(outputsFolder))
+                            .addJarFile(QubPack.getUnpublishedJarFile(aSourcesJarFile))
                             .addContentFilePath(aJavaFile.relativeTo(sourcesFolder))
                             .setFunctionAutomatically())
                         .add(new FakeJarProcessRun()
@@ -1307,10 +1602,11 @@ public interface QubPackTests
                             .setWorkingFolder(outputsFolder)
                             .addCreate()
                             .addJarFile(aTestsJarFile.relativeTo(outputsFolder))
-                            .addContentFilePaths(Iterable.create(aTestsClassFile.relativeTo(outputsFolder)))
+                            .addContentFilePaths(Iterable.create(
+                                aTestsBClassFile.relativeTo(outputsFolder),
+                                aTestsClassFile.relativeTo(outputsFolder)))
                             .setFunctionAutomatically());
-                    final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath)
-                        .setPackJson(true);
+                    final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath);
 
                     final int exitCode = QubPack.run(parameters);
 
@@ -1341,52 +1637,1347 @@ public interface QubPackTests
                     test.assertEqual(
                         Iterable.create(
                             "Content Files:",
+                            "ATests$B.class",
                             "ATests.class"),
                         Strings.getLines(aTestsJarFile.getContentsAsString().await()));
-                    test.assertEqual(
-                        PackJSON.create()
-                            .setSourceFiles(Iterable.create(
-                                PackJSONFile.create(aJavaFile.relativeTo(sourcesFolder), aJavaFile.getLastModified().await())))
-                            .setSourceOutputFiles(Iterable.create(
-                                PackJSONFile.create(aClassFile.relativeTo(outputsFolder), aClassFile.getLastModified().await())))
-                            .setTestOutputFiles(Iterable.create(
-                                PackJSONFile.create(aTestsClassFile.relativeTo(outputsFolder), aTestsClassFile.getLastModified().await())))
-                            .setProject("a")
-                            .toString(JSONFormat.pretty),
-                        packJsonFile.getContentsAsString().await());
                 });
-            });
-        });
-    }
-
-    static QubPackParameters getParameters(FakeDesktopProcess process)
-    {
-        PreCondition.assertNotNull(process, "process");
-
-        return QubPackParametersTests.getParameters(process, "/fake-jvm-classpath");
-    }
-
-    static QubPackParameters getParameters(FakeDesktopProcess process, String jvmClasspath)
-    {
-        PreCondition.assertNotNull(process, "process");
-        PreCondition.assertNotNullAndNotEmpty(jvmClasspath, "jvmClasspath");
-
-        final InMemoryCharacterToByteStream output = process.getOutputWriteStream();
-        final InMemoryCharacterToByteStream error = process.getErrorWriteStream();
-        final Folder folderToPack = process.getCurrentFolder();
-        final EnvironmentVariables environmentVariables = process.getEnvironmentVariables();
-        final FakeProcessFactory processFactory = process.getProcessFactory();
-        final FakeDefaultApplicationLauncher defaultApplicationLauncher = process.getDefaultApplicationLauncher();
-        final QubFolder qubFolder = process.getQubFolder().await();
-
-        final File qubBuildCompiledSourcesFile = qubFolder.getCompiledSourcesFile("qub", "build-java", "7").await();
-        qubBuildCompiledSourcesFile.create().await();
-        final File qubTestCompiledSourcesFile = qubFolder.getCompiledSourcesFile("qub", "test-java", "8").await();
-        qubTestCompiledSourcesFile.create().await();
-        final FakeTypeLoader typeLoader = process.getTypeLoader()
-            .addTypeContainer(QubBuild.class, qubBuildCompiledSourcesFile)
-            .addTypeContainer(QubTest.class, qubTestCompiledSourcesFile);
 
-        return new QubPackParameters(output, error, folderToPack, environmentVariables, processFactory, defaultApplicationLauncher, jvmClasspath, typeLoader, qubFolder);
+                runner.test("with test folder with anonymous class",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubFolder qubFolder = process.getQubFolder().await();
+                    final QubProjectFolder qubTestProjectFolder = qubFolder.getProjectFolder("qub", "test-java").await();
+                    final File qubTestLogFile = qubTestProjectFolder.getProjectDataFolder().await()
+                        .getFile("logs/1.log").await();
+                    final Folder currentFolder = process.getCurrentFolder();
+                    final File projectJsonFile = currentFolder.getFile("project.json").await();
+                    projectJsonFile.setContentsAsString(
+                        ProjectJSON.create()
+                            .setPublisher("me")
+                            .setProject("a")
+                            .setVersion("34")
+                            .setJava(ProjectJSONJava.create())
+                            .toString())
+                        .await();
+                    final Folder sourcesFolder = currentFolder.getFolder("sources").await();
+                    final File aJavaFile = sourcesFolder.getFile("A.java").await();
+                    aJavaFile.setContentsAsString("A.java source").await();
+                    final Folder testsFolder = currentFolder.getFolder("tests").await();
+                    final File aTestsJavaFile = testsFolder.getFile("ATests.java").await();
+                    aTestsJavaFile.setContentsAsString("ATests.java source").await();
+                    final Folder outputsFolder = currentFolder.getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A.java bytecode").await();
+                    final File aTestsClassFile = outputsFolder.getFile("ATests.class").await();
+                    aTestsClassFile.setContentsAsString("ATests.java bytecode").await();
+                    final File aTests1ClassFile = outputsFolder.getFile("ATests$1.class").await();
+                    aTests1ClassFile.setContentsAsString("ATests.java anonymous class bytecode").await();
+                    final File aSourcesJarFile = outputsFolder.getFile("a.sources.jar").await();
+                    final File aTestsJarFile = outputsFolder.getFile("a.tests.jar").await();
+                    final File aJarFile = outputsFolder.getFile("a.jar").await();
+                    final String jvmClassPath = "/fake-jvm-classpath";
+                    process.getProcessFactory()
+                        .add(new FakeJavacProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addVersion()
+                            .setVersionFunctionAutomatically("javac 14.0.1"))
+                        .add(new FakeJavacProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addOutputFolder(outputsFolder)
+                            .addXlintUnchecked()
+                            .addXlintDeprecation()
+                            .addClasspath(outputsFolder)
+                            .addSourceFiles(aJavaFile, aTestsJavaFile)
+                            .setCompileFunctionAutomatically())
+                        .add(new FakeConsoleTestRunnerProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addClasspath(Iterable.create(outputsFolder.toString(), jvmClassPath))
+                            .addConsoleTestRunnerFullClassName()
+                            .addProfiler(false)
+                            .addVerbose(false)
+                            .addTestJson(true)
+                            .addLogFile(qubTestLogFile)
+                            .addOutputFolder(outputsFolder)
+                            .addCoverage(Coverage.None)
+                            .addFullClassNamesToTest(Iterable.create("A", "ATests")))
+                        .add(new FakeJarProcessRun()
+                            .setWorkingFolder(sourcesFolder)
+                            .addCreate()
+                            .addJarFile(QubPack.getUnpublishedJarFile(aSourcesJarFile))
+                            .addContentFilePath(aJavaFile.relativeTo(sourcesFolder))
+                            .setFunctionAutomatically())
+                        .add(new FakeJarProcessRun()
+                            .setWorkingFolder(outputsFolder)
+                            .addCreate()
+                            .addJarFile(aJarFile.relativeTo(outputsFolder))
+                            .addContentFilePaths(Iterable.create(aClassFile.relativeTo(outputsFolder)))
+                            .setFunctionAutomatically())
+                        .add(new FakeJarProcessRun()
+                            .setWorkingFolder(outputsFolder)
+                            .addCreate()
+                            .addJarFile(aTestsJarFile.relativeTo(outputsFolder))
+                            .addContentFilePaths(Iterable.create(
+                                aTests1ClassFile.relativeTo(outputsFolder),
+                                aTestsClassFile.relativeTo(outputsFolder)))
+                            .setFunctionAutomatically());
+                    final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath);
+
+                    final int exitCode = QubPack.run(parameters);
+
+                    test.assertLinesEqual(
+                        Iterable.create(
+                            "Compiling 2 files...",
+                            "Running tests...",
+                            "",
+                            "Creating sources jar file...",
+                            "Creating compiled sources jar file...",
+                            "Creating compiled tests jar file..."),
+                        process.getOutputWriteStream());
+                    test.assertLinesEqual(
+                        Iterable.create(),
+                        process.getErrorWriteStream());
+                    test.assertEqual(0, exitCode);
+
+                    test.assertEqual(
+                        Iterable.create(
+                            "Content Files:",
+                            "A.java"),
+                        Strings.getLines(aSourcesJarFile.getContentsAsString().await()));
+                    test.assertEqual(
+                        Iterable.create(
+                            "Content Files:",
+                            "A.class"),
+                        Strings.getLines(aJarFile.getContentsAsString().await()));
+                    test.assertEqual(
+                        Iterable.create(
+                            "Content Files:",
+                            "ATests$1.class",
+                            "ATests.class"),
+                        Strings.getLines(aTestsJarFile.getContentsAsString().await()));
+                });
+
+                runner.test("with packjson=false",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubFolder qubFolder = process.getQubFolder().await();
+                    final QubProjectFolder qubTestProjectFolder = qubFolder.getProjectFolder("qub", "test-java").await();
+                    final File qubTestLogFile = qubTestProjectFolder.getProjectDataFolder().await()
+                        .getFile("logs/1.log").await();
+                    final Folder currentFolder = process.getCurrentFolder();
+                    final File projectJsonFile = currentFolder.getFile("project.json").await();
+                    projectJsonFile.setContentsAsString(
+                        ProjectJSON.create()
+                            .setPublisher("me")
+                            .setProject("a")
+                            .setVersion("34")
+                            .setJava(ProjectJSONJava.create())
+                            .toString())
+                        .await();
+                    final Folder sourcesFolder = currentFolder.getFolder("sources").await();
+                    final File aJavaFile = sourcesFolder.getFile("A.java").await();
+                    aJavaFile.setContentsAsString("A.java source").await();
+                    final Folder testsFolder = currentFolder.getFolder("tests").await();
+                    final File aTestsJavaFile = testsFolder.getFile("ATests.java").await();
+                    aTestsJavaFile.setContentsAsString("ATests.java source").await();
+                    final Folder outputsFolder = currentFolder.getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A.java bytecode").await();
+                    final File aTestsClassFile = outputsFolder.getFile("ATests.class").await();
+                    aTestsClassFile.setContentsAsString("ATests.java bytecode").await();
+                    final File aSourcesJarFile = outputsFolder.getFile("a.sources.jar").await();
+                    final File aTestsJarFile = outputsFolder.getFile("a.tests.jar").await();
+                    final File aJarFile = outputsFolder.getFile("a.jar").await();
+                    final File packJson = outputsFolder.getFile("pack.json").await();
+                    final String jvmClassPath = "/fake-jvm-classpath";
+                    process.getProcessFactory()
+                        .add(new FakeJavacProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addVersion()
+                            .setVersionFunctionAutomatically("javac 14.0.1"))
+                        .add(new FakeJavacProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addOutputFolder(outputsFolder)
+                            .addXlintUnchecked()
+                            .addXlintDeprecation()
+                            .addClasspath(outputsFolder)
+                            .addSourceFiles(aJavaFile, aTestsJavaFile)
+                            .setCompileFunctionAutomatically())
+                        .add(new FakeConsoleTestRunnerProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addClasspath(Iterable.create(outputsFolder.toString(), jvmClassPath))
+                            .addConsoleTestRunnerFullClassName()
+                            .addProfiler(false)
+                            .addVerbose(false)
+                            .addTestJson(true)
+                            .addLogFile(qubTestLogFile)
+                            .addOutputFolder(outputsFolder)
+                            .addCoverage(Coverage.None)
+                            .addFullClassNamesToTest(Iterable.create("A", "ATests")))
+                        .add(new FakeJarProcessRun()
+                            .setWorkingFolder(sourcesFolder)
+                            .addCreate()
+                            .addJarFile(QubPack.getUnpublishedJarFile(aSourcesJarFile))
+                            .addContentFilePath(aJavaFile.relativeTo(sourcesFolder))
+                            .setFunctionAutomatically())
+                        .add(new FakeJarProcessRun()
+                            .setWorkingFolder(outputsFolder)
+                            .addCreate()
+                            .addJarFile(aJarFile.relativeTo(outputsFolder))
+                            .addContentFilePaths(Iterable.create(aClassFile.relativeTo(outputsFolder)))
+                            .setFunctionAutomatically())
+                        .add(new FakeJarProcessRun()
+                            .setWorkingFolder(outputsFolder)
+                            .addCreate()
+                            .addJarFile(aTestsJarFile.relativeTo(outputsFolder))
+                            .addContentFilePaths(Iterable.create(aTestsClassFile.relativeTo(outputsFolder)))
+                            .setFunctionAutomatically());
+                    final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath)
+                        .setPackJson(false);
+
+                    final int exitCode = QubPack.run(parameters);
+
+                    test.assertLinesEqual(
+                        Iterable.create(
+                            "Compiling 2 files...",
+                            "Running tests...",
+                            "",
+                            "Creating sources jar file...",
+                            "Creating compiled sources jar file...",
+                            "Creating compiled tests jar file..."),
+                        process.getOutputWriteStream());
+                    test.assertLinesEqual(
+                        Iterable.create(),
+                        process.getErrorWriteStream());
+                    test.assertEqual(0, exitCode);
+
+                    test.assertEqual(
+                        Iterable.create(
+                            "Content Files:",
+                            "A.java"),
+                        Strings.getLines(aSourcesJarFile.getContentsAsString().await()));
+                    test.assertEqual(
+                        Iterable.create(
+                            "Content Files:",
+                            "A.class"),
+                        Strings.getLines(aJarFile.getContentsAsString().await()));
+                    test.assertEqual(
+                        Iterable.create(
+                            "Content Files:",
+                            "ATests.class"),
+                        Strings.getLines(aTestsJarFile.getContentsAsString().await()));
+                    test.assertFalse(packJson.exists().await());
+                });
+
+                runner.test("with packjson=true but no existing pack.json file",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubFolder qubFolder = process.getQubFolder().await();
+                    final QubProjectFolder qubTestProjectFolder = qubFolder.getProjectFolder("qub", "test-java").await();
+                    final File qubTestLogFile = qubTestProjectFolder.getProjectDataFolder().await()
+                        .getFile("logs/1.log").await();
+                    final Folder currentFolder = process.getCurrentFolder();
+                    final File projectJsonFile = currentFolder.getFile("project.json").await();
+                    projectJsonFile.setContentsAsString(
+                        ProjectJSON.create()
+                            .setPublisher("me")
+                            .setProject("a")
+                            .setVersion("34")
+                            .setJava(ProjectJSONJava.create())
+                            .toString())
+                        .await();
+                    final Folder sourcesFolder = currentFolder.getFolder("sources").await();
+                    final File aJavaFile = sourcesFolder.getFile("A.java").await();
+                    aJavaFile.setContentsAsString("A.java source").await();
+                    final Folder testsFolder = currentFolder.getFolder("tests").await();
+                    final File aTestsJavaFile = testsFolder.getFile("ATests.java").await();
+                    aTestsJavaFile.setContentsAsString("ATests.java source").await();
+                    final Folder outputsFolder = currentFolder.getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A.java bytecode").await();
+                    final File aTestsClassFile = outputsFolder.getFile("ATests.class").await();
+                    aTestsClassFile.setContentsAsString("ATests.java bytecode").await();
+                    final File aSourcesJarFile = outputsFolder.getFile("a.sources.jar").await();
+                    final File aTestsJarFile = outputsFolder.getFile("a.tests.jar").await();
+                    final File aJarFile = outputsFolder.getFile("a.jar").await();
+                    final File packJsonFile = outputsFolder.getFile("pack.json").await();
+                    final String jvmClassPath = "/fake-jvm-classpath";
+                    process.getProcessFactory()
+                        .add(new FakeJavacProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addVersion()
+                            .setVersionFunctionAutomatically("javac 14.0.1"))
+                        .add(new FakeJavacProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addOutputFolder(outputsFolder)
+                            .addXlintUnchecked()
+                            .addXlintDeprecation()
+                            .addClasspath(outputsFolder)
+                            .addSourceFiles(aJavaFile, aTestsJavaFile)
+                            .setCompileFunctionAutomatically())
+                        .add(new FakeConsoleTestRunnerProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addClasspath(Iterable.create(outputsFolder.toString(), jvmClassPath))
+                            .addConsoleTestRunnerFullClassName()
+                            .addProfiler(false)
+                            .addVerbose(false)
+                            .addTestJson(true)
+                            .addLogFile(qubTestLogFile)
+                            .addOutputFolder(outputsFolder)
+                            .addCoverage(Coverage.None)
+                            .addFullClassNamesToTest(Iterable.create("A", "ATests")))
+                        .add(new FakeJarProcessRun()
+                            .setWorkingFolder(sourcesFolder)
+                            .addCreate()
+                            .addJarFile(QubPack.getUnpublishedJarFile(aSourcesJarFile))
+                            .addContentFilePath(aJavaFile.relativeTo(sourcesFolder))
+                            .setFunctionAutomatically())
+                        .add(new FakeJarProcessRun()
+                            .setWorkingFolder(outputsFolder)
+                            .addCreate()
+                            .addJarFile(aJarFile.relativeTo(outputsFolder))
+                            .addContentFilePaths(Iterable.create(aClassFile.relativeTo(outputsFolder)))
+                            .setFunctionAutomatically())
+                        .add(new FakeJarProcessRun()
+                            .setWorkingFolder(outputsFolder)
+                            .addCreate()
+                            .addJarFile(aTestsJarFile.relativeTo(outputsFolder))
+                            .addContentFilePaths(Iterable.create(aTestsClassFile.relativeTo(outputsFolder)))
+                            .setFunctionAutomatically());
+                    final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath)
+                        .setPackJson(true);
+
+                    final int exitCode = QubPack.run(parameters);
+
+                    test.assertLinesEqual(
+                        Iterable.create(
+                            "Compiling 2 files...",
+                            "Running tests...",
+                            "",
+                            "Creating sources jar file...",
+                            "Creating compiled sources jar file...",
+                            "Creating compiled tests jar file..."),
+                        process.getOutputWriteStream());
+                    test.assertLinesEqual(
+                        Iterable.create(),
+                        process.getErrorWriteStream());
+                    test.assertEqual(0, exitCode);
+
+                    test.assertEqual(
+                        Iterable.create(
+                            "Content Files:",
+                            "A.java"),
+                        Strings.getLines(aSourcesJarFile.getContentsAsString().await()));
+                    test.assertEqual(
+                        Iterable.create(
+                            "Content Files:",
+                            "A.class"),
+                        Strings.getLines(aJarFile.getContentsAsString().await()));
+                    test.assertEqual(
+                        Iterable.create(
+                            "Content Files:",
+                            "ATests.class"),
+                        Strings.getLines(aTestsJarFile.getContentsAsString().await()));
+                    test.assertEqual(
+                        PackJSON.create()
+                            .setSourceFiles(Iterable.create(
+                                PackJSONFile.create(aJavaFile.relativeTo(sourcesFolder), aJavaFile.getLastModified().await())))
+                            .setSourceOutputFiles(Iterable.create(
+                                PackJSONFile.create(aClassFile.relativeTo(outputsFolder), aClassFile.getLastModified().await())))
+                            .setTestOutputFiles(Iterable.create(
+                                PackJSONFile.create(aTestsClassFile.relativeTo(outputsFolder), aTestsClassFile.getLastModified().await())))
+                            .setProject("a")
+                            .toString(JSONFormat.pretty),
+                        packJsonFile.getContentsAsString().await());
+                });
+
+                runner.test("with packjson=true run twice with no changes",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubFolder qubFolder = process.getQubFolder().await();
+                    final QubProjectFolder qubTestProjectFolder = qubFolder.getProjectFolder("qub", "test-java").await();
+                    final File qubTestLogFile = qubTestProjectFolder.getProjectDataFolder().await()
+                        .getFile("logs/1.log").await();
+                    final Folder currentFolder = process.getCurrentFolder();
+                    final File projectJsonFile = currentFolder.getFile("project.json").await();
+                    projectJsonFile.setContentsAsString(
+                        ProjectJSON.create()
+                            .setPublisher("me")
+                            .setProject("a")
+                            .setVersion("34")
+                            .setJava(ProjectJSONJava.create())
+                            .toString())
+                        .await();
+                    final Folder sourcesFolder = currentFolder.getFolder("sources").await();
+                    final File aJavaFile = sourcesFolder.getFile("A.java").await();
+                    aJavaFile.setContentsAsString("A.java source").await();
+                    final Folder testsFolder = currentFolder.getFolder("tests").await();
+                    final File aTestsJavaFile = testsFolder.getFile("ATests.java").await();
+                    aTestsJavaFile.setContentsAsString("ATests.java source").await();
+                    final Folder outputsFolder = currentFolder.getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A.java bytecode").await();
+                    final File aTestsClassFile = outputsFolder.getFile("ATests.class").await();
+                    aTestsClassFile.setContentsAsString("ATests.java bytecode").await();
+                    final File aSourcesJarFile = outputsFolder.getFile("a.sources.jar").await();
+                    final File aTestsJarFile = outputsFolder.getFile("a.tests.jar").await();
+                    final File aJarFile = outputsFolder.getFile("a.jar").await();
+                    final File packJsonFile = outputsFolder.getFile("pack.json").await();
+                    final String jvmClassPath = "/fake-jvm-classpath";
+                    process.getProcessFactory()
+                        .add(new FakeJavacProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addVersion()
+                            .setVersionFunctionAutomatically("javac 14.0.1"))
+                        .add(new FakeJavacProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addOutputFolder(outputsFolder)
+                            .addXlintUnchecked()
+                            .addXlintDeprecation()
+                            .addClasspath(outputsFolder)
+                            .addSourceFiles(aJavaFile, aTestsJavaFile)
+                            .setCompileFunctionAutomatically())
+                        .add(new FakeConsoleTestRunnerProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addClasspath(Iterable.create(outputsFolder.toString(), jvmClassPath))
+                            .addConsoleTestRunnerFullClassName()
+                            .addProfiler(false)
+                            .addVerbose(false)
+                            .addTestJson(true)
+                            .addLogFile(qubTestLogFile)
+                            .addOutputFolder(outputsFolder)
+                            .addCoverage(Coverage.None)
+                            .addFullClassNamesToTest(Iterable.create("A", "ATests")))
+                        .add(new FakeJarProcessRun()
+                            .setWorkingFolder(sourcesFolder)
+                            .addCreate()
+                            .addJarFile(QubPack.getUnpublishedJarFile(aSourcesJarFile))
+                            .addContentFilePath(aJavaFile.relativeTo(sourcesFolder))
+                            .setFunctionAutomatically())
+                        .add(new FakeJarProcessRun()
+                            .setWorkingFolder(outputsFolder)
+                            .addCreate()
+                            .addJarFile(aJarFile.relativeTo(outputsFolder))
+                            .addContentFilePaths(Iterable.create(aClassFile.relativeTo(outputsFolder)))
+                            .setFunctionAutomatically())
+                        .add(new FakeJarProcessRun()
+                            .setWorkingFolder(outputsFolder)
+                            .addCreate()
+                            .addJarFile(aTestsJarFile.relativeTo(outputsFolder))
+                            .addContentFilePaths(Iterable.create(aTestsClassFile.relativeTo(outputsFolder)))
+                            .setFunctionAutomatically());
+                    final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath)
+                        .setPackJson(true);
+
+                    final int exitCode = QubPack.run(parameters);
+
+                    test.assertLinesEqual(
+                        Iterable.create(
+                            "Compiling 2 files...",
+                            "Running tests...",
+                            "",
+                            "Creating sources jar file...",
+                            "Creating compiled sources jar file...",
+                            "Creating compiled tests jar file..."),
+                        process.getOutputWriteStream());
+                    test.assertLinesEqual(
+                        Iterable.create(),
+                        process.getErrorWriteStream());
+                    test.assertEqual(0, exitCode);
+
+                    test.assertEqual(
+                        Iterable.create(
+                            "Content Files:",
+                            "A.java"),
+                        Strings.getLines(aSourcesJarFile.getContentsAsString().await()));
+                    test.assertEqual(
+                        Iterable.create(
+                            "Content Files:",
+                            "A.class"),
+                        Strings.getLines(aJarFile.getContentsAsString().await()));
+                    test.assertEqual(
+                        Iterable.create(
+                            "Content Files:",
+                            "ATests.class"),
+                        Strings.getLines(aTestsJarFile.getContentsAsString().await()));
+                    test.assertEqual(
+                        PackJSON.create()
+                            .setSourceFiles(Iterable.create(
+                                PackJSONFile.create(aJavaFile.relativeTo(sourcesFolder), aJavaFile.getLastModified().await())))
+                            .setSourceOutputFiles(Iterable.create(
+                                PackJSONFile.create(aClassFile.relativeTo(outputsFolder), aClassFile.getLastModified().await())))
+                            .setTestOutputFiles(Iterable.create(
+                                PackJSONFile.create(aTestsClassFile.relativeTo(outputsFolder), aTestsClassFile.getLastModified().await())))
+                            .setProject("a")
+                            .toString(JSONFormat.pretty),
+                        packJsonFile.getContentsAsString().await());
+                    final File packTestsJsonFile = outputsFolder.getFile("pack.tests.json").await();
+                    final String testsFingerprint = QubPack.getTestsFingerprint(parameters, projectJsonFile, Iterable.create(
+                        FolderSnapshot.create(sourcesFolder, ".java", false),
+                        FolderSnapshot.create(outputsFolder, ".class", true),
+                        FolderSnapshot.create(testsFolder, ".java", false)));
+                    test.assertEqual(
+                        PackTestsJSON.create()
+                            .setTestsPassedFingerprint(testsFingerprint)
+                            .toString(JSONFormat.pretty),
+                        packTestsJsonFile.getContentsAsString().await());
+
+                    final int secondExitCode = QubPack.run(parameters);
+
+                    test.assertLinesEqual(
+                        Iterable.create(
+                            "Compiling 2 files...",
+                            "Running tests...",
+                            "",
+                            "Creating sources jar file...",
+                            "Creating compiled sources jar file...",
+                            "Creating compiled tests jar file...",
+                            "Skipping compilation and tests because nothing has changed since the tests last passed. Use --forcetests to run them anyway.",
+                            "Skipping sources jar file.",
+                            "Skipping compiled sources jar file.",
+                            "Skipping compiled tests jar file."),
+                        process.getOutputWriteStream());
+                    test.assertLinesEqual(
+                        Iterable.create(),
+                        process.getErrorWriteStream());
+                    test.assertEqual(0, secondExitCode);
+                });
+
+                runner.test("with packjson=true with existing empty pack.json file",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubFolder qubFolder = process.getQubFolder().await();
+                    final QubProjectFolder qubTestProjectFolder = qubFolder.getProjectFolder("qub", "test-java").await();
+                    final File qubTestLogFile = qubTestProjectFolder.getProjectDataFolder().await()
+                        .getFile("logs/1.log").await();
+                    final Folder currentFolder = process.getCurrentFolder();
+                    final File projectJsonFile = currentFolder.getFile("project.json").await();
+                    projectJsonFile.setContentsAsString(
+                        ProjectJSON.create()
+                            .setPublisher("me")
+                            .setProject("a")
+                            .setVersion("34")
+                            .setJava(ProjectJSONJava.create())
+                            .toString())
+                        .await();
+                    final Folder sourcesFolder = currentFolder.getFolder("sources").await();
+                    final File aJavaFile = sourcesFolder.getFile("A.java").await();
+                    aJavaFile.setContentsAsString("A.java source").await();
+                    final Folder testsFolder = currentFolder.getFolder("tests").await();
+                    final File aTestsJavaFile = testsFolder.getFile("ATests.java").await();
+                    aTestsJavaFile.setContentsAsString("ATests.java source").await();
+                    final Folder outputsFolder = currentFolder.getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A.java bytecode").await();
+                    final File aTestsClassFile = outputsFolder.getFile("ATests.class").await();
+                    aTestsClassFile.setContentsAsString("ATests.java bytecode").await();
+                    final File aSourcesJarFile = outputsFolder.getFile("a.sources.jar").await();
+                    final File aTestsJarFile = outputsFolder.getFile("a.tests.jar").await();
+                    final File aJarFile = outputsFolder.getFile("a.jar").await();
+                    final File packJsonFile = outputsFolder.getFile("pack.json").await();
+                    packJsonFile.create().await();
+                    final String jvmClassPath = "/fake-jvm-classpath";
+                    process.getProcessFactory()
+                        .add(new FakeJavacProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addVersion()
+                            .setVersionFunctionAutomatically("javac 14.0.1"))
+                        .add(new FakeJavacProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addOutputFolder(outputsFolder)
+                            .addXlintUnchecked()
+                            .addXlintDeprecation()
+                            .addClasspath(outputsFolder)
+                            .addSourceFiles(aJavaFile, aTestsJavaFile)
+                            .setCompileFunctionAutomatically())
+                        .add(new FakeConsoleTestRunnerProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addClasspath(Iterable.create(outputsFolder.toString(), jvmClassPath))
+                            .addConsoleTestRunnerFullClassName()
+                            .addProfiler(false)
+                            .addVerbose(false)
+                            .addTestJson(true)
+                            .addLogFile(qubTestLogFile)
+                            .addOutputFolder(outputsFolder)
+                            .addCoverage(Coverage.None)
+                            .addFullClassNamesToTest(Iterable.create("A", "ATests")))
+                        .add(new FakeJarProcessRun()
+                            .setWorkingFolder(sourcesFolder)
+                            .addCreate()
+                            .addJarFile(QubPack.getUnpublishedJarFile(aSourcesJarFile))
+                            .addContentFilePath(aJavaFile.relativeTo(sourcesFolder))
+                            .setFunctionAutomatically())
+                        .add(new FakeJarProcessRun()
+                            .setWorkingFolder(outputsFolder)
+                            .addCreate()
+                            .addJarFile(aJarFile.relativeTo(outputsFolder))
+                            .addContentFilePaths(Iterable.create(aClassFile.relativeTo(outputsFolder)))
+                            .setFunctionAutomatically())
+                        .add(new FakeJarProcessRun()
+                            .setWorkingFolder(outputsFolder)
+                            .addCreate()
+                            .addJarFile(aTestsJarFile.relativeTo(outputsFolder))
+                            .addContentFilePaths(Iterable.create(aTestsClassFile.relativeTo(outputsFolder)))
+                            .setFunctionAutomatically());
+                    final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath)
+                        .setPackJson(true);
+
+                    final int exitCode = QubPack.run(parameters);
+
+                    test.assertLinesEqual(
+                        Iterable.create(
+                            "Compiling 2 files...",
+                            "Running tests...",
+                            "",
+                            "Creating sources jar file...",
+                            "Creating compiled sources jar file...",
+                            "Creating compiled tests jar file..."),
+                        process.getOutputWriteStream());
+                    test.assertLinesEqual(
+                        Iterable.create(),
+                        process.getErrorWriteStream());
+                    test.assertEqual(0, exitCode);
+
+                    test.assertEqual(
+                        Iterable.create(
+                            "Content Files:",
+                            "A.java"),
+                        Strings.getLines(aSourcesJarFile.getContentsAsString().await()));
+                    test.assertEqual(
+                        Iterable.create(
+                            "Content Files:",
+                            "A.class"),
+                        Strings.getLines(aJarFile.getContentsAsString().await()));
+                    test.assertEqual(
+                        Iterable.create(
+                            "Content Files:",
+                            "ATests.class"),
+                        Strings.getLines(aTestsJarFile.getContentsAsString().await()));
+                    test.assertEqual(
+                        PackJSON.create()
+                            .setSourceFiles(Iterable.create(
+                                PackJSONFile.create(aJavaFile.relativeTo(sourcesFolder), aJavaFile.getLastModified().await())))
+                            .setSourceOutputFiles(Iterable.create(
+                                PackJSONFile.create(aClassFile.relativeTo(outputsFolder), aClassFile.getLastModified().await())))
+                            .setTestOutputFiles(Iterable.create(
+                                PackJSONFile.create(aTestsClassFile.relativeTo(outputsFolder), aTestsClassFile.getLastModified().await())))
+                            .setProject("a")
+                            .toString(JSONFormat.pretty),
+                        packJsonFile.getContentsAsString().await());
+                });
+
+                runner.test("with jarengine=internal",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubFolder qubFolder = process.getQubFolder().await();
+                    final QubProjectFolder qubTestProjectFolder = qubFolder.getProjectFolder("qub", "test-java").await();
+                    final File qubTestLogFile = qubTestProjectFolder.getProjectDataFolder().await()
+                        .getFile("logs/1.log").await();
+                    final Folder currentFolder = process.getCurrentFolder();
+                    final File projectJsonFile = currentFolder.getFile("project.json").await();
+                    projectJsonFile.setContentsAsString(
+                        ProjectJSON.create()
+                            .setPublisher("me")
+                            .setProject("a")
+                            .setVersion("34")
+                            .setJava(ProjectJSONJava.create()
+                                .setMainClass("b.A"))
+                            .toString())
+                        .await();
+                    final Folder sourcesFolder = currentFolder.getFolder("sources").await();
+                    final File aJavaFile = sourcesFolder.getFile("b/A.java").await();
+                    aJavaFile.setContentsAsString("A.java source").await();
+                    final Folder outputsFolder = currentFolder.getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("b/A.class").await();
+                    aClassFile.setContentsAsString("A.java bytecode").await();
+                    final File aSourcesJarFile = outputsFolder.getFile("a.sources.jar").await();
+                    final File aJarFile = outputsFolder.getFile("a.jar").await();
+                    final String jvmClassPath = "/fake-jvm-classpath";
+                    process.getProcessFactory()
+                        .add(new FakeJavacProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addVersion()
+                            .setVersionFunctionAutomatically("javac 14.0.1"))
+                        .add(new FakeJavacProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addOutputFolder(outputsFolder)
+                            .addXlintUnchecked()
+                            .addXlintDeprecation()
+                            .addClasspath(outputsFolder)
+                            .addSourceFile(aJavaFile.relativeTo(currentFolder))
+                            .setCompileFunctionAutomatically())
+                        .add(new FakeConsoleTestRunnerProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addClasspath(Iterable.create(outputsFolder.toString(), jvmClassPath))
+                            .addConsoleTestRunnerFullClassName()
+                            .addProfiler(false)
+                            .addVerbose(false)
+                            .addTestJson(true)
+                            .addLogFile(qubTestLogFile)
+                            .addOutputFolder(outputsFolder)
+                            .addCoverage(Coverage.None)
+                            .addFullClassNamesToTest(Iterable.create("b.A")));
+                    final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath)
+                        .setJarEngine(JarEngine.Internal);
+
+                    final int exitCode = QubPack.run(parameters);
+
+                    test.assertLinesEqual(
+                        Iterable.create(
+                            "Compiling 1 file...",
+                            "Running tests...",
+                            "",
+                            "Creating sources jar file...",
+                            "Creating compiled sources jar file..."),
+                        process.getOutputWriteStream());
+                    test.assertLinesEqual(
+                        Iterable.create(),
+                        process.getErrorWriteStream());
+                    test.assertEqual(0, exitCode);
+
+                    test.assertEqual(
+                        Iterable.create(
+                            "META-INF/",
+                            "META-INF/MANIFEST.MF",
+                            "b/",
+                            "b/A.java"),
+                        QubPackTests.getJarEntryNames(aSourcesJarFile));
+                    test.assertEqual(
+                        Iterable.create(
+                            "META-INF/",
+                            "META-INF/MANIFEST.MF",
+                            "b/",
+                            "b/A.class"),
+                        QubPackTests.getJarEntryNames(aJarFile));
+                    test.assertEqual("A.java bytecode", QubPackTests.getJarEntryContents(aJarFile, "b/A.class"));
+                    test.assertEqual("b.A", QubPackTests.getJarMainClass(aJarFile));
+                });
+
+                runner.test("with packmetrics=true",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubFolder qubFolder = process.getQubFolder().await();
+                    final QubProjectFolder qubTestProjectFolder = qubFolder.getProjectFolder("qub", "test-java").await();
+                    final File qubTestLogFile = qubTestProjectFolder.getProjectDataFolder().await()
+                        .getFile("logs/1.log").await();
+                    final Folder currentFolder = process.getCurrentFolder();
+                    final File projectJsonFile = currentFolder.getFile("project.json").await();
+                    projectJsonFile.setContentsAsString(
+                        ProjectJSON.create()
+                            .setPublisher("me")
+                            .setProject("a")
+                            .setVersion("34")
+                            .setJava(ProjectJSONJava.create()
+                                .setMainClass("b.A"))
+                            .toString())
+                        .await();
+                    final Folder sourcesFolder = currentFolder.getFolder("sources").await();
+                    final File aJavaFile = sourcesFolder.getFile("b/A.java").await();
+                    aJavaFile.setContentsAsString("A.java source").await();
+                    final Folder outputsFolder = currentFolder.getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("b/A.class").await();
+                    aClassFile.setContentsAsString("A.java bytecode").await();
+                    final File aSourcesJarFile = outputsFolder.getFile("a.sources.jar").await();
+                    final File aJarFile = outputsFolder.getFile("a.jar").await();
+                    final String jvmClassPath = "/fake-jvm-classpath";
+                    process.getProcessFactory()
+                        .add(new FakeJavacProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addVersion()
+                            .setVersionFunctionAutomatically("javac 14.0.1"))
+                        .add(new FakeJavacProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addOutputFolder(outputsFolder)
+                            .addXlintUnchecked()
+                            .addXlintDeprecation()
+                            .addClasspath(outputsFolder)
+                            .addSourceFile(aJavaFile.relativeTo(currentFolder))
+                            .setCompileFunctionAutomatically())
+                        .add(new FakeConsoleTestRunnerProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addClasspath(Iterable.create(outputsFolder.toString(), jvmClassPath))
+                            .addConsoleTestRunnerFullClassName()
+                            .addProfiler(false)
+                            .addVerbose(false)
+                            .addTestJson(true)
+                            .addLogFile(qubTestLogFile)
+                            .addOutputFolder(outputsFolder)
+                            .addCoverage(Coverage.None)
+                            .addFullClassNamesToTest(Iterable.create("b.A")));
+                    final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath)
+                        .setJarEngine(JarEngine.Internal)
+                        .setPackMetrics(true);
+
+                    final int exitCode = QubPack.run(parameters);
+
+                    test.assertLinesEqual(
+                        Iterable.create(
+                            "Compiling 1 file...",
+                            "Running tests...",
+                            "",
+                            "Creating sources jar file...",
+                            "Creating compiled sources jar file..."),
+                        process.getOutputWriteStream());
+                    test.assertLinesEqual(
+                        Iterable.create(),
+                        process.getErrorWriteStream());
+                    test.assertEqual(0, exitCode);
+
+                    test.assertEqual(
+                        Iterable.create(
+                            "META-INF/",
+                            "META-INF/MANIFEST.MF",
+                            "b/",
+                            "b/A.java"),
+                        QubPackTests.getJarEntryNames(aSourcesJarFile));
+                    test.assertEqual(
+                        Iterable.create(
+                            "META-INF/",
+                            "META-INF/MANIFEST.MF",
+                            "b/",
+                            "b/A.class"),
+                        QubPackTests.getJarEntryNames(aJarFile));
+                    test.assertEqual("A.java bytecode", QubPackTests.getJarEntryContents(aJarFile, "b/A.class"));
+                    test.assertEqual("b.A", QubPackTests.getJarMainClass(aJarFile));
+
+                    final File packMetricsJsonFile = outputsFolder.getFile("pack-metrics.json").await();
+                    final JSONObject packMetricsJson = JSON.parseObject(packMetricsJsonFile.getContentsAsString().await()).await();
+                    final Iterable<String> phaseNames = packMetricsJson.getObject("phases").await()
+                        .getProperties()
+                        .map(JSONProperty::getName)
+                        .toList();
+                    for (final String phaseName : Iterable.create(
+                        "packJsonLoad",
+                        "testRun",
+                        "scanSources",
+                        "scanOutputs",
+                        "scanTests",
+                        "sourcesChanges",
+                        "sourcesJar",
+                        "publishSourcesJar",
+                        "matchClassFiles",
+                        "compiledSourcesChanges",
+                        "compiledSourcesJar",
+                        "packJsonWrite"))
+                    {
+                        test.assertTrue(phaseNames.contains(phaseName), phaseName);
+                    }
+                    test.assertFalse(phaseNames.contains("compiledTestsJar"));
+                    test.assertEqual(
+                        1.0,
+                        packMetricsJson.getObject("phases").await()
+                            .getObject("compiledSourcesJar").await()
+                            .getNumber("files").await());
+                    test.assertTrue(packMetricsJson.getNumber("totalWallMilliseconds").await() >= 0);
+                });
+
+                runner.test("with pipelinedpack=true",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubFolder qubFolder = process.getQubFolder().await();
+                    final QubProjectFolder qubTestProjectFolder = qubFolder.getProjectFolder("qub", "test-java").await();
+                    final File qubTestLogFile = qubTestProjectFolder.getProjectDataFolder().await()
+                        .getFile("logs/1.log").await();
+                    final Folder currentFolder = process.getCurrentFolder();
+                    final File projectJsonFile = currentFolder.getFile("project.json").await();
+                    projectJsonFile.setContentsAsString(
+                        ProjectJSON.create()
+                            .setPublisher("me")
+                            .setProject("a")
+                            .setVersion("34")
+                            .setJava(ProjectJSONJava.create()
+                                .setMainClass("b.A"))
+                            .toString())
+                        .await();
+                    final Folder sourcesFolder = currentFolder.getFolder("sources").await();
+                    final File aJavaFile = sourcesFolder.getFile("b/A.java").await();
+                    aJavaFile.setContentsAsString("A.java source").await();
+                    final Folder outputsFolder = currentFolder.getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("b/A.class").await();
+                    aClassFile.setContentsAsString("A.java bytecode").await();
+                    final File aSourcesJarFile = outputsFolder.getFile("a.sources.jar").await();
+                    final File aJarFile = outputsFolder.getFile("a.jar").await();
+                    final String jvmClassPath = "/fake-jvm-classpath";
+                    process.getProcessFactory()
+                        .add(new FakeJavacProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addVersion()
+                            .setVersionFunctionAutomatically("javac 14.0.1"))
+                        .add(new FakeJavacProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addOutputFolder(outputsFolder)
+                            .addXlintUnchecked()
+                            .addXlintDeprecation()
+                            .addClasspath(outputsFolder)
+                            .addSourceFile(aJavaFile.relativeTo(currentFolder))
+                            .setCompileFunctionAutomatically())
+                        .add(new FakeConsoleTestRunnerProcessRun()
+                            .setWorkingFolder(currentFolder)
+                            .addClasspath(Iterable.create(outputsFolder.toString(), jvmClassPath))
+                            .addConsoleTestRunnerFullClassName()
+                            .addProfiler(false)
+                            .addVerbose(false)
+                            .addTestJson(true)
+                            .addLogFile(qubTestLogFile)
+                            .addOutputFolder(outputsFolder)
+                            .addCoverage(Coverage.None)
+                            .addFullClassNamesToTest(Iterable.create("b.A")));
+                    final QubPackParameters parameters = QubPackTests.getParameters(process, jvmClassPath)
+                        .setPackJson(true)
+                        .setJarEngine(JarEngine.Internal)
+                        .setPipelinedPack(true);
+
+                    final int exitCode = QubPack.run(parameters);
+
+                    test.assertLinesEqual(
+                        Iterable.create(
+                            "Compiling 1 file...",
+                            "Running tests...",
+                            "",
+                            "Creating sources jar file...",
+                            "Creating compiled sources jar file..."),
+                        process.getOutputWriteStream());
+                    test.assertLinesEqual(
+                        Iterable.create(),
+                        process.getErrorWriteStream());
+                    test.assertEqual(0, exitCode);
+
+                    test.assertEqual(
+                        Iterable.create(
+                            "META-INF/",
+                            "META-INF/MANIFEST.MF",
+                            "b/",
+                            "b/A.java"),
+                        QubPackTests.getJarEntryNames(aSourcesJarFile));
+                    test.assertEqual(
+                        Iterable.create(
+                            "META-INF/",
+                            "META-INF/MANIFEST.MF",
+                            "b/",
+                            "b/A.class"),
+                        QubPackTests.getJarEntryNames(aJarFile));
+                    test.assertEqual("A.java bytecode", QubPackTests.getJarEntryContents(aJarFile, "b/A.class"));
+                    test.assertEqual("b.A", QubPackTests.getJarMainClass(aJarFile));
+                    test.assertFalse(sourcesFolder.getFile("a.sources.jar").await().exists().await());
+                    test.assertFalse(QubPack.getUnpublishedJarFile(aSourcesJarFile).exists().await());
+                    final PackJSON packJson = PackJSON.create(JSON.parseObject(outputsFolder.getFile("pack.json").await().getContentsAsString().await()).await());
+                    test.assertEqual(
+                        Iterable.create(aJavaFile.relativeTo(sourcesFolder)),
+                        packJson.getSourceFiles().map(PackJSONFile::getRelativePath).toList());
+                });
+            });
+
+            runner.testGroup("getUnpublishedJarFile(File)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    test.assertThrows(() -> QubPack.getUnpublishedJarFile(null),
+                        new PreConditionFailure("publishedJarFile cannot be null."));
+                });
+
+                runner.test("with jar file",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final File jarFile = process.getCurrentFolder().getFile("outputs/a.sources.jar").await();
+                    test.assertEqual(process.getCurrentFolder().getFile("outputs/a.sources.jar.tmp").await(), QubPack.getUnpublishedJarFile(jarFile));
+                });
+            });
+
+            runner.testGroup("moveFile(File,File)", () ->
+            {
+                runner.test("with destination that doesn't exist",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final File file = process.getCurrentFolder().getFile("outputs/a.sources.jar.tmp").await();
+                    file.setContentsAsString("new").await();
+                    final File destination = process.getCurrentFolder().getFile("outputs/a.sources.jar").await();
+
+                    QubPack.moveFile(file, destination);
+
+                    test.assertFalse(file.exists().await());
+                    test.assertEqual("new", destination.getContentsAsString().await());
+                });
+
+                runner.test("with destination that exists",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final File file = process.getCurrentFolder().getFile("outputs/a.sources.jar.tmp").await();
+                    file.setContentsAsString("new").await();
+                    final File destination = process.getCurrentFolder().getFile("outputs/a.sources.jar").await();
+                    destination.setContentsAsString("old").await();
+
+                    QubPack.moveFile(file, destination);
+
+                    test.assertFalse(file.exists().await());
+                    test.assertEqual("new", destination.getContentsAsString().await());
+                });
+            });
+
+            runner.testGroup("getTestsFingerprint(QubPackParameters,File,Iterable<FolderSnapshot>)", () ->
+            {
+                runner.test("with null parameters",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final File projectJsonFile = process.getCurrentFolder().getFile("project.json").await();
+                    test.assertThrows(() -> QubPack.getTestsFingerprint(null, projectJsonFile, Iterable.create()),
+                        new PreConditionFailure("parameters cannot be null."));
+                });
+
+                runner.test("with null projectJsonFile",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters parameters = QubPackTests.getParameters(process);
+                    test.assertThrows(() -> QubPack.getTestsFingerprint(parameters, null, Iterable.create()),
+                        new PreConditionFailure("projectJsonFile cannot be null."));
+                });
+
+                runner.test("with changes",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubPackParameters parameters = QubPackTests.getParameters(process);
+                    final Folder currentFolder = process.getCurrentFolder();
+                    final File projectJsonFile = currentFolder.getFile("project.json").await();
+                    projectJsonFile.setContentsAsString("{}").await();
+                    final Folder outputsFolder = currentFolder.getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A.java bytecode").await();
+                    final Function0<String> getTestsFingerprint = () -> QubPack.getTestsFingerprint(parameters, projectJsonFile, Iterable.create(
+                        FolderSnapshot.create(outputsFolder, ".class", true)));
+
+                    final String fingerprint = getTestsFingerprint.run();
+                    test.assertTrue(fingerprint.startsWith("sha256:"));
+                    test.assertEqual(fingerprint, getTestsFingerprint.run());
+
+                    outputsFolder.getFile("META-INF/MANIFEST.MF").await().setContentsAsString("Manifest-Version: 1.0").await();
+                    outputsFolder.getFile("a.jar").await().setContentsAsString("jar").await();
+                    test.assertEqual(fingerprint, getTestsFingerprint.run());
+
+                    outputsFolder.getFile("B.class").await().setContentsAsString("B.java bytecode").await();
+                    final String fingerprintWithNewFile = getTestsFingerprint.run();
+                    test.assertNotEqual(fingerprint, fingerprintWithNewFile);
+
+                    projectJsonFile.setContentsAsString("{\"java\":{\"dependencies\":[{\"publisher\":\"a\",\"project\":\"b\",\"version\":\"1\"}]}}").await();
+                    final String fingerprintWithDependency = getTestsFingerprint.run();
+                    test.assertNotEqual(fingerprintWithNewFile, fingerprintWithDependency);
+
+                    process.getQubFolder().await().getCompiledSourcesFile("a", "b", "1").await().setContentsAsString("b.jar").await();
+                    final String fingerprintWithDependencyFile = getTestsFingerprint.run();
+                    test.assertNotEqual(fingerprintWithDependency, fingerprintWithDependencyFile);
+
+                    parameters.setPattern("*ATests");
+                    final String fingerprintWithPattern = getTestsFingerprint.run();
+                    test.assertNotEqual(fingerprintWithDependencyFile, fingerprintWithPattern);
+
+                    parameters.setCoverage(Coverage.Sources);
+                    test.assertNotEqual(fingerprintWithPattern, getTestsFingerprint.run());
+                });
+            });
+
+            runner.testGroup("getDependencyCompiledSourcesFiles(QubFolder,File)", () ->
+            {
+                runner.test("with null qubFolder",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final File projectJsonFile = process.getCurrentFolder().getFile("project.json").await();
+                    test.assertThrows(() -> QubPack.getDependencyCompiledSourcesFiles(null, projectJsonFile),
+                        new PreConditionFailure("qubFolder cannot be null."));
+                });
+
+                runner.test("with null projectJsonFile",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubFolder qubFolder = process.getQubFolder().await();
+                    test.assertThrows(() -> QubPack.getDependencyCompiledSourcesFiles(qubFolder, null),
+                        new PreConditionFailure("projectJsonFile cannot be null."));
+                });
+
+                runner.test("with no project.json file",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubFolder qubFolder = process.getQubFolder().await();
+                    final File projectJsonFile = process.getCurrentFolder().getFile("project.json").await();
+                    test.assertEqual(Iterable.create(), QubPack.getDependencyCompiledSourcesFiles(qubFolder, projectJsonFile));
+                });
+
+                runner.test("with transitive dependencies",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final QubFolder qubFolder = process.getQubFolder().await();
+                    final File projectJsonFile = process.getCurrentFolder().getFile("project.json").await();
+                    projectJsonFile.setContentsAsString("{\"java\":{\"dependencies\":[{\"publisher\":\"a\",\"project\":\"b\",\"version\":\"1\"}]}}").await();
+                    final File bCompiledSourcesFile = qubFolder.getCompiledSourcesFile("a", "b", "1").await();
+                    final File cCompiledSourcesFile = qubFolder.getCompiledSourcesFile("a", "c", "2").await();
+                    bCompiledSourcesFile.getParentFolder().await().getFile("project.json").await()
+                        .setContentsAsString("{\"java\":{\"dependencies\":[{\"publisher\":\"a\",\"project\":\"c\",\"version\":\"2\"}]}}").await();
+                    cCompiledSourcesFile.getParentFolder().await().getFile("project.json").await()
+                        .setContentsAsString("{\"java\":{\"dependencies\":[{\"publisher\":\"a\",\"project\":\"b\",\"version\":\"1\"}]}}").await();
+
+                    test.assertEqual(
+                        Iterable.create(bCompiledSourcesFile, cCompiledSourcesFile),
+                        QubPack.getDependencyCompiledSourcesFiles(qubFolder, projectJsonFile));
+                });
+            });
+
+            runner.testGroup("getJarFileChanges(PackJSON,Function1<PackJSON,Iterable<PackJSONFile>>,Action2<PackJSON,Iterable<PackJSONFile>>,String,Folder,Iterable<File>,boolean)", () ->
+            {
+                runner.test("with null packJson",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A bytecode").await();
+
+                    final JarFileChanges changes = QubPack.getJarFileChanges(null, PackJSON::getSourceOutputFiles, PackJSON::setSourceOutputFiles, "a", outputsFolder, Iterable.create(aClassFile), true);
+                    test.assertFalse(changes.isPreviousStateKnown());
+                    test.assertTrue(changes.hasChanges());
+                });
+
+                runner.test("with content hash and a file that was rewritten with identical contents",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A bytecode").await();
+                    final byte[] aClassFileContents = aClassFile.getContentsAsByteArray().await();
+                    final Path aClassFileRelativePath = aClassFile.relativeTo(outputsFolder);
+                    final String aClassFileContentHash = PackJSONFile.getContentHash(aClassFileContents);
+                    final PackJSON packJson = PackJSON.create()
+                        .setProject("a")
+                        .setSourceOutputFiles(Iterable.create(
+                            PackJSONFile.create(aClassFileRelativePath, DateTime.create(1, 2, 3), aClassFileContents.length, aClassFileContentHash)));
+
+                    final JarFileChanges changes = QubPack.getJarFileChanges(packJson, PackJSON::getSourceOutputFiles, PackJSON::setSourceOutputFiles, "a", outputsFolder, Iterable.create(aClassFile), true);
+                    test.assertFalse(changes.hasChanges());
+                    test.assertEqual(1, changes.getUnchangedFiles().getCount());
+                    test.assertEqual(
+                        Iterable.create(
+                            PackJSONFile.create(aClassFileRelativePath, aClassFile.getLastModified().await(), aClassFileContents.length, aClassFileContentHash)),
+                        packJson.getSourceOutputFiles());
+                });
+
+                runner.test("with content hash and a file with different contents",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A bytecode").await();
+                    final Path aClassFileRelativePath = aClassFile.relativeTo(outputsFolder);
+                    final byte[] previousContents = "Old A bytecode".getBytes(java.nio.charset.StandardCharsets.UTF_8);
+                    final PackJSON packJson = PackJSON.create()
+                        .setProject("a")
+                        .setSourceOutputFiles(Iterable.create(
+                            PackJSONFile.create(aClassFileRelativePath, DateTime.create(1, 2, 3), previousContents.length, PackJSONFile.getContentHash(previousContents))));
+
+                    final JarFileChanges changes = QubPack.getJarFileChanges(packJson, PackJSON::getSourceOutputFiles, PackJSON::setSourceOutputFiles, "a", outputsFolder, Iterable.create(aClassFile), true);
+                    test.assertTrue(changes.hasChanges());
+                    test.assertEqual(1, changes.getModifiedFiles().getCount());
+                });
+
+                runner.test("without content hash and a file that was rewritten with identical contents",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A bytecode").await();
+                    final PackJSON packJson = PackJSON.create()
+                        .setProject("a")
+                        .setSourceOutputFiles(Iterable.create(
+                            PackJSONFile.create(aClassFile.relativeTo(outputsFolder), DateTime.create(1, 2, 3))));
+
+                    final JarFileChanges changes = QubPack.getJarFileChanges(packJson, PackJSON::getSourceOutputFiles, PackJSON::setSourceOutputFiles, "a", outputsFolder, Iterable.create(aClassFile), false);
+                    test.assertTrue(changes.hasChanges());
+                    test.assertEqual(1, changes.getModifiedFiles().getCount());
+                });
+
+                runner.test("with 50000 files",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final int fileCount = 50000;
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final List<File> classFiles = List.create();
+                    for (int i = 0; i < fileCount; ++i)
+                    {
+                        final File classFile = outputsFolder.getFile("p" + (i % 100) + "/C" + i + ".class").await();
+                        classFile.setContentsAsString("C" + i).await();
+                        classFiles.add(classFile);
+                    }
+                    final PackJSON packJson = PackJSON.create();
+
+                    // Change detection used to scan the previous files once for every file, which
+                    // made this test take minutes instead of seconds.
+                    final long startNanoseconds = System.nanoTime();
+
+                    final JarFileChanges firstChanges = QubPack.getJarFileChanges(packJson, PackJSON::getSourceOutputFiles, PackJSON::setSourceOutputFiles, "a", outputsFolder, classFiles, false);
+                    test.assertTrue(firstChanges.hasChanges());
+                    test.assertEqual(fileCount, firstChanges.getNewFiles().getCount());
+                    packJson.setProject("a");
+
+                    final JarFileChanges secondChanges = QubPack.getJarFileChanges(packJson, PackJSON::getSourceOutputFiles, PackJSON::setSourceOutputFiles, "a", outputsFolder, classFiles.skipLast(), false);
+                    test.assertTrue(secondChanges.hasChanges());
+                    test.assertEqual(fileCount - 1, secondChanges.getUnchangedFiles().getCount());
+                    test.assertEqual(1, secondChanges.getDeletedFiles().getCount());
+                    test.assertEqual(0, secondChanges.getModifiedFiles().getCount());
+
+                    final long elapsedSeconds = (System.nanoTime() - startNanoseconds) / 1_000_000_000L;
+                    test.assertLessThan(elapsedSeconds, 60L);
+                });
+
+                runner.test("with a deleted file",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder outputsFolder = process.getCurrentFolder().getFolder("outputs").await();
+                    final File aClassFile = outputsFolder.getFile("A.class").await();
+                    aClassFile.setContentsAsString("A bytecode").await();
+                    final PackJSON packJson = PackJSON.create()
+                        .setProject("a")
+                        .setSourceOutputFiles(Iterable.create(
+                            PackJSONFile.create(aClassFile.relativeTo(outputsFolder), aClassFile.getLastModified().await()),
+                            PackJSONFile.create("B.class", DateTime.create(1, 2, 3))));
+
+                    final JarFileChanges changes = QubPack.getJarFileChanges(packJson, PackJSON::getSourceOutputFiles, PackJSON::setSourceOutputFiles, "a", outputsFolder, Iterable.create(aClassFile), false);
+                    test.assertTrue(changes.hasChanges());
+                    test.assertEqual(1, changes.getUnchangedFiles().getCount());
+                    test.assertEqual(
+                        Iterable.create(
+                            PackJSONFile.create("B.class", DateTime.create(1, 2, 3))),
+                        changes.getDeletedFiles());
+                });
+            });
+        });
+    }
+
+    static QubPackParameters getParameters(FakeDesktopProcess process)
+    {
+        PreCondition.assertNotNull(process, "process");
+
+        return QubPackParametersTests.getParameters(process, "/fake-jvm-classpath");
+    }
+
+    static void addQubBuildAndQubTestTypeContainers(FakeDesktopProcess process)
+    {
+        PreCondition.assertNotNull(process, "process");
+
+        final QubFolder qubFolder = process.getQubFolder().await();
+        final QubProjectFolder qubBuildProjectFolder = qubFolder.getProjectFolder("qub", "build-java").await();
+        final File qubBuildCompiledSourcesFile = qubBuildProjectFolder.getCompiledSourcesFile("7").await();
+        qubBuildCompiledSourcesFile.create().await();
+        final QubProjectFolder qubTestProjectFolder = qubFolder.getProjectFolder("qub", "test-java").await();
+        final File qubTestCompiledSourcesFile = qubTestProjectFolder.getCompiledSourcesFile("8").await();
+        qubTestCompiledSourcesFile.create().await();
+
+        process.getTypeLoader()
+            .addTypeContainer(QubBuild.class, qubBuildCompiledSourcesFile)
+            .addTypeContainer(QubTest.class, qubTestCompiledSourcesFile);
+    }
+
+    static QubPackParameters getParameters(FakeDesktopProcess process, String jvmClasspath)
+    {
+        PreCondition.assertNotNull(process, "process");
+        PreCondition.assertNotNullAndNotEmpty(jvmClasspath, "jvmClasspath");
+
+        final InMemoryCharacterToByteStream output = process.getOutputWriteStream();
+        final InMemoryCharacterToByteStream error = process.getErrorWriteStream();
+        final Folder folderToPack = process.getCurrentFolder();
+        final EnvironmentVariables environmentVariables = process.getEnvironmentVariables();
+        final FakeProcessFactory processFactory = process.getProcessFactory();
+        final FakeDefaultApplicationLauncher defaultApplicationLauncher = process.getDefaultApplicationLauncher();
+        final QubFolder qubFolder = process.getQubFolder().await();
+
+        final File qubBuildCompiledSourcesFile = qubFolder.getCompiledSourcesFile("qub", "build-java", "7").await();
+        qubBuildCompiledSourcesFile.create().await();
+        final File qubTestCompiledSourcesFile = qubFolder.getCompiledSourcesFile("qub", "test-java", "8").await();
+        qubTestCompiledSourcesFile.create().await();
+        final FakeTypeLoader typeLoader = process.getTypeLoader()
+            .addTypeContainer(QubBuild.class, qubBuildCompiledSourcesFile)
+            .addTypeContainer(QubTest.class, qubTestCompiledSourcesFile);
+
+        // The pack tests fake the jar executable, so they use the process jar engine unless
+        // they set a different one.
+        return new QubPackParameters(output, error, folderToPack, environmentVariables, processFactory, defaultApplicationLauncher, jvmClasspath, typeLoader, qubFolder)
+            .setJarEngine(JarEngine.Process);
+    }
+
+    static Iterable<String> getJarEntryNames(File jarFile)
+    {
+        PreCondition.assertNotNull(jarFile, "jarFile");
+
+        final List<String> result = List.create();
+        try (final java.util.zip.ZipInputStream zipStream = new java.util.zip.ZipInputStream(new java.io.ByteArrayInputStream(jarFile.getContentsAsByteArray().await())))
+        {
+            java.util.zip.ZipEntry entry = zipStream.getNextEntry();
+            while (entry != null)
+            {
+                result.add(entry.getName());
+                entry = zipStream.getNextEntry();
+            }
+        }
+        catch (java.io.IOException e)
+        {
+            throw Exceptions.asRuntime(e);
+        }
+        return result;
+    }
+
+    static String getJarEntryContents(File jarFile, String entryName)
+    {
+        PreCondition.assertNotNull(jarFile, "jarFile");
+        PreCondition.assertNotNullAndNotEmpty(entryName, "entryName");
+
+        String result = null;
+        try (final java.util.zip.ZipInputStream zipStream = new java.util.zip.ZipInputStream(new java.io.ByteArrayInputStream(jarFile.getContentsAsByteArray().await())))
+        {
+            java.util.zip.ZipEntry entry = zipStream.getNextEntry();
+            while (entry != null && result == null)
+            {
+                if (entry.getName().equals(entryName))
+                {
+                    result = new String(zipStream.readAllBytes(), java.nio.charset.StandardCharsets.UTF_8);
+                }
+                entry = zipStream.getNextEntry();
+            }
+        }
+        catch (java.io.IOException e)
+        {
+            throw Exceptions.asRuntime(e);
+        }
+        return result;
+    }
+
+    static String getJarMainClass(File jarFile)
+    {
+        PreCondition.assertNotNull(jarFile, "jarFile");
+
+        try (final java.util.jar.JarInputStream jarStream = new java.util.jar.JarInputStream(new java.io.ByteArrayInputStream(jarFile.getContentsAsByteArray().await())))
+        {
+            final java.util.jar.Manifest manifest = jarStream.getManifest();
+            return manifest == null ? null : manifest.getMainAttributes().getValue(java.util.jar.Attributes.Name.MAIN_CLASS);
+        }
+        catch (java.io.IOException e)
+        {
+            throw Exceptions.asRuntime(e);
+        }
     }
 }
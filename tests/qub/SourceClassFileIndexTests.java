@@ -0,0 +1,104 @@
+package qub;
+
+public interface SourceClassFileIndexTests
+{
+    static void test(TestRunner runner)
+    {
+        PreCondition.assertNotNull(runner, "runner");
+
+        runner.testGroup(SourceClassFileIndex.class, () ->
+        {
+            runner.testGroup("create(Folder,Iterable<File>)", () ->
+            {
+                runner.test("with null sourceFolder", (Test test) ->
+                {
+                    test.assertThrows(() -> SourceClassFileIndex.create(null, Iterable.create()),
+                        new PreConditionFailure("sourceFolder cannot be null."));
+                });
+
+                runner.test("with null sourceJavaFiles",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder sourceFolder = process.getCurrentFolder().getFolder("sources").await();
+                    test.assertThrows(() -> SourceClassFileIndex.create(sourceFolder, null),
+                        new PreConditionFailure("sourceJavaFiles cannot be null."));
+                });
+
+                runner.test("with no source files",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder sourceFolder = process.getCurrentFolder().getFolder("sources").await();
+                    final SourceClassFileIndex index = SourceClassFileIndex.create(sourceFolder, Iterable.create());
+                    test.assertNotNull(index);
+                    test.assertEqual(0, index.getCount());
+                });
+
+                runner.test("with source files",
+                    (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                    (Test test, FakeDesktopProcess process) ->
+                {
+                    final Folder sourceFolder = process.getCurrentFolder().getFolder("sources").await();
+                    final SourceClassFileIndex index = SourceClassFileIndex.create(sourceFolder, Iterable.create(
+                        sourceFolder.getFile("A.java").await(),
+                        sourceFolder.getFile("b/C.java").await()));
+                    test.assertEqual(2, index.getCount());
+                    test.assertTrue(index.contains("A"));
+                    test.assertTrue(index.contains("b/C"));
+                    test.assertFalse(index.contains("C"));
+                });
+            });
+
+            runner.testGroup("getClassFileKey(Folder,File)", () ->
+            {
+                final Action2<String,String> getClassFileKeyTest = (String classFileRelativePath, String expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(classFileRelativePath),
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final Folder outputFolder = process.getCurrentFolder().getFolder("outputs").await();
+                        final File outputClassFile = outputFolder.getFile(classFileRelativePath).await();
+                        test.assertEqual(expected, SourceClassFileIndex.getClassFileKey(outputFolder, outputClassFile));
+                    });
+                };
+
+                getClassFileKeyTest.run("A.class", "A");
+                getClassFileKeyTest.run("b/C.class", "b/C");
+                getClassFileKeyTest.run("A$B.class", "A");
+                getClassFileKeyTest.run("b/C$1.class", "b/C");
+                getClassFileKeyTest.run("b/C$D$E.class", "b/C");
+                getClassFileKeyTest.run("b/C$1$D.class", "b/C");
+            });
+
+            runner.testGroup("contains(Folder,File)", () ->
+            {
+                final Action2<String,Boolean> containsTest = (String classFileRelativePath, Boolean expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(classFileRelativePath),
+                        (TestResources resources) -> Tuple.create(resources.createFakeDesktopProcess()),
+                        (Test test, FakeDesktopProcess process) ->
+                    {
+                        final Folder sourceFolder = process.getCurrentFolder().getFolder("sources").await();
+                        final Folder outputFolder = process.getCurrentFolder().getFolder("outputs").await();
+                        final SourceClassFileIndex index = SourceClassFileIndex.create(sourceFolder, Iterable.create(
+                            sourceFolder.getFile("A.java").await(),
+                            sourceFolder.getFile("b/C.java").await()));
+                        final File outputClassFile = outputFolder.getFile(classFileRelativePath).await();
+                        test.assertEqual(expected, index.contains(outputFolder, outputClassFile));
+                    });
+                };
+
+                containsTest.run("A.class", true);
+                containsTest.run("A$B.class", true);
+                containsTest.run("A$B$C.class", true);
+                containsTest.run("b/C.class", true);
+                containsTest.run("b/C$1.class", true);
+                containsTest.run("C.class", false);
+                containsTest.run("b/A.class", false);
+                containsTest.run("D.class", false);
+            });
+        });
+    }
+}